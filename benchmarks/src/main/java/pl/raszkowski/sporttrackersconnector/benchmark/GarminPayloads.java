@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.benchmark;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * <pre>
+ *     Builds activity-search-service responses with the structure and field set of recorded Garmin Connect
+ *     responses: every activity carries its full summary (about 3 KB of json), of which the connector reads
+ *     only a few measures. Content is deterministic for given number of activities.
+ * </pre>
+ */
+public final class GarminPayloads {
+
+	private static final long FIRST_START_TIME_MILLIS = 1451606400000L;
+	private static final long ACTIVITY_INTERVAL_MILLIS = 86400000L;
+
+	private static final String[] ACTIVITY_TYPES = {"running", "cycling", "swimming", "hiking", "walking"};
+
+	private static final String[] SUMMARY_MEASURES = {"SumMovingDuration", "SumElapsedDuration", "MaxSpeed", "WeightedMeanSpeed",
+			"WeightedMeanMovingSpeed", "GainElevation", "LossElevation", "MinElevation", "MaxElevation", "WeightedMeanRunCadence",
+			"MaxRunCadence", "MinHeartRate", "MeanVerticalOscillation", "MeanGroundContactTime", "TotalTrainingEffect",
+			"SumStep", "MinAirTemperature", "MaxAirTemperature", "WeightedMeanAirTemperature", "BeginLatitude", "BeginLongitude",
+			"EndLatitude", "EndLongitude"};
+
+	private GarminPayloads() {
+
+	}
+
+	public static String activities(int count) {
+		Random random = new Random(count);
+		StringBuilder content = new StringBuilder(count * 3500 + 512);
+
+		content.append("{\"results\":{\"activities\":[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				content.append(',');
+			}
+			appendActivity(content, i, random);
+		}
+		content.append("],\"query\":{\"filters\":{},\"activityStart\":0,\"activitiesPerPage\":").append(count)
+				.append(",\"sortField\":\"beginTimestamp\",\"sortOrder\":\"DESC\"},\"totalFound\":").append(count)
+				.append(",\"currentPage\":1,\"totalPages\":1}}");
+
+		return content.toString();
+	}
+
+	private static void appendActivity(StringBuilder content, int index, Random random) {
+		long activityId = 1000000000L + index;
+		String type = ACTIVITY_TYPES[index % ACTIVITY_TYPES.length];
+		long startTimeMillis = FIRST_START_TIME_MILLIS + index * ACTIVITY_INTERVAL_MILLIS;
+		double distanceKilometers = 3 + random.nextDouble() * 40;
+		double durationSeconds = 900 + random.nextDouble() * 10000;
+
+		content.append("{\"activity\":{\"activityId\":").append(activityId)
+				.append(",\"activityName\":{\"value\":\"").append(type).append(" activity ").append(index).append("\"}")
+				.append(",\"activityDescription\":{\"value\":\"\"},\"locationName\":{\"value\":\"Krakow\"},\"isTitled\":true")
+				.append(",\"activityType\":{\"key\":\"").append(type).append("\",\"display\":\"").append(type)
+				.append("\",\"parent\":{\"key\":\"fitness_equipment\",\"display\":\"Fitness Equipment\"}}")
+				.append(",\"eventType\":{\"key\":\"uncategorized\",\"display\":\"Uncategorized\"}")
+				.append(",\"timeZoneUnit\":{\"key\":\"Europe/Warsaw\",\"display\":\"(GMT+01:00) Warsaw\",\"abbr\":\"CET\"}")
+				.append(",\"device\":{\"key\":\"forerunner\",\"display\":\"Forerunner 920XT\",\"version\":\"8.20.0.0\"}")
+				.append(",\"activitySummary\":{");
+
+		appendTimestamp(content, "BeginTimestamp", startTimeMillis);
+		content.append(',');
+		appendTimestamp(content, "EndTimestamp", startTimeMillis + (long) (durationSeconds * 1000));
+		content.append(',');
+		appendMeasure(content, "SumDistance", distanceKilometers, "kilometer", "km");
+		content.append(',');
+		appendMeasure(content, "SumDuration", durationSeconds, "second", "s");
+		content.append(',');
+		appendMeasure(content, "SumEnergy", distanceKilometers * 65, "kilocalorie", "kcal");
+		content.append(',');
+		appendMeasure(content, "WeightedMeanHeartRate", 120 + random.nextInt(50), "bpm", "bpm");
+		content.append(',');
+		appendMeasure(content, "MaxHeartRate", 170 + random.nextInt(25), "bpm", "bpm");
+		for (String measure : SUMMARY_MEASURES) {
+			content.append(',');
+			appendMeasure(content, measure, random.nextDouble() * 1000, "dimensionless", "");
+		}
+
+		content.append("}}}");
+	}
+
+	private static void appendTimestamp(StringBuilder content, String name, long millis) {
+		content.append('"').append(name).append("\":{\"display\":\"").append(millis)
+				.append("\",\"value\":\"").append(Instant.ofEpochMilli(millis))
+				.append("\",\"uom\":\"gmt\",\"unitAbbr\":\"\",\"millis\":").append(millis).append('}');
+	}
+
+	private static void appendMeasure(StringBuilder content, String name, double value, String uom, String unitAbbr) {
+		String formattedValue = String.format(Locale.ROOT, "%.2f", value);
+
+		content.append('"').append(name).append("\":{\"fieldDisplayName\":\"").append(name)
+				.append("\",\"display\":\"").append(formattedValue)
+				.append("\",\"value\":\"").append(formattedValue)
+				.append("\",\"withUnit\":\"").append(formattedValue).append(' ').append(unitAbbr)
+				.append("\",\"withUnitAbbr\":\"").append(formattedValue).append(' ').append(unitAbbr)
+				.append("\",\"uom\":\"").append(uom)
+				.append("\",\"unitAbbr\":\"").append(unitAbbr).append("\"}");
+	}
+}
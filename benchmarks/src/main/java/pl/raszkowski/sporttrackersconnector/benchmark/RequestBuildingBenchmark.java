@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.benchmark;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.raszkowski.sporttrackersconnector.rest.GetParameters;
+import pl.raszkowski.sporttrackersconnector.rest.RESTUriBuilder;
+
+/**
+ * <pre>
+ *     Building of activity search requests: query string of {@link GetParameters} and URI of {@link RESTUriBuilder},
+ *     with the parameters sent by the Garmin connector for a filtered search.
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+
+	private static final String RESOURCE_PATH = "https://connect.garmin.com/proxy/activity-search-service-1.2/json/activities";
+
+	private RESTUriBuilder restUriBuilder;
+
+	private GetParameters getParameters;
+
+	@Setup
+	public void setUp() {
+		restUriBuilder = new RESTUriBuilder();
+
+		getParameters = new GetParameters();
+		getParameters.addParameter("start", "0");
+		getParameters.addParameter("limit", "100");
+		getParameters.addParameter("sortField", "beginTimestamp");
+		getParameters.addParameter("sortOrder", "DESC");
+		getParameters.addCustomParameter("activityType", "=", "running");
+		getParameters.addCustomParameter("beginTimestamp", ">", "2016-01-01T00:00:00.000Z");
+		getParameters.addCustomParameter("sumDistance", ">", "5000");
+	}
+
+	@Benchmark
+	public String getCustomQuery() {
+		return getParameters.getCustomQuery();
+	}
+
+	@Benchmark
+	public URI buildURI() {
+		return restUriBuilder.build(RESOURCE_PATH, getParameters);
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.raszkowski.sporttrackersconnector.helper.HttpResponseConverter;
+import pl.raszkowski.sporttrackersconnector.json.ResponseJsonParser;
+
+import com.google.gson.JsonElement;
+
+/**
+ * <pre>
+ *     Reading of activity search responses: conversion of the entity to string, parsing the whole tree
+ *     and streaming the activities array element by element.
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class ResponseParsingBenchmark {
+
+	@Param({"10", "100", "1000"})
+	private int activities;
+
+	private String content;
+
+	private byte[] contentBytes;
+
+	private ResponseJsonParser responseJsonParser;
+
+	@Setup
+	public void setUp() {
+		content = GarminPayloads.activities(activities);
+		contentBytes = content.getBytes(StandardCharsets.UTF_8);
+		responseJsonParser = new ResponseJsonParser();
+	}
+
+	@Benchmark
+	public String getAsString() {
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+		response.setEntity(new ByteArrayEntity(contentBytes, ContentType.APPLICATION_JSON));
+
+		return HttpResponseConverter.getAsString(response);
+	}
+
+	@Benchmark
+	public JsonElement parseAsJson() {
+		return responseJsonParser.parseAsJson(content);
+	}
+
+	@Benchmark
+	public void readArrayElements(Blackhole blackhole) throws IOException {
+		responseJsonParser.readArrayElements(new StringReader(content), blackhole::consume, "results", "activities");
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <pre>
+ *     Local HTTP server answering every request with the same json content, keeping connections alive.
+ * </pre>
+ */
+public class StubHttpServer implements Closeable {
+
+	private final HttpServer httpServer;
+
+	private final ExecutorService executorService;
+
+	public StubHttpServer(String content) throws IOException {
+		byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext("/", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+			exchange.sendResponseHeaders(200, contentBytes.length);
+			try (OutputStream responseBody = exchange.getResponseBody()) {
+				responseBody.write(contentBytes);
+			}
+		});
+
+		executorService = Executors.newFixedThreadPool(4);
+		httpServer.setExecutor(executorService);
+		httpServer.start();
+	}
+
+	public String getBaseURI() {
+		return "http://127.0.0.1:" + httpServer.getAddress().getPort() + "/";
+	}
+
+	@Override
+	public void close() {
+		httpServer.stop(0);
+		executorService.shutdownNow();
+	}
+}
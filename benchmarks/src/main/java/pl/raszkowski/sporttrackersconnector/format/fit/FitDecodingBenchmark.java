@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pl.raszkowski.sporttrackersconnector.samples.ActivitySamplesBuilder;
+
+/**
+ * <pre>
+ *     Decoding of multi-hour activity files recorded every second: field callbacks only, decoding to sample
+ *     columns with and without CRC verification, and decoding a memory-mapped file.
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+@State(Scope.Benchmark)
+public class FitDecodingBenchmark {
+
+	@Param({"1", "6", "24"})
+	private int hours;
+
+	private ByteBuffer content;
+
+	private Path path;
+
+	private FitDecoder fitDecoder;
+
+	private FitDecoder fitDecoderWithoutCrc;
+
+	@Setup
+	public void setUp() throws IOException {
+		content = FitFiles.activity(hours * 3600);
+
+		path = Files.createTempFile("activity", ".fit");
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			fileChannel.write(content.duplicate());
+		}
+
+		fitDecoder = new FitDecoder();
+		fitDecoderWithoutCrc = new FitDecoder();
+		fitDecoderWithoutCrc.setCrcVerified(false);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Benchmark
+	public void decodeFields(Blackhole blackhole) {
+		fitDecoder.decode(content, new FitListener() {
+			@Override
+			public void onField(int globalMessageNumber, FitField field) {
+				blackhole.consume(field.getLong());
+			}
+		});
+	}
+
+	@Benchmark
+	public ActivitySamplesBuilder decodeSamples() {
+		return fitDecoder.decodeSamples(content);
+	}
+
+	@Benchmark
+	public ActivitySamplesBuilder decodeSamplesWithoutCrc() {
+		return fitDecoderWithoutCrc.decodeSamples(content);
+	}
+
+	@Benchmark
+	public ActivitySamplesBuilder decodeMappedFile() {
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+		fitDecoder.decode(path, samplesCollector);
+		return samplesCollector.getSamplesBuilder();
+	}
+}
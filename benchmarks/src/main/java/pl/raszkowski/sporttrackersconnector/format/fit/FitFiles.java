@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <pre>
+ *     Builds FIT activity files the way a watch records them: a file id message followed by one record per
+ *     second with position, enhanced altitude and speed, heart rate, cadence, distance, power and temperature.
+ *     Content is deterministic for given number of records.
+ * </pre>
+ */
+public final class FitFiles {
+
+	private static final int HEADER_SIZE = 14;
+	private static final int RECORD_SIZE = 29;
+	private static final long START_TIMESTAMP = 1451606400L - FitProfile.TIMESTAMP_EPOCH_OFFSET_SECONDS;
+
+	private static final int[][] RECORD_FIELDS = {
+			{FitProfile.TIMESTAMP_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_POSITION_LAT_FIELD, 4, FitBaseType.SINT32.getId()},
+			{FitProfile.RECORD_POSITION_LONG_FIELD, 4, FitBaseType.SINT32.getId()},
+			{FitProfile.RECORD_ENHANCED_ALTITUDE_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_HEART_RATE_FIELD, 1, FitBaseType.UINT8.getId()},
+			{FitProfile.RECORD_CADENCE_FIELD, 1, FitBaseType.UINT8.getId()},
+			{FitProfile.RECORD_DISTANCE_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_ENHANCED_SPEED_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_POWER_FIELD, 2, FitBaseType.UINT16.getId()},
+			{FitProfile.RECORD_TEMPERATURE_FIELD, 1, FitBaseType.SINT8.getId()}
+	};
+
+	private FitFiles() {
+
+	}
+
+	public static ByteBuffer activity(int records) {
+		int definitionSize = 6 + RECORD_FIELDS.length * 3;
+		int dataSize = 6 + 3 + 2 + definitionSize + records * (RECORD_SIZE + 1);
+
+		ByteBuffer file = ByteBuffer.allocateDirect(HEADER_SIZE + dataSize + 2).order(ByteOrder.LITTLE_ENDIAN);
+		file.put((byte) HEADER_SIZE).put((byte) 0x20).putShort((short) 2132).putInt(dataSize).put(new byte[] {'.', 'F', 'I', 'T'});
+		file.putShort((short) FitCrc.compute(file, 0, 12));
+
+		file.put((byte) 0x40).put((byte) 0).put((byte) 0).putShort((short) FitProfile.FILE_ID_MESSAGE).put((byte) 1);
+		file.put((byte) 0).put((byte) 1).put((byte) FitBaseType.ENUM.getId());
+		file.put((byte) 0).put((byte) 4);
+
+		file.put((byte) 0x41).put((byte) 0).put((byte) 0).putShort((short) FitProfile.RECORD_MESSAGE).put((byte) RECORD_FIELDS.length);
+		for (int[] field : RECORD_FIELDS) {
+			file.put((byte) field[0]).put((byte) field[1]).put((byte) field[2]);
+		}
+
+		for (int i = 0; i < records; i++) {
+			file.put((byte) 1)
+					.putInt((int) (START_TIMESTAMP + i))
+					.putInt((int) Math.round((52.0 + i * 0.00001) / FitProfile.SEMICIRCLES_TO_DEGREES))
+					.putInt((int) Math.round((21.0 + i * 0.00002) / FitProfile.SEMICIRCLES_TO_DEGREES))
+					.putInt((int) ((100.0 + i % 200 * 0.5 + FitProfile.ALTITUDE_OFFSET) * FitProfile.ALTITUDE_SCALE))
+					.put((byte) (120 + i % 50))
+					.put((byte) (80 + i % 10))
+					.putInt(i * 300)
+					.putInt(3000 + i % 500)
+					.putShort((short) (200 + i % 100))
+					.put((byte) 20);
+		}
+
+		file.putShort((short) FitCrc.compute(file, 0, HEADER_SIZE + dataSize));
+		file.flip();
+
+		return file;
+	}
+}
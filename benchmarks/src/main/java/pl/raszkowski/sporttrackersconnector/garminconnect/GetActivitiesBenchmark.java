@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.benchmark.GarminPayloads;
+import pl.raszkowski.sporttrackersconnector.benchmark.StubHttpServer;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+
+import com.google.gson.JsonArray;
+
+/**
+ * <pre>
+ *     Whole call path of {@link GarminAPIHandler}: request building, pooled HTTP round trip to a local stub server
+ *     and reading of the activities, as json tree and as typed activities. Placed in the handler package,
+ *     as the handler is created by the connector only.
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j.configurationFile=log4j2-benchmarks.xml", "-Dsun.net.httpserver.nodelay=true"})
+@State(Scope.Benchmark)
+public class GetActivitiesBenchmark {
+
+	@Param({"10", "100"})
+	private int activities;
+
+	private StubHttpServer stubHttpServer;
+
+	private HttpTransport httpTransport;
+
+	private CloseableHttpClient httpClient;
+
+	private GarminAPIHandler garminAPIHandler;
+
+	private ActivitiesSearchFields activitiesSearchFields;
+
+	@Setup
+	public void setUp() throws IOException {
+		stubHttpServer = new StubHttpServer(GarminPayloads.activities(activities));
+		String baseURI = stubHttpServer.getBaseURI();
+
+		httpTransport = new HttpTransport(ConnectorsConfiguration.getInstance());
+		httpClient = httpTransport.createHttpClient(new BasicCookieStore());
+
+		RESTExecutor restExecutor = new RESTExecutor(httpClient) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return baseURI + service + "/json/" + resource;
+			}
+		};
+		garminAPIHandler = new GarminAPIHandler(restExecutor);
+
+		activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(activities);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		httpClient.close();
+		httpTransport.close();
+		stubHttpServer.close();
+	}
+
+	@Benchmark
+	public JsonArray getActivities() {
+		return garminAPIHandler.getActivities(0, activities);
+	}
+
+	@Benchmark
+	public List<Activity> getTypedActivities() {
+		return garminAPIHandler.getTypedActivities(activitiesSearchFields);
+	}
+}
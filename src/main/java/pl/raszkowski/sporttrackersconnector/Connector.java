@@ -15,11 +15,62 @@
  */
 package pl.raszkowski.sporttrackersconnector;
 
+import java.util.stream.Stream;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
 import pl.raszkowski.sporttrackersconnector.rest.APIHandler;
 import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
 
+/**
+ * <pre>
+ *     Connection to a single account of one backend. Besides the backend specific API handler every connector
+ *     serves the same activity API, so accounts of all backends are handled by one code path.
+ * </pre>
+ */
 public interface Connector {
 
+	/**
+	 * @return backend name, the same as of its {@link ConnectorProvider}
+	 */
+	String getName();
+
+	/**
+	 * @return URI prefix of the backend API, its host identifies the server requests of this connector are sent to
+	 */
+	String getAPIPrefixURI();
+
+	/**
+	 * @param credentials credentials of the type accepted by this connector
+	 * @throws ConnectorException when credentials are of another backend or the authorization fails
+	 */
+	void authorize(Credentials credentials);
+
+	/**
+	 * <pre>
+	 *     Lazily streams activities matching given query, newest first, page by page as the stream is consumed.
+	 *     Close the stream when it is not consumed until the end.
+	 * </pre>
+	 *
+	 * @param activityQuery query
+	 * @return lazy stream of activities
+	 */
+	default Stream<Activity> streamActivities(ActivityQuery activityQuery) {
+		return streamActivities(activityQuery, PageRequestLimiter.UNLIMITED);
+	}
+
+	/**
+	 * <pre>
+	 *     Streams activities like {@link #streamActivities(ActivityQuery)}, every page is requested through given limiter.
+	 * </pre>
+	 *
+	 * @param activityQuery query
+	 * @param pageRequestLimiter limiter of page requests
+	 * @return lazy stream of activities
+	 */
+	Stream<Activity> streamActivities(ActivityQuery activityQuery, PageRequestLimiter pageRequestLimiter);
+
 	RESTExecutor getRESTExecutor();
 
 	APIHandler getAPIHandler();
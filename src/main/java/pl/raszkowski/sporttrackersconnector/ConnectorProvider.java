@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector;
+
+/**
+ * <pre>
+ *     Service provider of a connector backend, discovered with {@link java.util.ServiceLoader}: implementations are
+ *     listed in META-INF/services/pl.raszkowski.sporttrackersconnector.ConnectorProvider of their jar.
+ * </pre>
+ */
+public interface ConnectorProvider {
+
+	/**
+	 * @return unique backend name, e.g. {@link Connectors#GARMIN_CONNECT} name
+	 */
+	String getName();
+
+	/**
+	 * @return type of credentials accepted by connectors of this provider
+	 */
+	Class<? extends Credentials> getCredentialsType();
+
+	/**
+	 * @return new, not authorized connector
+	 */
+	Connector createConnector();
+}
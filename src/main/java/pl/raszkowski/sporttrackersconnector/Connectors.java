@@ -16,18 +16,35 @@
 package pl.raszkowski.sporttrackersconnector;
 
 import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectConnector;
+import pl.raszkowski.sporttrackersconnector.strava.StravaConnector;
 
+/**
+ * <pre>
+ *     Connectors shipped with this library. Other backends are discovered as {@link ConnectorProvider}s.
+ * </pre>
+ */
 public enum  Connectors {
 
-	GARMIN_CONNECT(GarminConnectConnector.class),
+	GARMIN_CONNECT("garmin-connect", GarminConnectConnector.class),
+	STRAVA("strava", StravaConnector.class),
 	;
 
+	private final String name;
+
 	private final Class<? extends Connector> connectorClass;
 
-	Connectors(Class<? extends Connector> connectorClass) {
+	Connectors(String name, Class<? extends Connector> connectorClass) {
+		this.name = name;
 		this.connectorClass = connectorClass;
 	}
 
+	/**
+	 * @return backend name used by {@link ConnectorProvider#getName()}
+	 */
+	public String getName() {
+		return name;
+	}
+
 	public Class<? extends Connector> getConnectorClass() {
 		return connectorClass;
 	}
@@ -15,8 +15,23 @@
  */
 package pl.raszkowski.sporttrackersconnector;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class ConnectorsFactory {
 
+	private static final Logger LOG = LoggerFactory.getLogger(ConnectorsFactory.class);
+
+	private static final String UNKNOWN_CONNECTOR_ERROR_MESSAGE = "No connector provider of name = %s.";
+	private static final String UNSUPPORTED_CREDENTIALS_ERROR_MESSAGE = "No connector provider accepts credentials of class = %s.";
+
+	private static volatile List<ConnectorProvider> providers;
+
 	public static <T extends Connector> T createConnector(Connectors connectors) {
 		Class<? extends Connector> connectorClass = connectors.getConnectorClass();
 
@@ -27,4 +42,71 @@ public class ConnectorsFactory {
 		}
 	}
 
+	/**
+	 * @param name backend name
+	 * @return new connector of the provider of given name
+	 */
+	public static Connector createConnector(String name) {
+		for (ConnectorProvider provider : getProviders()) {
+			if (provider.getName().equals(name)) {
+				return provider.createConnector();
+			}
+		}
+
+		LOG.error("No connector provider of name = {}.", name);
+		throw new ConnectorException(String.format(UNKNOWN_CONNECTOR_ERROR_MESSAGE, name));
+	}
+
+	/**
+	 * @param credentials account credentials
+	 * @return new connector of the provider accepting given credentials, not authorized yet
+	 */
+	public static Connector createConnector(Credentials credentials) {
+		for (ConnectorProvider provider : getProviders()) {
+			if (provider.getCredentialsType().isInstance(credentials)) {
+				return provider.createConnector();
+			}
+		}
+
+		LOG.error("No connector provider accepts credentials of class = {}.", credentials.getClass());
+		throw new ConnectorException(String.format(UNSUPPORTED_CREDENTIALS_ERROR_MESSAGE, credentials.getClass()));
+	}
+
+	/**
+	 * <pre>
+	 *     Providers found on the class path, loaded once. When two providers have the same name the first one is used.
+	 * </pre>
+	 *
+	 * @return connector providers
+	 */
+	public static List<ConnectorProvider> getProviders() {
+		List<ConnectorProvider> loadedProviders = providers;
+
+		if (loadedProviders == null) {
+			synchronized (ConnectorsFactory.class) {
+				loadedProviders = providers;
+				if (loadedProviders == null) {
+					loadedProviders = loadProviders();
+					providers = loadedProviders;
+				}
+			}
+		}
+
+		return loadedProviders;
+	}
+
+	private static List<ConnectorProvider> loadProviders() {
+		List<ConnectorProvider> loadedProviders = new ArrayList<>();
+
+		for (ConnectorProvider provider : ServiceLoader.load(ConnectorProvider.class)) {
+			if (loadedProviders.stream().anyMatch(loaded -> loaded.getName().equals(provider.getName()))) {
+				LOG.warn("Connector provider of name = {} is already loaded, ignoring = {}.", provider.getName(), provider.getClass());
+				continue;
+			}
+			loadedProviders.add(provider);
+		}
+
+		return Collections.unmodifiableList(loadedProviders);
+	}
+
 }
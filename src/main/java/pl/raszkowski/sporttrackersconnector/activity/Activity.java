@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.activity;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * <pre>
+ *     Summary of a single activity.
+ *
+ *     Numeric values are kept in primitive fields, missing values are 0. Activity type is interned,
+ *     so equal types share one instance and can be compared by reference.
+ * </pre>
+ */
+public class Activity {
+
+	private long id;
+
+	private String name;
+
+	private String type;
+
+	private long startTimeMillis;
+
+	private double durationSeconds;
+
+	private double distanceMeters;
+
+	private double calories;
+
+	private int averageHeartRate;
+
+	private int maxHeartRate;
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type == null ? null : type.intern();
+	}
+
+	public long getStartTimeMillis() {
+		return startTimeMillis;
+	}
+
+	public void setStartTimeMillis(long startTimeMillis) {
+		this.startTimeMillis = startTimeMillis;
+	}
+
+	public double getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	public void setDurationSeconds(double durationSeconds) {
+		this.durationSeconds = durationSeconds;
+	}
+
+	public double getDistanceMeters() {
+		return distanceMeters;
+	}
+
+	public void setDistanceMeters(double distanceMeters) {
+		this.distanceMeters = distanceMeters;
+	}
+
+	public double getCalories() {
+		return calories;
+	}
+
+	public void setCalories(double calories) {
+		this.calories = calories;
+	}
+
+	public int getAverageHeartRate() {
+		return averageHeartRate;
+	}
+
+	public void setAverageHeartRate(int averageHeartRate) {
+		this.averageHeartRate = averageHeartRate;
+	}
+
+	public int getMaxHeartRate() {
+		return maxHeartRate;
+	}
+
+	public void setMaxHeartRate(int maxHeartRate) {
+		this.maxHeartRate = maxHeartRate;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("id", id)
+				.append("name", name)
+				.append("type", type)
+				.append("startTimeMillis", startTimeMillis)
+				.append("durationSeconds", durationSeconds)
+				.append("distanceMeters", distanceMeters)
+				.append("calories", calories)
+				.append("averageHeartRate", averageHeartRate)
+				.append("maxHeartRate", maxHeartRate)
+				.toString();
+	}
+}
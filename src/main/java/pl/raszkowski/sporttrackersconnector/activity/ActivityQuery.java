@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.activity;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * <pre>
+ *     Backend independent selection of activities. Activities are always returned newest first.
+ *     Not set bounds are 0, not set activity type is null.
+ * </pre>
+ */
+public class ActivityQuery {
+
+	private long startTimeFromMillis;
+
+	private long startTimeToMillis;
+
+	private String activityType;
+
+	private int limit;
+
+	private int pageSize;
+
+	/**
+	 * @return inclusive lower bound of the start time, 0 when not bounded
+	 */
+	public long getStartTimeFromMillis() {
+		return startTimeFromMillis;
+	}
+
+	public void setStartTimeFromMillis(long startTimeFromMillis) {
+		this.startTimeFromMillis = startTimeFromMillis;
+	}
+
+	/**
+	 * @return exclusive upper bound of the start time, 0 when not bounded
+	 */
+	public long getStartTimeToMillis() {
+		return startTimeToMillis;
+	}
+
+	public void setStartTimeToMillis(long startTimeToMillis) {
+		this.startTimeToMillis = startTimeToMillis;
+	}
+
+	/**
+	 * @return backend activity type, e.g. "running"
+	 */
+	public String getActivityType() {
+		return activityType;
+	}
+
+	public void setActivityType(String activityType) {
+		this.activityType = activityType;
+	}
+
+	/**
+	 * @return maximum number of activities, 0 when not limited
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+	public void setLimit(int limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * @return number of activities requested at once, 0 for the backend default
+	 */
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	public void setPageSize(int pageSize) {
+		this.pageSize = pageSize;
+	}
+
+	public ActivityQuery copy() {
+		ActivityQuery copy = new ActivityQuery();
+		copy.setStartTimeFromMillis(startTimeFromMillis);
+		copy.setStartTimeToMillis(startTimeToMillis);
+		copy.setActivityType(activityType);
+		copy.setLimit(limit);
+		copy.setPageSize(pageSize);
+		return copy;
+	}
+
+	/**
+	 * <pre>
+	 *     Copy of this query narrowed to activities not older than given watermark,
+	 *     so fetching can stop at the first already known activity.
+	 * </pre>
+	 *
+	 * @param watermark newest already synchronized activity
+	 * @return query for incremental fetching
+	 */
+	public ActivityQuery newerThan(ActivityWatermark watermark) {
+		ActivityQuery copy = copy();
+		copy.setStartTimeFromMillis(Math.max(startTimeFromMillis, watermark.getStartTimeMillis()));
+		return copy;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("startTimeFromMillis", startTimeFromMillis)
+				.append("startTimeToMillis", startTimeToMillis)
+				.append("activityType", activityType)
+				.append("limit", limit)
+				.append("pageSize", pageSize)
+				.toString();
+	}
+}
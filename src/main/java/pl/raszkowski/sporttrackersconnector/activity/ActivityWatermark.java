@@ -0,0 +1,140 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.activity;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * <pre>
+ *     Position of the newest activities already synchronized for an account: their start time and the ids of all
+ *     synchronized activities started at that time. Activities sharing a start time come back in no particular order,
+ *     so every one of them is remembered, not only the one with the highest id.
+ * </pre>
+ */
+public class ActivityWatermark {
+
+	private final long startTimeMillis;
+
+	private final Set<Long> activityIds;
+
+	public ActivityWatermark(long startTimeMillis, long activityId) {
+		this(startTimeMillis, Collections.singleton(activityId));
+	}
+
+	public ActivityWatermark(long startTimeMillis, Collection<Long> activityIds) {
+		this.startTimeMillis = startTimeMillis;
+		this.activityIds = Collections.unmodifiableSet(new HashSet<>(activityIds));
+	}
+
+	public static ActivityWatermark of(Activity activity) {
+		return new ActivityWatermark(activity.getStartTimeMillis(), activity.getId());
+	}
+
+	public long getStartTimeMillis() {
+		return startTimeMillis;
+	}
+
+	public Set<Long> getActivityIds() {
+		return activityIds;
+	}
+
+	/**
+	 * <pre>
+	 *     Checks whether given activity has already been synchronized: it started before the watermark
+	 *     or it is one of the activities started at the watermark.
+	 * </pre>
+	 *
+	 * @param activity activity to check
+	 * @return true if the activity is known
+	 */
+	public boolean covers(Activity activity) {
+		if (activity.getStartTimeMillis() != startTimeMillis) {
+			return activity.getStartTimeMillis() < startTimeMillis;
+		}
+
+		return activityIds.contains(activity.getId());
+	}
+
+	/**
+	 * <pre>
+	 *     Checks whether given activity started before the watermark. When activities are fetched newest first,
+	 *     all activities after such one are known, while known activities started at the watermark may still be
+	 *     followed by new ones of the same start time.
+	 * </pre>
+	 *
+	 * @param activity activity to check
+	 * @return true if the activity started before the watermark
+	 */
+	public boolean isNewerThan(Activity activity) {
+		return activity.getStartTimeMillis() < startTimeMillis;
+	}
+
+	/**
+	 * <pre>
+	 *     Returns the watermark covering this watermark and given activity.
+	 * </pre>
+	 *
+	 * @param activity synchronized activity
+	 * @return watermark covering given activity
+	 */
+	public ActivityWatermark advance(Activity activity) {
+		if (covers(activity)) {
+			return this;
+		}
+
+		if (activity.getStartTimeMillis() > startTimeMillis) {
+			return of(activity);
+		}
+
+		Set<Long> advancedActivityIds = new HashSet<>(activityIds);
+		advancedActivityIds.add(activity.getId());
+
+		return new ActivityWatermark(startTimeMillis, advancedActivityIds);
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) {
+			return true;
+		}
+
+		if (!(object instanceof ActivityWatermark)) {
+			return false;
+		}
+
+		ActivityWatermark other = (ActivityWatermark) object;
+
+		return startTimeMillis == other.startTimeMillis && activityIds.equals(other.activityIds);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(startTimeMillis) + activityIds.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("startTimeMillis", startTimeMillis)
+				.append("activityIds", activityIds)
+				.toString();
+	}
+}
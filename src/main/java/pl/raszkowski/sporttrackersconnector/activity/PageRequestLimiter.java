@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.activity;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * <pre>
+ *     Limits requests of activity pages, e.g. to share a concurrency limit of a backend between many accounts.
+ *     A permit is held from the moment a page is requested until its response has been completed.
+ * </pre>
+ */
+public interface PageRequestLimiter {
+
+	PageRequestLimiter UNLIMITED = new PageRequestLimiter() {
+		@Override
+		public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> pageRequest) {
+			return pageRequest.get();
+		}
+	};
+
+	/**
+	 * @param pageRequest starts the request of a page
+	 * @param <T> type of page
+	 * @return page, cancelled when interrupted while waiting for the permit
+	 */
+	<T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> pageRequest);
+}
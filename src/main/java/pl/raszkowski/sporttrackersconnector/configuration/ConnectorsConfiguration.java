@@ -17,8 +17,11 @@ package pl.raszkowski.sporttrackersconnector.configuration;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,23 +50,191 @@ public class ConnectorsConfiguration {
 	}
 
 	public String getGarminConnectSSOLoginURI() {
-		return properties.getProperty("garminconnect.uri.ssologin", "https://sso.garmin.com/sso/login");
+		return getProperty("garminconnect.uri.ssologin", "https://sso.garmin.com/sso/login");
 	}
 
 	public String getGarminConnectLoginServiceURI() {
-		return properties.getProperty("garminconnect.uri.loginService", "https://connect.garmin.com/post-auth/login");
+		return getProperty("garminconnect.uri.loginService", "https://connect.garmin.com/post-auth/login");
 	}
 
 	public String getGarminConnectRESTPrefixURI() {
-		return properties.getProperty("garminconnect.uri.restPrefix", "https://connect.garmin.com/proxy/");
+		return getProperty("garminconnect.uri.restPrefix", "https://connect.garmin.com/proxy/");
 	}
 
 	public String getGarminConnectRESTUserService() {
-		return properties.getProperty("garminconnect.rest.userService", "user-service-1.0");
+		return getProperty("garminconnect.rest.userService", "user-service-1.0");
 	}
 
 
 	public String getGarminConnectRESTActivitySearchService() {
-		return properties.getProperty("garminconnect.rest.activitySearchService", "activity-search-service-1.2");
+		return getProperty("garminconnect.rest.activitySearchService", "activity-search-service-1.2");
+	}
+
+	public String getGarminConnectRESTActivityService() {
+		return getProperty("garminconnect.rest.activityService", "activity-service-1.3");
+	}
+
+	public String getGarminConnectRESTDownloadService() {
+		return getProperty("garminconnect.rest.downloadService", "download-service");
+	}
+
+	public int getGarminConnectActivitiesPageSize() {
+		return getIntProperty("garminconnect.activities.pageSize", 100);
+	}
+
+	public int getHttpPoolMaxTotal() {
+		return getIntProperty("http.pool.maxTotal", 200);
+	}
+
+	public int getHttpPoolMaxPerRoute() {
+		return getIntProperty("http.pool.maxPerRoute", 50);
+	}
+
+	public long getHttpKeepAliveMillis() {
+		return getLongProperty("http.keepAlive.millis", 30000L);
+	}
+
+	public long getHttpIdleEvictionMillis() {
+		return getLongProperty("http.idleEviction.millis", 60000L);
+	}
+
+	public int getHttpConnectTimeoutMillis() {
+		return getIntProperty("http.timeout.connect.millis", 10000);
+	}
+
+	public int getHttpSocketTimeoutMillis() {
+		return getIntProperty("http.timeout.socket.millis", 30000);
+	}
+
+	public int getHttpConnectionRequestTimeoutMillis() {
+		return getIntProperty("http.timeout.connectionRequest.millis", 10000);
+	}
+
+	public int getHttpAsyncIOThreads() {
+		return getIntProperty("http.async.ioThreads", Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getHttpRetryMaxAttempts() {
+		return getIntProperty("http.retry.maxAttempts", 3);
+	}
+
+	public long getHttpRetryInitialBackoffMillis() {
+		return getLongProperty("http.retry.initialBackoff.millis", 200L);
+	}
+
+	public long getHttpRetryMaxBackoffMillis() {
+		return getLongProperty("http.retry.maxBackoff.millis", 10000L);
+	}
+
+	public long getHttpRetryDeadlineMillis() {
+		return getLongProperty("http.retry.deadline.millis", 60000L);
+	}
+
+	public long getHttpCacheTtlMillis() {
+		return getLongProperty("http.cache.ttl.millis", 300000L);
+	}
+
+	public int getHttpCacheMaxEntries() {
+		return getIntProperty("http.cache.maxEntries", 1000);
+	}
+
+	public List<String> getHttpCacheServices() {
+		return Arrays.asList(StringUtils.split(getProperty("http.cache.services", "user-service-1.0"), ", "));
+	}
+
+	public boolean isGarminConnectRequestCoalescingEnabled() {
+		return getBooleanProperty("garminconnect.requestCoalescing.enabled", false);
+	}
+
+	public double getGarminConnectRateLimitPermitsPerSecond() {
+		return getDoubleProperty("garminconnect.rateLimit.permitsPerSecond", 10.0);
+	}
+
+	public int getGarminConnectRateLimitBurst() {
+		return getIntProperty("garminconnect.rateLimit.burst", 20);
+	}
+
+	public double getGarminConnectAccountRateLimitPermitsPerSecond() {
+		return getDoubleProperty("garminconnect.rateLimit.account.permitsPerSecond", 2.0);
+	}
+
+	public int getGarminConnectAccountRateLimitBurst() {
+		return getIntProperty("garminconnect.rateLimit.account.burst", 5);
+	}
+
+	public String getStravaAPIPrefixURI() {
+		return getProperty("strava.uri.apiPrefix", "https://www.strava.com/api/v3/");
+	}
+
+	public String getStravaTokenURI() {
+		return getProperty("strava.uri.token", "https://www.strava.com/oauth/token");
+	}
+
+	public int getStravaActivitiesPageSize() {
+		return getIntProperty("strava.activities.pageSize", 200);
+	}
+
+	public long getStravaRefreshAheadMillis() {
+		return getLongProperty("strava.oauth.refreshAheadMillis", 300000);
+	}
+
+	public long getStravaRateLimitShortWindowMillis() {
+		return getLongProperty("strava.rateLimit.shortWindowMillis", 900000);
+	}
+
+	public long getStravaRateLimitDailyWindowMillis() {
+		return getLongProperty("strava.rateLimit.dailyWindowMillis", 86400000);
+	}
+
+	public int getStravaRateLimitShortLimit() {
+		return getIntProperty("strava.rateLimit.shortLimit", 100);
+	}
+
+	public int getStravaRateLimitDailyLimit() {
+		return getIntProperty("strava.rateLimit.dailyLimit", 1000);
+	}
+
+	public int getStravaRateLimitReservedRequests() {
+		return getIntProperty("strava.rateLimit.reservedRequests", 2);
+	}
+
+	public int getSyncParallelism() {
+		return getIntProperty("sync.parallelism", 16);
+	}
+
+	public int getSyncPerHostConcurrency() {
+		return getIntProperty("sync.perHostConcurrency", 8);
+	}
+
+	public boolean isSyncVirtualThreadsEnabled() {
+		return getBooleanProperty("sync.virtualThreads", true);
+	}
+
+	public int getDownloadParallelism() {
+		return getIntProperty("download.parallelism", 4);
+	}
+
+	/**
+	 * System properties take precedence over configuration file, so single values can be overridden
+	 * without repackaging, e.g. to point the connector to a test server.
+	 */
+	private String getProperty(String key, String defaultValue) {
+		return System.getProperty(key, properties.getProperty(key, defaultValue));
+	}
+
+	private int getIntProperty(String key, int defaultValue) {
+		return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)).trim());
+	}
+
+	private long getLongProperty(String key, long defaultValue) {
+		return Long.parseLong(getProperty(key, String.valueOf(defaultValue)).trim());
+	}
+
+	private double getDoubleProperty(String key, double defaultValue) {
+		return Double.parseDouble(getProperty(key, String.valueOf(defaultValue)).trim());
+	}
+
+	private boolean getBooleanProperty(String key, boolean defaultValue) {
+		return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)).trim());
 	}
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.download;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivityFileFormat;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+import pl.raszkowski.sporttrackersconnector.rest.ResponseStatusException;
+
+/**
+ * <pre>
+ *     Downloads detail payloads and track files of many activities into a directory, at most "parallelism" files
+ *     at once. Every file is streamed to disk as it is received.
+ *
+ *     Files are written as "&lt;activityId&gt;&lt;extension&gt;.part" and moved in place when complete, then recorded in
+ *     the "download.manifest" file of the directory. The next run skips recorded files, continues ".part" files
+ *     left by an interrupted run from their size with a range request, and does not ask again for files
+ *     the server reported missing (e.g. GPX of an activity without GPS).
+ * </pre>
+ */
+public class ActivityDownloader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivityDownloader.class);
+
+	private static final String CANNOT_CREATE_DIRECTORY_ERROR_MESSAGE = "Cannot create download directory = %s.";
+	private static final String CANNOT_WRITE_FILE_ERROR_MESSAGE = "Cannot write downloaded file = %s.";
+	private static final String DOWNLOAD_INTERRUPTED_ERROR_MESSAGE = "Download has been interrupted, directory = %s.";
+
+	private static final String MANIFEST_FILE_NAME = "download.manifest";
+	private static final String PART_FILE_SUFFIX = ".part";
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private final GarminAPIHandler apiHandler;
+
+	private final Path directory;
+
+	private DownloadManifest manifest;
+
+	private int parallelism = connectorsConfiguration.getDownloadParallelism();
+
+	private enum Outcome {
+		DOWNLOADED,
+		RESUMED,
+		SKIPPED,
+		UNAVAILABLE
+	}
+
+	public ActivityDownloader(GarminAPIHandler apiHandler, Path directory) {
+		this.apiHandler = apiHandler;
+		this.directory = directory;
+	}
+
+	/**
+	 * <pre>
+	 *     Downloads given formats of every activity. A failed file does not stop the others, it is counted in
+	 *     the report and retried by the next run.
+	 * </pre>
+	 *
+	 * @param activityIds ids of activities
+	 * @param formats downloaded representations
+	 * @return summary of the run
+	 */
+	public DownloadReport download(Collection<Long> activityIds, ActivityFileFormat... formats) {
+		DownloadManifest downloadManifest = getManifest();
+
+		ExecutorService executorService = Executors.newFixedThreadPool(parallelism, new DownloadThreadFactory());
+		Semaphore workerSlots = new Semaphore(parallelism);
+		List<Future<Outcome>> futures = new ArrayList<>();
+		AtomicLong bytes = new AtomicLong();
+
+		try {
+			for (long activityId : activityIds) {
+				for (ActivityFileFormat format : formats) {
+					workerSlots.acquire();
+
+					futures.add(executorService.submit(() -> {
+						try {
+							return download(downloadManifest, activityId, format, bytes);
+						} finally {
+							workerSlots.release();
+						}
+					}));
+				}
+			}
+
+			int[] outcomes = new int[Outcome.values().length];
+			int failed = 0;
+
+			for (Future<Outcome> future : futures) {
+				try {
+					outcomes[future.get().ordinal()]++;
+				} catch (ExecutionException e) {
+					failed++;
+				}
+			}
+
+			int resumed = outcomes[Outcome.RESUMED.ordinal()];
+
+			return new DownloadReport(outcomes[Outcome.DOWNLOADED.ordinal()] + resumed, resumed, outcomes[Outcome.SKIPPED.ordinal()],
+					outcomes[Outcome.UNAVAILABLE.ordinal()], failed, bytes.get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectorException(String.format(DOWNLOAD_INTERRUPTED_ERROR_MESSAGE, directory), e);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private Outcome download(DownloadManifest downloadManifest, long activityId, ActivityFileFormat format, AtomicLong bytes) throws IOException {
+		Path path = directory.resolve(activityId + format.getFileExtension());
+		Path partPath = path.resolveSibling(path.getFileName() + PART_FILE_SUFFIX);
+
+		DownloadManifest.Entry entry = downloadManifest.get(activityId, format);
+
+		if (entry != null && entry.getState() == DownloadManifest.State.UNAVAILABLE) {
+			return Outcome.SKIPPED;
+		}
+
+		if (entry != null && Files.exists(path) && Files.size(path) == entry.getValue()) {
+			return Outcome.SKIPPED;
+		}
+
+		long offset = Files.exists(partPath) ? Files.size(partPath) : 0;
+
+		try (FileChannel fileChannel = FileChannel.open(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			long written = apiHandler.downloadActivityFile(activityId, format, fileChannel, offset);
+			bytes.addAndGet(written);
+
+			fileChannel.force(false);
+		} catch (ResponseStatusException e) {
+			if (isUnavailable(e.getStatusCode())) {
+				LOG.debug("Activity file is not available, activity id = {}, format = {}, status code = {}.", activityId, format, e.getStatusCode());
+				Files.deleteIfExists(partPath);
+				downloadManifest.unavailable(activityId, format, e.getStatusCode());
+				return Outcome.UNAVAILABLE;
+			}
+
+			LOG.warn("Download of activity file failed, activity id = {}, format = {}.", activityId, format, e);
+			throw e;
+		} catch (IOException e) {
+			LOG.error("Cannot write downloaded file = {}.", partPath, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_FILE_ERROR_MESSAGE, partPath), e);
+		} catch (RuntimeException e) {
+			LOG.warn("Download of activity file failed, activity id = {}, format = {}.", activityId, format, e);
+			throw e;
+		}
+
+		Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		downloadManifest.complete(activityId, format, Files.size(path));
+
+		return offset > 0 ? Outcome.RESUMED : Outcome.DOWNLOADED;
+	}
+
+	private boolean isUnavailable(int statusCode) {
+		return statusCode == HttpStatus.SC_NOT_FOUND || statusCode == HttpStatus.SC_GONE || statusCode == HttpStatus.SC_NO_CONTENT;
+	}
+
+	private synchronized DownloadManifest getManifest() {
+		if (manifest == null) {
+			try {
+				Files.createDirectories(directory);
+			} catch (IOException e) {
+				LOG.error("Cannot create download directory = {}.", directory, e);
+				throw new ConnectorException(String.format(CANNOT_CREATE_DIRECTORY_ERROR_MESSAGE, directory), e);
+			}
+
+			manifest = new DownloadManifest(directory.resolve(MANIFEST_FILE_NAME));
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * @param parallelism maximum number of files downloaded at once
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	private static class DownloadThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "activity-download-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.download;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivityFileFormat;
+
+/**
+ * <pre>
+ *     Append-only record of finished downloads, one line per file: activity id, format, state and
+ *     the file size (complete) or the response status code (unavailable). Later lines override earlier ones,
+ *     a line cut short by a crash is ignored.
+ * </pre>
+ */
+class DownloadManifest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DownloadManifest.class);
+
+	private static final String CANNOT_READ_MANIFEST_ERROR_MESSAGE = "Cannot read download manifest = %s.";
+	private static final String CANNOT_WRITE_MANIFEST_ERROR_MESSAGE = "Cannot write download manifest = %s.";
+
+	private static final String SEPARATOR = "\t";
+	private static final int FIELDS_COUNT = 4;
+
+	enum State {
+		COMPLETE,
+		UNAVAILABLE
+	}
+
+	private final Path path;
+
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	DownloadManifest(Path path) {
+		this.path = path;
+
+		load();
+	}
+
+	private void load() {
+		List<String> lines;
+
+		try {
+			lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			lines = Collections.emptyList();
+		} catch (IOException e) {
+			LOG.error("Cannot read download manifest = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_READ_MANIFEST_ERROR_MESSAGE, path), e);
+		}
+
+		for (String line : lines) {
+			String[] fields = line.split(SEPARATOR);
+
+			if (fields.length != FIELDS_COUNT) {
+				LOG.warn("Ignoring incomplete download manifest line = {}.", line);
+				continue;
+			}
+
+			try {
+				Entry entry = new Entry(State.valueOf(fields[2]), Long.parseLong(fields[3]));
+				entries.put(getKey(Long.parseLong(fields[0]), ActivityFileFormat.valueOf(fields[1])), entry);
+			} catch (IllegalArgumentException e) {
+				LOG.warn("Ignoring incomplete download manifest line = {}.", line);
+			}
+		}
+	}
+
+	synchronized Entry get(long activityId, ActivityFileFormat format) {
+		return entries.get(getKey(activityId, format));
+	}
+
+	void complete(long activityId, ActivityFileFormat format, long size) {
+		record(activityId, format, new Entry(State.COMPLETE, size));
+	}
+
+	void unavailable(long activityId, ActivityFileFormat format, int statusCode) {
+		record(activityId, format, new Entry(State.UNAVAILABLE, statusCode));
+	}
+
+	private synchronized void record(long activityId, ActivityFileFormat format, Entry entry) {
+		String line = activityId + SEPARATOR + format.name() + SEPARATOR + entry.getState().name() + SEPARATOR + entry.getValue() + System.lineSeparator();
+
+		try {
+			Files.write(path, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			LOG.error("Cannot write download manifest = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_MANIFEST_ERROR_MESSAGE, path), e);
+		}
+
+		entries.put(getKey(activityId, format), entry);
+	}
+
+	private static String getKey(long activityId, ActivityFileFormat format) {
+		return activityId + SEPARATOR + format.name();
+	}
+
+	static class Entry {
+
+		private final State state;
+
+		private final long value;
+
+		Entry(State state, long value) {
+			this.state = state;
+			this.value = value;
+		}
+
+		State getState() {
+			return state;
+		}
+
+		/**
+		 * @return file size when complete, response status code when unavailable
+		 */
+		long getValue() {
+			return value;
+		}
+	}
+}
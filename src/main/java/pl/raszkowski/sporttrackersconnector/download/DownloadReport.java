@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.download;
+
+public class DownloadReport {
+
+	private final int downloaded;
+
+	private final int resumed;
+
+	private final int skipped;
+
+	private final int unavailable;
+
+	private final int failed;
+
+	private final long bytes;
+
+	DownloadReport(int downloaded, int resumed, int skipped, int unavailable, int failed, long bytes) {
+		this.downloaded = downloaded;
+		this.resumed = resumed;
+		this.skipped = skipped;
+		this.unavailable = unavailable;
+		this.failed = failed;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * @return number of files downloaded in this run, resumed ones included
+	 */
+	public int getDownloaded() {
+		return downloaded;
+	}
+
+	/**
+	 * @return number of files continued from an interrupted transfer
+	 */
+	public int getResumed() {
+		return resumed;
+	}
+
+	/**
+	 * @return number of files already downloaded or known to be unavailable
+	 */
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return number of files the server does not have, e.g. GPS tracks of indoor activities
+	 */
+	public int getUnavailable() {
+		return unavailable;
+	}
+
+	/**
+	 * @return number of files which failed and will be retried, or resumed, by the next run
+	 */
+	public int getFailed() {
+		return failed;
+	}
+
+	/**
+	 * @return number of bytes received in this run
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "DownloadReport{" +
+				"downloaded=" + downloaded +
+				", resumed=" + resumed +
+				", skipped=" + skipped +
+				", unavailable=" + unavailable +
+				", failed=" + failed +
+				", bytes=" + bytes +
+				'}';
+	}
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Exports all activities matching search fields to a file, one json object per line (NDJSON),
+ *     optionally compressed.
+ *
+ *     Activities are copied token by token from the response stream into chunks, the chunks are handed over
+ *     through a bounded queue to a writer thread writing them to the file channel. Network reads overlap
+ *     disk writes and memory is bounded by queue capacity * chunk size, regardless of the number of activities.
+ *
+ *     The file is written next to the target path and moved in place when the export succeeds.
+ * </pre>
+ */
+public class ActivityExporter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivityExporter.class);
+
+	private static final String CANNOT_OPEN_FILE_ERROR_MESSAGE = "Cannot open export file = %s.";
+	private static final String CANNOT_WRITE_FILE_ERROR_MESSAGE = "Cannot write export file = %s.";
+	private static final String EXPORT_INTERRUPTED_ERROR_MESSAGE = "Export has been interrupted, file = %s.";
+
+	private static final String PART_FILE_SUFFIX = ".part";
+	private static final String WRITER_THREAD_NAME = "activity-export-writer";
+
+	private static final int DEFAULT_QUEUE_CAPACITY = 16;
+	private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+	private static final ByteBuffer END_OF_EXPORT = ByteBuffer.allocate(0);
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private final GarminAPIHandler apiHandler;
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	public ActivityExporter(GarminAPIHandler apiHandler) {
+		this.apiHandler = apiHandler;
+	}
+
+	/**
+	 * <pre>
+	 *     Pages through activities starting at the start offset of search fields. The limit of search fields
+	 *     is used as page size (configured default when not set).
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @param path target file
+	 * @param compression compression of the file
+	 * @return summary of the export
+	 */
+	public ExportReport export(ActivitiesSearchFields activitiesSearchFields, Path path, ExportCompression compression) {
+		Path partPath = path.resolveSibling(path.getFileName() + PART_FILE_SUFFIX);
+
+		BlockingQueue<ByteBuffer> queue = new ArrayBlockingQueue<>(queueCapacity);
+		ChunkWriter chunkWriter = new ChunkWriter(queue, open(partPath, compression));
+
+		Thread writerThread = new Thread(chunkWriter, WRITER_THREAD_NAME);
+		writerThread.setDaemon(true);
+		writerThread.start();
+
+		ChunkProducer chunkProducer = new ChunkProducer(queue, chunkWriter);
+		boolean exported = false;
+
+		try {
+			int pageSize = activitiesSearchFields.getLimit() > 0 ? activitiesSearchFields.getLimit() : connectorsConfiguration.getGarminConnectActivitiesPageSize();
+			int start = activitiesSearchFields.getStart();
+			int pageActivities;
+
+			do {
+				ActivitiesSearchFields pageSearchFields = activitiesSearchFields.copy();
+				pageSearchFields.setStart(start);
+				pageSearchFields.setLimit(pageSize);
+
+				pageActivities = apiHandler.readActivities(pageSearchFields, chunkProducer::writeActivity);
+				chunkProducer.pageRead(pageActivities);
+
+				start += pageSize;
+			} while (pageActivities >= pageSize);
+
+			chunkProducer.finish();
+			writerThread.join();
+
+			if (chunkWriter.failure != null) {
+				LOG.error("Cannot write export file = {}.", partPath, chunkWriter.failure);
+				throw new ConnectorException(String.format(CANNOT_WRITE_FILE_ERROR_MESSAGE, path), chunkWriter.failure);
+			}
+
+			Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			exported = true;
+
+			LOG.debug("Activities exported, file = {}, activities = {}, pages = {}.", path, chunkProducer.activities, chunkProducer.pages);
+
+			return new ExportReport(path, chunkProducer.activities, chunkProducer.pages, chunkProducer.bytes);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectorException(String.format(EXPORT_INTERRUPTED_ERROR_MESSAGE, path), e);
+		} catch (IOException e) {
+			LOG.error("Cannot write export file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_FILE_ERROR_MESSAGE, path), e);
+		} finally {
+			if (!exported) {
+				writerThread.interrupt();
+				joinQuietly(writerThread);
+				deleteQuietly(partPath);
+			}
+		}
+	}
+
+	private WritableByteChannel open(Path path, ExportCompression compression) {
+		try {
+			FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+			try {
+				return compression.wrap(fileChannel);
+			} catch (IOException | RuntimeException | LinkageError e) {
+				fileChannel.close();
+				throw e;
+			}
+		} catch (IOException | LinkageError e) {
+			LOG.error("Cannot open export file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_OPEN_FILE_ERROR_MESSAGE, path), e);
+		}
+	}
+
+	private void joinQuietly(Thread thread) {
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			LOG.warn("Cannot delete unfinished export file = {}.", path, e);
+		}
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Encodes activities into chunks of NDJSON lines, called by the thread reading the responses.
+	 */
+	private class ChunkProducer {
+
+		private final BlockingQueue<ByteBuffer> queue;
+
+		private final ChunkWriter chunkWriter;
+
+		private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(chunkSize + chunkSize / 4);
+
+		private final Writer chunkContentWriter = new OutputStreamWriter(chunk, StandardCharsets.UTF_8);
+
+		private long activities;
+
+		private int pages;
+
+		private long bytes;
+
+		ChunkProducer(BlockingQueue<ByteBuffer> queue, ChunkWriter chunkWriter) {
+			this.queue = queue;
+			this.chunkWriter = chunkWriter;
+		}
+
+		void writeActivity(JsonReader jsonReader) throws IOException {
+			JsonWriter jsonWriter = new JsonWriter(chunkContentWriter);
+			JsonValueCopier.copyValue(jsonReader, jsonWriter);
+			jsonWriter.flush();
+
+			chunkContentWriter.write('\n');
+			chunkContentWriter.flush();
+
+			activities++;
+
+			if (chunk.size() >= chunkSize) {
+				handOverChunk();
+			}
+		}
+
+		void pageRead(int pageActivities) {
+			pages++;
+
+			LOG.debug("Activities page read, activities = {}.", pageActivities);
+		}
+
+		void finish() throws IOException {
+			handOverChunk();
+			put(END_OF_EXPORT);
+		}
+
+		private void handOverChunk() throws IOException {
+			if (chunk.size() == 0) {
+				return;
+			}
+
+			bytes += chunk.size();
+
+			put(ByteBuffer.wrap(chunk.toByteArray()));
+			chunk.reset();
+
+			if (chunkWriter.failure != null) {
+				throw chunkWriter.failure;
+			}
+		}
+
+		private void put(ByteBuffer buffer) throws InterruptedIOException {
+			try {
+				queue.put(buffer);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for export writer.");
+			}
+		}
+	}
+
+	/**
+	 * Writes chunks to the channel until the end of export. After a failure remaining chunks are discarded,
+	 * so the producer never blocks on a full queue.
+	 */
+	private static class ChunkWriter implements Runnable {
+
+		private final BlockingQueue<ByteBuffer> queue;
+
+		private final WritableByteChannel channel;
+
+		private volatile IOException failure;
+
+		ChunkWriter(BlockingQueue<ByteBuffer> queue, WritableByteChannel channel) {
+			this.queue = queue;
+			this.channel = channel;
+		}
+
+		@Override
+		public void run() {
+			try {
+				ByteBuffer buffer;
+
+				while ((buffer = queue.take()) != END_OF_EXPORT) {
+					write(buffer);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				close();
+			}
+		}
+
+		private void write(ByteBuffer buffer) {
+			if (failure != null) {
+				return;
+			}
+
+			try {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+
+		private void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				if (failure == null) {
+					failure = e;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <pre>
+ *     Compression of export files. Zstandard requires the optional com.github.luben:zstd-jni dependency.
+ * </pre>
+ */
+public enum ExportCompression {
+
+	NONE(".ndjson") {
+		@Override
+		WritableByteChannel wrap(FileChannel fileChannel) {
+			return fileChannel;
+		}
+	},
+	GZIP(".ndjson.gz") {
+		@Override
+		WritableByteChannel wrap(FileChannel fileChannel) throws IOException {
+			return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE));
+		}
+	},
+	ZSTD(".ndjson.zst") {
+		@Override
+		WritableByteChannel wrap(FileChannel fileChannel) throws IOException {
+			return Channels.newChannel(ZstdStreams.compress(Channels.newOutputStream(fileChannel)));
+		}
+	};
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String fileExtension;
+
+	ExportCompression(String fileExtension) {
+		this.fileExtension = fileExtension;
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+	/**
+	 * Wraps the file channel, closing the returned channel finishes compression and closes the file.
+	 */
+	abstract WritableByteChannel wrap(FileChannel fileChannel) throws IOException;
+
+	/**
+	 * Keeps zstd-jni classes away from {@link ExportCompression}, so they are loaded only when Zstandard is used.
+	 */
+	private static final class ZstdStreams {
+
+		static OutputStream compress(OutputStream outputStream) throws IOException {
+			return new com.github.luben.zstd.ZstdOutputStream(outputStream);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.export;
+
+import java.nio.file.Path;
+
+public class ExportReport {
+
+	private final Path path;
+
+	private final long activities;
+
+	private final int pages;
+
+	private final long bytes;
+
+	ExportReport(Path path, long activities, int pages, long bytes) {
+		this.path = path;
+		this.activities = activities;
+		this.pages = pages;
+		this.bytes = bytes;
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public long getActivities() {
+		return activities;
+	}
+
+	public int getPages() {
+		return pages;
+	}
+
+	/**
+	 * @return number of NDJSON bytes, before compression
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "ExportReport{" +
+				"path=" + path +
+				", activities=" + activities +
+				", pages=" + pages +
+				", bytes=" + bytes +
+				'}';
+	}
+}
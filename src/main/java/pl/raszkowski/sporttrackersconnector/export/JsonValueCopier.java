@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.export;
+
+import java.io.IOException;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Copies single json value token by token, without building a tree. Numbers are copied as they were written.
+ * </pre>
+ */
+final class JsonValueCopier {
+
+	private JsonValueCopier() {
+
+	}
+
+	static void copyValue(JsonReader jsonReader, JsonWriter jsonWriter) throws IOException {
+		int depth = 0;
+
+		do {
+			switch (jsonReader.peek()) {
+				case BEGIN_ARRAY:
+					jsonReader.beginArray();
+					jsonWriter.beginArray();
+					depth++;
+					break;
+				case END_ARRAY:
+					jsonReader.endArray();
+					jsonWriter.endArray();
+					depth--;
+					break;
+				case BEGIN_OBJECT:
+					jsonReader.beginObject();
+					jsonWriter.beginObject();
+					depth++;
+					break;
+				case END_OBJECT:
+					jsonReader.endObject();
+					jsonWriter.endObject();
+					depth--;
+					break;
+				case NAME:
+					jsonWriter.name(jsonReader.nextName());
+					break;
+				case STRING:
+					jsonWriter.value(jsonReader.nextString());
+					break;
+				case NUMBER:
+					jsonWriter.jsonValue(jsonReader.nextString());
+					break;
+				case BOOLEAN:
+					jsonWriter.value(jsonReader.nextBoolean());
+					break;
+				case NULL:
+					jsonReader.nextNull();
+					jsonWriter.nullValue();
+					break;
+				default:
+					throw new IllegalStateException("Unexpected token = " + jsonReader.peek() + ".");
+			}
+		} while (depth > 0);
+	}
+}
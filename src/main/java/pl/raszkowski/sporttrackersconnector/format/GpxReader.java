@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * <pre>
+ *     Streaming reader of GPX 1.0 and 1.1 tracks. Besides position, elevation and time, values of track point
+ *     extensions are read: hr, cad, atemp, speed and power, as written by Garmin and most other devices.
+ *     Routes and waypoints are skipped.
+ *
+ *     A reader keeps the state of the content being read, use one reader per thread.
+ * </pre>
+ *
+ * @see <a href="http://www.topografix.com/GPX/1/1/">GPX 1.1 schema</a>
+ */
+public class GpxReader extends XmlTrackReader {
+
+	private boolean inTrack;
+
+	private boolean trackStarted;
+
+	private boolean inTrackPoint;
+
+	private String trackName;
+
+	private String trackType;
+
+	public GpxReader() {
+		super("GPX");
+	}
+
+	@Override
+	protected void reset() {
+		inTrack = false;
+		trackStarted = false;
+		inTrackPoint = false;
+	}
+
+	@Override
+	protected void startElement(String localName, XMLStreamReader reader) throws XMLStreamException {
+		if (inTrackPoint) {
+			readTrackPointValue(localName, reader);
+			return;
+		}
+
+		switch (localName) {
+			case "trk":
+				inTrack = true;
+				trackStarted = false;
+				trackName = null;
+				trackType = null;
+				break;
+			case "name":
+				if (inTrack && !trackStarted) {
+					trackName = reader.getElementText();
+				}
+				break;
+			case "type":
+				if (inTrack && !trackStarted) {
+					trackType = reader.getElementText();
+				}
+				break;
+			case "trkseg":
+				startTrack();
+				trackHandler.startSegment();
+				break;
+			case "trkpt":
+				if (inTrack) {
+					startTrack();
+					trackPoint.clear();
+					trackPoint.setLatitude(readDoubleAttribute(reader, "lat"));
+					trackPoint.setLongitude(readDoubleAttribute(reader, "lon"));
+					inTrackPoint = true;
+				}
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void readTrackPointValue(String localName, XMLStreamReader reader) throws XMLStreamException {
+		switch (localName) {
+			case "ele":
+				trackPoint.setElevationMeters(readDouble(reader));
+				break;
+			case "time":
+				trackPoint.setTimeMillis(readTimeMillis(reader));
+				break;
+			case "hr":
+				trackPoint.setHeartRate(readDouble(reader));
+				break;
+			case "cad":
+				trackPoint.setCadence(readDouble(reader));
+				break;
+			case "atemp":
+				trackPoint.setTemperatureCelsius(readDouble(reader));
+				break;
+			case "speed":
+				trackPoint.setSpeedMetersPerSecond(readDouble(reader));
+				break;
+			case "power":
+				trackPoint.setPowerWatts(readDouble(reader));
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Name and type precede segments, the track is started once they are read.
+	 */
+	private void startTrack() {
+		if (!trackStarted) {
+			trackHandler.startTrack(trackName, trackType);
+			trackStarted = true;
+		}
+	}
+
+	@Override
+	protected void endElement(String localName) {
+		switch (localName) {
+			case "trkpt":
+				if (inTrackPoint) {
+					inTrackPoint = false;
+					onTrackPoint();
+				}
+				break;
+			case "trkseg":
+				if (inTrack) {
+					trackHandler.endSegment();
+				}
+				break;
+			case "trk":
+				startTrack();
+				trackHandler.endTrack();
+				inTrack = false;
+				break;
+			default:
+				break;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * <pre>
+ *     Streaming writer of GPX 1.1 tracks. Heart rate, cadence and temperature are written as Garmin track point
+ *     extension. Points without position are skipped, GPX requires it.
+ * </pre>
+ */
+public class GpxWriter extends XmlTrackWriter {
+
+	private static final String GPX_NAMESPACE = "http://www.topografix.com/GPX/1/1";
+	private static final String TRACK_POINT_EXTENSION_PREFIX = "gpxtpx";
+	private static final String TRACK_POINT_EXTENSION_NAMESPACE = "http://www.garmin.com/xmlschemas/TrackPointExtension/v1";
+
+	private static final int COORDINATE_DECIMALS = 7;
+	private static final int VALUE_DECIMALS = 2;
+
+	private boolean trackStarted;
+
+	private boolean segmentStarted;
+
+	public GpxWriter(OutputStream output) {
+		super(output, "GPX");
+	}
+
+	@Override
+	protected void writeRootStart() throws XMLStreamException {
+		writer.writeStartElement("gpx");
+		writer.writeDefaultNamespace(GPX_NAMESPACE);
+		writer.writeNamespace(TRACK_POINT_EXTENSION_PREFIX, TRACK_POINT_EXTENSION_NAMESPACE);
+		writer.writeAttribute("version", "1.1");
+		writer.writeAttribute("creator", CREATOR);
+	}
+
+	@Override
+	public void startTrack(String name, String type) {
+		try {
+			startTrackElement(name, type);
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void startTrackElement(String name, String type) throws XMLStreamException {
+		endTrackElement();
+		startDocument();
+
+		writer.writeStartElement("trk");
+		if (name != null) {
+			writeElement("name", name);
+		}
+		if (type != null) {
+			writeElement("type", type);
+		}
+		trackStarted = true;
+	}
+
+	@Override
+	public void startSegment() {
+		try {
+			startSegmentElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void startSegmentElement() throws XMLStreamException {
+		endSegmentElement();
+		if (!trackStarted) {
+			startTrackElement(null, null);
+		}
+
+		writer.writeStartElement("trkseg");
+		segmentStarted = true;
+	}
+
+	@Override
+	public void onTrackPoint(TrackPoint trackPoint) {
+		if (!trackPoint.hasPosition()) {
+			return;
+		}
+
+		try {
+			if (!segmentStarted) {
+				startSegmentElement();
+			}
+			writeTrackPoint(trackPoint);
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void writeTrackPoint(TrackPoint trackPoint) throws XMLStreamException {
+		writer.writeStartElement("trkpt");
+		writer.writeAttribute("lat", formatDecimal(trackPoint.getLatitude(), COORDINATE_DECIMALS));
+		writer.writeAttribute("lon", formatDecimal(trackPoint.getLongitude(), COORDINATE_DECIMALS));
+
+		if (!Double.isNaN(trackPoint.getElevationMeters())) {
+			writeElement("ele", formatDecimal(trackPoint.getElevationMeters(), VALUE_DECIMALS));
+		}
+		if (trackPoint.hasTime()) {
+			writeElement("time", formatTime(trackPoint.getTimeMillis()));
+		}
+		if (!Double.isNaN(trackPoint.getHeartRate()) || !Double.isNaN(trackPoint.getCadence()) || !Double.isNaN(trackPoint.getTemperatureCelsius())) {
+			writeExtension(trackPoint);
+		}
+
+		writer.writeEndElement();
+	}
+
+	private void writeExtension(TrackPoint trackPoint) throws XMLStreamException {
+		writer.writeStartElement("extensions");
+		writer.writeStartElement(TRACK_POINT_EXTENSION_PREFIX, "TrackPointExtension", TRACK_POINT_EXTENSION_NAMESPACE);
+
+		if (!Double.isNaN(trackPoint.getTemperatureCelsius())) {
+			writeExtensionElement("atemp", formatDecimal(trackPoint.getTemperatureCelsius(), VALUE_DECIMALS));
+		}
+		if (!Double.isNaN(trackPoint.getHeartRate())) {
+			writeExtensionElement("hr", formatDecimal(trackPoint.getHeartRate(), 0));
+		}
+		if (!Double.isNaN(trackPoint.getCadence())) {
+			writeExtensionElement("cad", formatDecimal(trackPoint.getCadence(), 0));
+		}
+
+		writer.writeEndElement();
+		writer.writeEndElement();
+	}
+
+	private void writeExtensionElement(String localName, String text) throws XMLStreamException {
+		writeElement(TRACK_POINT_EXTENSION_PREFIX, TRACK_POINT_EXTENSION_NAMESPACE, localName, text);
+	}
+
+	@Override
+	public void endSegment() {
+		try {
+			endSegmentElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void endSegmentElement() throws XMLStreamException {
+		if (segmentStarted) {
+			writer.writeEndElement();
+			segmentStarted = false;
+		}
+	}
+
+	@Override
+	public void endTrack() {
+		try {
+			endTrackElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void endTrackElement() throws XMLStreamException {
+		endSegmentElement();
+		if (trackStarted) {
+			writer.writeEndElement();
+			trackStarted = false;
+		}
+	}
+
+	@Override
+	protected void endOpenElements() throws XMLStreamException {
+		endTrackElement();
+	}
+}
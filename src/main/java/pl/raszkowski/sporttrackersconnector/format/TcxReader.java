@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * <pre>
+ *     Streaming reader of TCX activities and courses. Every activity or course is a track, every track element
+ *     (one or more per lap) a segment. Speed, power and run cadence are read from the activity extension.
+ *
+ *     A reader keeps the state of the content being read, use one reader per thread.
+ * </pre>
+ *
+ * @see <a href="https://www8.garmin.com/xmlschemas/TrainingCenterDatabasev2.xsd">TCX schema</a>
+ */
+public class TcxReader extends XmlTrackReader {
+
+	private boolean inCourse;
+
+	private boolean trackStarted;
+
+	private boolean inTrackPoint;
+
+	private boolean inHeartRate;
+
+	private String trackName;
+
+	public TcxReader() {
+		super("TCX");
+	}
+
+	@Override
+	protected void reset() {
+		inCourse = false;
+		trackStarted = false;
+		inTrackPoint = false;
+		inHeartRate = false;
+	}
+
+	@Override
+	protected void startElement(String localName, XMLStreamReader reader) throws XMLStreamException {
+		if (inTrackPoint) {
+			readTrackPointValue(localName, reader);
+			return;
+		}
+
+		switch (localName) {
+			case "Activity":
+				trackHandler.startTrack(null, reader.getAttributeValue(null, "Sport"));
+				trackStarted = true;
+				break;
+			case "Course":
+				inCourse = true;
+				trackStarted = false;
+				trackName = null;
+				break;
+			case "Name":
+				if (inCourse && !trackStarted) {
+					trackName = reader.getElementText();
+				}
+				break;
+			case "Track":
+				startCourse();
+				trackHandler.startSegment();
+				break;
+			case "Trackpoint":
+				trackPoint.clear();
+				inTrackPoint = true;
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void readTrackPointValue(String localName, XMLStreamReader reader) throws XMLStreamException {
+		switch (localName) {
+			case "Time":
+				trackPoint.setTimeMillis(readTimeMillis(reader));
+				break;
+			case "LatitudeDegrees":
+				trackPoint.setLatitude(readDouble(reader));
+				break;
+			case "LongitudeDegrees":
+				trackPoint.setLongitude(readDouble(reader));
+				break;
+			case "AltitudeMeters":
+				trackPoint.setElevationMeters(readDouble(reader));
+				break;
+			case "DistanceMeters":
+				trackPoint.setDistanceMeters(readDouble(reader));
+				break;
+			case "HeartRateBpm":
+				inHeartRate = true;
+				break;
+			case "Value":
+				if (inHeartRate) {
+					trackPoint.setHeartRate(readDouble(reader));
+				}
+				break;
+			case "Cadence":
+			case "RunCadence":
+				trackPoint.setCadence(readDouble(reader));
+				break;
+			case "Speed":
+				trackPoint.setSpeedMetersPerSecond(readDouble(reader));
+				break;
+			case "Watts":
+				trackPoint.setPowerWatts(readDouble(reader));
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Course name precedes its track, the course is started once it is read.
+	 */
+	private void startCourse() {
+		if (!trackStarted) {
+			trackHandler.startTrack(trackName, null);
+			trackStarted = true;
+		}
+	}
+
+	@Override
+	protected void endElement(String localName) {
+		switch (localName) {
+			case "HeartRateBpm":
+				inHeartRate = false;
+				break;
+			case "Trackpoint":
+				inTrackPoint = false;
+				onTrackPoint();
+				break;
+			case "Track":
+				trackHandler.endSegment();
+				break;
+			case "Activity":
+				trackHandler.endTrack();
+				trackStarted = false;
+				break;
+			case "Course":
+				startCourse();
+				trackHandler.endTrack();
+				trackStarted = false;
+				inCourse = false;
+				break;
+			default:
+				break;
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.OutputStream;
+import java.util.Locale;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * <pre>
+ *     Streaming writer of TCX activities: every track is an activity, every segment a lap with one track.
+ *     The activity id and lap start time are taken from the first point, so elements are opened lazily.
+ *     Lap totals would require the whole lap in memory and are not written, importing applications compute
+ *     them from track points. Points without time are skipped, TCX requires it.
+ * </pre>
+ */
+public class TcxWriter extends XmlTrackWriter {
+
+	private static final String TCX_NAMESPACE = "http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2";
+	private static final String ACTIVITY_EXTENSION_PREFIX = "ns3";
+	private static final String ACTIVITY_EXTENSION_NAMESPACE = "http://www.garmin.com/xmlschemas/ActivityExtension/v2";
+
+	private static final String RUNNING_SPORT = "Running";
+	private static final String BIKING_SPORT = "Biking";
+	private static final String OTHER_SPORT = "Other";
+
+	private static final int COORDINATE_DECIMALS = 7;
+	private static final int VALUE_DECIMALS = 2;
+
+	private String sport = OTHER_SPORT;
+
+	private boolean activityStarted;
+
+	private boolean lapStarted;
+
+	public TcxWriter(OutputStream output) {
+		super(output, "TCX");
+	}
+
+	@Override
+	protected void writeRootStart() throws XMLStreamException {
+		writer.writeStartElement("TrainingCenterDatabase");
+		writer.writeDefaultNamespace(TCX_NAMESPACE);
+		writer.writeNamespace(ACTIVITY_EXTENSION_PREFIX, ACTIVITY_EXTENSION_NAMESPACE);
+		writer.writeStartElement("Activities");
+	}
+
+	/**
+	 * @param name ignored, TCX activities have no name
+	 * @param type mapped to Running, Biking or Other sport
+	 */
+	@Override
+	public void startTrack(String name, String type) {
+		try {
+			endActivityElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+		sport = toSport(type);
+	}
+
+	private static String toSport(String type) {
+		if (type == null) {
+			return OTHER_SPORT;
+		}
+
+		switch (type.toLowerCase(Locale.ROOT)) {
+			case "running":
+				return RUNNING_SPORT;
+			case "biking":
+			case "cycling":
+				return BIKING_SPORT;
+			default:
+				return OTHER_SPORT;
+		}
+	}
+
+	@Override
+	public void startSegment() {
+		endSegment();
+	}
+
+	@Override
+	public void onTrackPoint(TrackPoint trackPoint) {
+		if (!trackPoint.hasTime()) {
+			return;
+		}
+
+		try {
+			String time = formatTime(trackPoint.getTimeMillis());
+
+			if (!activityStarted) {
+				startDocument();
+				writer.writeStartElement("Activity");
+				writer.writeAttribute("Sport", sport);
+				writeElement("Id", time);
+				activityStarted = true;
+			}
+			if (!lapStarted) {
+				writer.writeStartElement("Lap");
+				writer.writeAttribute("StartTime", time);
+				writer.writeStartElement("Track");
+				lapStarted = true;
+			}
+
+			writeTrackPoint(trackPoint, time);
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void writeTrackPoint(TrackPoint trackPoint, String time) throws XMLStreamException {
+		writer.writeStartElement("Trackpoint");
+		writeElement("Time", time);
+
+		if (trackPoint.hasPosition()) {
+			writer.writeStartElement("Position");
+			writeElement("LatitudeDegrees", formatDecimal(trackPoint.getLatitude(), COORDINATE_DECIMALS));
+			writeElement("LongitudeDegrees", formatDecimal(trackPoint.getLongitude(), COORDINATE_DECIMALS));
+			writer.writeEndElement();
+		}
+		if (!Double.isNaN(trackPoint.getElevationMeters())) {
+			writeElement("AltitudeMeters", formatDecimal(trackPoint.getElevationMeters(), VALUE_DECIMALS));
+		}
+		if (!Double.isNaN(trackPoint.getDistanceMeters())) {
+			writeElement("DistanceMeters", formatDecimal(trackPoint.getDistanceMeters(), VALUE_DECIMALS));
+		}
+		if (!Double.isNaN(trackPoint.getHeartRate())) {
+			writer.writeStartElement("HeartRateBpm");
+			writeElement("Value", formatDecimal(trackPoint.getHeartRate(), 0));
+			writer.writeEndElement();
+		}
+		if (!Double.isNaN(trackPoint.getCadence())) {
+			writeElement("Cadence", formatDecimal(trackPoint.getCadence(), 0));
+		}
+		if (!Double.isNaN(trackPoint.getSpeedMetersPerSecond()) || !Double.isNaN(trackPoint.getPowerWatts())) {
+			writeExtension(trackPoint);
+		}
+
+		writer.writeEndElement();
+	}
+
+	private void writeExtension(TrackPoint trackPoint) throws XMLStreamException {
+		writer.writeStartElement("Extensions");
+		writer.writeStartElement(ACTIVITY_EXTENSION_PREFIX, "TPX", ACTIVITY_EXTENSION_NAMESPACE);
+
+		if (!Double.isNaN(trackPoint.getSpeedMetersPerSecond())) {
+			writeElement(ACTIVITY_EXTENSION_PREFIX, ACTIVITY_EXTENSION_NAMESPACE, "Speed", formatDecimal(trackPoint.getSpeedMetersPerSecond(), VALUE_DECIMALS));
+		}
+		if (!Double.isNaN(trackPoint.getPowerWatts())) {
+			writeElement(ACTIVITY_EXTENSION_PREFIX, ACTIVITY_EXTENSION_NAMESPACE, "Watts", formatDecimal(trackPoint.getPowerWatts(), 0));
+		}
+
+		writer.writeEndElement();
+		writer.writeEndElement();
+	}
+
+	@Override
+	public void endSegment() {
+		try {
+			endLapElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void endLapElement() throws XMLStreamException {
+		if (lapStarted) {
+			writer.writeEndElement();
+			writer.writeEndElement();
+			lapStarted = false;
+		}
+	}
+
+	@Override
+	public void endTrack() {
+		try {
+			endActivityElement();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	private void endActivityElement() throws XMLStreamException {
+		endLapElement();
+		if (activityStarted) {
+			writer.writeEndElement();
+			activityStarted = false;
+		}
+		sport = OTHER_SPORT;
+	}
+
+	@Override
+	protected void endOpenElements() throws XMLStreamException {
+		endActivityElement();
+		writer.writeEndElement();
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+/**
+ * <pre>
+ *     Receives a track as it is read: {@link #startTrack(String, String)}, then segments with their points,
+ *     then {@link #endTrack()}. A GPX track segment and a TCX track (one per lap) are segments.
+ * </pre>
+ */
+public interface TrackHandler {
+
+	/**
+	 * @param name track name, null when not given
+	 * @param type activity type, GPX track type or TCX sport, null when not given
+	 */
+	default void startTrack(String name, String type) {
+
+	}
+
+	default void startSegment() {
+
+	}
+
+	/**
+	 * @param trackPoint point, valid only during the call
+	 */
+	void onTrackPoint(TrackPoint trackPoint);
+
+	default void endSegment() {
+
+	}
+
+	default void endTrack() {
+
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+/**
+ * <pre>
+ *     Single point of a track. Readers pass one reused instance for all points, values are valid only during
+ *     {@link TrackHandler#onTrackPoint(TrackPoint)}. Missing values are NaN, missing time is {@link #NO_TIME}.
+ * </pre>
+ */
+public class TrackPoint {
+
+	public static final long NO_TIME = Long.MIN_VALUE;
+
+	private long timeMillis;
+
+	private double latitude;
+
+	private double longitude;
+
+	private double elevationMeters;
+
+	private double distanceMeters;
+
+	private double speedMetersPerSecond;
+
+	private double heartRate;
+
+	private double cadence;
+
+	private double powerWatts;
+
+	private double temperatureCelsius;
+
+	public TrackPoint() {
+		clear();
+	}
+
+	/**
+	 * Sets all values missing.
+	 */
+	public void clear() {
+		timeMillis = NO_TIME;
+		latitude = Double.NaN;
+		longitude = Double.NaN;
+		elevationMeters = Double.NaN;
+		distanceMeters = Double.NaN;
+		speedMetersPerSecond = Double.NaN;
+		heartRate = Double.NaN;
+		cadence = Double.NaN;
+		powerWatts = Double.NaN;
+		temperatureCelsius = Double.NaN;
+	}
+
+	public boolean hasTime() {
+		return timeMillis != NO_TIME;
+	}
+
+	public boolean hasPosition() {
+		return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+	}
+
+	public long getTimeMillis() {
+		return timeMillis;
+	}
+
+	public void setTimeMillis(long timeMillis) {
+		this.timeMillis = timeMillis;
+	}
+
+	public double getLatitude() {
+		return latitude;
+	}
+
+	public void setLatitude(double latitude) {
+		this.latitude = latitude;
+	}
+
+	public double getLongitude() {
+		return longitude;
+	}
+
+	public void setLongitude(double longitude) {
+		this.longitude = longitude;
+	}
+
+	public double getElevationMeters() {
+		return elevationMeters;
+	}
+
+	public void setElevationMeters(double elevationMeters) {
+		this.elevationMeters = elevationMeters;
+	}
+
+	public double getDistanceMeters() {
+		return distanceMeters;
+	}
+
+	public void setDistanceMeters(double distanceMeters) {
+		this.distanceMeters = distanceMeters;
+	}
+
+	public double getSpeedMetersPerSecond() {
+		return speedMetersPerSecond;
+	}
+
+	public void setSpeedMetersPerSecond(double speedMetersPerSecond) {
+		this.speedMetersPerSecond = speedMetersPerSecond;
+	}
+
+	public double getHeartRate() {
+		return heartRate;
+	}
+
+	public void setHeartRate(double heartRate) {
+		this.heartRate = heartRate;
+	}
+
+	public double getCadence() {
+		return cadence;
+	}
+
+	public void setCadence(double cadence) {
+		this.cadence = cadence;
+	}
+
+	public double getPowerWatts() {
+		return powerWatts;
+	}
+
+	public void setPowerWatts(double powerWatts) {
+		this.powerWatts = powerWatts;
+	}
+
+	public double getTemperatureCelsius() {
+		return temperatureCelsius;
+	}
+
+	public void setTemperatureCelsius(double temperatureCelsius) {
+		this.temperatureCelsius = temperatureCelsius;
+	}
+
+	@Override
+	public String toString() {
+		return "TrackPoint{" +
+				"timeMillis=" + timeMillis +
+				", latitude=" + latitude +
+				", longitude=" + longitude +
+				", elevationMeters=" + elevationMeters +
+				", distanceMeters=" + distanceMeters +
+				", speedMetersPerSecond=" + speedMetersPerSecond +
+				", heartRate=" + heartRate +
+				", cadence=" + cadence +
+				", powerWatts=" + powerWatts +
+				", temperatureCelsius=" + temperatureCelsius +
+				'}';
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.InputStream;
+
+public interface TrackReader {
+
+	/**
+	 * <pre>
+	 *     Reads tracks of given content point by point, as the content is received. The stream is not closed.
+	 * </pre>
+	 *
+	 * @param content track file content, its encoding is taken from the XML declaration
+	 * @param trackHandler handler of tracks and their points
+	 * @return number of read track points
+	 */
+	int read(InputStream content, TrackHandler trackHandler);
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.InputStream;
+import java.time.DateTimeException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Pulls elements of a track file with StAX and passes them to the format specific handling, only the current
+ *     element is held in memory. Elements are matched by local name, so files of any schema version are read.
+ *     DTDs and external entities are not processed.
+ * </pre>
+ */
+abstract class XmlTrackReader implements TrackReader {
+
+	private static final Logger LOG = LoggerFactory.getLogger(XmlTrackReader.class);
+
+	private static final String CANNOT_READ_TRACK_ERROR_MESSAGE = "Cannot read %s track, line = %s.";
+
+	private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+	private final String formatName;
+
+	protected final TrackPoint trackPoint = new TrackPoint();
+
+	protected TrackHandler trackHandler;
+
+	private int trackPoints;
+
+	XmlTrackReader(String formatName) {
+		this.formatName = formatName;
+	}
+
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return inputFactory;
+	}
+
+	@Override
+	public int read(InputStream content, TrackHandler trackHandler) {
+		this.trackHandler = trackHandler;
+		this.trackPoints = 0;
+		reset();
+
+		XMLStreamReader reader = null;
+		try {
+			reader = INPUT_FACTORY.createXMLStreamReader(content);
+
+			while (reader.hasNext()) {
+				int event = reader.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					startElement(reader.getLocalName(), reader);
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					endElement(reader.getLocalName());
+				}
+			}
+
+			return trackPoints;
+		} catch (XMLStreamException | IllegalArgumentException | DateTimeException e) {
+			int line = reader != null ? reader.getLocation().getLineNumber() : -1;
+			LOG.error("Cannot read {} track, line = {}.", formatName, line, e);
+			throw new ConnectorException(String.format(CANNOT_READ_TRACK_ERROR_MESSAGE, formatName, line), e);
+		} finally {
+			this.trackHandler = null;
+			closeQuietly(reader);
+		}
+	}
+
+	private static void closeQuietly(XMLStreamReader reader) {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (XMLStreamException e) {
+				LOG.warn("Cannot close track reader.", e);
+			}
+		}
+	}
+
+	/**
+	 * Resets the state of the previously read content.
+	 */
+	protected abstract void reset();
+
+	/**
+	 * @param localName element name without prefix
+	 * @param reader reader positioned at the start element, the element text can be read with {@link XMLStreamReader#getElementText()}
+	 */
+	protected abstract void startElement(String localName, XMLStreamReader reader) throws XMLStreamException;
+
+	protected abstract void endElement(String localName);
+
+	protected void onTrackPoint() {
+		trackHandler.onTrackPoint(trackPoint);
+		trackPoints++;
+	}
+
+	protected static double readDouble(XMLStreamReader reader) throws XMLStreamException {
+		return XmlValues.parseDouble(reader.getElementText());
+	}
+
+	/**
+	 * @return attribute value, NaN when the attribute is missing
+	 */
+	protected static double readDoubleAttribute(XMLStreamReader reader, String localName) {
+		String value = reader.getAttributeValue(null, localName);
+		return value != null ? XmlValues.parseDouble(value) : Double.NaN;
+	}
+
+	protected static long readTimeMillis(XMLStreamReader reader) throws XMLStreamException {
+		return XmlValues.parseTimeMillis(reader.getElementText());
+	}
+}
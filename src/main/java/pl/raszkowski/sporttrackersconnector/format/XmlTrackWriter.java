@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.Closeable;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Writes a track file with StAX as track points are received, nothing but the open elements is kept.
+ *     {@link #close()} ends the document and flushes it, the output stream is not closed.
+ * </pre>
+ */
+abstract class XmlTrackWriter implements TrackHandler, Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(XmlTrackWriter.class);
+
+	private static final String CANNOT_WRITE_TRACK_ERROR_MESSAGE = "Cannot write %s track.";
+
+	private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+	protected static final String CREATOR = "sport-trackers-connector";
+
+	private final String formatName;
+
+	protected final XMLStreamWriter writer;
+
+	private boolean documentStarted;
+
+	private boolean closed;
+
+	XmlTrackWriter(OutputStream output, String formatName) {
+		this.formatName = formatName;
+
+		try {
+			this.writer = OUTPUT_FACTORY.createXMLStreamWriter(output, StandardCharsets.UTF_8.name());
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	protected void startDocument() throws XMLStreamException {
+		if (!documentStarted) {
+			writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+			writeRootStart();
+			documentStarted = true;
+		}
+	}
+
+	/**
+	 * Writes the root element start with namespace declarations.
+	 */
+	protected abstract void writeRootStart() throws XMLStreamException;
+
+	/**
+	 * Ends open elements but the root.
+	 */
+	protected abstract void endOpenElements() throws XMLStreamException;
+
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			startDocument();
+			endOpenElements();
+			writer.writeEndDocument();
+			writer.flush();
+			writer.close();
+		} catch (XMLStreamException e) {
+			throw writeFailed(e);
+		}
+	}
+
+	protected void writeElement(String localName, String text) throws XMLStreamException {
+		writer.writeStartElement(localName);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+	}
+
+	protected void writeElement(String prefix, String namespace, String localName, String text) throws XMLStreamException {
+		writer.writeStartElement(prefix, localName, namespace);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+	}
+
+	protected static String formatDecimal(double value, int decimals) {
+		return XmlValues.formatDecimal(value, decimals);
+	}
+
+	protected static String formatTime(long timeMillis) {
+		return XmlValues.formatTime(timeMillis);
+	}
+
+	protected ConnectorException writeFailed(XMLStreamException e) {
+		LOG.error("Cannot write {} track.", formatName, e);
+		return new ConnectorException(String.format(CANNOT_WRITE_TRACK_ERROR_MESSAGE, formatName), e);
+	}
+}
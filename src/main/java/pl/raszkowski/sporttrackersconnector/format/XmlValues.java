@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+
+final class XmlValues {
+
+	private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L};
+
+	private XmlValues() {
+
+	}
+
+	/**
+	 * Parses xsd:dateTime, a time without offset is taken as UTC.
+	 */
+	static long parseTimeMillis(String text) {
+		TemporalAccessor dateTime = DateTimeFormatter.ISO_DATE_TIME.parse(text.trim());
+
+		if (dateTime.isSupported(ChronoField.OFFSET_SECONDS)) {
+			return Instant.from(dateTime).toEpochMilli();
+		}
+		return LocalDateTime.from(dateTime).toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	static String formatTime(long timeMillis) {
+		return Instant.ofEpochMilli(timeMillis).toString();
+	}
+
+	static double parseDouble(String text) {
+		return Double.parseDouble(text.trim());
+	}
+
+	/**
+	 * Formats value as xsd:decimal rounded to given number of decimals, without trailing zeros.
+	 * Unlike {@link Double#toString(double)} never uses the exponent notation.
+	 */
+	static String formatDecimal(double value, int decimals) {
+		long scale = POWERS_OF_TEN[decimals];
+		long scaled = Math.round(value * scale);
+
+		StringBuilder text = new StringBuilder(24);
+		if (scaled < 0) {
+			text.append('-');
+			scaled = -scaled;
+		}
+		text.append(scaled / scale);
+
+		long fraction = scaled % scale;
+		if (fraction != 0) {
+			int fractionDecimals = decimals;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				fractionDecimals--;
+			}
+
+			text.append('.');
+			for (long power = POWERS_OF_TEN[fractionDecimals - 1]; power > fraction; power /= 10) {
+				text.append('0');
+			}
+			text.append(fraction);
+		}
+
+		return text.toString();
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+/**
+ * <pre>
+ *     Base types of FIT fields. Values are read as raw bits of the type size, a field is invalid when
+ *     its raw value equals the invalid value of its type.
+ * </pre>
+ */
+public enum FitBaseType {
+
+	ENUM(0x00, 1, 0xFFL, false, false),
+	SINT8(0x01, 1, 0x7FL, true, false),
+	UINT8(0x02, 1, 0xFFL, false, false),
+	SINT16(0x83, 2, 0x7FFFL, true, false),
+	UINT16(0x84, 2, 0xFFFFL, false, false),
+	SINT32(0x85, 4, 0x7FFFFFFFL, true, false),
+	UINT32(0x86, 4, 0xFFFFFFFFL, false, false),
+	STRING(0x07, 1, 0x00L, false, false),
+	FLOAT32(0x88, 4, 0xFFFFFFFFL, true, true),
+	FLOAT64(0x89, 8, 0xFFFFFFFFFFFFFFFFL, true, true),
+	UINT8Z(0x0A, 1, 0x00L, false, false),
+	UINT16Z(0x8B, 2, 0x00L, false, false),
+	UINT32Z(0x8C, 4, 0x00L, false, false),
+	BYTE(0x0D, 1, 0xFFL, false, false),
+	SINT64(0x8E, 8, 0x7FFFFFFFFFFFFFFFL, true, false),
+	UINT64(0x8F, 8, 0xFFFFFFFFFFFFFFFFL, false, false),
+	UINT64Z(0x90, 8, 0x00L, false, false);
+
+	private static final int BASE_TYPE_NUMBER_MASK = 0x1F;
+
+	private static final FitBaseType[] BY_NUMBER = new FitBaseType[BASE_TYPE_NUMBER_MASK + 1];
+
+	static {
+		for (FitBaseType baseType : values()) {
+			BY_NUMBER[baseType.id & BASE_TYPE_NUMBER_MASK] = baseType;
+		}
+	}
+
+	private final int id;
+
+	private final int size;
+
+	private final long invalidValue;
+
+	private final boolean signed;
+
+	private final boolean floatingPoint;
+
+	FitBaseType(int id, int size, long invalidValue, boolean signed, boolean floatingPoint) {
+		this.id = id;
+		this.size = size;
+		this.invalidValue = invalidValue;
+		this.signed = signed;
+		this.floatingPoint = floatingPoint;
+	}
+
+	/**
+	 * @param id base type byte of a field definition
+	 * @return base type, {@link #BYTE} for unknown types
+	 */
+	public static FitBaseType of(int id) {
+		FitBaseType baseType = BY_NUMBER[id & BASE_TYPE_NUMBER_MASK];
+
+		return baseType != null ? baseType : BYTE;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return raw bits of the invalid value
+	 */
+	public long getInvalidValue() {
+		return invalidValue;
+	}
+
+	public boolean isSigned() {
+		return signed;
+	}
+
+	public boolean isFloatingPoint() {
+		return floatingPoint;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <pre>
+ *     CRC-16 of FIT files, computed over the header and the data records.
+ * </pre>
+ */
+final class FitCrc {
+
+	private static final int[] CRC_TABLE = {
+			0x0000, 0xCC01, 0xD801, 0x1400, 0xF001, 0x3C00, 0x2800, 0xE401,
+			0xA001, 0x6C00, 0x7800, 0xB401, 0x5000, 0x9C01, 0x8801, 0x4400
+	};
+
+	private FitCrc() {
+
+	}
+
+	static int compute(ByteBuffer buffer, int from, int to) {
+		int crc = 0;
+
+		for (int position = from; position < to; position++) {
+			crc = update(crc, buffer.get(position));
+		}
+
+		return crc;
+	}
+
+	static int update(int crc, byte value) {
+		int tmp = CRC_TABLE[crc & 0xF];
+		crc = (crc >> 4) & 0x0FFF;
+		crc = crc ^ tmp ^ CRC_TABLE[value & 0xF];
+
+		tmp = CRC_TABLE[crc & 0xF];
+		crc = (crc >> 4) & 0x0FFF;
+		return crc ^ tmp ^ CRC_TABLE[(value >> 4) & 0xF];
+	}
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.samples.ActivitySamplesBuilder;
+
+/**
+ * <pre>
+ *     Decodes FIT files straight from a heap, direct or memory-mapped {@link ByteBuffer} and passes data messages
+ *     to a {@link FitListener}. Fields are read in place through a single reused {@link FitField}, decoding does not
+ *     allocate per message. Chained FIT files in one buffer are decoded one after another.
+ *
+ *     A decoder keeps message definitions of the file being decoded, use one decoder per thread.
+ * </pre>
+ *
+ * @see <a href="https://developer.garmin.com/fit/protocol/">FIT protocol</a>
+ */
+public class FitDecoder {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FitDecoder.class);
+
+	private static final String NOT_FIT_FILE_ERROR_MESSAGE = "Content is not a FIT file, position = %s.";
+	private static final String TRUNCATED_FILE_ERROR_MESSAGE = "FIT file is truncated, position = %s.";
+	private static final String WRONG_CRC_ERROR_MESSAGE = "Wrong FIT file CRC = %s, expected = %s.";
+	private static final String UNDEFINED_MESSAGE_ERROR_MESSAGE = "Data message of undefined local message type = %s, position = %s.";
+	private static final String CANNOT_READ_FILE_ERROR_MESSAGE = "Cannot read FIT file = %s.";
+
+	private static final int FILE_HEADER_MIN_SIZE = 12;
+	private static final int FIT_SIGNATURE = 0x5449462E;
+	private static final int CRC_SIZE = 2;
+
+	private static final int COMPRESSED_TIMESTAMP_HEADER_MASK = 0x80;
+	private static final int DEFINITION_MESSAGE_MASK = 0x40;
+	private static final int DEVELOPER_DATA_MASK = 0x20;
+	private static final int LOCAL_MESSAGE_TYPE_MASK = 0x0F;
+	private static final int TIME_OFFSET_MASK = 0x1F;
+
+	private static final int LOCAL_MESSAGE_TYPES = 16;
+	private static final int DEFINITION_HEADER_SIZE = 5;
+	private static final int FIELD_DEFINITION_SIZE = 3;
+
+	private static final String FIT_FILE_EXTENSION = ".fit";
+
+	private final FitMessageDefinition[] definitions = new FitMessageDefinition[LOCAL_MESSAGE_TYPES];
+
+	private final FitField field = new FitField();
+
+	private boolean crcVerified = true;
+
+	private long lastTimestamp;
+
+	public FitDecoder() {
+		for (int i = 0; i < LOCAL_MESSAGE_TYPES; i++) {
+			definitions[i] = new FitMessageDefinition();
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Decodes all FIT files between position and limit of the content, which are left unchanged.
+	 * </pre>
+	 *
+	 * @param content FIT content
+	 * @param listener listener of data messages
+	 */
+	public void decode(ByteBuffer content, FitListener listener) {
+		ByteBuffer littleEndian = content.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer bigEndian = content.duplicate().order(ByteOrder.BIG_ENDIAN);
+
+		int position = content.position();
+
+		do {
+			position = decodeFile(littleEndian, bigEndian, position, content.limit(), listener);
+		} while (content.limit() - position >= FILE_HEADER_MIN_SIZE);
+	}
+
+	/**
+	 * <pre>
+	 *     Decodes FIT file memory-mapped, the file is paged in by the operating system as it is read.
+	 * </pre>
+	 *
+	 * @param path FIT file
+	 * @param listener listener of data messages
+	 */
+	public void decode(Path path, FitListener listener) {
+		ByteBuffer content;
+
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			content = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+		} catch (IOException e) {
+			LOG.error("Cannot read FIT file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_READ_FILE_ERROR_MESSAGE, path), e);
+		}
+
+		decode(content, listener);
+	}
+
+	/**
+	 * <pre>
+	 *     Decodes FIT files of a zip archive, as downloaded from Garmin Connect. Each entry is inflated
+	 *     into a direct buffer before decoding.
+	 * </pre>
+	 *
+	 * @param path zip archive
+	 * @param listener listener of data messages
+	 */
+	public void decodeZip(Path path, FitListener listener) {
+		try (ZipFile zipFile = new ZipFile(path.toFile())) {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+
+			while (entries.hasMoreElements()) {
+				ZipEntry entry = entries.nextElement();
+
+				if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(FIT_FILE_EXTENSION)) {
+					decode(inflate(zipFile, entry), listener);
+				}
+			}
+		} catch (IOException e) {
+			LOG.error("Cannot read FIT file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_READ_FILE_ERROR_MESSAGE, path), e);
+		}
+	}
+
+	private ByteBuffer inflate(ZipFile zipFile, ZipEntry entry) throws IOException {
+		try (InputStream content = zipFile.getInputStream(entry)) {
+			byte[] bytes = IOUtils.toByteArray(content);
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+			buffer.put(bytes).flip();
+			return buffer;
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Decodes record messages of FIT files into columns of activity samples.
+	 * </pre>
+	 *
+	 * @param content FIT content
+	 * @return samples of the records
+	 * @see FitSamplesCollector
+	 */
+	public ActivitySamplesBuilder decodeSamples(ByteBuffer content) {
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+
+		decode(content, samplesCollector);
+
+		return samplesCollector.getSamplesBuilder();
+	}
+
+	private int decodeFile(ByteBuffer littleEndian, ByteBuffer bigEndian, int fileStart, int limit, FitListener listener) {
+		int headerSize = limit - fileStart >= FILE_HEADER_MIN_SIZE ? littleEndian.get(fileStart) & 0xFF : 0;
+
+		if (headerSize < FILE_HEADER_MIN_SIZE || fileStart + headerSize > limit || littleEndian.getInt(fileStart + 8) != FIT_SIGNATURE) {
+			LOG.error("Content is not a FIT file, position = {}.", fileStart);
+			throw new ConnectorException(String.format(NOT_FIT_FILE_ERROR_MESSAGE, fileStart));
+		}
+
+		long dataSize = littleEndian.getInt(fileStart + 4) & 0xFFFFFFFFL;
+		int dataStart = fileStart + headerSize;
+
+		if (dataStart + dataSize + CRC_SIZE > limit) {
+			throw truncated(fileStart);
+		}
+
+		int dataEnd = dataStart + (int) dataSize;
+
+		if (crcVerified) {
+			verifyCrc(littleEndian, fileStart, dataEnd);
+		}
+
+		for (FitMessageDefinition definition : definitions) {
+			definition.defined = false;
+		}
+		lastTimestamp = 0;
+
+		int position = dataStart;
+
+		while (position < dataEnd) {
+			int header = littleEndian.get(position) & 0xFF;
+			position++;
+
+			if ((header & COMPRESSED_TIMESTAMP_HEADER_MASK) != 0) {
+				position = decodeCompressedTimestampMessage(littleEndian, bigEndian, header, position, dataEnd, listener);
+			} else if ((header & DEFINITION_MESSAGE_MASK) != 0) {
+				position = decodeDefinition(littleEndian, definitions[header & LOCAL_MESSAGE_TYPE_MASK], (header & DEVELOPER_DATA_MASK) != 0, position, dataEnd);
+			} else {
+				position = decodeDataMessage(littleEndian, bigEndian, header & LOCAL_MESSAGE_TYPE_MASK, position, dataEnd, listener, false);
+			}
+		}
+
+		return dataEnd + CRC_SIZE;
+	}
+
+	private void verifyCrc(ByteBuffer littleEndian, int fileStart, int dataEnd) {
+		int crc = FitCrc.compute(littleEndian, fileStart, dataEnd);
+		int expectedCrc = littleEndian.getShort(dataEnd) & 0xFFFF;
+
+		if (crc != expectedCrc) {
+			LOG.error("Wrong FIT file CRC = {}, expected = {}.", crc, expectedCrc);
+			throw new ConnectorException(String.format(WRONG_CRC_ERROR_MESSAGE, crc, expectedCrc));
+		}
+	}
+
+	private int decodeDefinition(ByteBuffer littleEndian, FitMessageDefinition definition, boolean developerData, int position, int dataEnd) {
+		if (position + DEFINITION_HEADER_SIZE > dataEnd) {
+			throw truncated(position);
+		}
+
+		definition.bigEndian = littleEndian.get(position + 1) != 0;
+		int globalMessageNumber = littleEndian.getShort(position + 2) & 0xFFFF;
+		definition.globalMessageNumber = definition.bigEndian ? Short.reverseBytes((short) globalMessageNumber) & 0xFFFF : globalMessageNumber;
+		definition.fieldsCount = littleEndian.get(position + 4) & 0xFF;
+		position += DEFINITION_HEADER_SIZE;
+
+		if (position + definition.fieldsCount * FIELD_DEFINITION_SIZE > dataEnd) {
+			throw truncated(position);
+		}
+
+		int messageSize = 0;
+		definition.timestampOffset = FitMessageDefinition.NO_TIMESTAMP;
+
+		for (int i = 0; i < definition.fieldsCount; i++) {
+			definition.fieldNumbers[i] = littleEndian.get(position) & 0xFF;
+			definition.fieldSizes[i] = littleEndian.get(position + 1) & 0xFF;
+			definition.fieldBaseTypes[i] = FitBaseType.of(littleEndian.get(position + 2));
+
+			if (definition.fieldNumbers[i] == FitProfile.TIMESTAMP_FIELD && definition.fieldSizes[i] == FitBaseType.UINT32.getSize()) {
+				definition.timestampOffset = messageSize;
+			}
+
+			messageSize += definition.fieldSizes[i];
+			position += FIELD_DEFINITION_SIZE;
+		}
+
+		definition.developerFieldsCount = 0;
+
+		if (developerData) {
+			if (position + 1 > dataEnd) {
+				throw truncated(position);
+			}
+
+			definition.developerFieldsCount = littleEndian.get(position) & 0xFF;
+			position++;
+
+			if (position + definition.developerFieldsCount * FIELD_DEFINITION_SIZE > dataEnd) {
+				throw truncated(position);
+			}
+
+			for (int i = 0; i < definition.developerFieldsCount; i++) {
+				definition.developerFieldNumbers[i] = littleEndian.get(position) & 0xFF;
+				definition.developerFieldSizes[i] = littleEndian.get(position + 1) & 0xFF;
+				definition.developerDataIndexes[i] = littleEndian.get(position + 2) & 0xFF;
+
+				messageSize += definition.developerFieldSizes[i];
+				position += FIELD_DEFINITION_SIZE;
+			}
+		}
+
+		definition.messageSize = messageSize;
+		definition.defined = true;
+
+		return position;
+	}
+
+	private int decodeCompressedTimestampMessage(ByteBuffer littleEndian, ByteBuffer bigEndian, int header, int position, int dataEnd, FitListener listener) {
+		int timeOffset = header & TIME_OFFSET_MASK;
+
+		long timestamp = (lastTimestamp & ~TIME_OFFSET_MASK) + timeOffset;
+		if (timeOffset < (lastTimestamp & TIME_OFFSET_MASK)) {
+			timestamp += TIME_OFFSET_MASK + 1;
+		}
+		lastTimestamp = timestamp;
+
+		return decodeDataMessage(littleEndian, bigEndian, (header >> 5) & 0x03, position, dataEnd, listener, true);
+	}
+
+	private int decodeDataMessage(ByteBuffer littleEndian, ByteBuffer bigEndian, int localMessageType, int position, int dataEnd, FitListener listener,
+			boolean compressedTimestamp) {
+		FitMessageDefinition definition = definitions[localMessageType];
+
+		if (!definition.defined) {
+			LOG.error("Data message of undefined local message type = {}, position = {}.", localMessageType, position);
+			throw new ConnectorException(String.format(UNDEFINED_MESSAGE_ERROR_MESSAGE, localMessageType, position));
+		}
+
+		if (position + definition.messageSize > dataEnd) {
+			throw truncated(position);
+		}
+
+		ByteBuffer content = definition.bigEndian ? bigEndian : littleEndian;
+
+		if (definition.timestampOffset != FitMessageDefinition.NO_TIMESTAMP) {
+			long timestamp = content.getInt(position + definition.timestampOffset) & 0xFFFFFFFFL;
+
+			if (timestamp != FitBaseType.UINT32.getInvalidValue()) {
+				lastTimestamp = timestamp;
+			}
+		}
+
+		int globalMessageNumber = definition.globalMessageNumber;
+
+		if (listener.onMessage(globalMessageNumber)) {
+			int fieldPosition = position;
+
+			for (int i = 0; i < definition.fieldsCount; i++) {
+				field.set(content, fieldPosition, definition.fieldNumbers[i], definition.fieldSizes[i], definition.fieldBaseTypes[i]);
+				listener.onField(globalMessageNumber, field);
+				fieldPosition += definition.fieldSizes[i];
+			}
+
+			for (int i = 0; i < definition.developerFieldsCount; i++) {
+				field.set(content, fieldPosition, definition.developerFieldNumbers[i], definition.developerFieldSizes[i], FitBaseType.BYTE);
+				listener.onDeveloperField(globalMessageNumber, definition.developerDataIndexes[i], field);
+				fieldPosition += definition.developerFieldSizes[i];
+			}
+
+			if (compressedTimestamp) {
+				field.setSynthetic(FitProfile.TIMESTAMP_FIELD, FitBaseType.UINT32, lastTimestamp);
+				listener.onField(globalMessageNumber, field);
+			}
+
+			listener.onMessageEnd(globalMessageNumber);
+		}
+
+		return position + definition.messageSize;
+	}
+
+	private ConnectorException truncated(int position) {
+		LOG.error("FIT file is truncated, position = {}.", position);
+		return new ConnectorException(String.format(TRUNCATED_FILE_ERROR_MESSAGE, position));
+	}
+
+	/**
+	 * @param crcVerified false to skip verification of the file CRC, e.g. for files already verified
+	 */
+	public void setCrcVerified(boolean crcVerified) {
+		this.crcVerified = crcVerified;
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <pre>
+ *     Field of the data message being decoded. The instance is reused for every field and reads the value
+ *     straight from the decoded buffer, it is valid only during the listener call.
+ *
+ *     Array fields hold {@link #getCount()} values of the base type.
+ * </pre>
+ */
+public final class FitField {
+
+	private ByteBuffer buffer;
+
+	private int position;
+
+	private int number;
+
+	private int size;
+
+	private FitBaseType baseType;
+
+	private boolean synthetic;
+
+	private long syntheticValue;
+
+	FitField() {
+
+	}
+
+	void set(ByteBuffer buffer, int position, int number, int size, FitBaseType baseType) {
+		this.buffer = buffer;
+		this.position = position;
+		this.number = number;
+		this.size = size;
+		this.baseType = baseType;
+		this.synthetic = false;
+	}
+
+	/**
+	 * Field which is not present in the message content, e.g. timestamp of a compressed timestamp header.
+	 */
+	void setSynthetic(int number, FitBaseType baseType, long value) {
+		this.number = number;
+		this.size = baseType.getSize();
+		this.baseType = baseType;
+		this.synthetic = true;
+		this.syntheticValue = value;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public FitBaseType getBaseType() {
+		return baseType;
+	}
+
+	/**
+	 * @return size in bytes
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public int getCount() {
+		return size / baseType.getSize();
+	}
+
+	public boolean isValid() {
+		return isValid(0);
+	}
+
+	public boolean isValid(int index) {
+		return index < getCount() && getRawValue(index) != baseType.getInvalidValue();
+	}
+
+	public long getLong() {
+		return getLong(0);
+	}
+
+	/**
+	 * @param index index of the array value
+	 * @return value, sign extended for signed types, truncated for floating point types
+	 */
+	public long getLong(int index) {
+		if (baseType.isFloatingPoint()) {
+			return (long) getDouble(index);
+		}
+
+		long rawValue = getRawValue(index);
+
+		if (baseType.isSigned()) {
+			int shift = Long.SIZE - baseType.getSize() * Byte.SIZE;
+			return rawValue << shift >> shift;
+		}
+
+		return rawValue;
+	}
+
+	public double getDouble() {
+		return getDouble(0);
+	}
+
+	public double getDouble(int index) {
+		if (baseType == FitBaseType.FLOAT32) {
+			return Float.intBitsToFloat((int) getRawValue(index));
+		}
+
+		if (baseType == FitBaseType.FLOAT64) {
+			return Double.longBitsToDouble(getRawValue(index));
+		}
+
+		return getLong(index);
+	}
+
+	/**
+	 * @return value of a string field, up to the first null character
+	 */
+	public String getString() {
+		int length = 0;
+
+		while (length < size && buffer.get(position + length) != 0) {
+			length++;
+		}
+
+		byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = buffer.get(position + i);
+		}
+
+		return new String(content, StandardCharsets.UTF_8);
+	}
+
+	private long getRawValue(int index) {
+		if (synthetic) {
+			return syntheticValue;
+		}
+
+		int valuePosition = position + index * baseType.getSize();
+
+		switch (baseType.getSize()) {
+			case 1:
+				return buffer.get(valuePosition) & 0xFFL;
+			case 2:
+				return buffer.getShort(valuePosition) & 0xFFFFL;
+			case 4:
+				return buffer.getInt(valuePosition) & 0xFFFFFFFFL;
+			default:
+				return buffer.getLong(valuePosition);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FitField{" +
+				"number=" + number +
+				", baseType=" + baseType +
+				", size=" + size +
+				'}';
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+/**
+ * <pre>
+ *     Receives data messages of a FIT file as they are decoded: {@link #onMessage(int)}, then its fields,
+ *     then {@link #onMessageEnd(int)}. Timestamps of compressed timestamp headers are passed as
+ *     {@link FitProfile#TIMESTAMP_FIELD} after the fields of the message.
+ * </pre>
+ */
+public interface FitListener {
+
+	/**
+	 * @param globalMessageNumber profile message number, e.g. {@link FitProfile#RECORD_MESSAGE}
+	 * @return false to skip fields of the message, which is cheaper than ignoring them
+	 */
+	default boolean onMessage(int globalMessageNumber) {
+		return true;
+	}
+
+	/**
+	 * @param globalMessageNumber profile message number
+	 * @param field field, valid only during the call
+	 */
+	default void onField(int globalMessageNumber, FitField field) {
+
+	}
+
+	/**
+	 * Developer fields are passed as {@link FitBaseType#BYTE} arrays, their types are described by developer data messages.
+	 *
+	 * @param globalMessageNumber profile message number
+	 * @param developerDataIndex index of the developer data the field belongs to
+	 * @param field field, valid only during the call
+	 */
+	default void onDeveloperField(int globalMessageNumber, int developerDataIndex, FitField field) {
+
+	}
+
+	default void onMessageEnd(int globalMessageNumber) {
+
+	}
+}
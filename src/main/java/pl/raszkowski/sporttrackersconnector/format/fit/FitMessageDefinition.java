@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+/**
+ * <pre>
+ *     Layout of data messages of one local message type. Instances are reused when the local type is redefined.
+ * </pre>
+ */
+final class FitMessageDefinition {
+
+	static final int MAX_FIELDS = 255;
+
+	static final int NO_TIMESTAMP = -1;
+
+	boolean defined;
+
+	boolean bigEndian;
+
+	int globalMessageNumber;
+
+	int fieldsCount;
+
+	final int[] fieldNumbers = new int[MAX_FIELDS];
+
+	final int[] fieldSizes = new int[MAX_FIELDS];
+
+	final FitBaseType[] fieldBaseTypes = new FitBaseType[MAX_FIELDS];
+
+	int developerFieldsCount;
+
+	final int[] developerFieldNumbers = new int[MAX_FIELDS];
+
+	final int[] developerFieldSizes = new int[MAX_FIELDS];
+
+	final int[] developerDataIndexes = new int[MAX_FIELDS];
+
+	/**
+	 * Size of the data message content, without the record header.
+	 */
+	int messageSize;
+
+	/**
+	 * Offset of the timestamp field in the message content, {@link #NO_TIMESTAMP} when not present.
+	 */
+	int timestampOffset;
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+/**
+ * <pre>
+ *     Numbers of FIT profile messages and fields used by the connector.
+ * </pre>
+ *
+ * @see <a href="https://developer.garmin.com/fit/protocol/">FIT protocol</a>
+ */
+public final class FitProfile {
+
+	public static final int FILE_ID_MESSAGE = 0;
+	public static final int SESSION_MESSAGE = 18;
+	public static final int LAP_MESSAGE = 19;
+	public static final int RECORD_MESSAGE = 20;
+	public static final int EVENT_MESSAGE = 21;
+	public static final int ACTIVITY_MESSAGE = 34;
+
+	/**
+	 * Common to all messages, seconds since {@link #TIMESTAMP_EPOCH_OFFSET_SECONDS}.
+	 */
+	public static final int TIMESTAMP_FIELD = 253;
+
+	public static final int RECORD_POSITION_LAT_FIELD = 0;
+	public static final int RECORD_POSITION_LONG_FIELD = 1;
+	public static final int RECORD_ALTITUDE_FIELD = 2;
+	public static final int RECORD_HEART_RATE_FIELD = 3;
+	public static final int RECORD_CADENCE_FIELD = 4;
+	public static final int RECORD_DISTANCE_FIELD = 5;
+	public static final int RECORD_SPEED_FIELD = 6;
+	public static final int RECORD_POWER_FIELD = 7;
+	public static final int RECORD_TEMPERATURE_FIELD = 13;
+	public static final int RECORD_ENHANCED_SPEED_FIELD = 73;
+	public static final int RECORD_ENHANCED_ALTITUDE_FIELD = 78;
+
+	/**
+	 * FIT timestamps count seconds from 1989-12-31T00:00:00Z.
+	 */
+	public static final long TIMESTAMP_EPOCH_OFFSET_SECONDS = 631065600L;
+
+	public static final double SEMICIRCLES_TO_DEGREES = 180.0 / (1L << 31);
+
+	public static final double ALTITUDE_SCALE = 5.0;
+	public static final double ALTITUDE_OFFSET = 500.0;
+	public static final double DISTANCE_SCALE = 100.0;
+	public static final double SPEED_SCALE = 1000.0;
+
+	private FitProfile() {
+
+	}
+
+	public static long toEpochMillis(long fitTimestamp) {
+		return (fitTimestamp + TIMESTAMP_EPOCH_OFFSET_SECONDS) * 1000L;
+	}
+}
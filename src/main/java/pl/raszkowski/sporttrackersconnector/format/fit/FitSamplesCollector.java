@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.util.Arrays;
+
+import pl.raszkowski.sporttrackersconnector.samples.ActivitySamplesBuilder;
+import pl.raszkowski.sporttrackersconnector.samples.SampleColumn;
+
+/**
+ * <pre>
+ *     Collects record messages into columns of {@link ActivitySamplesBuilder}, converted to degrees, meters,
+ *     meters per second, bpm, rpm, watts and degrees Celsius. Enhanced speed and altitude take precedence over
+ *     the plain fields. Records without timestamp or earlier than the previous record are skipped.
+ * </pre>
+ */
+public class FitSamplesCollector implements FitListener {
+
+	private static final int NO_TIMESTAMP = -1;
+
+	private static final SampleColumn[] COLUMNS = SampleColumn.values();
+
+	private final ActivitySamplesBuilder samplesBuilder;
+
+	private final float[] values = new float[COLUMNS.length];
+
+	private float enhancedSpeed;
+
+	private float enhancedAltitude;
+
+	private long timestamp;
+
+	private long lastTimestampMillis = Long.MIN_VALUE;
+
+	private int skippedRecords;
+
+	public FitSamplesCollector() {
+		this(new ActivitySamplesBuilder());
+	}
+
+	public FitSamplesCollector(ActivitySamplesBuilder samplesBuilder) {
+		this.samplesBuilder = samplesBuilder;
+	}
+
+	@Override
+	public boolean onMessage(int globalMessageNumber) {
+		if (globalMessageNumber != FitProfile.RECORD_MESSAGE) {
+			return false;
+		}
+
+		Arrays.fill(values, Float.NaN);
+		enhancedSpeed = Float.NaN;
+		enhancedAltitude = Float.NaN;
+		timestamp = NO_TIMESTAMP;
+
+		return true;
+	}
+
+	@Override
+	public void onField(int globalMessageNumber, FitField field) {
+		if (!field.isValid()) {
+			return;
+		}
+
+		switch (field.getNumber()) {
+			case FitProfile.TIMESTAMP_FIELD:
+				timestamp = field.getLong();
+				break;
+			case FitProfile.RECORD_POSITION_LAT_FIELD:
+				set(SampleColumn.LATITUDE, field.getLong() * FitProfile.SEMICIRCLES_TO_DEGREES);
+				break;
+			case FitProfile.RECORD_POSITION_LONG_FIELD:
+				set(SampleColumn.LONGITUDE, field.getLong() * FitProfile.SEMICIRCLES_TO_DEGREES);
+				break;
+			case FitProfile.RECORD_ALTITUDE_FIELD:
+				set(SampleColumn.ELEVATION_METERS, field.getLong() / FitProfile.ALTITUDE_SCALE - FitProfile.ALTITUDE_OFFSET);
+				break;
+			case FitProfile.RECORD_ENHANCED_ALTITUDE_FIELD:
+				enhancedAltitude = (float) (field.getLong() / FitProfile.ALTITUDE_SCALE - FitProfile.ALTITUDE_OFFSET);
+				break;
+			case FitProfile.RECORD_HEART_RATE_FIELD:
+				set(SampleColumn.HEART_RATE, field.getLong());
+				break;
+			case FitProfile.RECORD_CADENCE_FIELD:
+				set(SampleColumn.CADENCE, field.getLong());
+				break;
+			case FitProfile.RECORD_DISTANCE_FIELD:
+				set(SampleColumn.DISTANCE_METERS, field.getLong() / FitProfile.DISTANCE_SCALE);
+				break;
+			case FitProfile.RECORD_SPEED_FIELD:
+				set(SampleColumn.SPEED_METERS_PER_SECOND, field.getLong() / FitProfile.SPEED_SCALE);
+				break;
+			case FitProfile.RECORD_ENHANCED_SPEED_FIELD:
+				enhancedSpeed = (float) (field.getLong() / FitProfile.SPEED_SCALE);
+				break;
+			case FitProfile.RECORD_POWER_FIELD:
+				set(SampleColumn.POWER_WATTS, field.getLong());
+				break;
+			case FitProfile.RECORD_TEMPERATURE_FIELD:
+				set(SampleColumn.TEMPERATURE_CELSIUS, field.getLong());
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void set(SampleColumn column, double value) {
+		values[column.ordinal()] = (float) value;
+	}
+
+	@Override
+	public void onMessageEnd(int globalMessageNumber) {
+		if (timestamp == NO_TIMESTAMP || FitProfile.toEpochMillis(timestamp) < lastTimestampMillis) {
+			skippedRecords++;
+			return;
+		}
+
+		if (!Float.isNaN(enhancedSpeed)) {
+			values[SampleColumn.SPEED_METERS_PER_SECOND.ordinal()] = enhancedSpeed;
+		}
+
+		if (!Float.isNaN(enhancedAltitude)) {
+			values[SampleColumn.ELEVATION_METERS.ordinal()] = enhancedAltitude;
+		}
+
+		lastTimestampMillis = FitProfile.toEpochMillis(timestamp);
+		samplesBuilder.add(lastTimestampMillis);
+
+		for (int i = 0; i < values.length; i++) {
+			if (!Float.isNaN(values[i])) {
+				samplesBuilder.set(COLUMNS[i], values[i]);
+			}
+		}
+	}
+
+	public ActivitySamplesBuilder getSamplesBuilder() {
+		return samplesBuilder;
+	}
+
+	/**
+	 * @return number of records without timestamp or out of order
+	 */
+	public int getSkippedRecords() {
+		return skippedRecords;
+	}
+}
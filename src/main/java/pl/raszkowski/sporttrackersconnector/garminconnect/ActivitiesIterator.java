@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Iterates over all activities matching given search fields, page by page.
+ *
+ *     The next page is requested as soon as the current one arrives, so it is transferred while the current page
+ *     is being consumed. At most two pages are held at any time.
+ * </pre>
+ */
+class ActivitiesIterator<T> implements Iterator<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivitiesIterator.class);
+
+	private static final String UNABLE_TO_FETCH_PAGE_ERROR_MESSAGE = "Unable to fetch activities page.";
+
+	private final Function<ActivitiesSearchFields, CompletableFuture<List<T>>> pageFetcher;
+
+	private final ActivitiesSearchFields activitiesSearchFields;
+
+	private final int pageSize;
+
+	private Iterator<T> currentPage = Collections.emptyIterator();
+
+	private CompletableFuture<List<T>> nextPage;
+
+	private int nextPageStart;
+
+	ActivitiesIterator(Function<ActivitiesSearchFields, CompletableFuture<List<T>>> pageFetcher, ActivitiesSearchFields activitiesSearchFields, int pageSize) {
+		this.pageFetcher = pageFetcher;
+		this.activitiesSearchFields = activitiesSearchFields;
+		this.pageSize = pageSize;
+		this.nextPageStart = activitiesSearchFields.getStart();
+
+		requestNextPage();
+	}
+
+	private void requestNextPage() {
+		ActivitiesSearchFields pageSearchFields = activitiesSearchFields.copy();
+		pageSearchFields.setStart(nextPageStart);
+		pageSearchFields.setLimit(pageSize);
+
+		LOG.debug("Requesting activities page, start = {}, limit = {}.", nextPageStart, pageSize);
+
+		nextPage = pageFetcher.apply(pageSearchFields);
+		nextPageStart += pageSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!currentPage.hasNext()) {
+			if (nextPage == null) {
+				return false;
+			}
+
+			List<T> page = awaitNextPage();
+
+			if (page.size() < pageSize) {
+				nextPage = null;
+			} else {
+				requestNextPage();
+			}
+
+			currentPage = page.iterator();
+		}
+
+		return true;
+	}
+
+	private List<T> awaitNextPage() {
+		try {
+			return nextPage.join();
+		} catch (CompletionException e) {
+			nextPage = null;
+
+			if (e.getCause() instanceof ConnectorException) {
+				throw (ConnectorException) e.getCause();
+			}
+
+			throw new ConnectorException(UNABLE_TO_FETCH_PAGE_ERROR_MESSAGE, e.getCause());
+		}
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		return currentPage.next();
+	}
+
+	void close() {
+		if (nextPage != null) {
+			nextPage.cancel(false);
+			nextPage = null;
+		}
+	}
+}
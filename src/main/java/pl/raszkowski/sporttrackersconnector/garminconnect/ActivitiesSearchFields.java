@@ -15,6 +15,7 @@
  */
 package pl.raszkowski.sporttrackersconnector.garminconnect;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -22,8 +23,15 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+
 public class ActivitiesSearchFields {
 
+	public static final String BEGIN_TIMESTAMP_FIELD = "beginTimestamp";
+
+	public static final String ACTIVITY_TYPE_FIELD = "activityType";
+
 	private int start;
 
 	private int limit;
@@ -169,4 +177,64 @@ public class ActivitiesSearchFields {
 			this.conditions.add(condition);
 		}
 	}
+
+	public ActivitiesSearchFields copy() {
+		ActivitiesSearchFields copy = new ActivitiesSearchFields();
+		copy.setStart(start);
+		copy.setLimit(limit);
+		copy.setSortField(sortField);
+		copy.setSortOrder(sortOrder);
+		copy.setConditions(new ArrayList<>(conditions));
+		return copy;
+	}
+
+	/**
+	 * <pre>
+	 *     Copy of these search fields narrowed to activities not older than given watermark, newest first,
+	 *     so paging can stop at the first already known activity.
+	 * </pre>
+	 *
+	 * @param watermark newest already synchronized activity
+	 * @return search fields for incremental fetching
+	 */
+	public ActivitiesSearchFields newerThan(ActivityWatermark watermark) {
+		ActivitiesSearchFields copy = copy();
+		copy.setSortField(BEGIN_TIMESTAMP_FIELD);
+		copy.setSortOrder(SortOrder.DESC);
+		copy.addCondition(new Condition(BEGIN_TIMESTAMP_FIELD, Operator.GREATER_THAN_OR_EQUAL,
+				OffsetDateTime.ofInstant(Instant.ofEpochMilli(watermark.getStartTimeMillis()), ZoneOffset.UTC)));
+		return copy;
+	}
+
+	/**
+	 * <pre>
+	 *     Search fields selecting activities of given backend independent query, newest first.
+	 *     The page size of the query is used as limit, the limit of the query is applied by the caller.
+	 * </pre>
+	 *
+	 * @param activityQuery query
+	 * @return search fields of the first page
+	 */
+	public static ActivitiesSearchFields of(ActivityQuery activityQuery) {
+		ActivitiesSearchFields searchFields = new ActivitiesSearchFields();
+		searchFields.setLimit(activityQuery.getPageSize());
+		searchFields.setSortField(BEGIN_TIMESTAMP_FIELD);
+		searchFields.setSortOrder(SortOrder.DESC);
+
+		if (activityQuery.getStartTimeFromMillis() > 0) {
+			searchFields.addCondition(new Condition(BEGIN_TIMESTAMP_FIELD, Operator.GREATER_THAN_OR_EQUAL, toDateTime(activityQuery.getStartTimeFromMillis())));
+		}
+		if (activityQuery.getStartTimeToMillis() > 0) {
+			searchFields.addCondition(new Condition(BEGIN_TIMESTAMP_FIELD, Operator.LESS_THAN, toDateTime(activityQuery.getStartTimeToMillis())));
+		}
+		if (activityQuery.getActivityType() != null) {
+			searchFields.addCondition(new Condition(ACTIVITY_TYPE_FIELD, Operator.EQUAL, activityQuery.getActivityType()));
+		}
+
+		return searchFields;
+	}
+
+	private static OffsetDateTime toDateTime(long timeMillis) {
+		return OffsetDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), ZoneOffset.UTC);
+	}
 }
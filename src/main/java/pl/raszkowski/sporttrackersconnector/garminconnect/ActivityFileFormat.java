@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+/**
+ * <pre>
+ *     Downloadable representations of a single activity: the detail payload and the original or exported track files.
+ *     FIT files are served as zip archives holding the file uploaded by the device.
+ * </pre>
+ */
+public enum ActivityFileFormat {
+
+	DETAILS("json/activity/%d", ".json", false),
+	FIT("files/activity/%d", ".fit.zip", false),
+	GPX("gpx/activity/%d", ".gpx", true),
+	TCX("tcx/activity/%d", ".tcx", true);
+
+	private static final String ACTIVITY_ID_PLACEHOLDER = "{activityId}";
+
+	private final String resourceFormat;
+
+	private final String fileExtension;
+
+	private final boolean export;
+
+	ActivityFileFormat(String resourceFormat, String fileExtension, boolean export) {
+		this.resourceFormat = resourceFormat;
+		this.fileExtension = fileExtension;
+		this.export = export;
+	}
+
+	String getResource(long activityId) {
+		return String.format(resourceFormat, activityId);
+	}
+
+	/**
+	 * @return resource without the activity id, recorded in metrics instead of the resource of every activity
+	 */
+	String getMetricsResource() {
+		return String.format(resourceFormat.replace("%d", "%s"), ACTIVITY_ID_PLACEHOLDER);
+	}
+
+	public String getFileExtension() {
+		return fileExtension;
+	}
+
+	/**
+	 * @return true when the file is generated by activity service rather than being the uploaded original
+	 */
+	boolean isExport() {
+		return export;
+	}
+}
@@ -45,9 +45,12 @@ import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguratio
 import pl.raszkowski.sporttrackersconnector.helper.HttpResponseConverter;
 import pl.raszkowski.sporttrackersconnector.helper.HttpResponseVerifier;
 import pl.raszkowski.sporttrackersconnector.garminconnect.exception.GarminConnectAuthorizationException;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
 
@@ -101,12 +104,18 @@ class Authorizer {
 
 	private HttpClient httpClient;
 
+	private URI baseAuthorizationUri;
+
 	private URI authorizationUri;
 
 	private String lastPageContent;
 
 	private boolean authorized;
 
+	private String ticket;
+
+	private MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
 	Authorizer(HttpClient httpClient) {
 		this.httpClient = httpClient;
 		this.authorized = false;
@@ -116,7 +125,7 @@ class Authorizer {
 
 	private void buildBaseAuthorizationUri() {
 		try {
-			this.authorizationUri = new URIBuilder(connectorsConfiguration.getGarminConnectSSOLoginURI())
+			this.baseAuthorizationUri = new URIBuilder(connectorsConfiguration.getGarminConnectSSOLoginURI())
 					.setParameter(SERVICE_PARAMETER, connectorsConfiguration.getGarminConnectLoginServiceURI())
 					.setParameter(CLIENT_ID_PARAMETER, CLIENT_ID_PARAMETER_VALUE)
 					.setParameter(CONSUME_SERVICE_TICKET_PARAMETER, CONSUME_SERVICE_TICKET_PARAMETER_VALUE)
@@ -128,15 +137,24 @@ class Authorizer {
 	}
 
 	void authorize(GarminConnectCredentials credentials) {
-		validateCredentials(credentials);
+		authorized = false;
+		authorizationUri = baseAuthorizationUri;
 
-		goToLoginPage();
+		long startNanos = System.nanoTime();
 
-		performLogin(credentials);
+		try {
+			validateCredentials(credentials);
 
-		validateAuthorization();
+			goToLoginPage();
 
-		validateLoggedUser(credentials);
+			performLogin(credentials);
+
+			validateAuthorization();
+
+			validateLoggedUser(credentials);
+		} finally {
+			metricsRecorder.recordAuthorization(authorized, System.nanoTime() - startNanos);
+		}
 	}
 
 	private void validateCredentials(GarminConnectCredentials credentials) {
@@ -236,6 +254,8 @@ class Authorizer {
 			throw new GarminConnectAuthorizationException(TICKET_PARAMETER_NOT_FOUND_ERROR_MESSAGE);
 		}
 
+		this.ticket = ticket.get();
+
 		addTicketToAuthorizationUri(ticket.get());
 
 		HttpResponse response = authorizeWithTicket(ticket.get());
@@ -287,11 +307,14 @@ class Authorizer {
 		try {
 			do {
 				Header redirectLocation = response.getFirstHeader(LOCATION_HEADER_NAME);
+				EntityUtils.consumeQuietly(response.getEntity());
 
 				HttpGet httpGet = new HttpGet(redirectLocation.getValue());
 
 				response = httpClient.execute(httpGet);
 			} while (HttpResponseVerifier.isMovedTemporarily(response));
+
+			EntityUtils.consumeQuietly(response.getEntity());
 		} catch (IOException e) {
 			LOG.error("Unable to execute request to retrieve session cookie.", e);
 			throw new GarminConnectAuthorizationException(UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE, e);
@@ -316,6 +339,41 @@ class Authorizer {
 		}
 	}
 
+	/**
+	 * <pre>
+	 *     Checks with a single account request whether cookies already present in the cookie store
+	 *     (eg. restored from a session store) still form a valid session for given credentials.
+	 * </pre>
+	 *
+	 * @param credentials credentials of the expected user
+	 * @return true if the session has been accepted
+	 */
+	boolean isSessionValid(GarminConnectCredentials credentials) {
+		HttpGet httpGet = new HttpGet(garminConnectRESTResolver.getJsonUserService(ACCOUNT_RESOURCE));
+
+		try {
+			HttpResponse response = httpClient.execute(httpGet);
+
+			if (HttpResponseVerifier.isNotOk(response)) {
+				LOG.debug("Session rejected, status code = {}, expected = {}.", response.getStatusLine().getStatusCode(), HttpStatus.SC_OK);
+				EntityUtils.consumeQuietly(response.getEntity());
+				return false;
+			}
+
+			Optional<String> username = getUsername(HttpResponseConverter.getAsString(response));
+
+			authorized = username.isPresent() && username.get().equals(credentials.getUsername());
+
+			return authorized;
+		} catch (JsonParseException e) {
+			LOG.debug("Session rejected, account response is not a valid Json.", e);
+			return false;
+		} catch (IOException e) {
+			LOG.warn("Unable to execute request to validate session, uri = {}.", httpGet.getURI(), e);
+			return false;
+		}
+	}
+
 	private void checkIfUsernameMatch(GarminConnectCredentials credentials, HttpResponse response) {
 		String responseContent = HttpResponseConverter.getAsString(response);
 
@@ -358,6 +416,10 @@ class Authorizer {
 		return Optional.empty();
 	}
 
+	String getTicket() {
+		return ticket;
+	}
+
 	boolean isAuthorized() {
 		return authorized;
 	}
@@ -365,4 +427,8 @@ class Authorizer {
 	boolean isNotAuthorized() {
 		return !authorized;
 	}
+
+	void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
 }
@@ -15,28 +15,91 @@
  */
 package pl.raszkowski.sporttrackersconnector.garminconnect;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
 import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.format.GpxReader;
+import pl.raszkowski.sporttrackersconnector.format.TcxReader;
+import pl.raszkowski.sporttrackersconnector.format.TrackHandler;
+import pl.raszkowski.sporttrackersconnector.format.TrackReader;
+import pl.raszkowski.sporttrackersconnector.json.JsonValueHandler;
 import pl.raszkowski.sporttrackersconnector.rest.APIHandler;
 import pl.raszkowski.sporttrackersconnector.rest.GetParameters;
 import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+import pl.raszkowski.sporttrackersconnector.rest.ResponseContentReader;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
 
 public class GarminAPIHandler extends APIHandler {
 
+	private static final Logger LOG = LoggerFactory.getLogger(GarminAPIHandler.class);
+
+	private static final String WRONG_PARALLEL_RANGE_ERROR_MESSAGE = "Parallel fetching requires positive limit, page size and parallelism, limit = %s, page size = %s, parallelism = %s.";
+	private static final String PARALLEL_FETCH_INTERRUPTED_ERROR_MESSAGE = "Interrupted while fetching activities pages!";
+	private static final String PARALLEL_FETCH_FAILED_ERROR_MESSAGE = "Unable to fetch activities page!";
+	private static final String CANNOT_WRITE_FILE_ERROR_MESSAGE = "Cannot write activity file = %s.";
+	private static final String NOT_TRACK_FORMAT_ERROR_MESSAGE = "Activity track can be read from GPX or TCX only, format = %s.";
+
 	private static final String ACTIVITIES_RESOURCE = "activities";
 
 	private static final String START_PARAMETER = "start";
 	private static final String LIMIT_PARAMETER = "limit";
 	private static final String SORT_ORDER_PARAMETER = "sortOrder";
 	private static final String SORT_FIELD_PARAMETER = "sortField";
+	private static final String FULL_PARAMETER = "full";
+
+	private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
 
 	private static final String RESULTS_JSON_KEY = "results";
 	private static final String ACTIVITIES_JSON_KEY = "activities";
 
 	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
 
+	private Gson gson = new GsonBuilder()
+			.registerTypeAdapter(Activity.class, new GarminActivityTypeAdapter())
+			.create();
+
+	/**
+	 * Readers are kept for the life of the handler, requests read with the same reader instance can be coalesced.
+	 */
+	private final ResponseContentReader<JsonArray> activitiesArrayReader = createActivitiesArrayReader();
+
+	private final Map<Class<?>, ResponseContentReader<?>> activitiesListReaders = new ConcurrentHashMap<>();
+
 	GarminAPIHandler(RESTExecutor restExecutor) {
 		super(restExecutor);
 	}
@@ -78,9 +141,482 @@ public class GarminAPIHandler extends APIHandler {
 	public JsonArray getActivities(ActivitiesSearchFields activitiesSearchFields) {
 		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
 
-		String response = restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters);
+		return restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesArrayReader());
+	}
+
+	/**
+	 * <pre>
+	 *     Finds activities using given fields from {@link ActivitiesSearchFields} and passes them to the consumer
+	 *     one at a time, while the response is being read. Peak memory does not depend on the page size.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @param activityConsumer consumer of activities
+	 */
+	public void forEachActivity(ActivitiesSearchFields activitiesSearchFields, Consumer<JsonObject> activityConsumer) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesConsumingReader(JsonObject.class, activityConsumer));
+	}
+
+	/**
+	 * <pre>
+	 *     Passes every activity of one page to the handler straight from the response stream, without decoding it.
+	 *     The handler has to consume exactly one value of the activities array per call, e.g. to copy it.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @param activityHandler handler reading single activity
+	 * @return number of activities read
+	 */
+	public int readActivities(ActivitiesSearchFields activitiesSearchFields, JsonValueHandler activityHandler) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		return restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, (content, charset) -> {
+			int[] activities = new int[1];
+
+			responseJsonParser.readArray(new InputStreamReader(content, charset), jsonReader -> {
+				activityHandler.handle(jsonReader);
+				activities[0]++;
+			}, RESULTS_JSON_KEY, ACTIVITIES_JSON_KEY);
+
+			return activities[0];
+		});
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #getActivities(ActivitiesSearchFields)}.
+	 *     Activities are decoded straight from the response stream, no intermediate Json tree is built.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return list of activities
+	 */
+	public List<Activity> getTypedActivities(ActivitiesSearchFields activitiesSearchFields) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		return restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesListReader(Activity.class));
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #forEachActivity(ActivitiesSearchFields, Consumer)}.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @param activityConsumer consumer of activities
+	 */
+	public void forEachTypedActivity(ActivitiesSearchFields activitiesSearchFields, Consumer<Activity> activityConsumer) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		restExecutor.executeGET(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesConsumingReader(Activity.class, activityConsumer));
+	}
+
+	/**
+	 * <pre>
+	 *     Asynchronous variant of {@link #getActivities(int, int)}.
+	 * </pre>
+	 *
+	 * @param start starting activity
+	 * @param limit limit of activities to retrieve
+	 * @return future with JsonArray with activities
+	 */
+	public CompletableFuture<JsonArray> getActivitiesAsync(int start, int limit) {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setStart(start);
+		activitiesSearchFields.setLimit(limit);
+		return getActivitiesAsync(activitiesSearchFields);
+	}
+
+	/**
+	 * <pre>
+	 *     Asynchronous variant of {@link #getActivities(ActivitiesSearchFields)}.
+	 *     The calling thread is not blocked while the request is in flight.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return future with JsonArray with activities
+	 */
+	public CompletableFuture<JsonArray> getActivitiesAsync(ActivitiesSearchFields activitiesSearchFields) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		return restExecutor.executeGETAsync(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesArrayReader());
+	}
+
+	/**
+	 * <pre>
+	 *     Fetches only activities not covered by given watermark, newest first, and stops paging at the first
+	 *     activity started before the watermark. Known activities started at the watermark are skipped, as activities
+	 *     of the same start time come in no particular order. Without watermark all activities matching search fields
+	 *     are fetched.
+	 *
+	 *     Activities are requested in pages of "garminconnect.activities.pageSize". The limit of search fields is ignored:
+	 *     stopping before the known activity would move the watermark past new activities which have not been fetched.
+	 *
+	 *     The returned watermark should be persisted only after all activities have been consumed successfully.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details, start is used as the start of the first page
+	 * @param watermark newest already synchronized activity, may be null
+	 * @param activityConsumer consumer of new activities
+	 * @return watermark covering all consumed activities
+	 */
+	public ActivityWatermark forEachNewActivity(ActivitiesSearchFields activitiesSearchFields, ActivityWatermark watermark, Consumer<Activity> activityConsumer) {
+		ActivitiesSearchFields searchFields = watermark != null ? activitiesSearchFields.newerThan(watermark) : activitiesSearchFields;
+
+		int pageSize = connectorsConfiguration.getGarminConnectActivitiesPageSize();
+		int start = searchFields.getStart();
+		ActivityWatermark newestWatermark = watermark;
+		List<Activity> page;
+
+		do {
+			ActivitiesSearchFields pageSearchFields = searchFields.copy();
+			pageSearchFields.setStart(start);
+			pageSearchFields.setLimit(pageSize);
+
+			page = getTypedActivities(pageSearchFields);
+
+			for (Activity activity : page) {
+				if (watermark != null && watermark.isNewerThan(activity)) {
+					return newestWatermark;
+				}
+
+				if (watermark != null && watermark.covers(activity)) {
+					continue;
+				}
+
+				activityConsumer.accept(activity);
+
+				newestWatermark = newestWatermark != null ? newestWatermark.advance(activity) : ActivityWatermark.of(activity);
+			}
+
+			start += pageSize;
+		} while (page.size() >= pageSize);
+
+		return newestWatermark;
+	}
+
+	/**
+	 * <pre>
+	 *     Fetches the range given by start and limit of search fields as pages of given size, at most "parallelism"
+	 *     pages in flight at once, and returns activities in the order of the range.
+	 *
+	 *     Pages are requested asynchronously on the shared connection pool and pass the configured rate limits.
+	 *     No further pages are requested once a page comes back shorter than requested.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details, start and limit define the range
+	 * @param pageSize number of activities per request
+	 * @param parallelism maximum number of pages in flight
+	 * @return JsonArray with activities
+	 */
+	public JsonArray getActivitiesParallel(ActivitiesSearchFields activitiesSearchFields, int pageSize, int parallelism) {
+		JsonArray activities = new JsonArray();
+
+		getPagesParallel(activitiesSearchFields, pageSize, parallelism, this::getActivitiesAsync, JsonArray::size)
+				.forEach(activities::addAll);
 
-		return parseGetActivitiesResponse(response);
+		return activities;
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #getActivitiesParallel(ActivitiesSearchFields, int, int)}.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details, start and limit define the range
+	 * @param pageSize number of activities per request
+	 * @param parallelism maximum number of pages in flight
+	 * @return list of activities
+	 */
+	public List<Activity> getTypedActivitiesParallel(ActivitiesSearchFields activitiesSearchFields, int pageSize, int parallelism) {
+		List<Activity> activities = new ArrayList<>();
+
+		getPagesParallel(activitiesSearchFields, pageSize, parallelism, pageSearchFields -> getActivitiesListAsync(pageSearchFields, Activity.class), List::size)
+				.forEach(activities::addAll);
+
+		return activities;
+	}
+
+	private <P> List<P> getPagesParallel(ActivitiesSearchFields activitiesSearchFields, int pageSize, int parallelism,
+			Function<ActivitiesSearchFields, CompletableFuture<P>> pageFetcher, ToIntFunction<P> pageSizeFunction) {
+		if (activitiesSearchFields.getLimit() <= 0 || pageSize <= 0 || parallelism <= 0) {
+			LOG.error("Parallel fetching requires positive limit, page size and parallelism, limit = {}, page size = {}, parallelism = {}.", activitiesSearchFields.getLimit(), pageSize, parallelism);
+			throw new ConnectorException(String.format(WRONG_PARALLEL_RANGE_ERROR_MESSAGE, activitiesSearchFields.getLimit(), pageSize, parallelism));
+		}
+
+		Semaphore inFlightPages = new Semaphore(parallelism);
+		List<CompletableFuture<P>> pages = new ArrayList<>();
+		CompletableFuture<Void> lastPageReached = new CompletableFuture<>();
+
+		int end = activitiesSearchFields.getStart() + activitiesSearchFields.getLimit();
+
+		try {
+			for (int start = activitiesSearchFields.getStart(); start < end && !lastPageReached.isDone(); start += pageSize) {
+				inFlightPages.acquire();
+
+				if (lastPageReached.isDone()) {
+					inFlightPages.release();
+					break;
+				}
+
+				int limit = Math.min(pageSize, end - start);
+
+				ActivitiesSearchFields pageSearchFields = activitiesSearchFields.copy();
+				pageSearchFields.setStart(start);
+				pageSearchFields.setLimit(limit);
+
+				CompletableFuture<P> page = pageFetcher.apply(pageSearchFields);
+				pages.add(page);
+
+				page.whenComplete((activities, e) -> {
+					if (e != null || pageSizeFunction.applyAsInt(activities) < limit) {
+						lastPageReached.complete(null);
+					}
+
+					inFlightPages.release();
+				});
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			pages.forEach(page -> page.cancel(false));
+
+			throw new ConnectorException(PARALLEL_FETCH_INTERRUPTED_ERROR_MESSAGE, e);
+		}
+
+		List<P> results = new ArrayList<>(pages.size());
+
+		for (CompletableFuture<P> page : pages) {
+			results.add(joinPage(page));
+		}
+
+		return results;
+	}
+
+	private <P> P joinPage(CompletableFuture<P> page) {
+		try {
+			return page.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ConnectorException) {
+				throw (ConnectorException) e.getCause();
+			}
+
+			LOG.error("Unable to fetch activities page.", e.getCause());
+			throw new ConnectorException(PARALLEL_FETCH_FAILED_ERROR_MESSAGE, e.getCause());
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #getActivitiesAsync(ActivitiesSearchFields)}.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return future with list of activities
+	 */
+	public CompletableFuture<List<Activity>> getTypedActivitiesAsync(ActivitiesSearchFields activitiesSearchFields) {
+		return getActivitiesListAsync(activitiesSearchFields, Activity.class);
+	}
+
+	private <T> CompletableFuture<List<T>> getActivitiesListAsync(ActivitiesSearchFields activitiesSearchFields, Class<T> type) {
+		GetParameters getParameters = prepareGetActivitiesParameters(activitiesSearchFields);
+
+		return restExecutor.executeGETAsync(connectorsConfiguration.getGarminConnectRESTActivitySearchService(), ACTIVITIES_RESOURCE, getParameters, activitiesListReader(type));
+	}
+
+	/**
+	 * <pre>
+	 *     Lazily streams all activities matching given {@link ActivitiesSearchFields}, starting at its start offset.
+	 *
+	 *     The limit of search fields is used as page size (configured default when not set). Page N+1 is fetched
+	 *     while page N is consumed, so memory is bounded by two pages regardless of the number of activities.
+	 *     Close the stream to cancel a pending prefetch when it is not consumed until the end.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return lazy stream of activities
+	 */
+	public Stream<JsonObject> streamActivities(ActivitiesSearchFields activitiesSearchFields) {
+		return streamActivities(activitiesSearchFields, JsonObject.class, PageRequestLimiter.UNLIMITED);
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #streamActivities(ActivitiesSearchFields)}.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return lazy stream of activities
+	 */
+	public Stream<Activity> streamTypedActivities(ActivitiesSearchFields activitiesSearchFields) {
+		return streamActivities(activitiesSearchFields, Activity.class, PageRequestLimiter.UNLIMITED);
+	}
+
+	/**
+	 * <pre>
+	 *     Typed variant of {@link #streamActivities(ActivitiesSearchFields)}, every page is requested through given limiter.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @param pageRequestLimiter limiter of page requests
+	 * @return lazy stream of activities
+	 */
+	public Stream<Activity> streamTypedActivities(ActivitiesSearchFields activitiesSearchFields, PageRequestLimiter pageRequestLimiter) {
+		return streamActivities(activitiesSearchFields, Activity.class, pageRequestLimiter);
+	}
+
+	private <T> Stream<T> streamActivities(ActivitiesSearchFields activitiesSearchFields, Class<T> type, PageRequestLimiter pageRequestLimiter) {
+		int pageSize = activitiesSearchFields.getLimit() > 0 ? activitiesSearchFields.getLimit() : connectorsConfiguration.getGarminConnectActivitiesPageSize();
+
+		ActivitiesIterator<T> activitiesIterator = new ActivitiesIterator<>(
+				pageSearchFields -> pageRequestLimiter.submit(() -> getActivitiesListAsync(pageSearchFields, type)), activitiesSearchFields, pageSize);
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(activitiesIterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(activitiesIterator::close);
+	}
+
+	/**
+	 * <pre>
+	 *     Fetches the detail payload of a single activity.
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @return JsonObject with activity details
+	 */
+	public JsonObject getActivityDetails(long activityId) {
+		return restExecutor.executeGETFile(getFileService(ActivityFileFormat.DETAILS), ActivityFileFormat.DETAILS.getResource(activityId), ActivityFileFormat.DETAILS.getMetricsResource(), new GetParameters(), 0,
+				(content, charset) -> responseJsonParser.parseAsJsonObject(new InputStreamReader(content, charset)));
+	}
+
+	/**
+	 * <pre>
+	 *     Streams the file of an activity to given channel as it is received, without buffering it in memory.
+	 *     The channel is not closed.
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @param format downloaded representation
+	 * @param channel target channel
+	 * @return number of bytes written
+	 */
+	public long downloadActivityFile(long activityId, ActivityFileFormat format, WritableByteChannel channel) {
+		return restExecutor.executeGETFile(getFileService(format), format.getResource(activityId), format.getMetricsResource(), prepareFileParameters(format), 0,
+				(content, charset) -> transfer(content, channel));
+	}
+
+	/**
+	 * <pre>
+	 *     Streams the file of an activity to given path, replacing its content.
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @param format downloaded representation
+	 * @param path target file
+	 * @return number of bytes written
+	 */
+	public long downloadActivityFile(long activityId, ActivityFileFormat format, Path path) {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			return downloadActivityFile(activityId, format, fileChannel, 0);
+		} catch (IOException e) {
+			LOG.error("Cannot write activity file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_FILE_ERROR_MESSAGE, path), e);
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Resumes the download of an activity file into given file channel: only bytes from the offset on are requested
+	 *     (with a range request) and written at their positions in the file. The channel is not closed.
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @param format downloaded representation
+	 * @param fileChannel target file channel
+	 * @param offset number of bytes already in the file
+	 * @return number of bytes written
+	 */
+	public long downloadActivityFile(long activityId, ActivityFileFormat format, FileChannel fileChannel, long offset) {
+		return restExecutor.executeGETFile(getFileService(format), format.getResource(activityId), format.getMetricsResource(), prepareFileParameters(format), offset,
+				(content, charset) -> transfer(content, fileChannel, offset));
+	}
+
+	/**
+	 * <pre>
+	 *     Reads the GPX or TCX track of an activity point by point while it is received, in constant memory.
+	 *     Passing a {@link pl.raszkowski.sporttrackersconnector.format.GpxWriter} or
+	 *     {@link pl.raszkowski.sporttrackersconnector.format.TcxWriter} converts the track as it is downloaded.
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @param format GPX or TCX
+	 * @param trackHandler handler of the track and its points
+	 * @return number of read track points
+	 */
+	public int readActivityTrack(long activityId, ActivityFileFormat format, TrackHandler trackHandler) {
+		TrackReader trackReader = createTrackReader(format);
+
+		return restExecutor.executeGETFile(getFileService(format), format.getResource(activityId), format.getMetricsResource(), prepareFileParameters(format), 0,
+				(content, charset) -> trackReader.read(content, trackHandler));
+	}
+
+	private TrackReader createTrackReader(ActivityFileFormat format) {
+		switch (format) {
+			case GPX:
+				return new GpxReader();
+			case TCX:
+				return new TcxReader();
+			default:
+				LOG.error("Activity track can be read from GPX or TCX only, format = {}.", format);
+				throw new ConnectorException(String.format(NOT_TRACK_FORMAT_ERROR_MESSAGE, format));
+		}
+	}
+
+	private String getFileService(ActivityFileFormat format) {
+		return format == ActivityFileFormat.FIT ? connectorsConfiguration.getGarminConnectRESTDownloadService() : connectorsConfiguration.getGarminConnectRESTActivityService();
+	}
+
+	private GetParameters prepareFileParameters(ActivityFileFormat format) {
+		GetParameters getParameters = new GetParameters();
+		if (format.isExport()) {
+			getParameters.addParameter(FULL_PARAMETER, Boolean.TRUE.toString());
+		}
+		return getParameters;
+	}
+
+	private static long transfer(InputStream content, WritableByteChannel channel) throws IOException {
+		ReadableByteChannel contentChannel = Channels.newChannel(content);
+		ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+		long transferred = 0;
+
+		while (contentChannel.read(buffer) >= 0) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				transferred += channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		return transferred;
+	}
+
+	/**
+	 * Not {@link FileChannel#transferFrom}, it reports a read failure as the end of content once some bytes have been transferred.
+	 */
+	private static long transfer(InputStream content, FileChannel fileChannel, long offset) throws IOException {
+		ReadableByteChannel contentChannel = Channels.newChannel(content);
+		ByteBuffer buffer = ByteBuffer.allocate(TRANSFER_BUFFER_SIZE);
+		long position = offset;
+
+		while (contentChannel.read(buffer) >= 0) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				position += fileChannel.write(buffer, position);
+			}
+			buffer.clear();
+		}
+
+		return position - offset;
 	}
 
 	private GetParameters prepareGetActivitiesParameters(ActivitiesSearchFields activitiesSearchFields) {
@@ -101,17 +637,39 @@ public class GarminAPIHandler extends APIHandler {
 		return getParameters;
 	}
 
-	private JsonArray parseGetActivitiesResponse(String response) {
-		JsonObject json = responseJsonParser.parseAsJsonObject(response);
+	private ResponseContentReader<JsonArray> activitiesArrayReader() {
+		return activitiesArrayReader;
+	}
 
-		if (json.has(RESULTS_JSON_KEY)) {
-			JsonObject results = json.getAsJsonObject(RESULTS_JSON_KEY);
+	private ResponseContentReader<JsonArray> createActivitiesArrayReader() {
+		return (content, charset) -> {
+			JsonArray activities = new JsonArray();
+			responseJsonParser.readArrayElements(new InputStreamReader(content, charset), activities::add, RESULTS_JSON_KEY, ACTIVITIES_JSON_KEY);
+			return activities;
+		};
+	}
 
-			if (results.has(ACTIVITIES_JSON_KEY)) {
-				return results.getAsJsonArray(ACTIVITIES_JSON_KEY);
-			}
-		}
+	@SuppressWarnings("unchecked")
+	private <T> ResponseContentReader<List<T>> activitiesListReader(Class<T> type) {
+		return (ResponseContentReader<List<T>>) activitiesListReaders.computeIfAbsent(type, this::createActivitiesListReader);
+	}
+
+	private <T> ResponseContentReader<List<T>> createActivitiesListReader(Class<T> type) {
+		TypeAdapter<T> typeAdapter = gson.getAdapter(type);
+
+		return (content, charset) -> {
+			List<T> activities = new ArrayList<>();
+			responseJsonParser.readArray(new InputStreamReader(content, charset), jsonReader -> activities.add(typeAdapter.read(jsonReader)), RESULTS_JSON_KEY, ACTIVITIES_JSON_KEY);
+			return activities;
+		};
+	}
+
+	private <T> ResponseContentReader<Void> activitiesConsumingReader(Class<T> type, Consumer<T> activityConsumer) {
+		TypeAdapter<T> typeAdapter = gson.getAdapter(type);
 
-		return new JsonArray();
+		return (content, charset) -> {
+			responseJsonParser.readArray(new InputStreamReader(content, charset), jsonReader -> activityConsumer.accept(typeAdapter.read(jsonReader)), RESULTS_JSON_KEY, ACTIVITIES_JSON_KEY);
+			return null;
+		};
 	}
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Decodes single element of activity-search-service "activities" array into {@link Activity},
+ *     straight from the token stream, without building an intermediate tree.
+ *     Malformed timestamps and numbers are reported as {@link JsonParseException}, as any other malformed content.
+ * </pre>
+ */
+class GarminActivityTypeAdapter extends TypeAdapter<Activity> {
+
+	private static final String ACTIVITY_KEY = "activity";
+	private static final String ACTIVITY_ID_KEY = "activityId";
+	private static final String ACTIVITY_NAME_KEY = "activityName";
+	private static final String ACTIVITY_TYPE_KEY = "activityType";
+	private static final String ACTIVITY_SUMMARY_KEY = "activitySummary";
+	private static final String BEGIN_TIMESTAMP_KEY = "BeginTimestamp";
+	private static final String SUM_DURATION_KEY = "SumDuration";
+	private static final String SUM_DISTANCE_KEY = "SumDistance";
+	private static final String SUM_ENERGY_KEY = "SumEnergy";
+	private static final String MEAN_HEART_RATE_KEY = "WeightedMeanHeartRate";
+	private static final String MAX_HEART_RATE_KEY = "MaxHeartRate";
+	private static final String KEY_KEY = "key";
+	private static final String VALUE_KEY = "value";
+	private static final String MILLIS_KEY = "millis";
+	private static final String UOM_KEY = "uom";
+
+	private static final String KILOMETER_UOM = "kilometer";
+	private static final String MILE_UOM = "mile";
+	private static final String METER_UOM = "meter";
+	private static final String SECOND_UOM = "second";
+
+	private static final String CANNOT_READ_ACTIVITY_ERROR_MESSAGE = "Cannot read activity, malformed value!";
+
+	private static final double METERS_IN_KILOMETER = 1000.0;
+	private static final double METERS_IN_MILE = 1609.344;
+
+	@Override
+	public Activity read(JsonReader jsonReader) throws IOException {
+		try {
+			return readActivityElement(jsonReader);
+		} catch (DateTimeParseException | NumberFormatException e) {
+			throw new JsonParseException(CANNOT_READ_ACTIVITY_ERROR_MESSAGE, e);
+		}
+	}
+
+	private Activity readActivityElement(JsonReader jsonReader) throws IOException {
+		Activity activity = new Activity();
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			if (ACTIVITY_KEY.equals(jsonReader.nextName())) {
+				readActivity(jsonReader, activity);
+			} else {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		return activity;
+	}
+
+	private void readActivity(JsonReader jsonReader, Activity activity) throws IOException {
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			switch (jsonReader.nextName()) {
+				case ACTIVITY_ID_KEY:
+					activity.setId(jsonReader.nextLong());
+					break;
+				case ACTIVITY_NAME_KEY:
+					activity.setName(readStringOrValue(jsonReader));
+					break;
+				case ACTIVITY_TYPE_KEY:
+					activity.setType(readObjectString(jsonReader, KEY_KEY));
+					break;
+				case ACTIVITY_SUMMARY_KEY:
+					readActivitySummary(jsonReader, activity);
+					break;
+				default:
+					jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+	}
+
+	private void readActivitySummary(JsonReader jsonReader, Activity activity) throws IOException {
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			switch (jsonReader.nextName()) {
+				case BEGIN_TIMESTAMP_KEY:
+					activity.setStartTimeMillis(readTimestamp(jsonReader));
+					break;
+				case SUM_DURATION_KEY:
+					activity.setDurationSeconds(readMeasure(jsonReader));
+					break;
+				case SUM_DISTANCE_KEY:
+					activity.setDistanceMeters(readDistance(jsonReader));
+					break;
+				case SUM_ENERGY_KEY:
+					activity.setCalories(readMeasure(jsonReader));
+					break;
+				case MEAN_HEART_RATE_KEY:
+					activity.setAverageHeartRate((int) Math.round(readMeasure(jsonReader)));
+					break;
+				case MAX_HEART_RATE_KEY:
+					activity.setMaxHeartRate((int) Math.round(readMeasure(jsonReader)));
+					break;
+				default:
+					jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+	}
+
+	private long readTimestamp(JsonReader jsonReader) throws IOException {
+		long millis = 0;
+		String value = null;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+			if (MILLIS_KEY.equals(name)) {
+				millis = jsonReader.nextLong();
+			} else if (VALUE_KEY.equals(name)) {
+				value = jsonReader.nextString();
+			} else {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		if (millis == 0 && value != null) {
+			return OffsetDateTime.parse(value, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant().toEpochMilli();
+		}
+
+		return millis;
+	}
+
+	private double readDistance(JsonReader jsonReader) throws IOException {
+		double value = 0;
+		double multiplier = 1.0;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+			if (VALUE_KEY.equals(name)) {
+				value = jsonReader.nextDouble();
+			} else if (UOM_KEY.equals(name)) {
+				multiplier = getMetersMultiplier(jsonReader.nextString());
+			} else {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		return value * multiplier;
+	}
+
+	private double getMetersMultiplier(String uom) {
+		if (KILOMETER_UOM.equals(uom)) {
+			return METERS_IN_KILOMETER;
+		}
+
+		if (MILE_UOM.equals(uom)) {
+			return METERS_IN_MILE;
+		}
+
+		return 1.0;
+	}
+
+	private double readMeasure(JsonReader jsonReader) throws IOException {
+		double value = 0;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			if (VALUE_KEY.equals(jsonReader.nextName())) {
+				value = jsonReader.nextDouble();
+			} else {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		return value;
+	}
+
+	private String readStringOrValue(JsonReader jsonReader) throws IOException {
+		if (jsonReader.peek() == JsonToken.BEGIN_OBJECT) {
+			return readObjectString(jsonReader, VALUE_KEY);
+		}
+
+		if (jsonReader.peek() == JsonToken.NULL) {
+			jsonReader.nextNull();
+			return null;
+		}
+
+		return jsonReader.nextString();
+	}
+
+	private String readObjectString(JsonReader jsonReader, String key) throws IOException {
+		String value = null;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			if (key.equals(jsonReader.nextName()) && jsonReader.peek() != JsonToken.NULL) {
+				value = jsonReader.nextString();
+			} else {
+				jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		return value;
+	}
+
+	@Override
+	public void write(JsonWriter jsonWriter, Activity activity) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name(ACTIVITY_KEY).beginObject();
+
+		jsonWriter.name(ACTIVITY_ID_KEY).value(activity.getId());
+		jsonWriter.name(ACTIVITY_NAME_KEY).value(activity.getName());
+		jsonWriter.name(ACTIVITY_TYPE_KEY).beginObject().name(KEY_KEY).value(activity.getType()).endObject();
+
+		jsonWriter.name(ACTIVITY_SUMMARY_KEY).beginObject();
+		jsonWriter.name(BEGIN_TIMESTAMP_KEY).beginObject().name(MILLIS_KEY).value(activity.getStartTimeMillis()).endObject();
+		writeMeasure(jsonWriter, SUM_DURATION_KEY, activity.getDurationSeconds(), SECOND_UOM);
+		writeMeasure(jsonWriter, SUM_DISTANCE_KEY, activity.getDistanceMeters(), METER_UOM);
+		writeMeasure(jsonWriter, SUM_ENERGY_KEY, activity.getCalories(), null);
+		writeMeasure(jsonWriter, MEAN_HEART_RATE_KEY, activity.getAverageHeartRate(), null);
+		writeMeasure(jsonWriter, MAX_HEART_RATE_KEY, activity.getMaxHeartRate(), null);
+		jsonWriter.endObject();
+
+		jsonWriter.endObject();
+		jsonWriter.endObject();
+	}
+
+	private void writeMeasure(JsonWriter jsonWriter, String name, double value, String uom) throws IOException {
+		jsonWriter.name(name).beginObject();
+		jsonWriter.name(VALUE_KEY).value(value);
+		if (uom != null) {
+			jsonWriter.name(UOM_KEY).value(uom);
+		}
+		jsonWriter.endObject();
+	}
+}
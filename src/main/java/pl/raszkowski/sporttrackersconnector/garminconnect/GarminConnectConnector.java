@@ -15,13 +15,43 @@
  */
 package pl.raszkowski.sporttrackersconnector.garminconnect;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import pl.raszkowski.sporttrackersconnector.Connector;
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.Credentials;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
 import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
 import pl.raszkowski.sporttrackersconnector.garminconnect.exception.GarminConnectAuthorizationException;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.GarminConnectSession;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.InMemorySessionStore;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.SessionStore;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiter;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiters;
+import pl.raszkowski.sporttrackersconnector.ratelimit.TokenBucketRateLimiter;
 import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+import pl.raszkowski.sporttrackersconnector.rest.cache.ResponseCache;
+import pl.raszkowski.sporttrackersconnector.rest.cache.ResponseCachePolicy;
 
 /**
  *
@@ -35,39 +65,290 @@ import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
  */
 public class GarminConnectConnector implements Connector {
 
+	private static final Logger LOG = LoggerFactory.getLogger(GarminConnectConnector.class);
+
+	private static final SessionStore DEFAULT_SESSION_STORE = new InMemorySessionStore();
+
+	private static final SecureRandom CREDENTIALS_SALT_RANDOM = new SecureRandom();
+	private static final int CREDENTIALS_SALT_LENGTH = 16;
+	private static final char CREDENTIALS_SEPARATOR = '\u0000';
+
 	private static final String AUTHORIZATION_FAILED_ERROR_MESSAGE = "Authorization failed! Please check logs, this is unexpected situation!";
+	private static final String NOT_AUTHORIZED_ERROR_MESSAGE = "Session expired and connector has never been authorized, cannot reauthorize!";
+	private static final String WRONG_CREDENTIALS_ERROR_MESSAGE = "Garmin Connect requires GarminConnectCredentials, given = %s.";
+
+	private HttpTransport httpTransport;
+
+	private CookieStore cookieStore;
 
 	private HttpClient httpClient;
 
 	private Authorizer authorizer;
 
+	private SessionStore sessionStore;
+
+	private volatile GarminConnectCredentials credentials;
+
+	private RESTExecutor restExecutor;
+
+	private GarminAPIHandler apiHandler;
+
+	private ResponseCache responseCache;
+
+	private ResponseCachePolicy responseCachePolicy;
+
+	private MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
 	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
 
 	public GarminConnectConnector() {
-		HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
-		httpClient = httpClientBuilder
-				.disableRedirectHandling()
-				.build();
+		this(HttpTransport.getDefault());
+	}
+
+	public GarminConnectConnector(HttpTransport httpTransport) {
+		this(httpTransport, DEFAULT_SESSION_STORE);
+	}
+
+	public GarminConnectConnector(HttpTransport httpTransport, SessionStore sessionStore) {
+		this.httpTransport = httpTransport;
+		this.sessionStore = sessionStore;
+
+		cookieStore = new BasicCookieStore();
+		httpClient = httpTransport.createHttpClient(cookieStore);
 
 		authorizer = new Authorizer(httpClient);
 	}
 
+	/**
+	 * <pre>
+	 *     Restores the session of given user from the session store if it is still accepted by Garmin Connect,
+	 *     otherwise performs the full SSO login and stores the new session.
+	 * </pre>
+	 *
+	 * @param credentials user credentials
+	 */
 	public void authorize(GarminConnectCredentials credentials) {
+		this.credentials = credentials;
+
+		updateCacheNamespace();
+
+		if (restoreSession(credentials)) {
+			return;
+		}
+
+		authorizeWithSSO(credentials);
+	}
+
+	/**
+	 * <pre>
+	 *     Drops the current (expired) session and performs the full SSO login with the last used credentials.
+	 *     Called by the REST executor, at most once for all concurrent requests which hit the expired session.
+	 * </pre>
+	 */
+	void reauthorize() {
+		GarminConnectCredentials currentCredentials = credentials;
+
+		if (currentCredentials == null) {
+			throw new GarminConnectAuthorizationException(NOT_AUTHORIZED_ERROR_MESSAGE);
+		}
+
+		LOG.debug("Reauthorizing, username = {}.", currentCredentials.getUsername());
+
+		cookieStore.clear();
+		sessionStore.remove(currentCredentials.getUsername());
+
+		authorizeWithSSO(currentCredentials);
+	}
+
+	/**
+	 * @param credentials {@link GarminConnectCredentials}
+	 */
+	@Override
+	public void authorize(Credentials credentials) {
+		if (!(credentials instanceof GarminConnectCredentials)) {
+			LOG.error("Garmin Connect requires GarminConnectCredentials, given = {}.", credentials == null ? null : credentials.getClass());
+			throw new ConnectorException(String.format(WRONG_CREDENTIALS_ERROR_MESSAGE, credentials == null ? null : credentials.getClass()));
+		}
+
+		authorize((GarminConnectCredentials) credentials);
+	}
+
+	private void authorizeWithSSO(GarminConnectCredentials credentials) {
 		authorizer.authorize(credentials);
 
 		if (authorizer.isNotAuthorized()) {
 			throw new GarminConnectAuthorizationException(AUTHORIZATION_FAILED_ERROR_MESSAGE);
 		}
+
+		saveSession(credentials);
+	}
+
+	private boolean restoreSession(GarminConnectCredentials credentials) {
+		if (StringUtils.isEmpty(credentials.getUsername())) {
+			return false;
+		}
+
+		Optional<GarminConnectSession> session = sessionStore.load(credentials.getUsername());
+
+		if (!session.isPresent()) {
+			return false;
+		}
+
+		if (!isSessionOf(session.get(), credentials)) {
+			LOG.debug("Stored session has been created with other credentials, username = {}.", credentials.getUsername());
+			return false;
+		}
+
+		session.get().getCookies().forEach(cookieStore::addCookie);
+
+		if (authorizer.isSessionValid(credentials)) {
+			LOG.debug("Session restored, username = {}.", credentials.getUsername());
+			return true;
+		}
+
+		LOG.debug("Stored session has been rejected, username = {}.", credentials.getUsername());
+
+		cookieStore.clear();
+		sessionStore.remove(credentials.getUsername());
+
+		return false;
+	}
+
+	private void saveSession(GarminConnectCredentials credentials) {
+		GarminConnectSession session = new GarminConnectSession();
+		session.setUsername(credentials.getUsername());
+		session.setTicket(authorizer.getTicket());
+		session.setCookies(cookieStore.getCookies());
+		bindSession(session, credentials);
+
+		sessionStore.save(session);
+	}
+
+	static void bindSession(GarminConnectSession session, GarminConnectCredentials credentials) {
+		byte[] salt = new byte[CREDENTIALS_SALT_LENGTH];
+		CREDENTIALS_SALT_RANDOM.nextBytes(salt);
+
+		session.setCredentialsSalt(Hex.encodeHexString(salt));
+		session.setCredentialsHash(hashCredentials(session.getCredentialsSalt(), credentials));
+	}
+
+	static boolean isSessionOf(GarminConnectSession session, GarminConnectCredentials credentials) {
+		if (session.getCredentialsSalt() == null || session.getCredentialsHash() == null) {
+			return false;
+		}
+
+		String credentialsHash = hashCredentials(session.getCredentialsSalt(), credentials);
+
+		return MessageDigest.isEqual(credentialsHash.getBytes(StandardCharsets.UTF_8), session.getCredentialsHash().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String hashCredentials(String salt, GarminConnectCredentials credentials) {
+		return DigestUtils.sha256Hex(salt + CREDENTIALS_SEPARATOR + credentials.getUsername() + CREDENTIALS_SEPARATOR + StringUtils.defaultString(credentials.getPassword()));
+	}
+
+	@Override
+	public String getName() {
+		return Connectors.GARMIN_CONNECT.getName();
+	}
+
+	@Override
+	public String getAPIPrefixURI() {
+		return connectorsConfiguration.getGarminConnectRESTPrefixURI();
+	}
+
+	/**
+	 * <pre>
+	 *     Streams activities with {@link GarminAPIHandler#streamTypedActivities(ActivitiesSearchFields, PageRequestLimiter)},
+	 *     the next page is prefetched while the current one is consumed.
+	 * </pre>
+	 */
+	@Override
+	public Stream<Activity> streamActivities(ActivityQuery activityQuery, PageRequestLimiter pageRequestLimiter) {
+		int pageSize = activityQuery.getPageSize() > 0 ? activityQuery.getPageSize() : connectorsConfiguration.getGarminConnectActivitiesPageSize();
+		if (activityQuery.getLimit() > 0) {
+			pageSize = Math.min(pageSize, activityQuery.getLimit());
+		}
+
+		ActivitiesSearchFields searchFields = ActivitiesSearchFields.of(activityQuery);
+		searchFields.setLimit(pageSize);
+
+		Stream<Activity> activities = getAPIHandler().streamTypedActivities(searchFields, pageRequestLimiter);
+
+		return activityQuery.getLimit() > 0 ? activities.limit(activityQuery.getLimit()) : activities;
 	}
 
 	@Override
-	public RESTExecutor getRESTExecutor() {
-		return new GarminRESTExecutor(httpClient);
+	public synchronized RESTExecutor getRESTExecutor() {
+		if (restExecutor == null) {
+			restExecutor = new GarminRESTExecutor(httpClient, httpTransport.getHttpAsyncClient(), cookieStore);
+			restExecutor.setReauthorizationHandler(new GarminReauthorizationHandler(this));
+			restExecutor.setRateLimiters(Arrays.asList(getConnectorRateLimiter(), createAccountRateLimiter()));
+			restExecutor.setResponseCache(responseCache, responseCachePolicy);
+			restExecutor.setRequestCoalescingEnabled(connectorsConfiguration.isGarminConnectRequestCoalescingEnabled());
+			restExecutor.setMetricsRecorder(metricsRecorder);
+			updateCacheNamespace();
+		}
+
+		return restExecutor;
+	}
+
+	/**
+	 * <pre>
+	 *     Enables caching of REST responses, e.g. account details. Entries are kept separately per account,
+	 *     so one cache may be shared by connectors of many accounts.
+	 * </pre>
+	 *
+	 * @param responseCache cache of responses
+	 * @param responseCachePolicy cached services and TTL
+	 */
+	public synchronized void setResponseCache(ResponseCache responseCache, ResponseCachePolicy responseCachePolicy) {
+		this.responseCache = responseCache;
+		this.responseCachePolicy = responseCachePolicy;
+
+		if (restExecutor != null) {
+			restExecutor.setResponseCache(responseCache, responseCachePolicy);
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Records latency, status codes, received bytes and retries of REST requests and duration of SSO logins.
+	 *     Connection pool metrics are recorded by {@link HttpTransport#setMetricsRecorder(MetricsRecorder)}.
+	 * </pre>
+	 *
+	 * @param metricsRecorder metrics recorder
+	 */
+	public synchronized void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+
+		authorizer.setMetricsRecorder(metricsRecorder);
+
+		if (restExecutor != null) {
+			restExecutor.setMetricsRecorder(metricsRecorder);
+		}
+	}
+
+	private synchronized void updateCacheNamespace() {
+		if (restExecutor != null && credentials != null) {
+			restExecutor.setCacheNamespace(credentials.getUsername());
+		}
+	}
+
+	private RateLimiter getConnectorRateLimiter() {
+		return RateLimiters.getConnectorRateLimiter(Connectors.GARMIN_CONNECT, () -> new TokenBucketRateLimiter(
+				connectorsConfiguration.getGarminConnectRateLimitPermitsPerSecond(), connectorsConfiguration.getGarminConnectRateLimitBurst()));
+	}
+
+	private RateLimiter createAccountRateLimiter() {
+		return new TokenBucketRateLimiter(connectorsConfiguration.getGarminConnectAccountRateLimitPermitsPerSecond(), connectorsConfiguration.getGarminConnectAccountRateLimitBurst());
 	}
 
 	@Override
-	public GarminAPIHandler getAPIHandler() {
-		RESTExecutor restExecutor = getRESTExecutor();
-		return new GarminAPIHandler(restExecutor);
+	public synchronized GarminAPIHandler getAPIHandler() {
+		if (apiHandler == null) {
+			apiHandler = new GarminAPIHandler(getRESTExecutor());
+		}
+
+		return apiHandler;
 	}
 }
@@ -18,12 +18,15 @@ package pl.raszkowski.sporttrackersconnector.garminconnect;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
-public class GarminConnectCredentials {
+import pl.raszkowski.sporttrackersconnector.Credentials;
+
+public class GarminConnectCredentials implements Credentials {
 
 	private String username;
 
 	private String password;
 
+	@Override
 	public String getUsername() {
 		return username;
 	}
@@ -32,4 +32,8 @@ class GarminConnectRESTResolver {
 	String getJsonService(String service, String resource) {
 		return connectorsConfiguration.getGarminConnectRESTPrefixURI() + service + "/json/" + resource;
 	}
+
+	String getFileService(String service, String resource) {
+		return connectorsConfiguration.getGarminConnectRESTPrefixURI() + service + "/" + resource;
+	}
 }
@@ -15,7 +15,9 @@
  */
 package pl.raszkowski.sporttrackersconnector.garminconnect;
 
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
+import org.apache.http.nio.client.HttpAsyncClient;
 
 import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
 
@@ -27,8 +29,17 @@ class GarminRESTExecutor extends RESTExecutor {
 		super(httpClient);
 	}
 
+	GarminRESTExecutor(HttpClient httpClient, HttpAsyncClient httpAsyncClient, CookieStore cookieStore) {
+		super(httpClient, httpAsyncClient, cookieStore);
+	}
+
 	@Override
 	public String translateResourceToURI(String service, String resource) {
 		return garminConnectRESTResolver.getJsonService(service, resource);
 	}
+
+	@Override
+	public String translateFileToURI(String service, String resource) {
+		return garminConnectRESTResolver.getFileService(service, resource);
+	}
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.net.URI;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.helper.HttpResponseVerifier;
+import pl.raszkowski.sporttrackersconnector.rest.ReauthorizationHandler;
+
+/**
+ * <pre>
+ *     Garmin Connect responds to requests with an expired session with 401/403 or redirects them to the SSO login page.
+ * </pre>
+ */
+class GarminReauthorizationHandler implements ReauthorizationHandler {
+
+	private static final String LOCATION_HEADER_NAME = "Location";
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private GarminConnectConnector garminConnectConnector;
+
+	GarminReauthorizationHandler(GarminConnectConnector garminConnectConnector) {
+		this.garminConnectConnector = garminConnectConnector;
+	}
+
+	@Override
+	public boolean isAuthorizationExpired(HttpResponse response) {
+		int statusCode = response.getStatusLine().getStatusCode();
+
+		if (statusCode == HttpStatus.SC_UNAUTHORIZED || statusCode == HttpStatus.SC_FORBIDDEN) {
+			return true;
+		}
+
+		return HttpResponseVerifier.isMovedTemporarily(response) && isRedirectToSSO(response.getFirstHeader(LOCATION_HEADER_NAME));
+	}
+
+	private boolean isRedirectToSSO(Header location) {
+		if (location == null || location.getValue() == null) {
+			return false;
+		}
+
+		String ssoHost = URI.create(connectorsConfiguration.getGarminConnectSSOLoginURI()).getHost();
+
+		try {
+			return ssoHost != null && ssoHost.equalsIgnoreCase(URI.create(location.getValue()).getHost());
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void reauthorize() {
+		garminConnectConnector.reauthorize();
+	}
+}
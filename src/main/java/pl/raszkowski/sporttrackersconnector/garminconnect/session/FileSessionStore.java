@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect.session;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.cookie.ClientCookie;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Stores every session in a separate Json file inside given directory.
+ *     File name is a SHA-256 of the username and the username itself is not written to the file,
+ *     so usernames are not exposed on disk. Credentials are kept only as the salted hash of the session.
+ *     Sessions are written to a uniquely named temporary file readable only by the owner (where the file system
+ *     supports POSIX permissions), which then atomically replaces the session file.
+ *     Expired cookies are dropped when a session is loaded.
+ * </pre>
+ */
+public class FileSessionStore implements SessionStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileSessionStore.class);
+
+	private static final String UNABLE_TO_SAVE_SESSION_ERROR_MESSAGE = "Unable to save session to file = %s.";
+	private static final String UNABLE_TO_REMOVE_SESSION_ERROR_MESSAGE = "Unable to remove session file = %s.";
+
+	private static final String FILE_EXTENSION = ".json";
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+	private static final String POSIX_FILE_ATTRIBUTE_VIEW = "posix";
+	private static final Set<PosixFilePermission> OWNER_ONLY_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+	private static final String TICKET_KEY = "ticket";
+	private static final String CREDENTIALS_SALT_KEY = "credentialsSalt";
+	private static final String CREDENTIALS_HASH_KEY = "credentialsHash";
+	private static final String COOKIES_KEY = "cookies";
+	private static final String NAME_KEY = "name";
+	private static final String VALUE_KEY = "value";
+	private static final String DOMAIN_KEY = "domain";
+	private static final String PATH_KEY = "path";
+	private static final String EXPIRY_KEY = "expiry";
+	private static final String SECURE_KEY = "secure";
+	private static final String DOMAIN_ATTRIBUTE_KEY = "domainAttribute";
+	private static final String PATH_ATTRIBUTE_KEY = "pathAttribute";
+
+	private final Path directory;
+
+	public FileSessionStore(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public Optional<GarminConnectSession> load(String username) {
+		Path sessionFile = getSessionFile(username);
+
+		try (Reader reader = Files.newBufferedReader(sessionFile, StandardCharsets.UTF_8)) {
+			JsonElement json = new JsonParser().parse(reader);
+
+			if (!json.isJsonObject()) {
+				LOG.warn("Session file = {} does not contain a session, ignoring it.", sessionFile);
+				return Optional.empty();
+			}
+
+			return Optional.of(toSession(json.getAsJsonObject(), username));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException | JsonParseException | IllegalStateException | ClassCastException e) {
+			LOG.warn("Unable to read session file = {}, ignoring it.", sessionFile, e);
+			return Optional.empty();
+		}
+	}
+
+	private GarminConnectSession toSession(JsonObject json, String username) {
+		GarminConnectSession session = new GarminConnectSession();
+		session.setUsername(username);
+		session.setTicket(getString(json, TICKET_KEY));
+		session.setCredentialsSalt(getString(json, CREDENTIALS_SALT_KEY));
+		session.setCredentialsHash(getString(json, CREDENTIALS_HASH_KEY));
+
+		List<Cookie> cookies = new ArrayList<>();
+		Date now = new Date();
+
+		if (json.has(COOKIES_KEY)) {
+			for (JsonElement jsonCookie : json.getAsJsonArray(COOKIES_KEY)) {
+				Cookie cookie = toCookie(jsonCookie.getAsJsonObject());
+
+				if (!cookie.isExpired(now)) {
+					cookies.add(cookie);
+				}
+			}
+		}
+
+		session.setCookies(cookies);
+
+		return session;
+	}
+
+	private Cookie toCookie(JsonObject json) {
+		BasicClientCookie cookie = new BasicClientCookie(getString(json, NAME_KEY), getString(json, VALUE_KEY));
+		cookie.setDomain(getString(json, DOMAIN_KEY));
+		cookie.setPath(getString(json, PATH_KEY));
+		cookie.setSecure(json.has(SECURE_KEY) && json.get(SECURE_KEY).getAsBoolean());
+
+		if (json.has(EXPIRY_KEY)) {
+			cookie.setExpiryDate(new Date(json.get(EXPIRY_KEY).getAsLong()));
+		}
+
+		if (json.has(DOMAIN_ATTRIBUTE_KEY)) {
+			cookie.setAttribute(ClientCookie.DOMAIN_ATTR, getString(json, DOMAIN_ATTRIBUTE_KEY));
+		}
+
+		if (json.has(PATH_ATTRIBUTE_KEY)) {
+			cookie.setAttribute(ClientCookie.PATH_ATTR, getString(json, PATH_ATTRIBUTE_KEY));
+		}
+
+		return cookie;
+	}
+
+	private String getString(JsonObject json, String key) {
+		JsonElement value = json.get(key);
+
+		return value == null || value.isJsonNull() ? null : value.getAsString();
+	}
+
+	@Override
+	public void save(GarminConnectSession session) {
+		Path sessionFile = getSessionFile(session.getUsername());
+		Path temporaryFile = null;
+
+		try {
+			Files.createDirectories(directory);
+			temporaryFile = createTemporaryFile(sessionFile);
+
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8);
+				 JsonWriter jsonWriter = new JsonWriter(writer)) {
+				writeSession(jsonWriter, session);
+			}
+
+			Files.move(temporaryFile, sessionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			deleteTemporaryFile(temporaryFile);
+
+			LOG.error("Unable to save session to file = {}.", sessionFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_SAVE_SESSION_ERROR_MESSAGE, sessionFile), e);
+		}
+	}
+
+	private Path createTemporaryFile(Path sessionFile) throws IOException {
+		String prefix = sessionFile.getFileName().toString();
+
+		if (directory.getFileSystem().supportedFileAttributeViews().contains(POSIX_FILE_ATTRIBUTE_VIEW)) {
+			FileAttribute<Set<PosixFilePermission>> permissions = PosixFilePermissions.asFileAttribute(OWNER_ONLY_PERMISSIONS);
+
+			return Files.createTempFile(directory, prefix, TEMPORARY_FILE_EXTENSION, permissions);
+		}
+
+		return Files.createTempFile(directory, prefix, TEMPORARY_FILE_EXTENSION);
+	}
+
+	private void deleteTemporaryFile(Path temporaryFile) {
+		if (temporaryFile == null) {
+			return;
+		}
+
+		try {
+			Files.deleteIfExists(temporaryFile);
+		} catch (IOException e) {
+			LOG.warn("Unable to remove temporary session file = {}.", temporaryFile, e);
+		}
+	}
+
+	private void writeSession(JsonWriter jsonWriter, GarminConnectSession session) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name(TICKET_KEY).value(session.getTicket());
+		jsonWriter.name(CREDENTIALS_SALT_KEY).value(session.getCredentialsSalt());
+		jsonWriter.name(CREDENTIALS_HASH_KEY).value(session.getCredentialsHash());
+
+		jsonWriter.name(COOKIES_KEY).beginArray();
+		for (Cookie cookie : session.getCookies()) {
+			writeCookie(jsonWriter, cookie);
+		}
+		jsonWriter.endArray();
+
+		jsonWriter.endObject();
+	}
+
+	private void writeCookie(JsonWriter jsonWriter, Cookie cookie) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name(NAME_KEY).value(cookie.getName());
+		jsonWriter.name(VALUE_KEY).value(cookie.getValue());
+		jsonWriter.name(DOMAIN_KEY).value(cookie.getDomain());
+		jsonWriter.name(PATH_KEY).value(cookie.getPath());
+		jsonWriter.name(SECURE_KEY).value(cookie.isSecure());
+
+		if (cookie.getExpiryDate() != null) {
+			jsonWriter.name(EXPIRY_KEY).value(cookie.getExpiryDate().getTime());
+		}
+
+		if (cookie instanceof ClientCookie) {
+			ClientCookie clientCookie = (ClientCookie) cookie;
+
+			if (clientCookie.containsAttribute(ClientCookie.DOMAIN_ATTR)) {
+				jsonWriter.name(DOMAIN_ATTRIBUTE_KEY).value(clientCookie.getAttribute(ClientCookie.DOMAIN_ATTR));
+			}
+
+			if (clientCookie.containsAttribute(ClientCookie.PATH_ATTR)) {
+				jsonWriter.name(PATH_ATTRIBUTE_KEY).value(clientCookie.getAttribute(ClientCookie.PATH_ATTR));
+			}
+		}
+
+		jsonWriter.endObject();
+	}
+
+	@Override
+	public void remove(String username) {
+		Path sessionFile = getSessionFile(username);
+
+		try {
+			Files.deleteIfExists(sessionFile);
+		} catch (IOException e) {
+			LOG.error("Unable to remove session file = {}.", sessionFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_REMOVE_SESSION_ERROR_MESSAGE, sessionFile), e);
+		}
+	}
+
+	private Path getSessionFile(String username) {
+		return directory.resolve(DigestUtils.sha256Hex(username) + FILE_EXTENSION);
+	}
+}
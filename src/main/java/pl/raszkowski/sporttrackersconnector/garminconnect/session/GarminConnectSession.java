@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.http.cookie.Cookie;
+
+/**
+ * <pre>
+ *     Authenticated Garmin Connect session: SSO ticket and cookies set during the login process.
+ *     Session is bound to the credentials it was created with by a salted hash of them,
+ *     so it is restored only for the same username and password.
+ * </pre>
+ */
+public class GarminConnectSession {
+
+	private String username;
+
+	private String ticket;
+
+	private String credentialsSalt;
+
+	private String credentialsHash;
+
+	private List<Cookie> cookies = new ArrayList<>();
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getTicket() {
+		return ticket;
+	}
+
+	public void setTicket(String ticket) {
+		this.ticket = ticket;
+	}
+
+	public String getCredentialsSalt() {
+		return credentialsSalt;
+	}
+
+	public void setCredentialsSalt(String credentialsSalt) {
+		this.credentialsSalt = credentialsSalt;
+	}
+
+	public String getCredentialsHash() {
+		return credentialsHash;
+	}
+
+	public void setCredentialsHash(String credentialsHash) {
+		this.credentialsHash = credentialsHash;
+	}
+
+	public List<Cookie> getCookies() {
+		return cookies;
+	}
+
+	public void setCookies(List<Cookie> cookies) {
+		this.cookies = new ArrayList<>(cookies);
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("username", username)
+				.append("cookies", cookies.size())
+				.toString();
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect.session;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemorySessionStore implements SessionStore {
+
+	private final Map<String, GarminConnectSession> sessions = new ConcurrentHashMap<>();
+
+	@Override
+	public Optional<GarminConnectSession> load(String username) {
+		return Optional.ofNullable(sessions.get(username));
+	}
+
+	@Override
+	public void save(GarminConnectSession session) {
+		sessions.put(session.getUsername(), session);
+	}
+
+	@Override
+	public void remove(String username) {
+		sessions.remove(username);
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect.session;
+
+import java.util.Optional;
+
+/**
+ * <pre>
+ *     Keeps authenticated sessions between connector instances (and application restarts for persistent stores),
+ *     so that the SSO login process does not have to be repeated for every connector.
+ * </pre>
+ */
+public interface SessionStore {
+
+	Optional<GarminConnectSession> load(String username);
+
+	void save(GarminConnectSession session);
+
+	void remove(String username);
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+
+/**
+ * <pre>
+ *     Shared HTTP transport for connectors.
+ *
+ *     All clients created by a transport lease connections from one {@link PoolingHttpClientConnectionManager},
+ *     so sockets and TLS sessions are reused across accounts. Every client gets its own {@link CookieStore},
+ *     which keeps the sessions of different accounts isolated.
+ *
+ *     Non-blocking requests go through a single {@link HttpAsyncClient} started on first use. Its I/O reactor
+ *     is shared by all accounts, the cookie store is passed per request in the execution context.
+ * </pre>
+ */
+public class HttpTransport implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HttpTransport.class);
+
+	private static final String CANNOT_START_IO_REACTOR_ERROR_MESSAGE = "Cannot start I/O reactor for asynchronous HTTP client.";
+
+	private final ConnectorsConfiguration connectorsConfiguration;
+
+	private final MeteredConnectionManager connectionManager;
+
+	private final IdleConnectionEvictor idleConnectionEvictor;
+
+	private final RequestConfig requestConfig;
+
+	private final ConnectionKeepAliveStrategy keepAliveStrategy;
+
+	private volatile CloseableHttpAsyncClient httpAsyncClient;
+
+	private ScheduledExecutorService asyncConnectionEvictor;
+
+	private static class DefaultHolder {
+		private static final HttpTransport INSTANCE = new HttpTransport(ConnectorsConfiguration.getInstance());
+	}
+
+	public HttpTransport(ConnectorsConfiguration connectorsConfiguration) {
+		this.connectorsConfiguration = connectorsConfiguration;
+
+		connectionManager = new MeteredConnectionManager();
+		connectionManager.setMaxTotal(connectorsConfiguration.getHttpPoolMaxTotal());
+		connectionManager.setDefaultMaxPerRoute(connectorsConfiguration.getHttpPoolMaxPerRoute());
+
+		requestConfig = RequestConfig.custom()
+				.setConnectTimeout(connectorsConfiguration.getHttpConnectTimeoutMillis())
+				.setSocketTimeout(connectorsConfiguration.getHttpSocketTimeoutMillis())
+				.setConnectionRequestTimeout(connectorsConfiguration.getHttpConnectionRequestTimeoutMillis())
+				.build();
+
+		keepAliveStrategy = buildKeepAliveStrategy(connectorsConfiguration.getHttpKeepAliveMillis());
+
+		long idleEvictionMillis = connectorsConfiguration.getHttpIdleEvictionMillis();
+		idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, idleEvictionMillis, TimeUnit.MILLISECONDS);
+		idleConnectionEvictor.start();
+
+		LOG.debug("HTTP transport created, maxTotal = {}, maxPerRoute = {}.", connectionManager.getMaxTotal(), connectionManager.getDefaultMaxPerRoute());
+	}
+
+	public static HttpTransport getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	private ConnectionKeepAliveStrategy buildKeepAliveStrategy(long keepAliveMillis) {
+		return (response, context) -> {
+			long serverKeepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+
+			if (serverKeepAliveMillis > 0) {
+				return Math.min(serverKeepAliveMillis, keepAliveMillis);
+			}
+
+			return keepAliveMillis;
+		};
+	}
+
+	/**
+	 * Creates client with redirect handling disabled, bound to the shared connection pool and given cookie store.
+	 *
+	 * @param cookieStore cookie store of a single account
+	 * @return client sharing the pool of this transport
+	 */
+	public CloseableHttpClient createHttpClient(CookieStore cookieStore) {
+		return HttpClientBuilder.create()
+				.setConnectionManager(connectionManager)
+				.setConnectionManagerShared(true)
+				.setKeepAliveStrategy(keepAliveStrategy)
+				.setDefaultRequestConfig(requestConfig)
+				.setDefaultCookieStore(cookieStore)
+				.disableRedirectHandling()
+				.build();
+	}
+
+	/**
+	 * Returns non-blocking client shared by all accounts, starting it on first call.
+	 * Callers pass the account cookie store in {@link org.apache.http.client.protocol.HttpClientContext}.
+	 *
+	 * @return started asynchronous client
+	 */
+	public HttpAsyncClient getHttpAsyncClient() {
+		CloseableHttpAsyncClient client = httpAsyncClient;
+
+		if (client == null) {
+			synchronized (this) {
+				client = httpAsyncClient;
+
+				if (client == null) {
+					client = createHttpAsyncClient();
+					client.start();
+					httpAsyncClient = client;
+				}
+			}
+		}
+
+		return client;
+	}
+
+	private CloseableHttpAsyncClient createHttpAsyncClient() {
+		ThreadFactory threadFactory = new DaemonThreadFactory("http-async-io");
+
+		IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+				.setIoThreadCount(connectorsConfiguration.getHttpAsyncIOThreads())
+				.setConnectTimeout(connectorsConfiguration.getHttpConnectTimeoutMillis())
+				.setSoTimeout(connectorsConfiguration.getHttpSocketTimeoutMillis())
+				.build();
+
+		PoolingNHttpClientConnectionManager asyncConnectionManager;
+		try {
+			asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig, threadFactory));
+		} catch (IOReactorException e) {
+			LOG.error("Cannot start I/O reactor for asynchronous HTTP client.", e);
+			throw new ConnectorException(CANNOT_START_IO_REACTOR_ERROR_MESSAGE, e);
+		}
+		asyncConnectionManager.setMaxTotal(connectorsConfiguration.getHttpPoolMaxTotal());
+		asyncConnectionManager.setDefaultMaxPerRoute(connectorsConfiguration.getHttpPoolMaxPerRoute());
+
+		scheduleAsyncConnectionEviction(asyncConnectionManager);
+
+		return HttpAsyncClientBuilder.create()
+				.setConnectionManager(asyncConnectionManager)
+				.setKeepAliveStrategy(keepAliveStrategy)
+				.setDefaultRequestConfig(RequestConfig.copy(requestConfig).setRedirectsEnabled(false).build())
+				.setThreadFactory(threadFactory)
+				.build();
+	}
+
+	private void scheduleAsyncConnectionEviction(PoolingNHttpClientConnectionManager asyncConnectionManager) {
+		long idleEvictionMillis = connectorsConfiguration.getHttpIdleEvictionMillis();
+
+		asyncConnectionEvictor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("http-async-evictor"));
+		asyncConnectionEvictor.scheduleWithFixedDelay(() -> {
+			asyncConnectionManager.closeExpiredConnections();
+			asyncConnectionManager.closeIdleConnections(idleEvictionMillis, TimeUnit.MILLISECONDS);
+		}, idleEvictionMillis, idleEvictionMillis, TimeUnit.MILLISECONDS);
+	}
+
+	public PoolingHttpClientConnectionManager getConnectionManager() {
+		return connectionManager;
+	}
+
+	/**
+	 * Sets recorder of connection lease wait times of the blocking clients.
+	 *
+	 * @param metricsRecorder metrics recorder
+	 */
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		connectionManager.setMetricsRecorder(metricsRecorder);
+	}
+
+	@Override
+	public void close() {
+		idleConnectionEvictor.shutdown();
+		connectionManager.shutdown();
+
+		synchronized (this) {
+			if (httpAsyncClient != null) {
+				asyncConnectionEvictor.shutdownNow();
+				try {
+					httpAsyncClient.close();
+				} catch (IOException e) {
+					LOG.warn("Unable to close asynchronous HTTP client.", e);
+				}
+				httpAsyncClient = null;
+			}
+		}
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final String namePrefix;
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		DaemonThreadFactory(String namePrefix) {
+			this.namePrefix = namePrefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
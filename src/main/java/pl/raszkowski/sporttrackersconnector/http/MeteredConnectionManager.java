@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.http;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
+
+/**
+ * <pre>
+ *     Pooling connection manager recording how long every request waits for a connection lease.
+ * </pre>
+ */
+class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+	private volatile MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
+	@Override
+	public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+		ConnectionRequest connectionRequest = super.requestConnection(route, state);
+
+		return new ConnectionRequest() {
+			@Override
+			public HttpClientConnection get(long timeout, TimeUnit timeUnit) throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+				long startNanos = System.nanoTime();
+
+				try {
+					return connectionRequest.get(timeout, timeUnit);
+				} finally {
+					metricsRecorder.recordPoolLeaseWait(System.nanoTime() - startNanos);
+				}
+			}
+
+			@Override
+			public boolean cancel() {
+				return connectionRequest.cancel();
+			}
+		};
+	}
+
+	void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+}
@@ -15,6 +15,11 @@
  */
 package pl.raszkowski.sporttrackersconnector.json;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,8 +27,12 @@ import pl.raszkowski.sporttrackersconnector.ConnectorException;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 
 public class ResponseJsonParser {
 
@@ -43,6 +52,33 @@ public class ResponseJsonParser {
 		return new JsonObject();
 	}
 
+	/**
+	 * <pre>
+	 *     Parses json object straight from the content, without reading it into a String first.
+	 * </pre>
+	 *
+	 * @param content json content
+	 * @return parsed object, empty when content is not an object
+	 */
+	public JsonObject parseAsJsonObject(Reader content) {
+		JsonElement jsonElement;
+
+		try {
+			jsonElement = new JsonParser().parse(content);
+		} catch (JsonParseException e) {
+			LOG.error("Cannot parse given Json.", e);
+			throw new ConnectorException(CANNOT_PARSE_JSON_ERROR_MESSAGE, e);
+		}
+
+		if (jsonElement.isJsonObject()) {
+			return jsonElement.getAsJsonObject();
+		}
+
+		LOG.error("Cannot parse given Json as JsonObject.");
+
+		return new JsonObject();
+	}
+
 	public JsonElement parseAsJson(String result) {
 		try {
 			JsonParser jsonParser = new JsonParser();
@@ -52,4 +88,242 @@ public class ResponseJsonParser {
 			throw new ConnectorException(CANNOT_PARSE_JSON_ERROR_MESSAGE, e);
 		}
 	}
+
+	/**
+	 * <pre>
+	 *     Reads array located under given path of object names, one element at a time, without building the tree
+	 *     of the whole document. Reading stops right after the array, the rest of the content is not parsed.
+	 *     Nothing is read when the content is empty or the path does not lead to an array, content cut off
+	 *     after the first token is an error, so a truncated page is never taken for the last one.
+	 *     Unexpected tokens are reported as parse errors, exceptions thrown by the handler itself are propagated unchanged.
+	 * </pre>
+	 *
+	 * @param content json content
+	 * @param elementHandler handler reading exactly one value per call
+	 * @param path names of nested objects leading to the array, empty for root array
+	 * @throws IOException when content cannot be read
+	 */
+	public void readArray(Reader content, JsonValueHandler elementHandler, String... path) throws IOException {
+		JsonReader jsonReader = new TokenCheckingJsonReader(content);
+		jsonReader.setLenient(true);
+
+		if (isEmpty(jsonReader)) {
+			LOG.debug("Json content is empty, no array under path = {}.", (Object) path);
+			return;
+		}
+
+		try {
+			if (!moveToArray(jsonReader, path)) {
+				LOG.debug("No array has been found under path = {}.", (Object) path);
+				return;
+			}
+
+			jsonReader.beginArray();
+			while (jsonReader.hasNext()) {
+				elementHandler.handle(jsonReader);
+			}
+			jsonReader.endArray();
+		} catch (EOFException e) {
+			LOG.error("Json content has been cut off, path = {}.", (Object) path, e);
+			throw new ConnectorException(CANNOT_PARSE_JSON_ERROR_MESSAGE, e);
+		} catch (MalformedJsonException | JsonParseException e) {
+			LOG.error("Cannot parse given Json.", e);
+			throw new ConnectorException(CANNOT_PARSE_JSON_ERROR_MESSAGE, e);
+		}
+	}
+
+	/**
+	 * Reads array located under given path, passing every element as separate {@link JsonElement}.
+	 *
+	 * @param content json content
+	 * @param elementConsumer consumer of array elements
+	 * @param path names of nested objects leading to the array, empty for root array
+	 * @throws IOException when content cannot be read
+	 * @see #readArray(Reader, JsonValueHandler, String...)
+	 */
+	public void readArrayElements(Reader content, Consumer<JsonElement> elementConsumer, String... path) throws IOException {
+		JsonParser jsonParser = new JsonParser();
+
+		readArray(content, jsonReader -> elementConsumer.accept(jsonParser.parse(jsonReader)), path);
+	}
+
+	/**
+	 * Only an empty body may end before the first token, any later end of content means a truncated response.
+	 */
+	private boolean isEmpty(JsonReader jsonReader) throws IOException {
+		try {
+			jsonReader.peek();
+			return false;
+		} catch (EOFException e) {
+			return true;
+		}
+	}
+
+	private boolean moveToArray(JsonReader jsonReader, String[] path) throws IOException {
+		for (String name : path) {
+			if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+				return false;
+			}
+
+			jsonReader.beginObject();
+
+			if (!moveToName(jsonReader, name)) {
+				return false;
+			}
+		}
+
+		return jsonReader.peek() == JsonToken.BEGIN_ARRAY;
+	}
+
+	private boolean moveToName(JsonReader jsonReader, String name) throws IOException {
+		while (jsonReader.hasNext()) {
+			if (name.equals(jsonReader.nextName())) {
+				return true;
+			}
+
+			jsonReader.skipValue();
+		}
+
+		return false;
+	}
+
+	/**
+	 * <pre>
+	 *     {@link JsonReader} throws {@link IllegalStateException} when the next token is not the expected one.
+	 *     Such failures are rethrown as {@link JsonSyntaxException}, so they are not mistaken for
+	 *     {@link IllegalStateException} thrown by element handlers.
+	 * </pre>
+	 */
+	private static class TokenCheckingJsonReader extends JsonReader {
+
+		TokenCheckingJsonReader(Reader content) {
+			super(content);
+		}
+
+		@Override
+		public void beginArray() throws IOException {
+			try {
+				super.beginArray();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void endArray() throws IOException {
+			try {
+				super.endArray();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void beginObject() throws IOException {
+			try {
+				super.beginObject();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void endObject() throws IOException {
+			try {
+				super.endObject();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public boolean hasNext() throws IOException {
+			try {
+				return super.hasNext();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public JsonToken peek() throws IOException {
+			try {
+				return super.peek();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public String nextName() throws IOException {
+			try {
+				return super.nextName();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public String nextString() throws IOException {
+			try {
+				return super.nextString();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public boolean nextBoolean() throws IOException {
+			try {
+				return super.nextBoolean();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void nextNull() throws IOException {
+			try {
+				super.nextNull();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public double nextDouble() throws IOException {
+			try {
+				return super.nextDouble();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public long nextLong() throws IOException {
+			try {
+				return super.nextLong();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public int nextInt() throws IOException {
+			try {
+				return super.nextInt();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public void skipValue() throws IOException {
+			try {
+				super.skipValue();
+			} catch (IllegalStateException e) {
+				throw new JsonSyntaxException(e.getMessage(), e);
+			}
+		}
+	}
 }
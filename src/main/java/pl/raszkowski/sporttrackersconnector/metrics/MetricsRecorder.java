@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.metrics;
+
+/**
+ * <pre>
+ *     Receives measurements of outbound requests. Implementations bridge them to a metrics library,
+ *     see {@link MicrometerMetricsRecorder}. Methods are called on request threads (including I/O dispatch threads),
+ *     so they have to be fast and must not block.
+ *
+ *     All methods do nothing by default.
+ * </pre>
+ */
+public interface MetricsRecorder {
+
+	/**
+	 * Status code recorded for requests which have not received any response.
+	 */
+	int NO_RESPONSE_STATUS_CODE = 0;
+
+	/**
+	 * <pre>
+	 *     Called once per HTTP exchange, retries and replays after reauthorization included.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param statusCode response status code or {@link #NO_RESPONSE_STATUS_CODE}
+	 * @param durationNanos time from sending the request to receiving the response headers
+	 */
+	default void recordRequest(String service, String resource, int statusCode, long durationNanos) {
+	}
+
+	default void recordBytesReceived(String service, String resource, long bytes) {
+	}
+
+	default void recordRetry(String service, String resource) {
+	}
+
+	/**
+	 * <pre>
+	 *     Time a request has waited for a connection from the pool.
+	 * </pre>
+	 *
+	 * @param durationNanos lease wait time
+	 */
+	default void recordPoolLeaseWait(long durationNanos) {
+	}
+
+	default void recordAuthorization(boolean successful, long durationNanos) {
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * <pre>
+ *     Publishes measurements to a Micrometer {@link MeterRegistry}. Micrometer is an optional dependency,
+ *     it has to be added to the application to use this recorder.
+ *
+ *     Meters are tagged with the connector name, request meters also with service, resource and status,
+ *     request latency is published as a percentile histogram.
+ * </pre>
+ */
+public class MicrometerMetricsRecorder implements MetricsRecorder {
+
+	static final String REQUESTS_METER = "sporttrackers.http.client.requests";
+	static final String RESPONSE_BYTES_METER = "sporttrackers.http.client.response.bytes";
+	static final String RETRIES_METER = "sporttrackers.http.client.retries";
+	static final String POOL_LEASE_WAIT_METER = "sporttrackers.http.client.pool.lease.wait";
+	static final String AUTHORIZATIONS_METER = "sporttrackers.authorizations";
+
+	private static final String CONNECTOR_TAG = "connector";
+	private static final String SERVICE_TAG = "service";
+	private static final String RESOURCE_TAG = "resource";
+	private static final String STATUS_TAG = "status";
+	private static final String OUTCOME_TAG = "outcome";
+
+	private static final String NO_RESPONSE_STATUS = "NONE";
+	private static final String SUCCESS_OUTCOME = "SUCCESS";
+	private static final String FAILURE_OUTCOME = "FAILURE";
+
+	private final MeterRegistry meterRegistry;
+
+	private final String connector;
+
+	public MicrometerMetricsRecorder(MeterRegistry meterRegistry, String connector) {
+		this.meterRegistry = meterRegistry;
+		this.connector = connector;
+	}
+
+	@Override
+	public void recordRequest(String service, String resource, int statusCode, long durationNanos) {
+		Timer.builder(REQUESTS_METER)
+				.tag(CONNECTOR_TAG, connector)
+				.tag(SERVICE_TAG, service)
+				.tag(RESOURCE_TAG, resource)
+				.tag(STATUS_TAG, statusCode == NO_RESPONSE_STATUS_CODE ? NO_RESPONSE_STATUS : String.valueOf(statusCode))
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordBytesReceived(String service, String resource, long bytes) {
+		DistributionSummary.builder(RESPONSE_BYTES_METER)
+				.baseUnit("bytes")
+				.tag(CONNECTOR_TAG, connector)
+				.tag(SERVICE_TAG, service)
+				.tag(RESOURCE_TAG, resource)
+				.register(meterRegistry)
+				.record(bytes);
+	}
+
+	@Override
+	public void recordRetry(String service, String resource) {
+		Counter.builder(RETRIES_METER)
+				.tag(CONNECTOR_TAG, connector)
+				.tag(SERVICE_TAG, service)
+				.tag(RESOURCE_TAG, resource)
+				.register(meterRegistry)
+				.increment();
+	}
+
+	@Override
+	public void recordPoolLeaseWait(long durationNanos) {
+		Timer.builder(POOL_LEASE_WAIT_METER)
+				.tag(CONNECTOR_TAG, connector)
+				.register(meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordAuthorization(boolean successful, long durationNanos) {
+		Timer.builder(AUTHORIZATIONS_METER)
+				.tag(CONNECTOR_TAG, connector)
+				.tag(OUTCOME_TAG, successful ? SUCCESS_OUTCOME : FAILURE_OUTCOME)
+				.register(meterRegistry)
+				.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+}
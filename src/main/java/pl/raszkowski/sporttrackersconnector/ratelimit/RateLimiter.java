@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.ratelimit;
+
+/**
+ * <pre>
+ *     Client side rate limiter consulted before every request.
+ *     Limiters are reservation based, so they can be used both by blocking and asynchronous callers.
+ * </pre>
+ */
+public interface RateLimiter {
+
+	/**
+	 * <pre>
+	 *     Reserves a permit for one request.
+	 * </pre>
+	 *
+	 * @return time in nanoseconds the caller has to wait before executing the request, 0 if it may proceed immediately
+	 */
+	long reserve();
+
+	/**
+	 * <pre>
+	 *     Called when the server has throttled a request (eg. HTTP 429).
+	 * </pre>
+	 *
+	 * @param retryAfterMillis time in milliseconds no request should be sent for
+	 */
+	void onThrottled(long retryAfterMillis);
+
+	/**
+	 * <pre>
+	 *     Called when a request has not been throttled.
+	 * </pre>
+	 */
+	void onSuccess();
+}
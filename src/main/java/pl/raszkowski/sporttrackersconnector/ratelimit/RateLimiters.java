@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import pl.raszkowski.sporttrackersconnector.Connectors;
+
+/**
+ * <pre>
+ *     Holds the rate limiters shared by all connectors of one {@link Connectors} entry, so the whole process
+ *     stays within the limit of a service, regardless of the number of accounts.
+ * </pre>
+ */
+public final class RateLimiters {
+
+	private static final Map<Connectors, RateLimiter> CONNECTOR_RATE_LIMITERS = new ConcurrentHashMap<>();
+
+	private RateLimiters() {
+
+	}
+
+	public static RateLimiter getConnectorRateLimiter(Connectors connectors, Supplier<RateLimiter> rateLimiterSupplier) {
+		return CONNECTOR_RATE_LIMITERS.computeIfAbsent(connectors, key -> rateLimiterSupplier.get());
+	}
+
+	public static void setConnectorRateLimiter(Connectors connectors, RateLimiter rateLimiter) {
+		CONNECTOR_RATE_LIMITERS.put(connectors, rateLimiter);
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * <pre>
+ *     Token bucket with additive increase / multiplicative decrease of the rate.
+ *
+ *     Permits are refilled at the current rate and up to "burst" of them may be stored while idle.
+ *     Every throttling halves the current rate (but not below 1/20 of the configured one), drops stored permits
+ *     and pauses all reservations for the "retry after" time. Every successful request raises the rate
+ *     by 1/100 of the configured one, until the configured rate is reached again.
+ * </pre>
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+	private static final double DECREASE_FACTOR = 0.5;
+	private static final double MINIMUM_RATE_FRACTION = 0.05;
+	private static final double INCREASE_FRACTION = 0.01;
+
+	private final double maxPermitsPerSecond;
+
+	private final double burst;
+
+	private final LongSupplier nanoClock;
+
+	private double permitsPerSecond;
+
+	private double storedPermits;
+
+	private long nextFreeNanos;
+
+	public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+		this(permitsPerSecond, burst, System::nanoTime);
+	}
+
+	TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+		this.maxPermitsPerSecond = permitsPerSecond;
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = Math.max(1, burst);
+		this.nanoClock = nanoClock;
+		this.storedPermits = this.burst;
+		this.nextFreeNanos = nanoClock.getAsLong();
+	}
+
+	@Override
+	public synchronized long reserve() {
+		long now = nanoClock.getAsLong();
+
+		refill(now);
+
+		long waitNanos = Math.max(0, nextFreeNanos - now);
+
+		double storedPermitsSpent = Math.min(1.0, storedPermits);
+		storedPermits -= storedPermitsSpent;
+		nextFreeNanos += (long) ((1.0 - storedPermitsSpent) * getIntervalNanos());
+
+		return waitNanos;
+	}
+
+	private void refill(long now) {
+		if (now > nextFreeNanos) {
+			storedPermits = Math.min(burst, storedPermits + (now - nextFreeNanos) / getIntervalNanos());
+			nextFreeNanos = now;
+		}
+	}
+
+	private double getIntervalNanos() {
+		return TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+	}
+
+	@Override
+	public synchronized void onThrottled(long retryAfterMillis) {
+		long now = nanoClock.getAsLong();
+
+		permitsPerSecond = Math.max(maxPermitsPerSecond * MINIMUM_RATE_FRACTION, permitsPerSecond * DECREASE_FACTOR);
+		storedPermits = 0;
+		nextFreeNanos = Math.max(nextFreeNanos, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+	}
+
+	@Override
+	public synchronized void onSuccess() {
+		if (permitsPerSecond < maxPermitsPerSecond) {
+			permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + maxPermitsPerSecond * INCREASE_FRACTION);
+		}
+	}
+
+	public synchronized double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+}
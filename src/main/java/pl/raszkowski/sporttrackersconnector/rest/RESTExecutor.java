@@ -15,37 +15,141 @@
  */
 package pl.raszkowski.sporttrackersconnector.rest;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.client.CookieStore;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import pl.raszkowski.sporttrackersconnector.ConnectorException;
-import pl.raszkowski.sporttrackersconnector.helper.HttpResponseConverter;
 import pl.raszkowski.sporttrackersconnector.helper.HttpResponseVerifier;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiter;
+import pl.raszkowski.sporttrackersconnector.rest.cache.CachedResponse;
+import pl.raszkowski.sporttrackersconnector.rest.cache.ResponseCache;
+import pl.raszkowski.sporttrackersconnector.rest.cache.ResponseCachePolicy;
 
 public abstract class RESTExecutor {
 
 	private static final String UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE = "Unable to execute request!";
 	private static final String WRONG_RESPONSE_STATUS_CODE_ERROR_MESSAGE = "Wrong response status code = %s, expected = %s, for URI = %s.";
+	private static final String ASYNC_NOT_CONFIGURED_ERROR_MESSAGE = "Asynchronous execution is not configured for this executor!";
+	private static final String REQUEST_CANCELLED_ERROR_MESSAGE = "Request has been cancelled, URI = %s.";
+	private static final String UNABLE_TO_READ_RESPONSE_ERROR_MESSAGE = "Unable to read response content for URI = %s.";
+	private static final String REAUTHORIZATION_FAILED_ERROR_MESSAGE = "Reauthorization failed, URI = %s.";
+	private static final String TOO_MANY_REQUESTS_ERROR_MESSAGE = "Too many requests, retry after = %s ms, for URI = %s.";
+	private static final String RATE_LIMIT_INTERRUPTED_ERROR_MESSAGE = "Interrupted while waiting for rate limit, URI = %s.";
+	private static final String RETRY_INTERRUPTED_ERROR_MESSAGE = "Interrupted while waiting to retry request, URI = %s.";
+
+	private static final String RETRY_AFTER_HEADER_NAME = "Retry-After";
+
+	private static final String RANGE_HEADER_VALUE = "bytes=%d-";
+
+	private static final String NO_STORE_DIRECTIVE = "no-store";
+
+	private static final String CACHE_KEY_SEPARATOR = "|";
+
+	private static final int SC_TOO_MANY_REQUESTS = 429;
+
+	private static final long DEFAULT_RETRY_AFTER_MILLIS = 1000L;
+
+	private static final ResponseContentReader<String> STRING_READER = (content, charset) -> IOUtils.toString(content, charset);
+
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "rest-executor-scheduler");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final AtomicInteger REAUTHORIZATION_THREAD_NUMBER = new AtomicInteger(1);
+
+	private static final ExecutorService REAUTHORIZATION_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "rest-executor-reauthorization-" + REAUTHORIZATION_THREAD_NUMBER.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	private static final Logger LOG = LoggerFactory.getLogger(RESTExecutor.class);
 
 	private HttpClient httpClient;
 
+	private HttpAsyncClient httpAsyncClient;
+
+	private CookieStore cookieStore;
+
 	private RESTUriBuilder restUriBuilder = new RESTUriBuilder();
 
+	private ReauthorizationHandler reauthorizationHandler;
+
+	private final Object reauthorizationLock = new Object();
+
+	private volatile long authorizationGeneration;
+
+	private CompletableFuture<Void> pendingReauthorization;
+
+	private List<RateLimiter> rateLimiters = Collections.emptyList();
+
+	private RetryPolicy retryPolicy = new RetryPolicy();
+
+	private final LongAdder retryCount = new LongAdder();
+
+	private ResponseCache responseCache;
+
+	private ResponseCachePolicy responseCachePolicy;
+
+	private volatile String cacheNamespace = "";
+
+	private boolean requestCoalescingEnabled;
+
+	private final SingleFlight<CoalescingKey> singleFlight = new SingleFlight<>();
+
+	private MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
 	public RESTExecutor(HttpClient httpClient) {
 		this.httpClient = httpClient;
 	}
 
+	public RESTExecutor(HttpClient httpClient, HttpAsyncClient httpAsyncClient, CookieStore cookieStore) {
+		this.httpClient = httpClient;
+		this.httpAsyncClient = httpAsyncClient;
+		this.cookieStore = cookieStore;
+	}
+
 	public String executeGET(String service, String resource) {
 		return executeGET(service, resource, Collections.emptyMap());
 	}
@@ -58,25 +162,765 @@ public abstract class RESTExecutor {
 	}
 
 	public String executeGET(String service, String resource, GetParameters getParameters) {
+		return executeGET(service, resource, getParameters, STRING_READER);
+	}
+
+	/**
+	 * <pre>
+	 *     Executes GET request and hands the response content stream to given reader,
+	 *     so the body does not have to be buffered as a whole.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param getParameters query parameters
+	 * @param contentReader reader consuming response content
+	 * @param <T> type of the read result
+	 * @return result of the reader
+	 */
+	public <T> T executeGET(String service, String resource, GetParameters getParameters, ResponseContentReader<T> contentReader) {
+		return execute(service, resource, getParameters, contentReader, (target, response) -> readContent(target, response, contentReader));
+	}
+
+	/**
+	 * <pre>
+	 *     Executes GET request for a file resource and hands its content, starting at given byte offset, to the reader.
+	 *     A positive offset is requested with "Range: bytes=offset-". When the server ignores the range, the bytes
+	 *     before the offset are read and dropped; when the offset is already at the end of the file (416), the reader
+	 *     gets empty content.
+	 *
+	 *     File requests bypass the response cache and are never coalesced.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param getParameters query parameters
+	 * @param offset number of bytes already received
+	 * @param contentReader reader consuming response content
+	 * @param <T> type of the read result
+	 * @return result of the reader
+	 */
+	public <T> T executeGETFile(String service, String resource, GetParameters getParameters, long offset, ResponseContentReader<T> contentReader) {
+		return executeGETFile(service, resource, resource, getParameters, offset, contentReader);
+	}
+
+	/**
+	 * <pre>
+	 *     Same as {@link #executeGETFile(String, String, GetParameters, long, ResponseContentReader)}, but the request
+	 *     is recorded by the {@link MetricsRecorder} under given constant resource name, e.g. the resource pattern,
+	 *     so resources holding identifiers do not create a new meter per request.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param metricsResource resource name recorded in metrics
+	 * @param getParameters query parameters
+	 * @param offset number of bytes already received
+	 * @param contentReader reader consuming response content
+	 * @param <T> type of the read result
+	 * @return result of the reader
+	 */
+	public <T> T executeGETFile(String service, String resource, String metricsResource, GetParameters getParameters, long offset, ResponseContentReader<T> contentReader) {
+		URI uri = restUriBuilder.build(translateFileToURI(service, resource), getParameters);
+		RequestTarget target = new RequestTarget(service, metricsResource, uri, offset);
+
+		return execute(target, (responseTarget, response) -> readFileContent(responseTarget, response, contentReader), null, true);
+	}
+
+	private <T> T execute(String service, String resource, GetParameters getParameters, ResponseContentReader<T> contentReader, ResponseExtractor<T> responseExtractor) {
+		RequestTarget target = new RequestTarget(service, resource, buildURI(service, resource, getParameters), 0);
+
+		if (requestCoalescingEnabled) {
+			return singleFlight.call(new CoalescingKey(cacheNamespace, target.getUri(), contentReader), () -> executeWithCache(target, contentReader, responseExtractor));
+		}
+
+		return executeWithCache(target, contentReader, responseExtractor);
+	}
+
+	private <T> T executeWithCache(RequestTarget target, ResponseContentReader<T> contentReader, ResponseExtractor<T> responseExtractor) {
+		if (!isCacheable(target.getService())) {
+			return execute(target, responseExtractor, null, true);
+		}
+
+		String cacheKey = getCacheKey(target);
+		CachedResponse cachedResponse = responseCache.get(cacheKey).orElse(null);
+
+		if (!isFresh(cachedResponse)) {
+			CachedResponse validator = getValidator(cachedResponse);
+
+			cachedResponse = execute(target, (responseTarget, response) -> cacheResponse(cacheKey, responseTarget, response, validator), validator, true);
+		} else {
+			LOG.debug("Using cached response for URI = {}.", target);
+		}
+
+		return readCachedContent(target, cachedResponse, contentReader);
+	}
+
+	private <T> T execute(RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed) {
+		long startNanos = System.nanoTime();
+
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return executeOnce(target, responseExtractor, validator, reauthorizationAllowed);
+			} catch (IOException e) {
+				if (!awaitRetry(target, e, attempt, startNanos)) {
+					LOG.error("Unable to execute request for URI = {}.", target, e);
+					throw new ConnectorException(UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE, e);
+				}
+			} catch (ConnectorException e) {
+				if (!awaitRetry(target, e, attempt, startNanos)) {
+					throw e;
+				}
+			}
+		}
+	}
+
+	private <T> T executeOnce(RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed) throws IOException {
+		awaitRateLimit(target);
+
+		HttpGet httpGet = createGet(target, validator);
+		beforeRequest(httpGet);
+
+		LOG.debug("Executing GET request = {}.", httpGet.getURI());
+
+		long generation = authorizationGeneration;
+		long requestStartNanos = System.nanoTime();
+
+		HttpResponse response;
+		try {
+			response = httpClient.execute(httpGet);
+		} catch (IOException e) {
+			recordRequest(target, MetricsRecorder.NO_RESPONSE_STATUS_CODE, requestStartNanos);
+			throw e;
+		}
+
+		recordRequest(target, response.getStatusLine().getStatusCode(), requestStartNanos);
+
+		afterResponse(response);
+
+		verifyNotThrottled(target, response);
+
+		if (reauthorizationAllowed && isAuthorizationExpired(response)) {
+			EntityUtils.consumeQuietly(response.getEntity());
+
+			awaitReauthorization(target, reauthorize(generation, Runnable::run));
+
+			return executeOnce(target, responseExtractor, validator, false);
+		}
+
+		try {
+			verifyResponse(target, response, validator);
+
+			return responseExtractor.extract(target, response);
+		} finally {
+			EntityUtils.consumeQuietly(response.getEntity());
+		}
+	}
+
+	private boolean awaitRetry(RequestTarget target, Exception exception, int attempt, long startNanos) {
+		long delayMillis = getRetryDelayMillis(target, exception, attempt, startNanos);
+
+		if (delayMillis < 0) {
+			return false;
+		}
+
+		try {
+			TimeUnit.MILLISECONDS.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ConnectorException(String.format(RETRY_INTERRUPTED_ERROR_MESSAGE, target), e);
+		}
+
+		return true;
+	}
+
+	private long getRetryDelayMillis(RequestTarget target, Exception exception, int attempt, long startNanos) {
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+		long delayMillis = retryPolicy.getRetryDelayMillis(exception, attempt, elapsedMillis);
+
+		if (delayMillis >= 0) {
+			retryCount.increment();
+			metricsRecorder.recordRetry(target.getService(), target.getResource());
+			LOG.warn("Request failed, retrying in = {} ms, attempt = {}, URI = {}, failure = {}.", delayMillis, attempt, target, exception.toString());
+		}
+
+		return delayMillis;
+	}
+
+	private void awaitRateLimit(RequestTarget target) {
+		long waitNanos = reserveRateLimit();
+
+		if (waitNanos > 0) {
+			LOG.debug("Rate limit reached, waiting = {} ms, URI = {}.", TimeUnit.NANOSECONDS.toMillis(waitNanos), target);
+
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ConnectorException(String.format(RATE_LIMIT_INTERRUPTED_ERROR_MESSAGE, target), e);
+			}
+		}
+	}
+
+	private long reserveRateLimit() {
+		long waitNanos = 0;
+
+		for (RateLimiter rateLimiter : rateLimiters) {
+			waitNanos = Math.max(waitNanos, rateLimiter.reserve());
+		}
+
+		return waitNanos;
+	}
+
+	private void verifyNotThrottled(RequestTarget target, HttpResponse response) {
+		if (response.getStatusLine().getStatusCode() != SC_TOO_MANY_REQUESTS) {
+			rateLimiters.forEach(RateLimiter::onSuccess);
+			return;
+		}
+
+		EntityUtils.consumeQuietly(response.getEntity());
+
+		long retryAfterMillis = getRetryAfterMillis(response);
+
+		rateLimiters.forEach(rateLimiter -> rateLimiter.onThrottled(retryAfterMillis));
+
+		LOG.warn("Too many requests, retry after = {} ms, for URI = {}.", retryAfterMillis, target);
+		throw new TooManyRequestsException(String.format(TOO_MANY_REQUESTS_ERROR_MESSAGE, retryAfterMillis, target), retryAfterMillis);
+	}
+
+	private long getRetryAfterMillis(HttpResponse response) {
+		Header retryAfter = response.getFirstHeader(RETRY_AFTER_HEADER_NAME);
+
+		if (retryAfter == null || retryAfter.getValue() == null) {
+			return DEFAULT_RETRY_AFTER_MILLIS;
+		}
+
+		String value = retryAfter.getValue().trim();
+
+		try {
+			return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+		} catch (NumberFormatException e) {
+			Date date = DateUtils.parseDate(value);
+
+			if (date == null) {
+				return DEFAULT_RETRY_AFTER_MILLIS;
+			}
+
+			return Math.max(0, date.getTime() - System.currentTimeMillis());
+		}
+	}
+
+	private void awaitReauthorization(RequestTarget target, CompletableFuture<Void> reauthorization) {
+		try {
+			reauthorization.join();
+		} catch (CompletionException e) {
+			throw toReauthorizationException(target, e.getCause());
+		}
+	}
+
+	public CompletableFuture<String> executeGETAsync(String service, String resource) {
+		return executeGETAsync(service, resource, Collections.emptyMap());
+	}
+
+	public CompletableFuture<String> executeGETAsync(String service, String resource, Map<String, String> parameters) {
+		GetParameters getParameters = new GetParameters();
+		getParameters.setParameters(parameters);
+
+		return executeGETAsync(service, resource, getParameters);
+	}
+
+	/**
+	 * <pre>
+	 *     Executes GET request without blocking the calling thread.
+	 *
+	 *     The returned future is completed on an I/O dispatch thread, so long running or blocking
+	 *     dependent stages should be attached with the *Async variants of {@link CompletableFuture}.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param getParameters query parameters
+	 * @return future completed with response content or {@link ConnectorException}
+	 */
+	public CompletableFuture<String> executeGETAsync(String service, String resource, GetParameters getParameters) {
+		return executeGETAsync(service, resource, getParameters, STRING_READER);
+	}
+
+	/**
+	 * <pre>
+	 *     Asynchronous variant of {@link #executeGET(String, String, GetParameters, ResponseContentReader)}.
+	 *     The reader is invoked on an I/O dispatch thread once the response has arrived.
+	 * </pre>
+	 *
+	 * @param service service name
+	 * @param resource resource name
+	 * @param getParameters query parameters
+	 * @param contentReader reader consuming response content
+	 * @param <T> type of the read result
+	 * @return future completed with result of the reader or {@link ConnectorException}
+	 */
+	public <T> CompletableFuture<T> executeGETAsync(String service, String resource, GetParameters getParameters, ResponseContentReader<T> contentReader) {
+		return executeAsync(service, resource, getParameters, contentReader, (target, response) -> readContent(target, response, contentReader));
+	}
+
+	private <T> CompletableFuture<T> executeAsync(String service, String resource, GetParameters getParameters, ResponseContentReader<T> contentReader, ResponseExtractor<T> responseExtractor) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		if (httpAsyncClient == null) {
+			result.completeExceptionally(new ConnectorException(ASYNC_NOT_CONFIGURED_ERROR_MESSAGE));
+			return result;
+		}
+
+		RequestTarget target;
+		try {
+			target = new RequestTarget(service, resource, buildURI(service, resource, getParameters), 0);
+		} catch (ConnectorException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+
+		if (requestCoalescingEnabled) {
+			return singleFlight.callAsync(new CoalescingKey(cacheNamespace, target.getUri(), contentReader), () -> executeWithCacheAsync(target, contentReader, responseExtractor));
+		}
+
+		return executeWithCacheAsync(target, contentReader, responseExtractor);
+	}
+
+	private <T> CompletableFuture<T> executeWithCacheAsync(RequestTarget target, ResponseContentReader<T> contentReader, ResponseExtractor<T> responseExtractor) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		if (!isCacheable(target.getService())) {
+			executeAsync(target, responseExtractor, null, true, result);
+			return result;
+		}
+
+		String cacheKey = getCacheKey(target);
+		CachedResponse cachedResponse = responseCache.get(cacheKey).orElse(null);
+
+		if (isFresh(cachedResponse)) {
+			LOG.debug("Using cached response for URI = {}.", target);
+			completeWithCachedContent(target, cachedResponse, contentReader, result);
+			return result;
+		}
+
+		CachedResponse validator = getValidator(cachedResponse);
+		CompletableFuture<CachedResponse> response = new CompletableFuture<>();
+
+		executeAsync(target, (responseTarget, httpResponse) -> cacheResponse(cacheKey, responseTarget, httpResponse, validator), validator, true, response);
+
+		response.whenComplete((revalidatedResponse, e) -> {
+			if (e != null) {
+				result.completeExceptionally(e);
+			} else {
+				completeWithCachedContent(target, revalidatedResponse, contentReader, result);
+			}
+		});
+
+		return result;
+	}
+
+	private <T> void completeWithCachedContent(RequestTarget target, CachedResponse cachedResponse, ResponseContentReader<T> contentReader, CompletableFuture<T> result) {
+		try {
+			result.complete(readCachedContent(target, cachedResponse, contentReader));
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+	private <T> void executeAsync(RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed, CompletableFuture<T> result) {
+		executeAsync(target, responseExtractor, validator, reauthorizationAllowed, result, 1, System.nanoTime());
+	}
+
+	private <T> void executeAsync(RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed, CompletableFuture<T> result, int attempt, long startNanos) {
+		long waitNanos = reserveRateLimit();
+
+		if (waitNanos > 0) {
+			LOG.debug("Rate limit reached, delaying = {} ms, URI = {}.", TimeUnit.NANOSECONDS.toMillis(waitNanos), target);
+			SCHEDULER.schedule(() -> sendAsync(target, responseExtractor, validator, reauthorizationAllowed, result, attempt, startNanos), waitNanos, TimeUnit.NANOSECONDS);
+		} else {
+			sendAsync(target, responseExtractor, validator, reauthorizationAllowed, result, attempt, startNanos);
+		}
+	}
+
+	private <T> void sendAsync(RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed, CompletableFuture<T> result, int attempt, long startNanos) {
+		HttpGet httpGet = createGet(target, validator);
+
+		CompletableFuture<Void> preparation;
+		try {
+			preparation = beforeRequestAsync(httpGet);
+		} catch (RuntimeException e) {
+			result.completeExceptionally(e);
+			return;
+		}
+
+		preparation.whenComplete((ignored, e) -> {
+			if (e != null) {
+				result.completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+			} else {
+				sendAsync(httpGet, target, responseExtractor, validator, reauthorizationAllowed, result, attempt, startNanos);
+			}
+		});
+	}
+
+	private <T> void sendAsync(HttpGet httpGet, RequestTarget target, ResponseExtractor<T> responseExtractor, CachedResponse validator, boolean reauthorizationAllowed, CompletableFuture<T> result, int attempt, long startNanos) {
+
+		HttpClientContext context = HttpClientContext.create();
+		context.setCookieStore(cookieStore);
+
+		LOG.debug("Executing asynchronous GET request = {}.", httpGet.getURI());
+
+		long generation = authorizationGeneration;
+		long requestStartNanos = System.nanoTime();
+
+		httpAsyncClient.execute(httpGet, context, new FutureCallback<HttpResponse>() {
+			@Override
+			public void completed(HttpResponse response) {
+				recordRequest(target, response.getStatusLine().getStatusCode(), requestStartNanos);
+
+				try {
+					afterResponse(response);
+
+					verifyNotThrottled(target, response);
+
+					if (reauthorizationAllowed && isAuthorizationExpired(response)) {
+						EntityUtils.consumeQuietly(response.getEntity());
+
+						reauthorize(generation, REAUTHORIZATION_EXECUTOR).whenComplete((ignored, e) -> {
+							if (e != null) {
+								result.completeExceptionally(toReauthorizationException(target, e instanceof CompletionException ? e.getCause() : e));
+							} else {
+								executeAsync(target, responseExtractor, validator, false, result, attempt, startNanos);
+							}
+						});
+						return;
+					}
+
+					verifyResponse(target, response, validator);
+				} catch (ConnectorException e) {
+					EntityUtils.consumeQuietly(response.getEntity());
+					retryAsync(e, e);
+					return;
+				} catch (RuntimeException e) {
+					EntityUtils.consumeQuietly(response.getEntity());
+					result.completeExceptionally(e);
+					return;
+				}
+
+				try {
+					result.complete(responseExtractor.extract(target, response));
+				} catch (RuntimeException e) {
+					result.completeExceptionally(e);
+				} finally {
+					EntityUtils.consumeQuietly(response.getEntity());
+				}
+			}
+
+			@Override
+			public void failed(Exception e) {
+				recordRequest(target, MetricsRecorder.NO_RESPONSE_STATUS_CODE, requestStartNanos);
+				retryAsync(e, new ConnectorException(UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE, e));
+			}
+
+			@Override
+			public void cancelled() {
+				result.completeExceptionally(new ConnectorException(String.format(REQUEST_CANCELLED_ERROR_MESSAGE, target)));
+			}
+
+			private void retryAsync(Exception exception, ConnectorException failure) {
+				long delayMillis = getRetryDelayMillis(target, exception, attempt, startNanos);
+
+				if (delayMillis < 0) {
+					if (failure.getCause() != null) {
+						LOG.error("Unable to execute request for URI = {}.", target, exception);
+					}
+
+					result.completeExceptionally(failure);
+					return;
+				}
+
+				SCHEDULER.schedule(() -> executeAsync(target, responseExtractor, validator, reauthorizationAllowed, result, attempt + 1, startNanos), delayMillis, TimeUnit.MILLISECONDS);
+			}
+		});
+	}
+
+	private boolean isAuthorizationExpired(HttpResponse response) {
+		return reauthorizationHandler != null && reauthorizationHandler.isAuthorizationExpired(response);
+	}
+
+	/**
+	 * <pre>
+	 *     Single-flight reauthorization. Requests remember the authorization generation they have been sent with,
+	 *     if it has changed in the meantime the session has already been renewed and the request is only replayed.
+	 *     Otherwise all callers share one pending reauthorization, run by the first one on given executor.
+	 * </pre>
+	 */
+	private CompletableFuture<Void> reauthorize(long generation, Executor executor) {
+		CompletableFuture<Void> reauthorization;
+
+		synchronized (reauthorizationLock) {
+			if (generation != authorizationGeneration) {
+				return CompletableFuture.completedFuture(null);
+			}
+
+			if (pendingReauthorization != null) {
+				return pendingReauthorization;
+			}
+
+			reauthorization = new CompletableFuture<>();
+			pendingReauthorization = reauthorization;
+		}
+
+		LOG.info("Authorization expired, reauthorizing.");
+
+		executor.execute(() -> runReauthorization(reauthorization));
+
+		return reauthorization;
+	}
+
+	private void runReauthorization(CompletableFuture<Void> reauthorization) {
+		try {
+			reauthorizationHandler.reauthorize();
+
+			synchronized (reauthorizationLock) {
+				authorizationGeneration++;
+				pendingReauthorization = null;
+			}
+
+			reauthorization.complete(null);
+		} catch (RuntimeException e) {
+			synchronized (reauthorizationLock) {
+				pendingReauthorization = null;
+			}
+
+			reauthorization.completeExceptionally(e);
+		}
+	}
+
+	private ConnectorException toReauthorizationException(RequestTarget target, Throwable cause) {
+		if (cause instanceof ConnectorException) {
+			return (ConnectorException) cause;
+		}
+
+		LOG.error("Reauthorization failed, URI = {}.", target, cause);
+		return new ConnectorException(String.format(REAUTHORIZATION_FAILED_ERROR_MESSAGE, target), cause);
+	}
+
+	private HttpGet createGet(RequestTarget target, CachedResponse validator) {
+		HttpGet httpGet = new HttpGet(target.getUri());
+
+		if (target.getOffset() > 0) {
+			httpGet.setHeader(HttpHeaders.RANGE, String.format(RANGE_HEADER_VALUE, target.getOffset()));
+		}
+
+		if (validator != null) {
+			if (validator.getETag() != null) {
+				httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, validator.getETag());
+			}
+
+			if (validator.getLastModified() != null) {
+				httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validator.getLastModified());
+			}
+		}
+
+		return httpGet;
+	}
+
+	/**
+	 * <pre>
+	 *     Called for every synchronous request right before it is sent, after the rate limit wait,
+	 *     e.g. to add authorization headers. Does nothing by default.
+	 * </pre>
+	 *
+	 * @param request request to be sent
+	 */
+	protected void beforeRequest(HttpRequest request) {
+
+	}
+
+	/**
+	 * <pre>
+	 *     Asynchronous counterpart of {@link #beforeRequest(HttpRequest)}, the request is sent when the returned future
+	 *     completes. It is called on the threads sending requests, so blocking work, e.g. refreshing credentials,
+	 *     has to be done on another executor. Calls {@link #beforeRequest(HttpRequest)} by default.
+	 * </pre>
+	 *
+	 * @param request request to be sent
+	 * @return future completed when the request may be sent, the request fails when it completes exceptionally
+	 */
+	protected CompletableFuture<Void> beforeRequestAsync(HttpRequest request) {
+		beforeRequest(request);
+
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * <pre>
+	 *     Called for every received response, including throttled ones, before it is verified and read,
+	 *     e.g. to read quota headers. Must not consume the content. Does nothing by default.
+	 * </pre>
+	 *
+	 * @param response received response
+	 */
+	protected void afterResponse(HttpResponse response) {
+
+	}
+
+	private boolean isCacheable(String service) {
+		return responseCache != null && responseCachePolicy.isCacheable(service);
+	}
+
+	private String getCacheKey(RequestTarget target) {
+		return cacheNamespace + CACHE_KEY_SEPARATOR + target.getUri();
+	}
+
+	private boolean isFresh(CachedResponse cachedResponse) {
+		return cachedResponse != null && cachedResponse.isFresh(responseCachePolicy.getTtlMillis(), System.currentTimeMillis());
+	}
+
+	private CachedResponse getValidator(CachedResponse cachedResponse) {
+		return cachedResponse != null && cachedResponse.hasValidators() ? cachedResponse : null;
+	}
+
+	/**
+	 * <pre>
+	 *     Turns a 200 response into a cached response, a 304 response into the revalidated one, and stores it
+	 *     unless the server forbids it with "Cache-Control: no-store".
+	 * </pre>
+	 */
+	private CachedResponse cacheResponse(String cacheKey, RequestTarget target, HttpResponse response, CachedResponse validator) {
+		long nowMillis = System.currentTimeMillis();
+		String eTag = getHeaderValue(response, HttpHeaders.ETAG);
+		String lastModified = getHeaderValue(response, HttpHeaders.LAST_MODIFIED);
+
+		CachedResponse cachedResponse;
+
+		if (isNotModified(response, validator)) {
+			LOG.debug("Cached response has not been modified, URI = {}.", target);
+			cachedResponse = validator.revalidated(eTag, lastModified, nowMillis);
+		} else {
+			HttpEntity entity = response.getEntity();
+			byte[] content = entity != null ? readBytes(target, entity) : new byte[0];
+			String charset = entity != null ? getCharset(entity).name() : StandardCharsets.UTF_8.name();
+
+			cachedResponse = new CachedResponse(content, charset, eTag, lastModified, nowMillis);
+
+			metricsRecorder.recordBytesReceived(target.getService(), target.getResource(), content.length);
+		}
+
+		if (isNoStore(response)) {
+			responseCache.remove(cacheKey);
+		} else {
+			responseCache.put(cacheKey, cachedResponse);
+		}
+
+		return cachedResponse;
+	}
+
+	private boolean isNotModified(HttpResponse response, CachedResponse validator) {
+		return validator != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+	}
+
+	private boolean isNoStore(HttpResponse response) {
+		String cacheControl = getHeaderValue(response, HttpHeaders.CACHE_CONTROL);
+
+		return cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains(NO_STORE_DIRECTIVE);
+	}
+
+	private String getHeaderValue(HttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+
+		return header != null ? header.getValue() : null;
+	}
+
+	private byte[] readBytes(RequestTarget target, HttpEntity entity) {
 		try {
-			URI uri = buildURI(service, resource, getParameters);
+			return EntityUtils.toByteArray(entity);
+		} catch (IOException e) {
+			LOG.error("Unable to read response content for URI = {}.", target, e);
+			throw new ConnectorException(String.format(UNABLE_TO_READ_RESPONSE_ERROR_MESSAGE, target), e);
+		}
+	}
 
-			HttpGet httpGet = new HttpGet(uri);
+	private <T> T readCachedContent(RequestTarget target, CachedResponse cachedResponse, ResponseContentReader<T> contentReader) {
+		try {
+			return contentReader.read(new ByteArrayInputStream(cachedResponse.getContent()), Charset.forName(cachedResponse.getCharset()));
+		} catch (IOException e) {
+			LOG.error("Unable to read response content for URI = {}.", target, e);
+			throw new ConnectorException(String.format(UNABLE_TO_READ_RESPONSE_ERROR_MESSAGE, target), e);
+		}
+	}
 
-			LOG.debug("Executing GET request = {}.", httpGet.getURI());
+	private void verifyResponse(RequestTarget target, HttpResponse response, CachedResponse validator) {
+		if (isNotModified(response, validator) || isRangeResponse(target, response)) {
+			return;
+		}
+
+		if (HttpResponseVerifier.isNotOk(response)) {
+			LOG.error("Wrong response status code = {}, expected = {}, for URI = {}.", response.getStatusLine().getStatusCode(), HttpStatus.SC_OK, target);
+			throw new ResponseStatusException(String.format(WRONG_RESPONSE_STATUS_CODE_ERROR_MESSAGE, response.getStatusLine().getStatusCode(), HttpStatus.SC_OK, target), response.getStatusLine().getStatusCode());
+		}
+	}
 
-			HttpResponse response = httpClient.execute(httpGet);
+	private <T> T readContent(RequestTarget target, HttpResponse response, ResponseContentReader<T> contentReader) {
+		HttpEntity entity = response.getEntity();
 
-			if (HttpResponseVerifier.isNotOk(response)) {
-				LOG.error("Wrong response status code = {}, expected = {}, for URI = {}.", response.getStatusLine().getStatusCode(), HttpStatus.SC_OK, uri);
-				throw new ConnectorException(String.format(WRONG_RESPONSE_STATUS_CODE_ERROR_MESSAGE, response.getStatusLine().getStatusCode(), HttpStatus.SC_OK, uri));
+		try {
+			if (entity == null) {
+				LOG.debug("Entity is null, response = {}, status code = {}.", response, response.getStatusLine().getStatusCode());
+				return contentReader.read(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_8);
 			}
 
-			return HttpResponseConverter.getAsString(response);
+			try (CountingInputStream content = new CountingInputStream(entity.getContent())) {
+				try {
+					return contentReader.read(content, getCharset(entity));
+				} finally {
+					metricsRecorder.recordBytesReceived(target.getService(), target.getResource(), content.getByteCount());
+				}
+			}
 		} catch (IOException e) {
-			LOG.error("Unable to execute request for service = {}, resurce = {}.", service, resource, e);
-			throw new ConnectorException(UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE, e);
+			LOG.error("Unable to read response content for URI = {}.", target, e);
+			throw new ConnectorException(String.format(UNABLE_TO_READ_RESPONSE_ERROR_MESSAGE, target), e);
+		}
+	}
+
+	private boolean isRangeResponse(RequestTarget target, HttpResponse response) {
+		int statusCode = response.getStatusLine().getStatusCode();
+
+		return target.getOffset() > 0 && (statusCode == HttpStatus.SC_PARTIAL_CONTENT || statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+	}
+
+	private <T> T readFileContent(RequestTarget target, HttpResponse response, ResponseContentReader<T> contentReader) {
+		int statusCode = response.getStatusLine().getStatusCode();
+
+		if (target.getOffset() > 0 && statusCode == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+			return readContent(target, response, (content, charset) -> contentReader.read(new ByteArrayInputStream(new byte[0]), charset));
+		}
+
+		if (target.getOffset() > 0 && statusCode == HttpStatus.SC_OK) {
+			LOG.debug("Range has been ignored, skipping = {} bytes, URI = {}.", target.getOffset(), target);
+
+			return readContent(target, response, (content, charset) -> {
+				IOUtils.skipFully(content, target.getOffset());
+				return contentReader.read(content, charset);
+			});
 		}
+
+		return readContent(target, response, contentReader);
+	}
+
+	private void recordRequest(RequestTarget target, int statusCode, long requestStartNanos) {
+		metricsRecorder.recordRequest(target.getService(), target.getResource(), statusCode, System.nanoTime() - requestStartNanos);
+	}
+
+	private Charset getCharset(HttpEntity entity) {
+		ContentType contentType = ContentType.get(entity);
+
+		if (contentType == null || contentType.getCharset() == null) {
+			return StandardCharsets.UTF_8;
+		}
+
+		return contentType.getCharset();
 	}
 
 	private URI buildURI(String service, String resource, GetParameters getParameters) {
@@ -86,4 +930,174 @@ public abstract class RESTExecutor {
 	}
 
 	public abstract String translateResourceToURI(String service, String resource);
+
+	/**
+	 * Translates file resources, e.g. exports in other formats than json, same as json resources by default.
+	 */
+	public String translateFileToURI(String service, String resource) {
+		return translateResourceToURI(service, resource);
+	}
+
+	/**
+	 * <pre>
+	 *     Enables caching of GET responses of services accepted by given policy, null cache disables it.
+	 *     Fresh responses are served without contacting the server, stale ones are revalidated with
+	 *     "If-None-Match" / "If-Modified-Since" when they have validators.
+	 * </pre>
+	 *
+	 * @param responseCache cache of responses, may be shared by many executors
+	 * @param responseCachePolicy cached services and TTL
+	 */
+	public void setResponseCache(ResponseCache responseCache, ResponseCachePolicy responseCachePolicy) {
+		this.responseCache = responseCache;
+		this.responseCachePolicy = responseCachePolicy;
+	}
+
+	/**
+	 * <pre>
+	 *     Prefix of cache keys separating responses of different accounts sharing one cache.
+	 * </pre>
+	 *
+	 * @param cacheNamespace account identifier
+	 */
+	public void setCacheNamespace(String cacheNamespace) {
+		this.cacheNamespace = cacheNamespace != null ? cacheNamespace : "";
+	}
+
+	/**
+	 * <pre>
+	 *     Enables coalescing of identical concurrent GET requests: requests of the same account for the same URI,
+	 *     read with the same content reader instance, share a single in-flight call and its result.
+	 *     Shared results must be treated as read-only. Requests with a per-call reader (e.g. one passing
+	 *     activities to a consumer) are never coalesced.
+	 * </pre>
+	 *
+	 * @param requestCoalescingEnabled true to coalesce requests
+	 */
+	public void setRequestCoalescingEnabled(boolean requestCoalescingEnabled) {
+		this.requestCoalescingEnabled = requestCoalescingEnabled;
+	}
+
+	/**
+	 * <pre>
+	 *     Number of requests which have been served by another in-flight request so far.
+	 * </pre>
+	 *
+	 * @return coalesced request count
+	 */
+	public long getCoalescedRequestCount() {
+		return singleFlight.getCoalescedCount();
+	}
+
+	public void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * <pre>
+	 *     Number of retries made by this executor so far.
+	 * </pre>
+	 *
+	 * @return retry count
+	 */
+	public long getRetryCount() {
+		return retryCount.sum();
+	}
+
+	public void setRateLimiters(List<RateLimiter> rateLimiters) {
+		this.rateLimiters = rateLimiters;
+	}
+
+	public void setReauthorizationHandler(ReauthorizationHandler reauthorizationHandler) {
+		this.reauthorizationHandler = reauthorizationHandler;
+	}
+
+	@FunctionalInterface
+	private interface ResponseExtractor<T> {
+		T extract(RequestTarget target, HttpResponse response);
+	}
+
+	/**
+	 * <pre>
+	 *     Service and resource of a request next to its URI, for metrics, and the requested byte offset.
+	 *     Prints as the URI.
+	 * </pre>
+	 */
+	private static final class RequestTarget {
+
+		private final String service;
+
+		private final String resource;
+
+		private final URI uri;
+
+		private final long offset;
+
+		private RequestTarget(String service, String resource, URI uri, long offset) {
+			this.service = service;
+			this.resource = resource;
+			this.uri = uri;
+			this.offset = offset;
+		}
+
+		String getService() {
+			return service;
+		}
+
+		String getResource() {
+			return resource;
+		}
+
+		URI getUri() {
+			return uri;
+		}
+
+		long getOffset() {
+			return offset;
+		}
+
+		@Override
+		public String toString() {
+			return uri.toString();
+		}
+	}
+
+	private static final class CoalescingKey {
+
+		private final String namespace;
+
+		private final URI uri;
+
+		private final ResponseContentReader<?> contentReader;
+
+		private CoalescingKey(String namespace, URI uri, ResponseContentReader<?> contentReader) {
+			this.namespace = namespace;
+			this.uri = uri;
+			this.contentReader = contentReader;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object) {
+				return true;
+			}
+
+			if (!(object instanceof CoalescingKey)) {
+				return false;
+			}
+
+			CoalescingKey other = (CoalescingKey) object;
+
+			return namespace.equals(other.namespace) && uri.equals(other.uri) && contentReader == other.contentReader;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * namespace.hashCode() + uri.hashCode()) + System.identityHashCode(contentReader);
+		}
+	}
 }
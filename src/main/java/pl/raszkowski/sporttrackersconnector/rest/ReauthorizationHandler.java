@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import org.apache.http.HttpResponse;
+
+/**
+ * <pre>
+ *     Hook used by {@link RESTExecutor} to recover from an expired session.
+ *
+ *     When a response is recognized as an expired authorization, {@link #reauthorize()} is called once
+ *     for all concurrent requests which hit the expired session, and every such request is replayed once.
+ * </pre>
+ */
+public interface ReauthorizationHandler {
+
+	boolean isAuthorizationExpired(HttpResponse response);
+
+	void reauthorize();
+}
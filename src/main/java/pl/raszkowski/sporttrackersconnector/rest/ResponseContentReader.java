@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+@FunctionalInterface
+public interface ResponseContentReader<T> {
+
+	/**
+	 * Reads response content. The stream is closed by the caller.
+	 *
+	 * @param content response content stream
+	 * @param charset charset declared by the response, UTF-8 when none
+	 * @return read result
+	 * @throws IOException when content cannot be read
+	 */
+	T read(InputStream content, Charset charset) throws IOException;
+}
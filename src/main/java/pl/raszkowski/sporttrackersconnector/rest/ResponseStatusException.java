@@ -0,0 +1,39 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Thrown when the server has responded with other status code than expected.
+ * </pre>
+ */
+public class ResponseStatusException extends ConnectorException {
+
+	private static final long serialVersionUID = 2250735469713170244L;
+
+	private final int statusCode;
+
+	public ResponseStatusException(String message, int statusCode) {
+		super(message);
+		this.statusCode = statusCode;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+}
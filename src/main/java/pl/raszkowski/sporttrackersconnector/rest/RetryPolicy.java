@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.net.ssl.SSLException;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+/**
+ * <pre>
+ *     Decides whether and when a failed GET request is retried.
+ *
+ *     Retried are I/O failures of the request (connection resets, timeouts), 5xx responses and 429 responses.
+ *     Failures while reading the response content are never retried, the content reader may have already
+ *     consumed part of it.
+ *
+ *     Backoff is exponential with full jitter: a random delay between 0 and min(maxBackoff, initialBackoff * 2^(attempt - 1)),
+ *     for 429 responses at least the "Retry-After" time. No retry is made after maxAttempts attempts or when the delay
+ *     would exceed the overall deadline counted from the first attempt.
+ * </pre>
+ */
+public class RetryPolicy {
+
+	private static final int MAX_BACKOFF_SHIFT = 30;
+
+	private static final long NO_RETRY = -1;
+
+	private int maxAttempts;
+
+	private long initialBackoffMillis;
+
+	private long maxBackoffMillis;
+
+	private long deadlineMillis;
+
+	public RetryPolicy() {
+		ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+		this.maxAttempts = connectorsConfiguration.getHttpRetryMaxAttempts();
+		this.initialBackoffMillis = connectorsConfiguration.getHttpRetryInitialBackoffMillis();
+		this.maxBackoffMillis = connectorsConfiguration.getHttpRetryMaxBackoffMillis();
+		this.deadlineMillis = connectorsConfiguration.getHttpRetryDeadlineMillis();
+	}
+
+	public static RetryPolicy noRetries() {
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setMaxAttempts(1);
+		return retryPolicy;
+	}
+
+	public boolean isRetryable(Exception exception) {
+		if (exception instanceof TooManyRequestsException) {
+			return true;
+		}
+
+		if (exception instanceof ResponseStatusException) {
+			return ((ResponseStatusException) exception).getStatusCode() >= 500;
+		}
+
+		return exception instanceof IOException
+				&& !(exception instanceof UnknownHostException)
+				&& !(exception instanceof SSLException);
+	}
+
+	public long getBackoffMillis(int attempt) {
+		long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(MAX_BACKOFF_SHIFT, Math.max(0, attempt - 1)));
+
+		return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+	}
+
+	/**
+	 * <pre>
+	 *     Delay before the next attempt.
+	 * </pre>
+	 *
+	 * @param exception failure of the last attempt
+	 * @param attempt number of the failed attempt, starting from 1
+	 * @param elapsedMillis time elapsed since the first attempt
+	 * @return delay in milliseconds or a negative value if the request should not be retried
+	 */
+	public long getRetryDelayMillis(Exception exception, int attempt, long elapsedMillis) {
+		if (attempt >= maxAttempts || !isRetryable(exception)) {
+			return NO_RETRY;
+		}
+
+		long delayMillis = getBackoffMillis(attempt);
+
+		if (exception instanceof TooManyRequestsException) {
+			delayMillis = Math.max(delayMillis, ((TooManyRequestsException) exception).getRetryAfterMillis());
+		}
+
+		if (elapsedMillis + delayMillis > deadlineMillis) {
+			return NO_RETRY;
+		}
+
+		return delayMillis;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public void setMaxAttempts(int maxAttempts) {
+		this.maxAttempts = maxAttempts;
+	}
+
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	public void setInitialBackoffMillis(long initialBackoffMillis) {
+		this.initialBackoffMillis = initialBackoffMillis;
+	}
+
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	public void setMaxBackoffMillis(long maxBackoffMillis) {
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	public long getDeadlineMillis() {
+		return deadlineMillis;
+	}
+
+	public void setDeadlineMillis(long deadlineMillis) {
+		this.deadlineMillis = deadlineMillis;
+	}
+}
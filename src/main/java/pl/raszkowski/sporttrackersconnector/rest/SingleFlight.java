@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Coalesces concurrent calls with equal keys: the first caller (leader) performs the call,
+ *     callers arriving while it is in flight (followers) wait for and share its result or failure.
+ *     Nothing is remembered once the call completes.
+ * </pre>
+ *
+ * @param <K> type of the key
+ */
+class SingleFlight<K> {
+
+	private static final String COALESCED_CALL_FAILED_ERROR_MESSAGE = "Coalesced call failed!";
+
+	private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+	private final LongAdder coalescedCount = new LongAdder();
+
+	@SuppressWarnings("unchecked")
+	<V> V call(K key, Supplier<V> call) {
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> leaderFlight = inFlight.putIfAbsent(key, flight);
+
+		if (leaderFlight != null) {
+			coalescedCount.increment();
+			return (V) join(leaderFlight);
+		}
+
+		V result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+
+		inFlight.remove(key, flight);
+		flight.complete(result);
+
+		return result;
+	}
+
+	/**
+	 * <pre>
+	 *     Every caller gets its own dependent future, so cancelling it does not affect the other callers.
+	 * </pre>
+	 */
+	@SuppressWarnings("unchecked")
+	<V> CompletableFuture<V> callAsync(K key, Supplier<CompletableFuture<V>> call) {
+		CompletableFuture<Object> flight = new CompletableFuture<>();
+		CompletableFuture<Object> leaderFlight = inFlight.putIfAbsent(key, flight);
+
+		if (leaderFlight != null) {
+			coalescedCount.increment();
+			return leaderFlight.thenApply(result -> (V) result);
+		}
+
+		CompletableFuture<V> result;
+		try {
+			result = call.get();
+		} catch (RuntimeException e) {
+			inFlight.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+
+		result.whenComplete((value, e) -> {
+			inFlight.remove(key, flight);
+
+			if (e != null) {
+				flight.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+			} else {
+				flight.complete(value);
+			}
+		});
+
+		return flight.thenApply(value -> (V) value);
+	}
+
+	long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	private Object join(CompletableFuture<Object> flight) {
+		try {
+			return flight.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new ConnectorException(COALESCED_CALL_FAILED_ERROR_MESSAGE, e.getCause());
+		}
+	}
+}
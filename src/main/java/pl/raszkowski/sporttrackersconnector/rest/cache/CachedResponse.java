@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * <pre>
+ *     Content of a successful GET response together with its validators ("ETag", "Last-Modified").
+ * </pre>
+ */
+public class CachedResponse {
+
+	private final byte[] content;
+
+	private final String charset;
+
+	private final String eTag;
+
+	private final String lastModified;
+
+	private final long storedAtMillis;
+
+	public CachedResponse(byte[] content, String charset, String eTag, String lastModified, long storedAtMillis) {
+		this.content = content;
+		this.charset = charset;
+		this.eTag = eTag;
+		this.lastModified = lastModified;
+		this.storedAtMillis = storedAtMillis;
+	}
+
+	public byte[] getContent() {
+		return content;
+	}
+
+	public String getCharset() {
+		return charset;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public long getStoredAtMillis() {
+		return storedAtMillis;
+	}
+
+	public boolean hasValidators() {
+		return eTag != null || lastModified != null;
+	}
+
+	public boolean isFresh(long ttlMillis, long nowMillis) {
+		return nowMillis - storedAtMillis < ttlMillis;
+	}
+
+	/**
+	 * <pre>
+	 *     Copy of this response confirmed by the server (304 Not Modified) at given time.
+	 *     Validators sent with the 304 response replace the stored ones.
+	 * </pre>
+	 *
+	 * @param eTag "ETag" of the 304 response, may be null
+	 * @param lastModified "Last-Modified" of the 304 response, may be null
+	 * @param nowMillis revalidation time
+	 * @return revalidated response
+	 */
+	public CachedResponse revalidated(String eTag, String lastModified, long nowMillis) {
+		return new CachedResponse(content, charset, eTag != null ? eTag : this.eTag, lastModified != null ? lastModified : this.lastModified, nowMillis);
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("contentLength", content.length)
+				.append("charset", charset)
+				.append("eTag", eTag)
+				.append("lastModified", lastModified)
+				.append("storedAtMillis", storedAtMillis)
+				.toString();
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Stores every response in a separate file inside given directory, named with a SHA-256 of the key.
+ *     Files are replaced atomically, unreadable files are treated as misses.
+ * </pre>
+ */
+public class FileResponseCache implements ResponseCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileResponseCache.class);
+
+	private static final String UNABLE_TO_SAVE_RESPONSE_ERROR_MESSAGE = "Unable to save cached response to file = %s.";
+	private static final String UNABLE_TO_REMOVE_RESPONSE_ERROR_MESSAGE = "Unable to remove cached response file = %s.";
+
+	private static final String FILE_EXTENSION = ".response";
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final Path directory;
+
+	public FileResponseCache(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public Optional<CachedResponse> get(String key) {
+		Path responseFile = getResponseFile(key);
+
+		try (InputStream inputStream = Files.newInputStream(responseFile);
+			 DataInputStream dataInputStream = new DataInputStream(inputStream)) {
+			if (dataInputStream.readInt() != FORMAT_VERSION) {
+				LOG.warn("Unknown format of cached response file = {}, ignoring it.", responseFile);
+				return Optional.empty();
+			}
+
+			long storedAtMillis = dataInputStream.readLong();
+			String charset = readNullableString(dataInputStream);
+			String eTag = readNullableString(dataInputStream);
+			String lastModified = readNullableString(dataInputStream);
+
+			byte[] content = new byte[dataInputStream.readInt()];
+			dataInputStream.readFully(content);
+
+			return Optional.of(new CachedResponse(content, charset, eTag, lastModified, storedAtMillis));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (EOFException | NegativeArraySizeException e) {
+			LOG.warn("Cached response file = {} is truncated, ignoring it.", responseFile);
+			return Optional.empty();
+		} catch (IOException e) {
+			LOG.warn("Unable to read cached response file = {}, ignoring it.", responseFile, e);
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		Path responseFile = getResponseFile(key);
+		Path temporaryFile = responseFile.resolveSibling(responseFile.getFileName() + TEMPORARY_FILE_EXTENSION);
+
+		try {
+			Files.createDirectories(directory);
+
+			try (OutputStream outputStream = Files.newOutputStream(temporaryFile);
+				 DataOutputStream dataOutputStream = new DataOutputStream(outputStream)) {
+				dataOutputStream.writeInt(FORMAT_VERSION);
+				dataOutputStream.writeLong(response.getStoredAtMillis());
+				writeNullableString(dataOutputStream, response.getCharset());
+				writeNullableString(dataOutputStream, response.getETag());
+				writeNullableString(dataOutputStream, response.getLastModified());
+				dataOutputStream.writeInt(response.getContent().length);
+				dataOutputStream.write(response.getContent());
+			}
+
+			Files.move(temporaryFile, responseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.error("Unable to save cached response to file = {}.", responseFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_SAVE_RESPONSE_ERROR_MESSAGE, responseFile), e);
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		Path responseFile = getResponseFile(key);
+
+		try {
+			Files.deleteIfExists(responseFile);
+		} catch (IOException e) {
+			LOG.error("Unable to remove cached response file = {}.", responseFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_REMOVE_RESPONSE_ERROR_MESSAGE, responseFile), e);
+		}
+	}
+
+	private Path getResponseFile(String key) {
+		return directory.resolve(DigestUtils.sha256Hex(key) + FILE_EXTENSION);
+	}
+
+	private String readNullableString(DataInputStream dataInputStream) throws IOException {
+		return dataInputStream.readBoolean() ? dataInputStream.readUTF() : null;
+	}
+
+	private void writeNullableString(DataOutputStream dataOutputStream, String value) throws IOException {
+		dataOutputStream.writeBoolean(value != null);
+
+		if (value != null) {
+			dataOutputStream.writeUTF(value);
+		}
+	}
+}
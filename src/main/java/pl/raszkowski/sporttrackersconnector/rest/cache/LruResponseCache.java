@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+/**
+ * <pre>
+ *     In-memory cache keeping at most "maxEntries" least recently used responses.
+ *
+ *     An optional second tier (e.g. {@link FileResponseCache}) receives every stored response and is consulted
+ *     on misses, responses found there are promoted back to memory.
+ * </pre>
+ */
+public class LruResponseCache implements ResponseCache {
+
+	private final Map<String, CachedResponse> responses;
+
+	private final ResponseCache secondTier;
+
+	public LruResponseCache() {
+		this(ConnectorsConfiguration.getInstance().getHttpCacheMaxEntries());
+	}
+
+	public LruResponseCache(int maxEntries) {
+		this(maxEntries, null);
+	}
+
+	public LruResponseCache(int maxEntries, ResponseCache secondTier) {
+		this.secondTier = secondTier;
+
+		responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	@Override
+	public Optional<CachedResponse> get(String key) {
+		synchronized (responses) {
+			CachedResponse response = responses.get(key);
+
+			if (response != null) {
+				return Optional.of(response);
+			}
+		}
+
+		if (secondTier == null) {
+			return Optional.empty();
+		}
+
+		Optional<CachedResponse> response = secondTier.get(key);
+
+		response.ifPresent(value -> {
+			synchronized (responses) {
+				responses.putIfAbsent(key, value);
+			}
+		});
+
+		return response;
+	}
+
+	@Override
+	public void put(String key, CachedResponse response) {
+		synchronized (responses) {
+			responses.put(key, response);
+		}
+
+		if (secondTier != null) {
+			secondTier.put(key, response);
+		}
+	}
+
+	@Override
+	public void remove(String key) {
+		synchronized (responses) {
+			responses.remove(key);
+		}
+
+		if (secondTier != null) {
+			secondTier.remove(key);
+		}
+	}
+
+	public int size() {
+		synchronized (responses) {
+			return responses.size();
+		}
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.util.Optional;
+
+/**
+ * <pre>
+ *     Storage of GET responses, keys combine account and request URI.
+ * </pre>
+ */
+public interface ResponseCache {
+
+	Optional<CachedResponse> get(String key);
+
+	void put(String key, CachedResponse response);
+
+	void remove(String key);
+}
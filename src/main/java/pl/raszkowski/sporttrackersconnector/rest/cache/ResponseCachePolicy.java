@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+/**
+ * <pre>
+ *     Decides which GET responses are cached and for how long they are served without contacting the server.
+ *
+ *     Only responses of given services are cached, by default the ones listed in "http.cache.services".
+ *     Once the TTL has passed, a response with validators is revalidated with a conditional GET, one without
+ *     validators is fetched again.
+ * </pre>
+ */
+public class ResponseCachePolicy {
+
+	private long ttlMillis;
+
+	private Set<String> services;
+
+	public ResponseCachePolicy() {
+		this.ttlMillis = ConnectorsConfiguration.getInstance().getHttpCacheTtlMillis();
+		setServices(ConnectorsConfiguration.getInstance().getHttpCacheServices());
+	}
+
+	public boolean isCacheable(String service) {
+		return services.contains(service);
+	}
+
+	public long getTtlMillis() {
+		return ttlMillis;
+	}
+
+	public void setTtlMillis(long ttlMillis) {
+		this.ttlMillis = ttlMillis;
+	}
+
+	public Set<String> getServices() {
+		return services;
+	}
+
+	public void setServices(Collection<String> services) {
+		this.services = Collections.unmodifiableSet(new HashSet<>(services));
+	}
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.samples;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Read-only columnar view of the samples of one activity: timestamps in milliseconds, ascending,
+ *     and one float column per measure. Views of a {@link SampleStore} read the memory-mapped file directly,
+ *     accessors and {@link #slice(long, long)} never copy the samples.
+ *
+ *     Layout (little endian): magic, version, padding, sample count, column mask, timestamps (8 bytes each),
+ *     then the present columns in {@link SampleColumn} order (4 bytes each).
+ * </pre>
+ */
+public final class ActivitySamples {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivitySamples.class);
+
+	private static final String NOT_SAMPLES_ERROR_MESSAGE = "Content is not activity samples or has unsupported version.";
+	private static final String COLUMN_NOT_PRESENT_ERROR_MESSAGE = "Column = %s is not present in activity samples.";
+
+	static final int MAGIC = 0x53414d50;
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 16;
+
+	private final LongBuffer timestamps;
+
+	private final Map<SampleColumn, FloatBuffer> columns;
+
+	private ActivitySamples(LongBuffer timestamps, Map<SampleColumn, FloatBuffer> columns) {
+		this.timestamps = timestamps;
+		this.columns = columns;
+	}
+
+	/**
+	 * Creates view over encoded samples, without copying them.
+	 *
+	 * @param content encoded samples, from position to limit
+	 * @return samples view
+	 */
+	static ActivitySamples wrap(ByteBuffer content) {
+		ByteBuffer buffer = content.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+			LOG.error("Content is not activity samples or has unsupported version.");
+			throw new ConnectorException(NOT_SAMPLES_ERROR_MESSAGE);
+		}
+
+		int size = buffer.getInt(8);
+		int columnMask = buffer.getInt(12);
+
+		int position = HEADER_SIZE;
+		LongBuffer timestamps = slice(buffer, position, size * Long.BYTES).asLongBuffer();
+		position += size * Long.BYTES;
+
+		Map<SampleColumn, FloatBuffer> columns = new EnumMap<>(SampleColumn.class);
+		for (SampleColumn column : SampleColumn.values()) {
+			if ((columnMask & column.getMask()) != 0) {
+				columns.put(column, slice(buffer, position, size * Float.BYTES).asFloatBuffer());
+				position += size * Float.BYTES;
+			}
+		}
+
+		return new ActivitySamples(timestamps, columns);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+		ByteBuffer duplicate = buffer.duplicate();
+		duplicate.position(position);
+		duplicate.limit(position + length);
+		return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	static int encodedSize(int size, int columnsCount) {
+		return HEADER_SIZE + size * Long.BYTES + columnsCount * size * Float.BYTES;
+	}
+
+	public int size() {
+		return timestamps.limit();
+	}
+
+	public boolean has(SampleColumn column) {
+		return columns.containsKey(column);
+	}
+
+	public Set<SampleColumn> getColumns() {
+		return columns.keySet();
+	}
+
+	public long getTimestampMillis(int index) {
+		return timestamps.get(index);
+	}
+
+	public float get(SampleColumn column, int index) {
+		return column(column).get(index);
+	}
+
+	/**
+	 * @return read-only view of the timestamps
+	 */
+	public LongBuffer timestamps() {
+		return timestamps.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @param column present column
+	 * @return read-only view of the column values
+	 */
+	public FloatBuffer column(SampleColumn column) {
+		FloatBuffer values = columns.get(column);
+
+		if (values == null) {
+			LOG.error("Column = {} is not present in activity samples.", column);
+			throw new ConnectorException(String.format(COLUMN_NOT_PRESENT_ERROR_MESSAGE, column));
+		}
+
+		return values.asReadOnlyBuffer();
+	}
+
+	/**
+	 * @param timestampMillis timestamp
+	 * @return index of the first sample not earlier than given timestamp, {@link #size()} when there is none
+	 */
+	public int indexOf(long timestampMillis) {
+		int low = 0;
+		int high = size();
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (timestamps.get(middle) < timestampMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * <pre>
+	 *     View of the samples with timestamps in [fromMillis, toMillis), sharing the content of this view.
+	 * </pre>
+	 *
+	 * @param fromMillis inclusive start of the range
+	 * @param toMillis exclusive end of the range
+	 * @return samples view
+	 */
+	public ActivitySamples slice(long fromMillis, long toMillis) {
+		int from = indexOf(fromMillis);
+		int to = Math.max(from, indexOf(toMillis));
+
+		Map<SampleColumn, FloatBuffer> slicedColumns = new EnumMap<>(SampleColumn.class);
+		columns.forEach((column, values) -> slicedColumns.put(column, slice(values, from, to)));
+
+		return new ActivitySamples(slice(timestamps, from, to), slicedColumns);
+	}
+
+	private static LongBuffer slice(LongBuffer buffer, int from, int to) {
+		LongBuffer duplicate = buffer.duplicate();
+		duplicate.position(from);
+		duplicate.limit(to);
+		return duplicate.slice();
+	}
+
+	private static FloatBuffer slice(FloatBuffer buffer, int from, int to) {
+		FloatBuffer duplicate = buffer.duplicate();
+		duplicate.position(from);
+		duplicate.limit(to);
+		return duplicate.slice();
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.samples;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Collects samples of one activity into primitive arrays. Samples have to be added in timestamp order,
+ *     a value set with {@link #set(SampleColumn, float)} belongs to the last added sample.
+ * </pre>
+ */
+public class ActivitySamplesBuilder {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivitySamplesBuilder.class);
+
+	private static final String TIMESTAMP_NOT_ASCENDING_ERROR_MESSAGE = "Samples have to be added in timestamp order, timestamp = %s, previous = %s.";
+	private static final String NO_SAMPLE_ERROR_MESSAGE = "No sample has been added yet.";
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private long[] timestamps = new long[INITIAL_CAPACITY];
+
+	private final Map<SampleColumn, float[]> columns = new EnumMap<>(SampleColumn.class);
+
+	private int size;
+
+	public ActivitySamplesBuilder add(long timestampMillis) {
+		if (size > 0 && timestampMillis < timestamps[size - 1]) {
+			LOG.error("Samples have to be added in timestamp order, timestamp = {}, previous = {}.", timestampMillis, timestamps[size - 1]);
+			throw new ConnectorException(String.format(TIMESTAMP_NOT_ASCENDING_ERROR_MESSAGE, timestampMillis, timestamps[size - 1]));
+		}
+
+		if (size == timestamps.length) {
+			int capacity = timestamps.length * 2;
+
+			timestamps = Arrays.copyOf(timestamps, capacity);
+			columns.replaceAll((column, values) -> grow(values, capacity));
+		}
+
+		timestamps[size] = timestampMillis;
+		columns.values().forEach(values -> values[size] = Float.NaN);
+		size++;
+
+		return this;
+	}
+
+	public ActivitySamplesBuilder set(SampleColumn column, float value) {
+		if (size == 0) {
+			LOG.error("No sample has been added yet.");
+			throw new ConnectorException(NO_SAMPLE_ERROR_MESSAGE);
+		}
+
+		columns.computeIfAbsent(column, key -> {
+			float[] values = new float[timestamps.length];
+			Arrays.fill(values, Float.NaN);
+			return values;
+		})[size - 1] = value;
+
+		return this;
+	}
+
+	private static float[] grow(float[] values, int capacity) {
+		float[] grown = Arrays.copyOf(values, capacity);
+		Arrays.fill(grown, values.length, capacity, Float.NaN);
+		return grown;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return heap copy of the collected samples
+	 */
+	public ActivitySamples build() {
+		return ActivitySamples.wrap(encode());
+	}
+
+	/**
+	 * Encodes samples in the layout of {@link ActivitySamples}.
+	 */
+	ByteBuffer encode() {
+		ByteBuffer buffer = ByteBuffer.allocate(ActivitySamples.encodedSize(size, columns.size())).order(ByteOrder.LITTLE_ENDIAN);
+
+		int columnMask = 0;
+		for (SampleColumn column : columns.keySet()) {
+			columnMask |= column.getMask();
+		}
+
+		buffer.putInt(ActivitySamples.MAGIC);
+		buffer.put(ActivitySamples.VERSION);
+		buffer.position(8);
+		buffer.putInt(size);
+		buffer.putInt(columnMask);
+
+		buffer.asLongBuffer().put(timestamps, 0, size);
+		buffer.position(buffer.position() + size * Long.BYTES);
+
+		for (float[] values : columns.values()) {
+			buffer.asFloatBuffer().put(values, 0, size);
+			buffer.position(buffer.position() + size * Float.BYTES);
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+}
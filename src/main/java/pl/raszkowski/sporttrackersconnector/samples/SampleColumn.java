@@ -0,0 +1,38 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.samples;
+
+/**
+ * <pre>
+ *     Per-sample measures of an activity, stored as float columns. Missing values are NaN.
+ * </pre>
+ */
+public enum SampleColumn {
+
+	HEART_RATE,
+	SPEED_METERS_PER_SECOND,
+	ELEVATION_METERS,
+	DISTANCE_METERS,
+	CADENCE,
+	POWER_WATTS,
+	LATITUDE,
+	LONGITUDE,
+	TEMPERATURE_CELSIUS;
+
+	int getMask() {
+		return 1 << ordinal();
+	}
+}
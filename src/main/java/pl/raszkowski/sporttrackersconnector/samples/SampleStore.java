@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.samples;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+/**
+ * <pre>
+ *     Keeps samples of every activity in a separate file inside given directory, in the columnar layout
+ *     of {@link ActivitySamples}. Files are memory-mapped when read, so the samples stay outside of the heap
+ *     and are paged in by the operating system only when accessed; mappings are released when the returned
+ *     views become unreachable.
+ *
+ *     Files are replaced atomically, a view opened before a replace keeps reading the previous samples.
+ * </pre>
+ */
+public class SampleStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SampleStore.class);
+
+	private static final String UNABLE_TO_WRITE_SAMPLES_ERROR_MESSAGE = "Unable to write samples to file = %s.";
+	private static final String UNABLE_TO_READ_SAMPLES_ERROR_MESSAGE = "Unable to read samples from file = %s.";
+
+	private static final String FILE_EXTENSION = ".samples";
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+	private final Path directory;
+
+	public SampleStore(Path directory) {
+		this.directory = directory;
+	}
+
+	public void write(long activityId, ActivitySamplesBuilder samplesBuilder) {
+		Path samplesFile = getSamplesFile(activityId);
+		Path temporaryFile = samplesFile.resolveSibling(samplesFile.getFileName() + TEMPORARY_FILE_EXTENSION);
+
+		try {
+			Files.createDirectories(directory);
+
+			try (FileChannel fileChannel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteBuffer content = samplesBuilder.encode();
+				while (content.hasRemaining()) {
+					fileChannel.write(content);
+				}
+			}
+
+			Files.move(temporaryFile, samplesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.error("Unable to write samples to file = {}.", samplesFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_WRITE_SAMPLES_ERROR_MESSAGE, samplesFile), e);
+		}
+	}
+
+	/**
+	 * @param activityId activity id
+	 * @return memory-mapped samples of the activity, empty when not stored
+	 */
+	public Optional<ActivitySamples> read(long activityId) {
+		Path samplesFile = getSamplesFile(activityId);
+
+		try (FileChannel fileChannel = FileChannel.open(samplesFile, StandardOpenOption.READ)) {
+			return Optional.of(ActivitySamples.wrap(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size())));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException e) {
+			LOG.error("Unable to read samples from file = {}.", samplesFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_READ_SAMPLES_ERROR_MESSAGE, samplesFile), e);
+		}
+	}
+
+	public boolean contains(long activityId) {
+		return Files.exists(getSamplesFile(activityId));
+	}
+
+	public void delete(long activityId) {
+		Path samplesFile = getSamplesFile(activityId);
+
+		try {
+			Files.deleteIfExists(samplesFile);
+		} catch (IOException e) {
+			LOG.error("Unable to delete samples file = {}.", samplesFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_WRITE_SAMPLES_ERROR_MESSAGE, samplesFile), e);
+		}
+	}
+
+	private Path getSamplesFile(long activityId) {
+		return directory.resolve(activityId + FILE_EXTENSION);
+	}
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.store;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.SortOrder;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+
+/**
+ * <pre>
+ *     Local store of activities answering {@link ActivitiesSearchFields} without requests to Garmin Connect.
+ *     Activities are kept in memory with indexes on start time, activity type and distance, a persistent store
+ *     additionally appends every stored activity to a log file, which is replayed when the store is opened.
+ *
+ *     Supported conditions: "beginTimestamp" (ISO date-time or date) and "sumDistance" (meters) with comparison
+ *     operators, "activityType" with equal, not equal and "in" (comma separated types). Supported sort fields:
+ *     "beginTimestamp" (default), "sumDistance" and "sumDuration", newest / largest first by default.
+ *     Returned activities are shared with the store and should be treated as read-only.
+ * </pre>
+ */
+public class ActivityStore implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ActivityStore.class);
+
+	private static final String CANNOT_OPEN_STORE_ERROR_MESSAGE = "Cannot open activity store, file = %s.";
+	private static final String CANNOT_WRITE_STORE_ERROR_MESSAGE = "Cannot write activity store, file = %s.";
+	private static final String UNSUPPORTED_SORT_FIELD_ERROR_MESSAGE = "Sort field is not supported by the activity store, sort field = %s.";
+	private static final String NOT_STORE_FILE_ERROR_MESSAGE = "File is not an activity store or has unsupported version, file = %s.";
+
+	private static final int FILE_MAGIC = 0x53544153;
+	private static final byte FILE_VERSION = 1;
+
+	private static final String SUM_DURATION_FIELD = "sumDuration";
+
+	private final Path path;
+
+	private final FileChannel logChannel;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final Map<Long, Activity> activities = new HashMap<>();
+
+	private final NavigableMap<Long, NavigableSet<Long>> startTimeIndex = new TreeMap<>();
+
+	private final Map<String, NavigableSet<Long>> typeIndex = new HashMap<>();
+
+	private final NavigableMap<Double, NavigableSet<Long>> distanceIndex = new TreeMap<>();
+
+	private ActivityWatermark watermark;
+
+	/**
+	 * Creates store kept in memory only.
+	 */
+	public ActivityStore() {
+		this.path = null;
+		this.logChannel = null;
+	}
+
+	/**
+	 * Opens store persisted in given file, creating the file when it does not exist.
+	 *
+	 * @param path store file
+	 */
+	public ActivityStore(Path path) {
+		this.path = path;
+
+		try {
+			long validLength = Files.exists(path) ? replay(path) : 0;
+
+			logChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+			if (validLength == 0) {
+				logChannel.truncate(0);
+				logChannel.write(ByteBuffer.wrap(encodeHeader()));
+			} else if (logChannel.size() > validLength) {
+				LOG.warn("Activity store file = {} ends with incomplete record, truncating it to {} bytes.", path, validLength);
+				logChannel.truncate(validLength);
+			}
+
+			logChannel.position(logChannel.size());
+		} catch (IOException e) {
+			LOG.error("Cannot open activity store, file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_OPEN_STORE_ERROR_MESSAGE, path), e);
+		}
+
+		LOG.debug("Activity store opened, file = {}, activities = {}.", path, activities.size());
+	}
+
+	private long replay(Path path) throws IOException {
+		try (CountingInputStream countingInputStream = new CountingInputStream(new BufferedInputStream(Files.newInputStream(path)));
+			 DataInputStream dataInputStream = new DataInputStream(countingInputStream)) {
+			try {
+				if (dataInputStream.readInt() != FILE_MAGIC || dataInputStream.readByte() != FILE_VERSION) {
+					LOG.error("File is not an activity store or has unsupported version, file = {}.", path);
+					throw new ConnectorException(String.format(NOT_STORE_FILE_ERROR_MESSAGE, path));
+				}
+			} catch (EOFException e) {
+				return 0;
+			}
+
+			long validLength = countingInputStream.getByteCount();
+
+			try {
+				while (true) {
+					index(readActivity(dataInputStream));
+					validLength = countingInputStream.getByteCount();
+				}
+			} catch (EOFException e) {
+				return validLength;
+			}
+		}
+	}
+
+	public void put(Activity activity) {
+		putAll(Collections.singletonList(activity));
+	}
+
+	/**
+	 * Stores given activities, an activity with already stored id replaces the stored one.
+	 *
+	 * @param activities activities to store
+	 */
+	public void putAll(Collection<Activity> activities) {
+		if (activities.isEmpty()) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (logChannel != null) {
+				append(activities);
+			}
+
+			activities.forEach(this::index);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Optional<Activity> get(long activityId) {
+		lock.readLock().lock();
+		try {
+			return Optional.ofNullable(activities.get(activityId));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return activities.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return watermark of the newest stored activities, empty for empty store
+	 */
+	public Optional<ActivityWatermark> getWatermark() {
+		lock.readLock().lock();
+		try {
+			return Optional.ofNullable(watermark);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Fetches activities newer than the newest stored one and stores them, so every activity is fetched once.
+	 *
+	 *     Activities arrive newest first, so they are stored only when all of them have been fetched:
+	 *     a partially stored sync would move the watermark past activities which have never been fetched.
+	 *     When fetching fails, nothing is stored and the next sync starts from the same watermark.
+	 * </pre>
+	 *
+	 * @param apiHandler handler of the account
+	 * @param activitiesSearchFields search details, the limit is ignored as all new activities are fetched
+	 * @return number of fetched activities
+	 */
+	public int sync(GarminAPIHandler apiHandler, ActivitiesSearchFields activitiesSearchFields) {
+		List<Activity> fetched = new ArrayList<>();
+
+		apiHandler.forEachNewActivity(activitiesSearchFields, getWatermark().orElse(null), fetched::add);
+
+		putAll(fetched);
+
+		LOG.debug("Activity store synchronized, fetched activities = {}.", fetched.size());
+
+		return fetched.size();
+	}
+
+	/**
+	 * <pre>
+	 *     Finds stored activities matching conditions of search fields, sorted and paged with start and limit.
+	 *     A limit lower than 1 returns all matching activities.
+	 *
+	 *     Candidates are taken from the index of the most selective condition. When sorted by start time,
+	 *     activities are read in index order and reading stops as soon as the page is complete.
+	 * </pre>
+	 *
+	 * @param activitiesSearchFields search details
+	 * @return matching activities
+	 */
+	public List<Activity> search(ActivitiesSearchFields activitiesSearchFields) {
+		List<StoredCondition> conditions = activitiesSearchFields.getConditions().stream()
+				.map(StoredCondition::of)
+				.collect(Collectors.toList());
+
+		boolean descending = activitiesSearchFields.getSortOrder() != SortOrder.ASC;
+		Comparator<Activity> order = getOrder(activitiesSearchFields.getSortField(), descending);
+		boolean sortedByStartTime = isSortedByStartTime(activitiesSearchFields.getSortField());
+
+		lock.readLock().lock();
+		try {
+			Stream<Activity> matching;
+
+			if (sortedByStartTime && !hasTypeKeys(conditions)) {
+				matching = rangeIds(startTimeIndex, conditions, StoredCondition.Field.START_TIME, value -> (long) Math.floor(value), value -> (long) Math.ceil(value), descending)
+						.map(activities::get)
+						.filter(activity -> matches(activity, conditions));
+			} else {
+				matching = candidateIds(conditions)
+						.map(activities::get)
+						.filter(activity -> matches(activity, conditions))
+						.sorted(order);
+			}
+
+			matching = matching.skip(activitiesSearchFields.getStart());
+
+			if (activitiesSearchFields.getLimit() > 0) {
+				matching = matching.limit(activitiesSearchFields.getLimit());
+			}
+
+			return matching.collect(Collectors.toList());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Stream<Long> candidateIds(List<StoredCondition> conditions) {
+		if (hasTypeKeys(conditions)) {
+			StoredCondition typeCondition = conditions.stream()
+					.filter(condition -> condition.getField() == StoredCondition.Field.TYPE && condition.isIndexable())
+					.min(Comparator.comparingInt(condition -> condition.getTypes().size()))
+					.get();
+
+			return typeCondition.getTypes().stream()
+					.map(typeIndex::get)
+					.filter(ids -> ids != null)
+					.flatMap(Set::stream);
+		}
+
+		if (hasRange(conditions, StoredCondition.Field.START_TIME) || !hasRange(conditions, StoredCondition.Field.DISTANCE)) {
+			return rangeIds(startTimeIndex, conditions, StoredCondition.Field.START_TIME, value -> (long) Math.floor(value), value -> (long) Math.ceil(value), false);
+		}
+
+		return rangeIds(distanceIndex, conditions, StoredCondition.Field.DISTANCE, Function.identity(), Function.identity(), false);
+	}
+
+	private <K extends Comparable<K>> Stream<Long> rangeIds(NavigableMap<K, NavigableSet<Long>> index, List<StoredCondition> conditions, StoredCondition.Field field,
+			Function<Double, K> lowerKey, Function<Double, K> upperKey, boolean descending) {
+		NavigableMap<K, NavigableSet<Long>> range = index;
+
+		for (StoredCondition condition : conditions) {
+			if (condition.getField() != field || !condition.isIndexable()) {
+				continue;
+			}
+
+			if (condition.hasLowerBound()) {
+				range = range.tailMap(lowerKey.apply(condition.getNumber()), true);
+			}
+
+			if (condition.hasUpperBound()) {
+				range = range.headMap(upperKey.apply(condition.getNumber()), true);
+			}
+		}
+
+		if (descending) {
+			return range.descendingMap().values().stream().flatMap(ids -> ids.descendingSet().stream());
+		}
+
+		return range.values().stream().flatMap(Set::stream);
+	}
+
+	private boolean hasTypeKeys(List<StoredCondition> conditions) {
+		return conditions.stream().anyMatch(condition -> condition.getField() == StoredCondition.Field.TYPE && condition.isIndexable());
+	}
+
+	private boolean hasRange(List<StoredCondition> conditions, StoredCondition.Field field) {
+		return conditions.stream().anyMatch(condition -> condition.getField() == field && condition.isIndexable());
+	}
+
+	private boolean matches(Activity activity, List<StoredCondition> conditions) {
+		for (StoredCondition condition : conditions) {
+			if (!condition.test(activity)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isSortedByStartTime(String sortField) {
+		return sortField == null || ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD.equals(sortField);
+	}
+
+	private Comparator<Activity> getOrder(String sortField, boolean descending) {
+		Comparator<Activity> order;
+
+		if (isSortedByStartTime(sortField)) {
+			order = Comparator.comparingLong(Activity::getStartTimeMillis);
+		} else if (StoredCondition.SUM_DISTANCE_FIELD.equals(sortField)) {
+			order = Comparator.comparingDouble(Activity::getDistanceMeters);
+		} else if (SUM_DURATION_FIELD.equals(sortField)) {
+			order = Comparator.comparingDouble(Activity::getDurationSeconds);
+		} else {
+			LOG.error("Sort field is not supported by the activity store, sort field = {}.", sortField);
+			throw new ConnectorException(String.format(UNSUPPORTED_SORT_FIELD_ERROR_MESSAGE, sortField));
+		}
+
+		order = order.thenComparingLong(Activity::getId);
+
+		return descending ? order.reversed() : order;
+	}
+
+	private void index(Activity activity) {
+		Activity previous = activities.put(activity.getId(), activity);
+
+		if (previous != null) {
+			removeFromIndex(startTimeIndex, previous.getStartTimeMillis(), previous.getId());
+			removeFromIndex(typeIndex, previous.getType(), previous.getId());
+			removeFromIndex(distanceIndex, previous.getDistanceMeters(), previous.getId());
+		}
+
+		startTimeIndex.computeIfAbsent(activity.getStartTimeMillis(), key -> new TreeSet<>()).add(activity.getId());
+		typeIndex.computeIfAbsent(activity.getType(), key -> new TreeSet<>()).add(activity.getId());
+		distanceIndex.computeIfAbsent(activity.getDistanceMeters(), key -> new TreeSet<>()).add(activity.getId());
+
+		watermark = watermark != null ? watermark.advance(activity) : ActivityWatermark.of(activity);
+	}
+
+	private <K> void removeFromIndex(Map<K, NavigableSet<Long>> index, K key, long activityId) {
+		NavigableSet<Long> ids = index.get(key);
+
+		if (ids != null && ids.remove(activityId) && ids.isEmpty()) {
+			index.remove(key);
+		}
+	}
+
+	private void append(Collection<Activity> activities) {
+		try {
+			ByteArrayOutputStream content = new ByteArrayOutputStream();
+			DataOutputStream dataOutputStream = new DataOutputStream(content);
+
+			for (Activity activity : activities) {
+				writeActivity(dataOutputStream, activity);
+			}
+
+			ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+			while (buffer.hasRemaining()) {
+				logChannel.write(buffer);
+			}
+		} catch (IOException e) {
+			LOG.error("Cannot write activity store, file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_STORE_ERROR_MESSAGE, path), e);
+		}
+	}
+
+	private byte[] encodeHeader() throws IOException {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		DataOutputStream dataOutputStream = new DataOutputStream(content);
+		dataOutputStream.writeInt(FILE_MAGIC);
+		dataOutputStream.writeByte(FILE_VERSION);
+		return content.toByteArray();
+	}
+
+	private void writeActivity(DataOutputStream dataOutputStream, Activity activity) throws IOException {
+		dataOutputStream.writeLong(activity.getId());
+		writeNullableString(dataOutputStream, activity.getName());
+		writeNullableString(dataOutputStream, activity.getType());
+		dataOutputStream.writeLong(activity.getStartTimeMillis());
+		dataOutputStream.writeDouble(activity.getDurationSeconds());
+		dataOutputStream.writeDouble(activity.getDistanceMeters());
+		dataOutputStream.writeDouble(activity.getCalories());
+		dataOutputStream.writeInt(activity.getAverageHeartRate());
+		dataOutputStream.writeInt(activity.getMaxHeartRate());
+	}
+
+	private Activity readActivity(DataInputStream dataInputStream) throws IOException {
+		Activity activity = new Activity();
+		activity.setId(dataInputStream.readLong());
+		activity.setName(readNullableString(dataInputStream));
+		activity.setType(readNullableString(dataInputStream));
+		activity.setStartTimeMillis(dataInputStream.readLong());
+		activity.setDurationSeconds(dataInputStream.readDouble());
+		activity.setDistanceMeters(dataInputStream.readDouble());
+		activity.setCalories(dataInputStream.readDouble());
+		activity.setAverageHeartRate(dataInputStream.readInt());
+		activity.setMaxHeartRate(dataInputStream.readInt());
+		return activity;
+	}
+
+	private void writeNullableString(DataOutputStream dataOutputStream, String value) throws IOException {
+		dataOutputStream.writeBoolean(value != null);
+		if (value != null) {
+			dataOutputStream.writeUTF(value);
+		}
+	}
+
+	private String readNullableString(DataInputStream dataInputStream) throws IOException {
+		return dataInputStream.readBoolean() ? dataInputStream.readUTF() : null;
+	}
+
+	/**
+	 * Closes the log file of a persistent store, after forcing its content to the disk.
+	 */
+	@Override
+	public void close() {
+		if (logChannel == null) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			logChannel.force(false);
+			logChannel.close();
+		} catch (IOException e) {
+			LOG.error("Cannot write activity store, file = {}.", path, e);
+			throw new ConnectorException(String.format(CANNOT_WRITE_STORE_ERROR_MESSAGE, path), e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
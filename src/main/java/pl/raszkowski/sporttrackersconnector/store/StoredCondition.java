@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.store;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.Condition;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.Operator;
+
+/**
+ * <pre>
+ *     Search condition of {@link ActivitiesSearchFields} translated to the fields of {@link Activity}.
+ * </pre>
+ */
+class StoredCondition {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StoredCondition.class);
+
+	private static final String UNSUPPORTED_CONDITION_ERROR_MESSAGE = "Condition is not supported by the activity store, field = %s, operator = %s.";
+	private static final String WRONG_CONDITION_VALUE_ERROR_MESSAGE = "Wrong condition value, field = %s, value = %s.";
+
+	static final String ACTIVITY_TYPE_FIELD = "activityType";
+	static final String SUM_DISTANCE_FIELD = "sumDistance";
+
+	private static final String VALUES_SEPARATOR = ",";
+
+	enum Field {
+		START_TIME,
+		TYPE,
+		DISTANCE
+	}
+
+	private final Field field;
+
+	private final Operator operator;
+
+	private final double number;
+
+	private final Set<String> types;
+
+	private StoredCondition(Field field, Operator operator, double number, Set<String> types) {
+		this.field = field;
+		this.operator = operator;
+		this.number = number;
+		this.types = types;
+	}
+
+	static StoredCondition of(Condition condition) {
+		String conditionField = condition.getField();
+		Operator operator = condition.getOperator();
+
+		if (ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD.equals(conditionField) && isComparison(operator)) {
+			return new StoredCondition(Field.START_TIME, operator, parseTimestamp(condition), null);
+		}
+
+		if (SUM_DISTANCE_FIELD.equals(conditionField) && isComparison(operator)) {
+			return new StoredCondition(Field.DISTANCE, operator, parseNumber(condition), null);
+		}
+
+		if (ACTIVITY_TYPE_FIELD.equals(conditionField) && (operator == Operator.EQUAL || operator == Operator.NOT_EQUAL || operator == Operator.CONTAINS)) {
+			return new StoredCondition(Field.TYPE, operator, 0, new HashSet<>(Arrays.asList(condition.getValue().split(VALUES_SEPARATOR))));
+		}
+
+		LOG.error("Condition is not supported by the activity store, field = {}, operator = {}.", conditionField, operator);
+		throw new ConnectorException(String.format(UNSUPPORTED_CONDITION_ERROR_MESSAGE, conditionField, operator));
+	}
+
+	private static boolean isComparison(Operator operator) {
+		return operator != Operator.CONTAINS && operator != Operator.IS;
+	}
+
+	private static double parseTimestamp(Condition condition) {
+		String value = condition.getValue();
+
+		try {
+			return OffsetDateTime.parse(value).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			try {
+				return LocalDate.parse(value).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+			} catch (DateTimeParseException dateException) {
+				LOG.error("Wrong condition value, field = {}, value = {}.", condition.getField(), value);
+				throw new ConnectorException(String.format(WRONG_CONDITION_VALUE_ERROR_MESSAGE, condition.getField(), value), dateException);
+			}
+		}
+	}
+
+	private static double parseNumber(Condition condition) {
+		try {
+			return Double.parseDouble(condition.getValue());
+		} catch (NumberFormatException | NullPointerException e) {
+			LOG.error("Wrong condition value, field = {}, value = {}.", condition.getField(), condition.getValue());
+			throw new ConnectorException(String.format(WRONG_CONDITION_VALUE_ERROR_MESSAGE, condition.getField(), condition.getValue()), e);
+		}
+	}
+
+	boolean test(Activity activity) {
+		switch (field) {
+			case START_TIME:
+				return compare(activity.getStartTimeMillis());
+			case DISTANCE:
+				return compare(activity.getDistanceMeters());
+			default:
+				return types.contains(activity.getType()) != (operator == Operator.NOT_EQUAL);
+		}
+	}
+
+	private boolean compare(double value) {
+		int comparison = Double.compare(value, number);
+
+		switch (operator) {
+			case EQUAL:
+				return comparison == 0;
+			case NOT_EQUAL:
+				return comparison != 0;
+			case GREATER_THAN:
+				return comparison > 0;
+			case GREATER_THAN_OR_EQUAL:
+				return comparison >= 0;
+			case LESS_THAN:
+				return comparison < 0;
+			default:
+				return comparison <= 0;
+		}
+	}
+
+	/**
+	 * @return true if matching activities can be found with a range or key lookup of the field index
+	 */
+	boolean isIndexable() {
+		return operator != Operator.NOT_EQUAL;
+	}
+
+	boolean hasLowerBound() {
+		return operator == Operator.EQUAL || operator == Operator.GREATER_THAN || operator == Operator.GREATER_THAN_OR_EQUAL;
+	}
+
+	boolean hasUpperBound() {
+		return operator == Operator.EQUAL || operator == Operator.LESS_THAN || operator == Operator.LESS_THAN_OR_EQUAL;
+	}
+
+	boolean isBoundInclusive() {
+		return operator != Operator.GREATER_THAN && operator != Operator.LESS_THAN;
+	}
+
+	Field getField() {
+		return field;
+	}
+
+	double getNumber() {
+		return number;
+	}
+
+	Set<String> getTypes() {
+		return types;
+	}
+}
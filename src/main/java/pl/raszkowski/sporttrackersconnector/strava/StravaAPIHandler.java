@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.rest.APIHandler;
+import pl.raszkowski.sporttrackersconnector.rest.GetParameters;
+import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+import pl.raszkowski.sporttrackersconnector.rest.ResponseContentReader;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+
+/**
+ * <pre>
+ *     Strava API v3, https://developers.strava.com/docs/reference/
+ * </pre>
+ */
+public class StravaAPIHandler extends APIHandler {
+
+	private static final String ATHLETE_SERVICE = "athlete";
+	private static final String ACTIVITIES_RESOURCE = "activities";
+
+	private static final String BEFORE_PARAMETER = "before";
+	private static final String PAGE_PARAMETER = "page";
+	private static final String PER_PAGE_PARAMETER = "per_page";
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private Gson gson = new GsonBuilder()
+			.registerTypeAdapter(Activity.class, new StravaActivityTypeAdapter())
+			.create();
+
+	private final ResponseContentReader<List<Activity>> activitiesListReader = createActivitiesListReader();
+
+	StravaAPIHandler(RESTExecutor restExecutor) {
+		super(restExecutor);
+	}
+
+	/**
+	 * <pre>
+	 *     Finds activities of the authorized athlete, newest first.
+	 * </pre>
+	 *
+	 * @param beforeSeconds epoch seconds, only activities started before are returned, 0 when not bounded
+	 * @param page page number, starting at 1
+	 * @param perPage page size, at most 200
+	 * @return activities of the page
+	 */
+	public List<Activity> getActivities(long beforeSeconds, int page, int perPage) {
+		GetParameters getParameters = new GetParameters();
+
+		if (beforeSeconds > 0) {
+			getParameters.addParameter(BEFORE_PARAMETER, String.valueOf(beforeSeconds));
+		}
+
+		getParameters.addParameter(PAGE_PARAMETER, String.valueOf(page));
+		getParameters.addParameter(PER_PAGE_PARAMETER, String.valueOf(perPage));
+
+		return restExecutor.executeGET(ATHLETE_SERVICE, ACTIVITIES_RESOURCE, getParameters, activitiesListReader);
+	}
+
+	/**
+	 * <pre>
+	 *     Lazily streams activities matching given query, newest first, one page request at a time.
+	 *
+	 *     Strava returns activities in ascending order when "after" is given, so the lower bound is checked
+	 *     on the client side and paging stops at the first older activity. The activity type is filtered
+	 *     on the client side as well. The limit of the query is not applied.
+	 * </pre>
+	 *
+	 * @param activityQuery activity query
+	 * @return lazy stream of activities
+	 */
+	public Stream<Activity> streamActivities(ActivityQuery activityQuery) {
+		return streamActivities(activityQuery, PageRequestLimiter.UNLIMITED);
+	}
+
+	/**
+	 * <pre>
+	 *     Streams activities like {@link #streamActivities(ActivityQuery)}, every page is requested through given limiter.
+	 * </pre>
+	 *
+	 * @param activityQuery activity query
+	 * @param pageRequestLimiter limiter of page requests
+	 * @return lazy stream of activities
+	 */
+	public Stream<Activity> streamActivities(ActivityQuery activityQuery, PageRequestLimiter pageRequestLimiter) {
+		int pageSize = activityQuery.getPageSize() > 0 ? activityQuery.getPageSize() : connectorsConfiguration.getStravaActivitiesPageSize();
+		long beforeSeconds = getBeforeSeconds(activityQuery.getStartTimeToMillis());
+
+		StravaActivitiesIterator activitiesIterator = new StravaActivitiesIterator(
+				page -> pageRequestLimiter.submit(() -> CompletableFuture.completedFuture(getActivities(beforeSeconds, page, pageSize))).join(), pageSize, activityQuery.getStartTimeFromMillis());
+
+		Stream<Activity> activities = StreamSupport.stream(Spliterators.spliteratorUnknownSize(activitiesIterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+
+		if (activityQuery.getStartTimeToMillis() > 0) {
+			activities = activities.filter(activity -> activity.getStartTimeMillis() < activityQuery.getStartTimeToMillis());
+		}
+
+		if (activityQuery.getActivityType() != null) {
+			activities = activities.filter(activity -> activityQuery.getActivityType().equalsIgnoreCase(activity.getType()));
+		}
+
+		return activities;
+	}
+
+	/**
+	 * Activities start at whole seconds, rounding up keeps the ones started before the exclusive bound.
+	 */
+	private static long getBeforeSeconds(long startTimeToMillis) {
+		if (startTimeToMillis <= 0) {
+			return 0;
+		}
+
+		return (startTimeToMillis + TimeUnit.SECONDS.toMillis(1) - 1) / TimeUnit.SECONDS.toMillis(1);
+	}
+
+	private ResponseContentReader<List<Activity>> createActivitiesListReader() {
+		TypeAdapter<Activity> typeAdapter = gson.getAdapter(Activity.class);
+
+		return (content, charset) -> {
+			List<Activity> activities = new ArrayList<>();
+			responseJsonParser.readArray(new InputStreamReader(content, charset), jsonReader -> activities.add(typeAdapter.read(jsonReader)));
+			return activities;
+		};
+	}
+}
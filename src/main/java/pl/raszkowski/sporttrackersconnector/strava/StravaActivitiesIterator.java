@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+/**
+ * <pre>
+ *     Iterates over activities page by page, newest first, until a page is not full or an activity started before
+ *     the lower bound. Pages are requested only when the previous one has been consumed, so no request
+ *     of the quota is spent on a page which is never read.
+ * </pre>
+ */
+class StravaActivitiesIterator implements Iterator<Activity> {
+
+	private final IntFunction<List<Activity>> pageLoader;
+
+	private final int pageSize;
+
+	private final long startTimeFromMillis;
+
+	private Iterator<Activity> currentPage = Collections.emptyIterator();
+
+	private int pageNumber;
+
+	private boolean lastPage;
+
+	private Activity next;
+
+	/**
+	 * @param pageLoader loads page of given number, starting at 1
+	 * @param pageSize requested page size
+	 * @param startTimeFromMillis inclusive lower bound of the start time, 0 when not bounded
+	 */
+	StravaActivitiesIterator(IntFunction<List<Activity>> pageLoader, int pageSize, long startTimeFromMillis) {
+		this.pageLoader = pageLoader;
+		this.pageSize = pageSize;
+		this.startTimeFromMillis = startTimeFromMillis;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (next == null) {
+			if (currentPage.hasNext()) {
+				Activity activity = currentPage.next();
+
+				if (activity.getStartTimeMillis() < startTimeFromMillis) {
+					lastPage = true;
+					currentPage = Collections.emptyIterator();
+				} else {
+					next = activity;
+				}
+			} else if (lastPage) {
+				return false;
+			} else {
+				List<Activity> activities = pageLoader.apply(++pageNumber);
+
+				lastPage = activities.size() < pageSize;
+				currentPage = activities.iterator();
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public Activity next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		Activity activity = next;
+		next = null;
+
+		return activity;
+	}
+}
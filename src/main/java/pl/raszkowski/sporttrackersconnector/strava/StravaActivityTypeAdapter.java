@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Decodes single element of "athlete/activities" array (SummaryActivity) into {@link Activity},
+ *     straight from the token stream. The type is the "sport_type" when present, the legacy "type" otherwise.
+ * </pre>
+ */
+class StravaActivityTypeAdapter extends TypeAdapter<Activity> {
+
+	private static final String ID_KEY = "id";
+	private static final String NAME_KEY = "name";
+	private static final String TYPE_KEY = "type";
+	private static final String SPORT_TYPE_KEY = "sport_type";
+	private static final String START_DATE_KEY = "start_date";
+	private static final String ELAPSED_TIME_KEY = "elapsed_time";
+	private static final String DISTANCE_KEY = "distance";
+	private static final String CALORIES_KEY = "calories";
+	private static final String AVERAGE_HEART_RATE_KEY = "average_heartrate";
+	private static final String MAX_HEART_RATE_KEY = "max_heartrate";
+
+	@Override
+	public Activity read(JsonReader jsonReader) throws IOException {
+		Activity activity = new Activity();
+		String type = null;
+		String sportType = null;
+
+		jsonReader.beginObject();
+		while (jsonReader.hasNext()) {
+			String name = jsonReader.nextName();
+
+			if (jsonReader.peek() == JsonToken.NULL) {
+				jsonReader.skipValue();
+				continue;
+			}
+
+			switch (name) {
+				case ID_KEY:
+					activity.setId(jsonReader.nextLong());
+					break;
+				case NAME_KEY:
+					activity.setName(jsonReader.nextString());
+					break;
+				case TYPE_KEY:
+					type = jsonReader.nextString();
+					break;
+				case SPORT_TYPE_KEY:
+					sportType = jsonReader.nextString();
+					break;
+				case START_DATE_KEY:
+					activity.setStartTimeMillis(OffsetDateTime.parse(jsonReader.nextString(), DateTimeFormatter.ISO_OFFSET_DATE_TIME).toInstant().toEpochMilli());
+					break;
+				case ELAPSED_TIME_KEY:
+					activity.setDurationSeconds(jsonReader.nextDouble());
+					break;
+				case DISTANCE_KEY:
+					activity.setDistanceMeters(jsonReader.nextDouble());
+					break;
+				case CALORIES_KEY:
+					activity.setCalories(jsonReader.nextDouble());
+					break;
+				case AVERAGE_HEART_RATE_KEY:
+					activity.setAverageHeartRate((int) Math.round(jsonReader.nextDouble()));
+					break;
+				case MAX_HEART_RATE_KEY:
+					activity.setMaxHeartRate((int) Math.round(jsonReader.nextDouble()));
+					break;
+				default:
+					jsonReader.skipValue();
+			}
+		}
+		jsonReader.endObject();
+
+		activity.setType(sportType != null ? sportType : type);
+
+		return activity;
+	}
+
+	@Override
+	public void write(JsonWriter jsonWriter, Activity activity) throws IOException {
+		jsonWriter.beginObject();
+		jsonWriter.name(ID_KEY).value(activity.getId());
+		jsonWriter.name(NAME_KEY).value(activity.getName());
+		jsonWriter.name(SPORT_TYPE_KEY).value(activity.getType());
+		jsonWriter.name(START_DATE_KEY).value(Instant.ofEpochMilli(activity.getStartTimeMillis()).toString());
+		jsonWriter.name(ELAPSED_TIME_KEY).value(activity.getDurationSeconds());
+		jsonWriter.name(DISTANCE_KEY).value(activity.getDistanceMeters());
+		jsonWriter.name(CALORIES_KEY).value(activity.getCalories());
+		jsonWriter.name(AVERAGE_HEART_RATE_KEY).value(activity.getAverageHeartRate());
+		jsonWriter.name(MAX_HEART_RATE_KEY).value(activity.getMaxHeartRate());
+		jsonWriter.endObject();
+	}
+}
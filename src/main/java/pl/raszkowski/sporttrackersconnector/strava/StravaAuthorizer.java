@@ -0,0 +1,301 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.helper.HttpResponseVerifier;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.strava.exception.StravaAuthorizationException;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * <pre>
+ *     Keeps the OAuth2 access token of one athlete valid. The token is refreshed with the refresh token
+ *     before it expires ("strava.oauth.refreshAheadMillis" ahead), or on demand when it has been rejected.
+ *     Refreshes are serialized, concurrent requests wait for the one in progress. A valid token is read without
+ *     locking, asynchronous requests refresh it on a dedicated executor instead of the threads sending requests.
+ * </pre>
+ */
+class StravaAuthorizer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StravaAuthorizer.class);
+
+	private static final String EMPTY_CLIENT_ID_ERROR_MESSAGE = "Client id is empty. Please provide valid credentials!";
+	private static final String EMPTY_CLIENT_SECRET_ERROR_MESSAGE = "Client secret is empty. Please provide valid credentials!";
+	private static final String EMPTY_REFRESH_TOKEN_ERROR_MESSAGE = "Refresh token is empty. Please provide valid credentials!";
+	private static final String NOT_AUTHORIZED_ERROR_MESSAGE = "Connector has never been authorized, cannot refresh access token!";
+	private static final String CANNOT_REFRESH_TOKEN_ERROR_MESSAGE = "Cannot refresh access token, status code: %s.";
+	private static final String INVALID_TOKEN_RESPONSE_ERROR_MESSAGE = "Token response does not contain access token, refresh token and expiry time.";
+	private static final String UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE = "Unable to execute request.";
+
+	private static final String GRANT_TYPE_PARAMETER = "grant_type";
+	private static final String GRANT_TYPE_PARAMETER_VALUE = "refresh_token";
+	private static final String CLIENT_ID_PARAMETER = "client_id";
+	private static final String CLIENT_SECRET_PARAMETER = "client_secret";
+	private static final String REFRESH_TOKEN_PARAMETER = "refresh_token";
+
+	private static final String ACCESS_TOKEN_KEY = "access_token";
+	private static final String REFRESH_TOKEN_KEY = "refresh_token";
+	private static final String EXPIRES_AT_KEY = "expires_at";
+
+	private static final AtomicInteger REFRESH_THREAD_NUMBER = new AtomicInteger(1);
+
+	private static final ExecutorService REFRESH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "strava-token-refresh-" + REFRESH_THREAD_NUMBER.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
+	private final HttpClient httpClient;
+
+	private final LongSupplier clock;
+
+	private StravaCredentials credentials;
+
+	private volatile AccessToken accessToken;
+
+	StravaAuthorizer(HttpClient httpClient) {
+		this(httpClient, System::currentTimeMillis);
+	}
+
+	StravaAuthorizer(HttpClient httpClient, LongSupplier clock) {
+		this.httpClient = httpClient;
+		this.clock = clock;
+	}
+
+	/**
+	 * <pre>
+	 *     Uses given credentials from now on, refreshing the access token when it is missing or about to expire.
+	 * </pre>
+	 *
+	 * @param credentials athlete credentials, updated with refreshed tokens
+	 */
+	synchronized void authorize(StravaCredentials credentials) {
+		validateCredentials(credentials);
+
+		this.credentials = credentials;
+
+		if (isExpiring(credentials.getAccessToken(), credentials.getAccessTokenExpiresAtMillis())) {
+			refresh(credentials);
+		} else {
+			accessToken = new AccessToken(credentials.getAccessToken(), credentials.getAccessTokenExpiresAtMillis());
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Returns the current token without locking while it is valid, otherwise refreshes it on the calling thread.
+	 * </pre>
+	 *
+	 * @return access token valid for at least the refresh-ahead time
+	 */
+	String getAccessToken() {
+		AccessToken currentAccessToken = accessToken;
+
+		if (currentAccessToken != null && !isExpiring(currentAccessToken.getValue(), currentAccessToken.getExpiresAtMillis())) {
+			return currentAccessToken.getValue();
+		}
+
+		return refreshIfExpiring();
+	}
+
+	/**
+	 * <pre>
+	 *     Like {@link #getAccessToken()}, but the token is refreshed on the refresh executor, never on the calling thread.
+	 * </pre>
+	 *
+	 * @return future of access token valid for at least the refresh-ahead time
+	 */
+	CompletableFuture<String> getAccessTokenAsync() {
+		AccessToken currentAccessToken = accessToken;
+
+		if (currentAccessToken != null && !isExpiring(currentAccessToken.getValue(), currentAccessToken.getExpiresAtMillis())) {
+			return CompletableFuture.completedFuture(currentAccessToken.getValue());
+		}
+
+		return CompletableFuture.supplyAsync(this::refreshIfExpiring, REFRESH_EXECUTOR);
+	}
+
+	private synchronized String refreshIfExpiring() {
+		StravaCredentials currentCredentials = getCredentials();
+
+		if (isExpiring(currentCredentials.getAccessToken(), currentCredentials.getAccessTokenExpiresAtMillis())) {
+			LOG.debug("Access token expires soon, refreshing, username = {}.", currentCredentials.getUsername());
+			refresh(currentCredentials);
+		}
+
+		return currentCredentials.getAccessToken();
+	}
+
+	/**
+	 * <pre>
+	 *     Refreshes the access token regardless of its expiry time, e.g. when it has been revoked.
+	 * </pre>
+	 */
+	synchronized void refreshAccessToken() {
+		refresh(getCredentials());
+	}
+
+	private StravaCredentials getCredentials() {
+		if (credentials == null) {
+			throw new StravaAuthorizationException(NOT_AUTHORIZED_ERROR_MESSAGE);
+		}
+
+		return credentials;
+	}
+
+	private void validateCredentials(StravaCredentials credentials) {
+		if (StringUtils.isEmpty(credentials.getClientId())) {
+			LOG.debug("Credentials = {}.", credentials);
+			throw new StravaAuthorizationException(EMPTY_CLIENT_ID_ERROR_MESSAGE);
+		}
+
+		if (StringUtils.isEmpty(credentials.getClientSecret())) {
+			LOG.debug("Credentials = {}.", credentials);
+			throw new StravaAuthorizationException(EMPTY_CLIENT_SECRET_ERROR_MESSAGE);
+		}
+
+		if (StringUtils.isEmpty(credentials.getRefreshToken())) {
+			LOG.debug("Credentials = {}.", credentials);
+			throw new StravaAuthorizationException(EMPTY_REFRESH_TOKEN_ERROR_MESSAGE);
+		}
+	}
+
+	private boolean isExpiring(String accessToken, long accessTokenExpiresAtMillis) {
+		return StringUtils.isEmpty(accessToken)
+				|| clock.getAsLong() >= accessTokenExpiresAtMillis - connectorsConfiguration.getStravaRefreshAheadMillis();
+	}
+
+	private void refresh(StravaCredentials credentials) {
+		long startNanos = System.nanoTime();
+		boolean refreshed = false;
+
+		try {
+			HttpPost httpPost = new HttpPost(connectorsConfiguration.getStravaTokenURI());
+			httpPost.setEntity(new UrlEncodedFormEntity(prepareRefreshParameters(credentials), StandardCharsets.UTF_8));
+
+			HttpResponse response = httpClient.execute(httpPost);
+
+			try {
+				if (HttpResponseVerifier.isNotOk(response)) {
+					LOG.error("Cannot refresh access token, status code = {}, expected = {}.", response.getStatusLine().getStatusCode(), HttpStatus.SC_OK);
+					LOG.debug("Credentials = {}.", credentials);
+					throw new StravaAuthorizationException(String.format(CANNOT_REFRESH_TOKEN_ERROR_MESSAGE, response.getStatusLine().getStatusCode()));
+				}
+
+				updateTokens(credentials, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+				refreshed = true;
+			} finally {
+				EntityUtils.consumeQuietly(response.getEntity());
+			}
+		} catch (IOException e) {
+			LOG.error("Unable to execute request refreshing access token, uri = {}.", connectorsConfiguration.getStravaTokenURI(), e);
+			throw new StravaAuthorizationException(UNABLE_TO_EXECUTE_REQUEST_ERROR_MESSAGE, e);
+		} finally {
+			metricsRecorder.recordAuthorization(refreshed, System.nanoTime() - startNanos);
+		}
+
+		LOG.debug("Access token refreshed, username = {}, expires at = {}.", credentials.getUsername(), credentials.getAccessTokenExpiresAtMillis());
+	}
+
+	private List<NameValuePair> prepareRefreshParameters(StravaCredentials credentials) {
+		List<NameValuePair> parameters = new ArrayList<>();
+		parameters.add(new BasicNameValuePair(GRANT_TYPE_PARAMETER, GRANT_TYPE_PARAMETER_VALUE));
+		parameters.add(new BasicNameValuePair(CLIENT_ID_PARAMETER, credentials.getClientId()));
+		parameters.add(new BasicNameValuePair(CLIENT_SECRET_PARAMETER, credentials.getClientSecret()));
+		parameters.add(new BasicNameValuePair(REFRESH_TOKEN_PARAMETER, credentials.getRefreshToken()));
+		return parameters;
+	}
+
+	private void updateTokens(StravaCredentials credentials, String content) {
+		JsonObject token;
+
+		try {
+			JsonElement element = new JsonParser().parse(content);
+			token = element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+		} catch (JsonParseException e) {
+			LOG.error("Cannot parse token response.", e);
+			throw new StravaAuthorizationException(INVALID_TOKEN_RESPONSE_ERROR_MESSAGE, e);
+		}
+
+		if (!token.has(ACCESS_TOKEN_KEY) || !token.has(REFRESH_TOKEN_KEY) || !token.has(EXPIRES_AT_KEY)) {
+			LOG.error("Token response does not contain access token, refresh token and expiry time.");
+			throw new StravaAuthorizationException(INVALID_TOKEN_RESPONSE_ERROR_MESSAGE);
+		}
+
+		credentials.setAccessToken(token.get(ACCESS_TOKEN_KEY).getAsString());
+		credentials.setRefreshToken(token.get(REFRESH_TOKEN_KEY).getAsString());
+		credentials.setAccessTokenExpiresAtMillis(TimeUnit.SECONDS.toMillis(token.get(EXPIRES_AT_KEY).getAsLong()));
+
+		accessToken = new AccessToken(credentials.getAccessToken(), credentials.getAccessTokenExpiresAtMillis());
+	}
+
+	void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	private static class AccessToken {
+
+		private final String value;
+
+		private final long expiresAtMillis;
+
+		AccessToken(String value, long expiresAtMillis) {
+			this.value = value;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		String getValue() {
+			return value;
+		}
+
+		long getExpiresAtMillis() {
+			return expiresAtMillis;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.Connector;
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.Credentials;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.metrics.NoopMetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiter;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiters;
+import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+
+/**
+ * <pre>
+ *     Connector of Strava API v3, authorized with OAuth2 tokens of an athlete.
+ *
+ *     Requests of all Strava connectors share one {@link StravaQuotaScheduler}, as the quota belongs
+ *     to the application (client id), not to the athlete.
+ * </pre>
+ */
+public class StravaConnector implements Connector {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StravaConnector.class);
+
+	private static final String WRONG_CREDENTIALS_ERROR_MESSAGE = "Strava requires StravaCredentials, given = %s.";
+
+	private HttpTransport httpTransport;
+
+	private CookieStore cookieStore;
+
+	private HttpClient httpClient;
+
+	private StravaAuthorizer authorizer;
+
+	private RESTExecutor restExecutor;
+
+	private StravaAPIHandler apiHandler;
+
+	private MetricsRecorder metricsRecorder = NoopMetricsRecorder.INSTANCE;
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	public StravaConnector() {
+		this(HttpTransport.getDefault());
+	}
+
+	public StravaConnector(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+
+		cookieStore = new BasicCookieStore();
+		httpClient = httpTransport.createHttpClient(cookieStore);
+
+		authorizer = new StravaAuthorizer(httpClient);
+	}
+
+	/**
+	 * <pre>
+	 *     Uses given credentials for all requests. The access token is refreshed right away when it is missing
+	 *     or expires within "strava.oauth.refreshAheadMillis", and later before every request which would
+	 *     be sent that close to the expiry. Refreshed tokens are written back to the credentials.
+	 * </pre>
+	 *
+	 * @param credentials athlete credentials
+	 */
+	public void authorize(StravaCredentials credentials) {
+		authorizer.authorize(credentials);
+	}
+
+	/**
+	 * @param credentials {@link StravaCredentials}
+	 */
+	@Override
+	public void authorize(Credentials credentials) {
+		if (!(credentials instanceof StravaCredentials)) {
+			LOG.error("Strava requires StravaCredentials, given = {}.", credentials == null ? null : credentials.getClass());
+			throw new ConnectorException(String.format(WRONG_CREDENTIALS_ERROR_MESSAGE, credentials == null ? null : credentials.getClass()));
+		}
+
+		authorize((StravaCredentials) credentials);
+	}
+
+	/**
+	 * <pre>
+	 *     Refreshes the access token which has been rejected. Called by the REST executor, at most once
+	 *     for all concurrent requests which hit the rejected token.
+	 * </pre>
+	 */
+	void reauthorize() {
+		LOG.debug("Access token rejected, refreshing.");
+
+		authorizer.refreshAccessToken();
+	}
+
+	@Override
+	public String getName() {
+		return Connectors.STRAVA.getName();
+	}
+
+	@Override
+	public String getAPIPrefixURI() {
+		return connectorsConfiguration.getStravaAPIPrefixURI();
+	}
+
+	/**
+	 * <pre>
+	 *     Streams activities with {@link StravaAPIHandler#streamActivities(ActivityQuery, PageRequestLimiter)}.
+	 * </pre>
+	 */
+	@Override
+	public Stream<Activity> streamActivities(ActivityQuery activityQuery, PageRequestLimiter pageRequestLimiter) {
+		ActivityQuery pageQuery = activityQuery.copy();
+
+		int pageSize = activityQuery.getPageSize() > 0 ? activityQuery.getPageSize() : connectorsConfiguration.getStravaActivitiesPageSize();
+		if (activityQuery.getLimit() > 0 && activityQuery.getActivityType() == null) {
+			pageSize = Math.min(pageSize, activityQuery.getLimit());
+		}
+		pageQuery.setPageSize(pageSize);
+
+		Stream<Activity> activities = getAPIHandler().streamActivities(pageQuery, pageRequestLimiter);
+
+		return activityQuery.getLimit() > 0 ? activities.limit(activityQuery.getLimit()) : activities;
+	}
+
+	@Override
+	public synchronized RESTExecutor getRESTExecutor() {
+		if (restExecutor == null) {
+			StravaRESTExecutor stravaRESTExecutor = new StravaRESTExecutor(httpClient, httpTransport.getHttpAsyncClient(), cookieStore, authorizer);
+			stravaRESTExecutor.setReauthorizationHandler(new StravaReauthorizationHandler(this));
+
+			RateLimiter rateLimiter = getConnectorRateLimiter();
+			stravaRESTExecutor.setRateLimiters(Collections.singletonList(rateLimiter));
+			if (rateLimiter instanceof StravaQuotaScheduler) {
+				stravaRESTExecutor.setQuotaScheduler((StravaQuotaScheduler) rateLimiter);
+			}
+
+			stravaRESTExecutor.setMetricsRecorder(metricsRecorder);
+
+			restExecutor = stravaRESTExecutor;
+		}
+
+		return restExecutor;
+	}
+
+	/**
+	 * <pre>
+	 *     Records latency, status codes, received bytes and retries of REST requests and duration of token refreshes.
+	 * </pre>
+	 *
+	 * @param metricsRecorder metrics recorder
+	 */
+	public synchronized void setMetricsRecorder(MetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+
+		authorizer.setMetricsRecorder(metricsRecorder);
+
+		if (restExecutor != null) {
+			restExecutor.setMetricsRecorder(metricsRecorder);
+		}
+	}
+
+	private RateLimiter getConnectorRateLimiter() {
+		return RateLimiters.getConnectorRateLimiter(Connectors.STRAVA, () -> new StravaQuotaScheduler(
+				connectorsConfiguration.getStravaRateLimitShortWindowMillis(), connectorsConfiguration.getStravaRateLimitDailyWindowMillis(),
+				connectorsConfiguration.getStravaRateLimitShortLimit(), connectorsConfiguration.getStravaRateLimitDailyLimit(),
+				connectorsConfiguration.getStravaRateLimitReservedRequests()));
+	}
+
+	@Override
+	public synchronized StravaAPIHandler getAPIHandler() {
+		if (apiHandler == null) {
+			apiHandler = new StravaAPIHandler(getRESTExecutor());
+		}
+
+		return apiHandler;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import pl.raszkowski.sporttrackersconnector.Credentials;
+
+/**
+ * <pre>
+ *     OAuth2 credentials of a Strava athlete, authorized for the application of given client id.
+ *
+ *     Strava rotates refresh tokens, the connector updates these credentials with every refreshed token,
+ *     so {@link #getRefreshToken()} has to be persisted after use.
+ * </pre>
+ */
+public class StravaCredentials implements Credentials {
+
+	private String username;
+
+	private String clientId;
+
+	private String clientSecret;
+
+	private volatile String refreshToken;
+
+	private volatile String accessToken;
+
+	private volatile long accessTokenExpiresAtMillis;
+
+	/**
+	 * @return name of the account, used to tell accounts apart, e.g. in sync reports
+	 */
+	@Override
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getClientId() {
+		return clientId;
+	}
+
+	public void setClientId(String clientId) {
+		this.clientId = clientId;
+	}
+
+	public String getClientSecret() {
+		return clientSecret;
+	}
+
+	public void setClientSecret(String clientSecret) {
+		this.clientSecret = clientSecret;
+	}
+
+	public String getRefreshToken() {
+		return refreshToken;
+	}
+
+	public void setRefreshToken(String refreshToken) {
+		this.refreshToken = refreshToken;
+	}
+
+	/**
+	 * @return access token, null when it has not been issued yet
+	 */
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	public void setAccessToken(String accessToken) {
+		this.accessToken = accessToken;
+	}
+
+	public long getAccessTokenExpiresAtMillis() {
+		return accessTokenExpiresAtMillis;
+	}
+
+	public void setAccessTokenExpiresAtMillis(long accessTokenExpiresAtMillis) {
+		this.accessTokenExpiresAtMillis = accessTokenExpiresAtMillis;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("username", username)
+				.append("clientId", clientId)
+				.append("clientSecret", hash(clientSecret))
+				.append("refreshToken", hash(refreshToken))
+				.append("accessToken", hash(accessToken))
+				.append("accessTokenExpiresAtMillis", accessTokenExpiresAtMillis)
+				.toString();
+	}
+
+	private static String hash(String value) {
+		return value != null ? DigestUtils.sha256Hex(value) : null;
+	}
+}
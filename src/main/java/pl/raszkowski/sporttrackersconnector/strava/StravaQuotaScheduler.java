@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiter;
+
+/**
+ * <pre>
+ *     Schedules requests within the two quotas of a Strava application: the short one, reset every 15 minutes
+ *     (at :00, :15, :30 and :45), and the daily one, reset at midnight UTC. Both windows are aligned to the epoch.
+ *
+ *     Every reservation is counted against both windows. The remaining short window budget is spread evenly over
+ *     the rest of the window: after a request at time t with n requests left (including it), the next one is
+ *     scheduled at t + (window end - t) / n. When a budget is exhausted, requests wait for the next window.
+ *     The daily budget is only a cap, it is not spread over the day.
+ *
+ *     Limits and usage reported by Strava ({@link #update(String, String)}) take precedence over the configured
+ *     limits and raise the local usage, e.g. when other processes use the same application.
+ *     "Reserved requests" are left unused in every window, as a margin for requests counted by Strava
+ *     in a different window than locally.
+ * </pre>
+ */
+public class StravaQuotaScheduler implements RateLimiter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StravaQuotaScheduler.class);
+
+	private static final String VALUES_SEPARATOR = ",";
+
+	private final long shortWindowMillis;
+
+	private final long dailyWindowMillis;
+
+	private final int reservedRequests;
+
+	private final LongSupplier clock;
+
+	private int shortLimit;
+
+	private int dailyLimit;
+
+	private long shortWindowStartMillis = Long.MIN_VALUE;
+
+	private long dailyWindowStartMillis = Long.MIN_VALUE;
+
+	private int shortUsage;
+
+	private int dailyUsage;
+
+	private long nextSlotMillis;
+
+	public StravaQuotaScheduler(long shortWindowMillis, long dailyWindowMillis, int shortLimit, int dailyLimit, int reservedRequests) {
+		this(shortWindowMillis, dailyWindowMillis, shortLimit, dailyLimit, reservedRequests, System::currentTimeMillis);
+	}
+
+	StravaQuotaScheduler(long shortWindowMillis, long dailyWindowMillis, int shortLimit, int dailyLimit, int reservedRequests, LongSupplier clock) {
+		this.shortWindowMillis = shortWindowMillis;
+		this.dailyWindowMillis = dailyWindowMillis;
+		this.shortLimit = shortLimit;
+		this.dailyLimit = dailyLimit;
+		this.reservedRequests = Math.max(0, reservedRequests);
+		this.clock = clock;
+	}
+
+	@Override
+	public synchronized long reserve() {
+		long now = clock.getAsLong();
+		long slot = Math.max(now, nextSlotMillis);
+
+		int shortRemaining;
+
+		while (true) {
+			roll(slot);
+
+			if (dailyUsage >= getUsableLimit(dailyLimit)) {
+				slot = dailyWindowStartMillis + dailyWindowMillis;
+				continue;
+			}
+
+			shortRemaining = getUsableLimit(shortLimit) - shortUsage;
+
+			if (shortRemaining <= 0) {
+				slot = shortWindowStartMillis + shortWindowMillis;
+				continue;
+			}
+
+			break;
+		}
+
+		shortUsage++;
+		dailyUsage++;
+
+		nextSlotMillis = slot + (shortWindowStartMillis + shortWindowMillis - slot) / shortRemaining;
+
+		return TimeUnit.MILLISECONDS.toNanos(slot - now);
+	}
+
+	/**
+	 * <pre>
+	 *     Marks the current short window as exhausted, Strava counts rejected requests too, and pauses
+	 *     reservations for the "retry after" time.
+	 * </pre>
+	 */
+	@Override
+	public synchronized void onThrottled(long retryAfterMillis) {
+		long now = clock.getAsLong();
+
+		roll(now);
+
+		if (isCurrentShortWindow(now)) {
+			shortUsage = Math.max(shortUsage, shortLimit);
+		}
+
+		nextSlotMillis = Math.max(nextSlotMillis, now + retryAfterMillis);
+	}
+
+	@Override
+	public void onSuccess() {
+
+	}
+
+	/**
+	 * <pre>
+	 *     Updates limits and usage with "X-RateLimit-Limit" and "X-RateLimit-Usage" (or "X-ReadRateLimit-*")
+	 *     header values, "short,daily" each. Reported usage is applied only when the window it has been counted in
+	 *     is the one tracked locally. Missing or malformed values are ignored.
+	 * </pre>
+	 *
+	 * @param limitHeaderValue limits of short and daily windows
+	 * @param usageHeaderValue usage of short and daily windows
+	 */
+	public synchronized void update(String limitHeaderValue, String usageHeaderValue) {
+		int[] limits = parseValues(limitHeaderValue);
+
+		if (limits != null) {
+			shortLimit = limits[0];
+			dailyLimit = limits[1];
+		}
+
+		int[] usage = parseValues(usageHeaderValue);
+
+		if (usage != null) {
+			long now = clock.getAsLong();
+
+			roll(now);
+
+			if (isCurrentShortWindow(now)) {
+				shortUsage = Math.max(shortUsage, usage[0]);
+			}
+
+			if (getWindowStart(now, dailyWindowMillis) == dailyWindowStartMillis) {
+				dailyUsage = Math.max(dailyUsage, usage[1]);
+			}
+		}
+	}
+
+	private void roll(long time) {
+		long shortWindowStart = getWindowStart(time, shortWindowMillis);
+
+		if (shortWindowStart > shortWindowStartMillis) {
+			shortWindowStartMillis = shortWindowStart;
+			shortUsage = 0;
+		}
+
+		long dailyWindowStart = getWindowStart(time, dailyWindowMillis);
+
+		if (dailyWindowStart > dailyWindowStartMillis) {
+			dailyWindowStartMillis = dailyWindowStart;
+			dailyUsage = 0;
+		}
+	}
+
+	private boolean isCurrentShortWindow(long time) {
+		return getWindowStart(time, shortWindowMillis) == shortWindowStartMillis;
+	}
+
+	private static long getWindowStart(long time, long windowMillis) {
+		return time - Math.floorMod(time, windowMillis);
+	}
+
+	/**
+	 * At least one request per window is always allowed, so tiny limits cannot stall the scheduler.
+	 */
+	private int getUsableLimit(int limit) {
+		return Math.max(1, limit - reservedRequests);
+	}
+
+	private static int[] parseValues(String headerValue) {
+		if (headerValue == null) {
+			return null;
+		}
+
+		String[] values = headerValue.split(VALUES_SEPARATOR);
+
+		if (values.length != 2) {
+			LOG.debug("Unexpected rate limit header value = {}.", headerValue);
+			return null;
+		}
+
+		try {
+			return new int[] {Integer.parseInt(values[0].trim()), Integer.parseInt(values[1].trim())};
+		} catch (NumberFormatException e) {
+			LOG.debug("Unexpected rate limit header value = {}.", headerValue);
+			return null;
+		}
+	}
+
+	public synchronized int getShortLimit() {
+		return shortLimit;
+	}
+
+	public synchronized int getDailyLimit() {
+		return dailyLimit;
+	}
+
+	public synchronized int getShortUsage() {
+		return shortUsage;
+	}
+
+	public synchronized int getDailyUsage() {
+		return dailyUsage;
+	}
+}
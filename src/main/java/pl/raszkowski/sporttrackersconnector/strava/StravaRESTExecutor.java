@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.CookieStore;
+import org.apache.http.client.HttpClient;
+import org.apache.http.nio.client.HttpAsyncClient;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+
+/**
+ * <pre>
+ *     Sends every request with the current bearer token, asynchronous requests wait for it to be refreshed
+ *     on the refresh executor of {@link StravaAuthorizer}. Passes quota headers of every response,
+ *     throttled ones included, to the {@link StravaQuotaScheduler}. Limits of read requests are preferred
+ *     over the overall ones when Strava reports both.
+ * </pre>
+ */
+class StravaRESTExecutor extends RESTExecutor {
+
+	private static final String AUTHORIZATION_HEADER_VALUE = "Bearer %s";
+
+	private static final String RATE_LIMIT_HEADER_NAME = "X-RateLimit-Limit";
+	private static final String RATE_LIMIT_USAGE_HEADER_NAME = "X-RateLimit-Usage";
+	private static final String READ_RATE_LIMIT_HEADER_NAME = "X-ReadRateLimit-Limit";
+	private static final String READ_RATE_LIMIT_USAGE_HEADER_NAME = "X-ReadRateLimit-Usage";
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private final StravaAuthorizer authorizer;
+
+	private volatile StravaQuotaScheduler quotaScheduler;
+
+	StravaRESTExecutor(HttpClient httpClient, HttpAsyncClient httpAsyncClient, CookieStore cookieStore, StravaAuthorizer authorizer) {
+		super(httpClient, httpAsyncClient, cookieStore);
+		this.authorizer = authorizer;
+	}
+
+	@Override
+	public String translateResourceToURI(String service, String resource) {
+		return connectorsConfiguration.getStravaAPIPrefixURI() + service + PATH_SEPARATOR + resource;
+	}
+
+	@Override
+	protected void beforeRequest(HttpRequest request) {
+		setAccessToken(request, authorizer.getAccessToken());
+	}
+
+	@Override
+	protected CompletableFuture<Void> beforeRequestAsync(HttpRequest request) {
+		return authorizer.getAccessTokenAsync().thenAccept(accessToken -> setAccessToken(request, accessToken));
+	}
+
+	private static void setAccessToken(HttpRequest request, String accessToken) {
+		request.setHeader(HttpHeaders.AUTHORIZATION, String.format(AUTHORIZATION_HEADER_VALUE, accessToken));
+	}
+
+	@Override
+	protected void afterResponse(HttpResponse response) {
+		StravaQuotaScheduler currentQuotaScheduler = quotaScheduler;
+
+		if (currentQuotaScheduler == null) {
+			return;
+		}
+
+		if (response.containsHeader(READ_RATE_LIMIT_USAGE_HEADER_NAME)) {
+			currentQuotaScheduler.update(getHeaderValue(response, READ_RATE_LIMIT_HEADER_NAME), getHeaderValue(response, READ_RATE_LIMIT_USAGE_HEADER_NAME));
+		} else {
+			currentQuotaScheduler.update(getHeaderValue(response, RATE_LIMIT_HEADER_NAME), getHeaderValue(response, RATE_LIMIT_USAGE_HEADER_NAME));
+		}
+	}
+
+	private static String getHeaderValue(HttpResponse response, String name) {
+		Header header = response.getFirstHeader(name);
+
+		return header != null ? header.getValue() : null;
+	}
+
+	void setQuotaScheduler(StravaQuotaScheduler quotaScheduler) {
+		this.quotaScheduler = quotaScheduler;
+	}
+}
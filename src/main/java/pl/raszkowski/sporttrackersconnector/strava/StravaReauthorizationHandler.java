@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+
+import pl.raszkowski.sporttrackersconnector.rest.ReauthorizationHandler;
+
+/**
+ * <pre>
+ *     Strava rejects revoked or expired access tokens with 401, the token is then refreshed regardless of its expiry time.
+ * </pre>
+ */
+class StravaReauthorizationHandler implements ReauthorizationHandler {
+
+	private StravaConnector stravaConnector;
+
+	StravaReauthorizationHandler(StravaConnector stravaConnector) {
+		this.stravaConnector = stravaConnector;
+	}
+
+	@Override
+	public boolean isAuthorizationExpired(HttpResponse response) {
+		return response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED;
+	}
+
+	@Override
+	public void reauthorize() {
+		stravaConnector.reauthorize();
+	}
+}
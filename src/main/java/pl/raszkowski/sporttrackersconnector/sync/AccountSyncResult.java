@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+public class AccountSyncResult {
+
+	public enum Status {
+		COMPLETED,
+		FAILED,
+		CANCELLED
+	}
+
+	private final String username;
+
+	private final Status status;
+
+	private final int activitiesSynced;
+
+	private final Exception failure;
+
+	AccountSyncResult(String username, Status status, int activitiesSynced, Exception failure) {
+		this.username = username;
+		this.status = status;
+		this.activitiesSynced = activitiesSynced;
+		this.failure = failure;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public int getActivitiesSynced() {
+		return activitiesSynced;
+	}
+
+	public Exception getFailure() {
+		return failure;
+	}
+
+	public boolean isCompleted() {
+		return status == Status.COMPLETED;
+	}
+
+	@Override
+	public String toString() {
+		return new ToStringBuilder(this)
+				.append("username", username)
+				.append("status", status)
+				.append("activitiesSynced", activitiesSynced)
+				.append("failure", failure)
+				.toString();
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+/**
+ * <pre>
+ *     Receives synchronized activities. Called from the sync worker threads, possibly concurrently for different accounts.
+ *
+ *     A blocking implementation throttles the sync: the next page of an account is not requested
+ *     until all activities of the current page have been accepted.
+ * </pre>
+ */
+@FunctionalInterface
+public interface ActivitySink {
+
+	void accept(String username, Activity activity) throws InterruptedException;
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.util.concurrent.BlockingQueue;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+/**
+ * <pre>
+ *     Hands activities over to a consumer through a bounded queue, sync workers block when the queue is full.
+ * </pre>
+ */
+public class BlockingQueueActivitySink implements ActivitySink {
+
+	private final BlockingQueue<SyncedActivity> queue;
+
+	public BlockingQueueActivitySink(BlockingQueue<SyncedActivity> queue) {
+		this.queue = queue;
+	}
+
+	@Override
+	public void accept(String username, Activity activity) throws InterruptedException {
+		queue.put(new SyncedActivity(username, activity));
+	}
+
+	public static class SyncedActivity {
+
+		private final String username;
+
+		private final Activity activity;
+
+		public SyncedActivity(String username, Activity activity) {
+			this.username = username;
+			this.activity = activity;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public Activity getActivity() {
+			return activity;
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.util.Optional;
+
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+
+/**
+ * <pre>
+ *     Keeps per-account watermarks of synchronized activities between sync runs. Accounts are identified
+ *     by the backend name and username, as the same username may exist in many backends.
+ * </pre>
+ */
+public interface CheckpointStore {
+
+	Optional<ActivityWatermark> load(String backend, String username);
+
+	void save(String backend, String username, ActivityWatermark watermark);
+}
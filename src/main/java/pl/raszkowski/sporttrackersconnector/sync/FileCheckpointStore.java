@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * <pre>
+ *     Stores every watermark in a separate Json file inside given directory, named with a SHA-256 of the backend
+ *     and username.
+ *     Files are replaced atomically, so a crash never leaves a partially written watermark.
+ * </pre>
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileCheckpointStore.class);
+
+	private static final String UNABLE_TO_SAVE_CHECKPOINT_ERROR_MESSAGE = "Unable to save checkpoint to file = %s.";
+
+	private static final String FILE_EXTENSION = ".checkpoint.json";
+	private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+	private static final String KEY_SEPARATOR = "/";
+
+	private static final String START_TIME_MILLIS_KEY = "startTimeMillis";
+	private static final String ACTIVITY_ID_KEY = "activityId";
+	private static final String ACTIVITY_IDS_KEY = "activityIds";
+
+	private final Path directory;
+
+	public FileCheckpointStore(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public Optional<ActivityWatermark> load(String backend, String username) {
+		Path checkpointFile = getCheckpointFile(backend, username);
+
+		try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+			JsonElement json = new JsonParser().parse(reader);
+
+			if (!json.isJsonObject()) {
+				LOG.warn("Checkpoint file = {} does not contain a watermark, ignoring it.", checkpointFile);
+				return Optional.empty();
+			}
+
+			JsonObject jsonWatermark = json.getAsJsonObject();
+
+			return Optional.of(new ActivityWatermark(jsonWatermark.get(START_TIME_MILLIS_KEY).getAsLong(), getActivityIds(jsonWatermark)));
+		} catch (NoSuchFileException e) {
+			return Optional.empty();
+		} catch (IOException | JsonParseException | IllegalStateException | ClassCastException | NullPointerException | NumberFormatException e) {
+			LOG.warn("Unable to read checkpoint file = {}, ignoring it.", checkpointFile, e);
+			return Optional.empty();
+		}
+	}
+
+	@Override
+	public void save(String backend, String username, ActivityWatermark watermark) {
+		Path checkpointFile = getCheckpointFile(backend, username);
+		Path temporaryFile = checkpointFile.resolveSibling(checkpointFile.getFileName() + TEMPORARY_FILE_EXTENSION);
+
+		try {
+			Files.createDirectories(directory);
+
+			try (Writer writer = Files.newBufferedWriter(temporaryFile, StandardCharsets.UTF_8);
+				 JsonWriter jsonWriter = new JsonWriter(writer)) {
+				jsonWriter.beginObject();
+				jsonWriter.name(START_TIME_MILLIS_KEY).value(watermark.getStartTimeMillis());
+				jsonWriter.name(ACTIVITY_IDS_KEY).beginArray();
+				for (Long activityId : watermark.getActivityIds()) {
+					jsonWriter.value(activityId);
+				}
+				jsonWriter.endArray();
+				jsonWriter.endObject();
+			}
+
+			Files.move(temporaryFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.error("Unable to save checkpoint to file = {}.", checkpointFile, e);
+			throw new ConnectorException(String.format(UNABLE_TO_SAVE_CHECKPOINT_ERROR_MESSAGE, checkpointFile), e);
+		}
+	}
+
+	/**
+	 * Checkpoints written before all activities of the watermark start time were kept hold a single activity id.
+	 */
+	private List<Long> getActivityIds(JsonObject jsonWatermark) {
+		List<Long> activityIds = new ArrayList<>();
+
+		if (!jsonWatermark.has(ACTIVITY_IDS_KEY)) {
+			activityIds.add(jsonWatermark.get(ACTIVITY_ID_KEY).getAsLong());
+			return activityIds;
+		}
+
+		for (JsonElement activityId : jsonWatermark.getAsJsonArray(ACTIVITY_IDS_KEY)) {
+			activityIds.add(activityId.getAsLong());
+		}
+
+		return activityIds;
+	}
+
+	private Path getCheckpointFile(String backend, String username) {
+		return directory.resolve(DigestUtils.sha256Hex(backend + KEY_SEPARATOR + username) + FILE_EXTENSION);
+	}
+}
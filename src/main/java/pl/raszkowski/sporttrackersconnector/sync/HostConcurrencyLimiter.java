@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * <pre>
+ *     Limits the number of requests executed concurrently against a single host, taken from given URI.
+ *     Requests to URIs of different paths, ports or schemes of the same host share the limit.
+ * </pre>
+ */
+class HostConcurrencyLimiter {
+
+	private final int permitsPerHost;
+
+	private final Map<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+	HostConcurrencyLimiter(int permitsPerHost) {
+		this.permitsPerHost = permitsPerHost;
+	}
+
+	<T> T call(String uri, Call<T> call) throws InterruptedException {
+		Semaphore semaphore = getSemaphore(uri);
+
+		semaphore.acquire();
+		try {
+			return call.call();
+		} finally {
+			semaphore.release();
+		}
+	}
+
+	/**
+	 * <pre>
+	 *     Starts an asynchronous request, the permit is released when the returned future completes.
+	 * </pre>
+	 */
+	<T> CompletableFuture<T> submit(String uri, Supplier<CompletableFuture<T>> request) throws InterruptedException {
+		Semaphore semaphore = getSemaphore(uri);
+
+		semaphore.acquire();
+
+		CompletableFuture<T> response;
+		try {
+			response = request.get();
+		} catch (RuntimeException e) {
+			semaphore.release();
+			throw e;
+		}
+
+		response.whenComplete((result, failure) -> semaphore.release());
+
+		return response;
+	}
+
+	private Semaphore getSemaphore(String uri) {
+		return semaphores.computeIfAbsent(getHost(uri), host -> new Semaphore(permitsPerHost, true));
+	}
+
+	private String getHost(String uri) {
+		String host = URI.create(uri).getHost();
+
+		return host != null ? host.toLowerCase() : uri;
+	}
+
+	@FunctionalInterface
+	interface Call<T> {
+		T call() throws InterruptedException;
+	}
+}
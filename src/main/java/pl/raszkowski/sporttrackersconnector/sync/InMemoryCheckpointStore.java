@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+
+public class InMemoryCheckpointStore implements CheckpointStore {
+
+	private static final String KEY_SEPARATOR = "/";
+
+	private final Map<String, ActivityWatermark> watermarks = new ConcurrentHashMap<>();
+
+	@Override
+	public Optional<ActivityWatermark> load(String backend, String username) {
+		return Optional.ofNullable(watermarks.get(getKey(backend, username)));
+	}
+
+	@Override
+	public void save(String backend, String username, ActivityWatermark watermark) {
+		watermarks.put(getKey(backend, username), watermark);
+	}
+
+	private String getKey(String backend, String username) {
+		return backend + KEY_SEPARATOR + username;
+	}
+}
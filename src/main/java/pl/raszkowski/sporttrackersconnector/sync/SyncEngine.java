@@ -0,0 +1,310 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.Connector;
+import pl.raszkowski.sporttrackersconnector.ConnectorsFactory;
+import pl.raszkowski.sporttrackersconnector.Credentials;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+/**
+ * <pre>
+ *     Synchronizes activities of many accounts concurrently, accounts of all backends through the same code path.
+ *
+ *     Every account is authorized and paged through on its own worker, at most "parallelism" accounts at a time.
+ *     Workers are virtual threads when the runtime provides them (and it is enabled), platform threads otherwise.
+ *     The connector of an account is created for its credentials by the discovered connector providers.
+ *     Authorization and page requests are additionally limited by "perHostConcurrency" per host of the backend API,
+ *     so accounts of backends served by the same host share the limit.
+ *     Activities are pulled from the connector stream as the sink accepts them, so a slow sink throttles fetching.
+ *
+ *     With a checkpoint store only activities newer than the stored watermark are fetched, newest first.
+ *     The watermark is advanced only after the whole account has been synchronized successfully.
+ * </pre>
+ */
+public class SyncEngine {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SyncEngine.class);
+
+	private static final String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private int parallelism;
+
+	private boolean virtualThreadsEnabled;
+
+	private HostConcurrencyLimiter hostConcurrencyLimiter;
+
+	private SyncListener syncListener = new SyncListener() {
+	};
+
+	private CheckpointStore checkpointStore;
+
+	private Function<Credentials, ? extends Connector> connectorFactory = ConnectorsFactory::createConnector;
+
+	public SyncEngine() {
+		this.parallelism = connectorsConfiguration.getSyncParallelism();
+		this.virtualThreadsEnabled = connectorsConfiguration.isSyncVirtualThreadsEnabled();
+		this.hostConcurrencyLimiter = new HostConcurrencyLimiter(connectorsConfiguration.getSyncPerHostConcurrency());
+	}
+
+	/**
+	 * <pre>
+	 *     Synchronizes all given accounts and blocks until every one of them has completed or failed.
+	 *     Failure of one account does not stop the others.
+	 * </pre>
+	 *
+	 * @param accounts credentials of accounts to synchronize, of any backends
+	 * @param activityQuery activities to synchronize of every account
+	 * @param activitySink receiver of activities
+	 * @return per-account results
+	 * @throws InterruptedException if interrupted while waiting, running account syncs are cancelled
+	 */
+	public SyncReport sync(Collection<? extends Credentials> accounts, ActivityQuery activityQuery, ActivitySink activitySink) throws InterruptedException {
+		ExecutorService executorService = createExecutorService();
+		Semaphore workerSlots = new Semaphore(parallelism);
+
+		List<String> usernames = new ArrayList<>();
+		List<Future<AccountSyncResult>> futures = new ArrayList<>();
+
+		try {
+			for (Credentials credentials : accounts) {
+				workerSlots.acquire();
+
+				try {
+					futures.add(executorService.submit(() -> {
+						try {
+							return syncAccount(credentials, activityQuery, activitySink);
+						} finally {
+							workerSlots.release();
+						}
+					}));
+					usernames.add(credentials.getUsername());
+				} catch (RejectedExecutionException e) {
+					workerSlots.release();
+					throw e;
+				}
+			}
+
+			List<AccountSyncResult> results = new ArrayList<>();
+			for (int i = 0; i < futures.size(); i++) {
+				results.add(getResult(usernames.get(i), futures.get(i)));
+			}
+
+			return new SyncReport(results);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	private AccountSyncResult getResult(String username, Future<AccountSyncResult> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+			return new AccountSyncResult(username, AccountSyncResult.Status.FAILED, 0, cause);
+		}
+	}
+
+	private AccountSyncResult syncAccount(Credentials credentials, ActivityQuery activityQuery, ActivitySink activitySink) {
+		String username = credentials.getUsername();
+		int activitiesSynced = 0;
+
+		syncListener.onAccountStarted(username);
+
+		try {
+			Connector connector = connectorFactory.apply(credentials);
+			String backend = connector.getName();
+
+			String apiPrefixURI = connector.getAPIPrefixURI();
+
+			hostConcurrencyLimiter.call(apiPrefixURI, () -> {
+				connector.authorize(credentials);
+				return null;
+			});
+
+			ActivityWatermark watermark = checkpointStore != null ? checkpointStore.load(backend, username).orElse(null) : null;
+			ActivityQuery query = watermark != null ? activityQuery.newerThan(watermark) : activityQuery;
+			ActivityWatermark newestWatermark = watermark;
+
+			try (Stream<Activity> activities = connector.streamActivities(query, createPageRequestLimiter(apiPrefixURI))) {
+				Iterator<Activity> iterator = activities.iterator();
+
+				while (iterator.hasNext()) {
+					Activity activity = iterator.next();
+
+					if (watermark != null && watermark.isNewerThan(activity)) {
+						break;
+					}
+
+					if (watermark != null && watermark.covers(activity)) {
+						continue;
+					}
+
+					activitySink.accept(username, activity);
+					activitiesSynced++;
+
+					newestWatermark = newestWatermark != null ? newestWatermark.advance(activity) : ActivityWatermark.of(activity);
+
+					if (query.getPageSize() > 0 && activitiesSynced % query.getPageSize() == 0) {
+						syncListener.onPageSynced(username, activitiesSynced);
+					}
+				}
+			}
+
+			if (query.getPageSize() > 0 && activitiesSynced % query.getPageSize() != 0) {
+				syncListener.onPageSynced(username, activitiesSynced);
+			}
+
+			if (checkpointStore != null && newestWatermark != null && !newestWatermark.equals(watermark)) {
+				checkpointStore.save(backend, username, newestWatermark);
+			}
+
+			syncListener.onAccountCompleted(username, activitiesSynced);
+
+			return new AccountSyncResult(username, AccountSyncResult.Status.COMPLETED, activitiesSynced, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+
+			return cancelled(username, activitiesSynced, e);
+		} catch (RuntimeException e) {
+			if (e instanceof CancellationException && Thread.currentThread().isInterrupted()) {
+				return cancelled(username, activitiesSynced, e);
+			}
+
+			LOG.warn("Sync of account failed, username = {}, activities synced = {}.", username, activitiesSynced, e);
+			syncListener.onAccountFailed(username, e);
+
+			return new AccountSyncResult(username, AccountSyncResult.Status.FAILED, activitiesSynced, e);
+		}
+	}
+
+	private AccountSyncResult cancelled(String username, int activitiesSynced, Exception exception) {
+		LOG.debug("Sync of account has been cancelled, username = {}.", username);
+		syncListener.onAccountFailed(username, exception);
+
+		return new AccountSyncResult(username, AccountSyncResult.Status.CANCELLED, activitiesSynced, exception);
+	}
+
+	/**
+	 * <pre>
+	 *     Takes the permit of the API host around every page request, including prefetched ones.
+	 *     When interrupted while waiting for the permit the page is cancelled and the interrupt status is kept.
+	 * </pre>
+	 */
+	private PageRequestLimiter createPageRequestLimiter(String apiPrefixURI) {
+		return new PageRequestLimiter() {
+			@Override
+			public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> pageRequest) {
+				try {
+					return hostConcurrencyLimiter.submit(apiPrefixURI, pageRequest);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+
+					CompletableFuture<T> cancelled = new CompletableFuture<>();
+					cancelled.cancel(false);
+					return cancelled;
+				}
+			}
+		};
+	}
+
+	private ExecutorService createExecutorService() {
+		if (virtualThreadsEnabled) {
+			try {
+				Method method = Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD);
+				return (ExecutorService) method.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				LOG.debug("Virtual threads are not available, using platform threads.");
+			}
+		}
+
+		return Executors.newFixedThreadPool(parallelism, new SyncThreadFactory());
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public void setPerHostConcurrency(int perHostConcurrency) {
+		this.hostConcurrencyLimiter = new HostConcurrencyLimiter(perHostConcurrency);
+	}
+
+	public void setVirtualThreadsEnabled(boolean virtualThreadsEnabled) {
+		this.virtualThreadsEnabled = virtualThreadsEnabled;
+	}
+
+	public void setSyncListener(SyncListener syncListener) {
+		this.syncListener = syncListener;
+	}
+
+	public void setCheckpointStore(CheckpointStore checkpointStore) {
+		this.checkpointStore = checkpointStore;
+	}
+
+	/**
+	 * @param connectorFactory creates a connector for credentials of an account, by default one of the discovered {@link pl.raszkowski.sporttrackersconnector.ConnectorProvider}s
+	 */
+	public void setConnectorFactory(Function<Credentials, ? extends Connector> connectorFactory) {
+		this.connectorFactory = connectorFactory;
+	}
+
+	/**
+	 * @param connectorSupplier supplies connectors for all accounts regardless of their credentials
+	 */
+	public void setConnectorSupplier(Supplier<? extends Connector> connectorSupplier) {
+		this.connectorFactory = credentials -> connectorSupplier.get();
+	}
+
+	private static class SyncThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "sync-worker-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
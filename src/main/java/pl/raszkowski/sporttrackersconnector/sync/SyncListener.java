@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+/**
+ * <pre>
+ *     Per-account progress and failure notifications of {@link SyncEngine}.
+ *     Called from the sync worker threads.
+ * </pre>
+ */
+public interface SyncListener {
+
+	default void onAccountStarted(String username) {
+	}
+
+	default void onPageSynced(String username, int activitiesSynced) {
+	}
+
+	default void onAccountCompleted(String username, int activitiesSynced) {
+	}
+
+	default void onAccountFailed(String username, Exception exception) {
+	}
+}
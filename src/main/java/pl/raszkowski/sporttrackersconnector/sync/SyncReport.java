@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SyncReport {
+
+	private final List<AccountSyncResult> results;
+
+	SyncReport(List<AccountSyncResult> results) {
+		this.results = Collections.unmodifiableList(new ArrayList<>(results));
+	}
+
+	public List<AccountSyncResult> getResults() {
+		return results;
+	}
+
+	public List<AccountSyncResult> getFailures() {
+		return results.stream()
+				.filter(result -> !result.isCompleted())
+				.collect(Collectors.toList());
+	}
+
+	public int getActivitiesSynced() {
+		return results.stream()
+				.mapToInt(AccountSyncResult::getActivitiesSynced)
+				.sum();
+	}
+
+	public boolean isCompleted() {
+		return results.stream().allMatch(AccountSyncResult::isCompleted);
+	}
+}
@@ -21,6 +21,8 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
 
+import static org.junit.Assert.assertEquals;
+
 @RunWith(MockitoJUnitRunner.class)
 public class ConnectorsConfigurationTest {
 
@@ -28,4 +30,17 @@ public class ConnectorsConfigurationTest {
 	public void constructor() {
 		ConnectorsConfiguration.getInstance();
 	}
+
+	@Test
+	public void getPropertyWhenSystemPropertySetThenOverridden() {
+		System.setProperty("garminconnect.activities.pageSize", "7");
+
+		try {
+			assertEquals(7, ConnectorsConfiguration.getInstance().getGarminConnectActivitiesPageSize());
+		} finally {
+			System.clearProperty("garminconnect.activities.pageSize");
+		}
+
+		assertEquals(100, ConnectorsConfiguration.getInstance().getGarminConnectActivitiesPageSize());
+	}
 }
\ No newline at end of file
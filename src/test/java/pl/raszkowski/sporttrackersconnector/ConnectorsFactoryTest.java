@@ -18,7 +18,11 @@ package pl.raszkowski.sporttrackersconnector;
 import org.junit.Test;
 
 import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectConnector;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectCredentials;
+import pl.raszkowski.sporttrackersconnector.strava.StravaConnector;
+import pl.raszkowski.sporttrackersconnector.strava.StravaCredentials;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -30,4 +34,43 @@ public class ConnectorsFactoryTest {
 		assertNotNull(connector);
 		assertTrue(connector instanceof GarminConnectConnector);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void createConnectorWhenGarminCredentialsThenDiscoveredProviderUsed() {
+		Connector connector = ConnectorsFactory.createConnector(new GarminConnectCredentials());
+
+		assertTrue(connector instanceof GarminConnectConnector);
+		assertEquals(Connectors.GARMIN_CONNECT.getName(), connector.getName());
+	}
+
+	@Test
+	public void createConnectorWhenStravaCredentialsThenDiscoveredProviderUsed() {
+		Connector connector = ConnectorsFactory.createConnector(new StravaCredentials());
+
+		assertTrue(connector instanceof StravaConnector);
+		assertEquals(Connectors.STRAVA.getName(), connector.getName());
+	}
+
+	@Test
+	public void createConnectorWhenProviderNameGivenThenConnectorCreated() {
+		Connector connector = ConnectorsFactory.createConnector(Connectors.GARMIN_CONNECT.getName());
+
+		assertTrue(connector instanceof GarminConnectConnector);
+	}
+
+	@Test
+	public void getProvidersThenGarminConnectProviderDiscovered() {
+		assertTrue(ConnectorsFactory.getProviders().stream()
+				.anyMatch(provider -> provider.getName().equals(Connectors.GARMIN_CONNECT.getName())));
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void createConnectorWhenUnknownNameThenConnectorException() {
+		ConnectorsFactory.createConnector("endomondo");
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void createConnectorWhenCredentialsOfUnknownBackendThenConnectorException() {
+		ConnectorsFactory.createConnector((Credentials) () -> "username");
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.download;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.format.GpxReader;
+import pl.raszkowski.sporttrackersconnector.format.GpxWriter;
+import pl.raszkowski.sporttrackersconnector.format.RecordingTrackHandler;
+import pl.raszkowski.sporttrackersconnector.format.fit.FitDecoder;
+import pl.raszkowski.sporttrackersconnector.format.fit.FitSamplesCollector;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivityFileFormat;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectConnector;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectCredentials;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.InMemorySessionStore;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiters;
+import pl.raszkowski.sporttrackersconnector.ratelimit.TokenBucketRateLimiter;
+import pl.raszkowski.sporttrackersconnector.test.FakeGarminConnectServer;
+
+import com.google.gson.JsonObject;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ActivityDownloaderTest {
+
+	private static final String USERNAME = "download-user";
+	private static final String PASSWORD = "download-password";
+
+	private static final String ACCOUNT_PERMITS_PROPERTY = "garminconnect.rateLimit.account.permitsPerSecond";
+	private static final String ACCOUNT_BURST_PROPERTY = "garminconnect.rateLimit.account.burst";
+
+	/**
+	 * Activities 1 - 8 of the fake server, 3 and 7 are swimming activities without GPS track.
+	 */
+	private static final List<Long> ACTIVITY_IDS = LongStream.rangeClosed(1, 8).boxed().collect(Collectors.toList());
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private FakeGarminConnectServer fakeServer;
+
+	private HttpTransport httpTransport;
+
+	private GarminAPIHandler apiHandler;
+
+	private Path directory;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws IOException {
+		fakeServer = new FakeGarminConnectServer();
+		fakeServer.addAccount(USERNAME, PASSWORD);
+		fakeServer.setActivitiesCount(ACTIVITY_IDS.size());
+		fakeServer.start();
+		fakeServer.applyToSystemProperties();
+
+		System.setProperty(ACCOUNT_PERMITS_PROPERTY, "100000");
+		System.setProperty(ACCOUNT_BURST_PROPERTY, "100000");
+		RateLimiters.setConnectorRateLimiter(Connectors.GARMIN_CONNECT, new TokenBucketRateLimiter(100000, 100000));
+
+		GarminConnectCredentials credentials = new GarminConnectCredentials();
+		credentials.setUsername(USERNAME);
+		credentials.setPassword(PASSWORD);
+
+		httpTransport = new HttpTransport(connectorsConfiguration);
+		GarminConnectConnector garminConnectConnector = new GarminConnectConnector(httpTransport, new InMemorySessionStore());
+		garminConnectConnector.authorize(credentials);
+		apiHandler = garminConnectConnector.getAPIHandler();
+
+		directory = temporaryFolder.newFolder().toPath();
+	}
+
+	@After
+	public void tearDown() {
+		httpTransport.close();
+		fakeServer.close();
+
+		FakeGarminConnectServer.clearSystemProperties();
+		System.clearProperty(ACCOUNT_PERMITS_PROPERTY);
+		System.clearProperty(ACCOUNT_BURST_PROPERTY);
+		RateLimiters.setConnectorRateLimiter(Connectors.GARMIN_CONNECT, new TokenBucketRateLimiter(
+				connectorsConfiguration.getGarminConnectRateLimitPermitsPerSecond(), connectorsConfiguration.getGarminConnectRateLimitBurst()));
+	}
+
+	@Test
+	public void downloadWhenActivitiesGivenThenFilesWrittenInParallel() throws IOException {
+		ActivityDownloader activityDownloader = new ActivityDownloader(apiHandler, directory);
+		activityDownloader.setParallelism(4);
+
+		DownloadReport report = activityDownloader.download(ACTIVITY_IDS, ActivityFileFormat.FIT, ActivityFileFormat.GPX);
+
+		assertEquals(14, report.getDownloaded());
+		assertEquals(2, report.getUnavailable());
+		assertEquals(0, report.getFailed());
+		assertFileDownloaded(5, ActivityFileFormat.FIT);
+		assertFileDownloaded(5, ActivityFileFormat.GPX);
+		assertFalse(Files.exists(directory.resolve("3.gpx")));
+	}
+
+	@Test
+	public void downloadWhenRepeatedThenRecordedFilesSkipped() {
+		ActivityDownloader activityDownloader = new ActivityDownloader(apiHandler, directory);
+		activityDownloader.download(ACTIVITY_IDS, ActivityFileFormat.TCX);
+		int fileRequestCount = fakeServer.getFileRequestCount();
+
+		DownloadReport report = new ActivityDownloader(apiHandler, directory).download(ACTIVITY_IDS, ActivityFileFormat.TCX);
+
+		assertEquals(0, report.getDownloaded());
+		assertEquals(8, report.getSkipped());
+		assertEquals(fileRequestCount, fakeServer.getFileRequestCount());
+	}
+
+	@Test
+	public void downloadWhenTransfersInterruptedThenResumedWithRangeRequests() throws IOException {
+		fakeServer.setFileTransferLimitBytes(1000);
+
+		DownloadReport interruptedReport = new ActivityDownloader(apiHandler, directory).download(ACTIVITY_IDS, ActivityFileFormat.GPX);
+
+		assertEquals(6, interruptedReport.getFailed());
+		assertEquals(1000, Files.size(directory.resolve("5.gpx.part")));
+
+		fakeServer.setFileTransferLimitBytes(0);
+
+		DownloadReport report = new ActivityDownloader(apiHandler, directory).download(ACTIVITY_IDS, ActivityFileFormat.GPX);
+
+		assertEquals(6, report.getResumed());
+		assertEquals(2, report.getSkipped());
+		assertEquals(6, fakeServer.getRangeRequestCount());
+		assertFileDownloaded(5, ActivityFileFormat.GPX);
+		assertFalse(Files.exists(directory.resolve("5.gpx.part")));
+	}
+
+	@Test
+	public void downloadWhenRangeNotSupportedThenReceivedBytesSkipped() throws IOException {
+		byte[] content = fakeServer.getActivityFile(2, ActivityFileFormat.TCX.name());
+		Files.write(directory.resolve("2.tcx.part"), Arrays.copyOf(content, 500));
+		fakeServer.setRangeSupported(false);
+
+		DownloadReport report = new ActivityDownloader(apiHandler, directory).download(Arrays.asList(2L), ActivityFileFormat.TCX);
+
+		assertEquals(1, report.getResumed());
+		assertFileDownloaded(2, ActivityFileFormat.TCX);
+	}
+
+	@Test
+	public void downloadWhenFitFileDownloadedThenSamplesDecoded() {
+		fakeServer.setTrackPointsCount(1800);
+
+		new ActivityDownloader(apiHandler, directory).download(Arrays.asList(4L), ActivityFileFormat.FIT);
+
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+		new FitDecoder().decodeZip(directory.resolve("4" + ActivityFileFormat.FIT.getFileExtension()), samplesCollector);
+
+		assertEquals(1800, samplesCollector.getSamplesBuilder().size());
+	}
+
+	@Test
+	public void readActivityTrackWhenGpxWriterGivenThenTcxConvertedWhileDownloaded() {
+		fakeServer.setTrackPointsCount(5000);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+		int trackPoints;
+		try (GpxWriter gpxWriter = new GpxWriter(output)) {
+			trackPoints = apiHandler.readActivityTrack(4, ActivityFileFormat.TCX, gpxWriter);
+		}
+
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+		new GpxReader().read(new ByteArrayInputStream(output.toByteArray()), trackHandler);
+
+		assertEquals(5000, trackPoints);
+		assertEquals(5000, trackHandler.getTrackPoints().size());
+		assertEquals(121.0, trackHandler.getTrackPoints().get(1).getHeartRate(), 0.0);
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void readActivityTrackWhenFitFormatThenConnectorException() {
+		apiHandler.readActivityTrack(4, ActivityFileFormat.FIT, new RecordingTrackHandler());
+	}
+
+	@Test
+	public void getActivityDetailsWhenActivityExistsThenDetailsReturned() {
+		JsonObject details = apiHandler.getActivityDetails(4);
+
+		assertEquals(4, details.getAsJsonObject("activity").get("activityId").getAsLong());
+	}
+
+	private void assertFileDownloaded(long activityId, ActivityFileFormat format) throws IOException {
+		Path path = directory.resolve(activityId + format.getFileExtension());
+
+		assertTrue(Files.exists(path));
+		assertArrayEquals(fakeServer.getActivityFile(activityId, format.name()), Files.readAllBytes(path));
+	}
+}
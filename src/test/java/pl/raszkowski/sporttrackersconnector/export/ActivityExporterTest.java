@@ -0,0 +1,152 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+import pl.raszkowski.sporttrackersconnector.json.JsonValueHandler;
+import pl.raszkowski.sporttrackersconnector.json.ResponseJsonParser;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class ActivityExporterTest {
+
+	private static final int ACTIVITIES_COUNT = 25;
+	private static final int PAGE_SIZE = 10;
+
+	private GarminAPIHandler apiHandler;
+
+	private ActivityExporter activityExporter;
+
+	private ActivitiesSearchFields activitiesSearchFields;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Before
+	public void setUp() {
+		apiHandler = mock(GarminAPIHandler.class);
+
+		doAnswer(invocation -> {
+			ActivitiesSearchFields pageSearchFields = (ActivitiesSearchFields) invocation.getArguments()[0];
+			JsonValueHandler activityHandler = (JsonValueHandler) invocation.getArguments()[1];
+
+			int end = Math.min(ACTIVITIES_COUNT, pageSearchFields.getStart() + pageSearchFields.getLimit());
+			StringBuilder activities = new StringBuilder("[");
+			for (int i = pageSearchFields.getStart(); i < end; i++) {
+				activities.append(i > pageSearchFields.getStart() ? "," : "")
+						.append("{ activity : { activityId : ").append(i + 1).append(", activityName : \"Run ").append(i + 1).append("\", distance : 5.50, indoor : false, device : null } }");
+			}
+			activities.append("]");
+
+			int[] count = new int[1];
+			new ResponseJsonParser().readArray(new StringReader(activities.toString()), jsonReader -> {
+				activityHandler.handle(jsonReader);
+				count[0]++;
+			});
+			return count[0];
+		}).when(apiHandler).readActivities(any(ActivitiesSearchFields.class), any(JsonValueHandler.class));
+
+		activityExporter = new ActivityExporter(apiHandler);
+		activityExporter.setChunkSize(256);
+		activityExporter.setQueueCapacity(2);
+
+		activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(PAGE_SIZE);
+	}
+
+	@Test
+	public void exportThenAllPagesWrittenAsNDJSON() throws IOException {
+		Path path = temporaryFolder.getRoot().toPath().resolve("activities" + ExportCompression.NONE.getFileExtension());
+
+		ExportReport exportReport = activityExporter.export(activitiesSearchFields, path, ExportCompression.NONE);
+
+		List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+
+		assertEquals(ACTIVITIES_COUNT, exportReport.getActivities());
+		assertEquals(3, exportReport.getPages());
+		assertEquals(Files.size(path), exportReport.getBytes());
+		assertEquals(ACTIVITIES_COUNT, lines.size());
+		assertEquals("{\"activity\":{\"activityId\":1,\"activityName\":\"Run 1\",\"distance\":5.50,\"indoor\":false,\"device\":null}}", lines.get(0));
+		assertEquals("{\"activity\":{\"activityId\":25,\"activityName\":\"Run 25\",\"distance\":5.50,\"indoor\":false,\"device\":null}}", lines.get(24));
+	}
+
+	@Test
+	public void exportGivenGzipCompressionThenCompressedNDJSON() throws IOException {
+		Path path = temporaryFolder.getRoot().toPath().resolve("activities" + ExportCompression.GZIP.getFileExtension());
+
+		activityExporter.export(activitiesSearchFields, path, ExportCompression.GZIP);
+
+		try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(path))) {
+			assertEquals(ACTIVITIES_COUNT, IOUtils.readLines(inputStream, StandardCharsets.UTF_8).size());
+		}
+	}
+
+	@Test
+	public void exportGivenZstdCompressionThenCompressedNDJSON() throws IOException {
+		Path path = temporaryFolder.getRoot().toPath().resolve("activities" + ExportCompression.ZSTD.getFileExtension());
+
+		activityExporter.export(activitiesSearchFields, path, ExportCompression.ZSTD);
+
+		try (InputStream inputStream = new ZstdInputStream(Files.newInputStream(path))) {
+			assertEquals(ACTIVITIES_COUNT, IOUtils.readLines(inputStream, StandardCharsets.UTF_8).size());
+		}
+	}
+
+	@Test
+	public void exportWhenReadingFailsThenExceptionAndNoFile() {
+		Path path = temporaryFolder.getRoot().toPath().resolve("activities.ndjson");
+
+		doAnswer(invocation -> {
+			throw new ConnectorException("Unable to execute request!");
+		}).when(apiHandler).readActivities(any(ActivitiesSearchFields.class), any(JsonValueHandler.class));
+
+		expectedException.expect(ConnectorException.class);
+
+		try {
+			activityExporter.export(activitiesSearchFields, path, ExportCompression.NONE);
+		} finally {
+			assertFalse(Files.exists(path));
+			assertFalse(Files.exists(path.resolveSibling("activities.ndjson.part")));
+		}
+	}
+}
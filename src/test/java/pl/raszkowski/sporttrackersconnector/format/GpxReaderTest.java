@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GpxReaderTest {
+
+	private static final String GPX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<gpx version=\"1.1\" creator=\"Garmin Connect\" xmlns=\"http://www.topografix.com/GPX/1/1\"\n" +
+			"     xmlns:gpxtpx=\"http://www.garmin.com/xmlschemas/TrackPointExtension/v1\">\n" +
+			"  <metadata><name>Metadata name</name><time>2016-01-01T00:00:00.000Z</time></metadata>\n" +
+			"  <wpt lat=\"50.0\" lon=\"19.0\"><ele>200.0</ele><name>Waypoint</name></wpt>\n" +
+			"  <trk>\n" +
+			"    <name>Morning run</name>\n" +
+			"    <type>running</type>\n" +
+			"    <trkseg>\n" +
+			"      <trkpt lat=\"52.000010\" lon=\"21.000020\">\n" +
+			"        <ele>101.4</ele>\n" +
+			"        <time>2016-01-01T07:00:00.000Z</time>\n" +
+			"        <extensions><gpxtpx:TrackPointExtension>\n" +
+			"          <gpxtpx:atemp>18.0</gpxtpx:atemp><gpxtpx:hr>142</gpxtpx:hr><gpxtpx:cad>88</gpxtpx:cad>\n" +
+			"        </gpxtpx:TrackPointExtension></extensions>\n" +
+			"      </trkpt>\n" +
+			"      <trkpt lat=\"52.000020\" lon=\"21.000040\"><time>2016-01-01T08:00:01+01:00</time></trkpt>\n" +
+			"    </trkseg>\n" +
+			"    <trkseg>\n" +
+			"      <trkpt lat=\"52.000030\" lon=\"21.000060\"></trkpt>\n" +
+			"    </trkseg>\n" +
+			"  </trk>\n" +
+			"</gpx>\n";
+
+	private GpxReader gpxReader = new GpxReader();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void readWhenTrackWithSegmentsThenEventsInDocumentOrder() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		int trackPoints = gpxReader.read(content(GPX), trackHandler);
+
+		assertEquals(3, trackPoints);
+		assertEquals(Arrays.asList("startTrack Morning run running", "startSegment", "trackPoint", "trackPoint", "endSegment",
+				"startSegment", "trackPoint", "endSegment", "endTrack"), trackHandler.getEvents());
+	}
+
+	@Test
+	public void readWhenTrackPointHasExtensionThenAllValuesRead() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		gpxReader.read(content(GPX), trackHandler);
+
+		TrackPoint trackPoint = trackHandler.getTrackPoints().get(0);
+		assertEquals(1451631600000L, trackPoint.getTimeMillis());
+		assertEquals(52.00001, trackPoint.getLatitude(), 0.0);
+		assertEquals(21.00002, trackPoint.getLongitude(), 0.0);
+		assertEquals(101.4, trackPoint.getElevationMeters(), 0.0);
+		assertEquals(142.0, trackPoint.getHeartRate(), 0.0);
+		assertEquals(88.0, trackPoint.getCadence(), 0.0);
+		assertEquals(18.0, trackPoint.getTemperatureCelsius(), 0.0);
+		assertTrue(Double.isNaN(trackPoint.getPowerWatts()));
+	}
+
+	@Test
+	public void readWhenTimeWithOffsetThenConvertedToUtc() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		gpxReader.read(content(GPX), trackHandler);
+
+		assertEquals(1451631601000L, trackHandler.getTrackPoints().get(1).getTimeMillis());
+		assertTrue(Double.isNaN(trackHandler.getTrackPoints().get(1).getHeartRate()));
+		assertFalse(trackHandler.getTrackPoints().get(2).hasTime());
+	}
+
+	@Test
+	public void readWhenPreviousContentTruncatedThenStateReset() {
+		try {
+			gpxReader.read(content("<gpx><trk><trkseg><trkpt lat=\"1\" lon=\"2\">"), new RecordingTrackHandler());
+		} catch (ConnectorException e) {
+			// expected, content ends inside a track point
+		}
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		assertEquals(3, gpxReader.read(content(GPX), trackHandler));
+		assertEquals("startTrack Morning run running", trackHandler.getEvents().get(0));
+	}
+
+	@Test
+	public void readWhenMalformedThenConnectorException() {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot read GPX track, line = 2.");
+
+		gpxReader.read(content("<gpx>\n<trk><trkseg></trk></gpx>"), new RecordingTrackHandler());
+	}
+
+	@Test
+	public void readWhenValueNotNumberThenConnectorException() {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot read GPX track");
+
+		gpxReader.read(content("<gpx><trk><trkseg><trkpt lat=\"north\" lon=\"21\"/></trkseg></trk></gpx>"), new RecordingTrackHandler());
+	}
+
+	private static InputStream content(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
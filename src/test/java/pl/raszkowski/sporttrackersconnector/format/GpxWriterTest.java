@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GpxWriterTest {
+
+	private ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	@Test
+	public void writeWhenTrackPointsGivenThenReadBack() {
+		try (GpxWriter gpxWriter = new GpxWriter(output)) {
+			gpxWriter.startTrack("Morning run", "running");
+			gpxWriter.startSegment();
+			gpxWriter.onTrackPoint(trackPoint(0));
+			gpxWriter.onTrackPoint(trackPoint(1));
+			gpxWriter.endSegment();
+			gpxWriter.endTrack();
+		}
+
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+		new GpxReader().read(new ByteArrayInputStream(output.toByteArray()), trackHandler);
+
+		assertEquals(Arrays.asList("startTrack Morning run running", "startSegment", "trackPoint", "trackPoint", "endSegment", "endTrack"),
+				trackHandler.getEvents());
+
+		TrackPoint trackPoint = trackHandler.getTrackPoints().get(1);
+		assertEquals(1451631601000L, trackPoint.getTimeMillis());
+		assertEquals(52.0000123, trackPoint.getLatitude(), 0.0);
+		assertEquals(-0.0000456, trackPoint.getLongitude(), 0.0);
+		assertEquals(100.25, trackPoint.getElevationMeters(), 0.0);
+		assertEquals(141.0, trackPoint.getHeartRate(), 0.0);
+		assertEquals(90.0, trackPoint.getCadence(), 0.0);
+		assertEquals(-3.5, trackPoint.getTemperatureCelsius(), 0.0);
+	}
+
+	@Test
+	public void writeWhenPointsWithoutTrackThenTrackAndSegmentOpened() {
+		try (GpxWriter gpxWriter = new GpxWriter(output)) {
+			gpxWriter.onTrackPoint(trackPoint(0));
+		}
+
+		String content = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+		assertTrue(content, content.contains("<trk><trkseg><trkpt lat=\"52.0000123\" lon=\"-0.0000456\"><ele>100.25</ele>" +
+				"<time>2016-01-01T07:00:00Z</time>"));
+		assertTrue(content, content.endsWith("</trkseg></trk></gpx>"));
+	}
+
+	@Test
+	public void writeWhenPointWithoutPositionThenSkipped() {
+		TrackPoint trackPoint = trackPoint(0);
+		trackPoint.setLatitude(Double.NaN);
+
+		try (GpxWriter gpxWriter = new GpxWriter(output)) {
+			gpxWriter.onTrackPoint(trackPoint);
+		}
+
+		assertEquals(0, new GpxReader().read(new ByteArrayInputStream(output.toByteArray()), new RecordingTrackHandler()));
+	}
+
+	static TrackPoint trackPoint(int second) {
+		TrackPoint trackPoint = new TrackPoint();
+		trackPoint.setTimeMillis(1451631600000L + second * 1000L);
+		trackPoint.setLatitude(52.00001234);
+		trackPoint.setLongitude(-0.00004561);
+		trackPoint.setElevationMeters(100.25);
+		trackPoint.setDistanceMeters(second * 3.5);
+		trackPoint.setSpeedMetersPerSecond(3.5);
+		trackPoint.setHeartRate(140 + second);
+		trackPoint.setCadence(90);
+		trackPoint.setPowerWatts(250);
+		trackPoint.setTemperatureCelsius(-3.5);
+		return trackPoint;
+	}
+}
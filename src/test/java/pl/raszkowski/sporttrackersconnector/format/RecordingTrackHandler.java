@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records track events as strings and copies of received points.
+ */
+public class RecordingTrackHandler implements TrackHandler {
+
+	private final List<String> events = new ArrayList<>();
+
+	private final List<TrackPoint> trackPoints = new ArrayList<>();
+
+	@Override
+	public void startTrack(String name, String type) {
+		events.add("startTrack " + name + " " + type);
+	}
+
+	@Override
+	public void startSegment() {
+		events.add("startSegment");
+	}
+
+	@Override
+	public void onTrackPoint(TrackPoint trackPoint) {
+		events.add("trackPoint");
+		trackPoints.add(copy(trackPoint));
+	}
+
+	private static TrackPoint copy(TrackPoint trackPoint) {
+		TrackPoint copy = new TrackPoint();
+		copy.setTimeMillis(trackPoint.getTimeMillis());
+		copy.setLatitude(trackPoint.getLatitude());
+		copy.setLongitude(trackPoint.getLongitude());
+		copy.setElevationMeters(trackPoint.getElevationMeters());
+		copy.setDistanceMeters(trackPoint.getDistanceMeters());
+		copy.setSpeedMetersPerSecond(trackPoint.getSpeedMetersPerSecond());
+		copy.setHeartRate(trackPoint.getHeartRate());
+		copy.setCadence(trackPoint.getCadence());
+		copy.setPowerWatts(trackPoint.getPowerWatts());
+		copy.setTemperatureCelsius(trackPoint.getTemperatureCelsius());
+		return copy;
+	}
+
+	@Override
+	public void endSegment() {
+		events.add("endSegment");
+	}
+
+	@Override
+	public void endTrack() {
+		events.add("endTrack");
+	}
+
+	public List<String> getEvents() {
+		return events;
+	}
+
+	public List<TrackPoint> getTrackPoints() {
+		return trackPoints;
+	}
+}
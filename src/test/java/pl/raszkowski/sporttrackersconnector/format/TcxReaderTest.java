@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TcxReaderTest {
+
+	private static final String TCX = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\"\n" +
+			"    xmlns:ns3=\"http://www.garmin.com/xmlschemas/ActivityExtension/v2\">\n" +
+			"  <Activities><Activity Sport=\"Biking\"><Id>2016-01-01T07:00:00.000Z</Id>\n" +
+			"    <Lap StartTime=\"2016-01-01T07:00:00.000Z\">\n" +
+			"      <TotalTimeSeconds>3600.0</TotalTimeSeconds><DistanceMeters>30000.0</DistanceMeters>\n" +
+			"      <AverageHeartRateBpm><Value>135</Value></AverageHeartRateBpm><Cadence>85</Cadence>\n" +
+			"      <Track>\n" +
+			"        <Trackpoint><Time>2016-01-01T07:00:00.000Z</Time>\n" +
+			"          <Position><LatitudeDegrees>52.00001</LatitudeDegrees><LongitudeDegrees>21.00002</LongitudeDegrees></Position>\n" +
+			"          <AltitudeMeters>101.4</AltitudeMeters><DistanceMeters>3.5</DistanceMeters>\n" +
+			"          <HeartRateBpm><Value>142</Value></HeartRateBpm><Cadence>88</Cadence>\n" +
+			"          <Extensions><ns3:TPX><ns3:Speed>8.25</ns3:Speed><ns3:Watts>250</ns3:Watts></ns3:TPX></Extensions>\n" +
+			"        </Trackpoint>\n" +
+			"        <Trackpoint><Time>2016-01-01T07:00:01.000Z</Time><HeartRateBpm><Value>143</Value></HeartRateBpm></Trackpoint>\n" +
+			"      </Track>\n" +
+			"    </Lap>\n" +
+			"    <Lap StartTime=\"2016-01-01T08:00:00.000Z\"><Track>\n" +
+			"      <Trackpoint><Time>2016-01-01T08:00:00.000Z</Time></Trackpoint>\n" +
+			"    </Track></Lap>\n" +
+			"  </Activity></Activities>\n" +
+			"</TrainingCenterDatabase>\n";
+
+	private TcxReader tcxReader = new TcxReader();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void readWhenActivityWithLapsThenTracksAreSegments() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		int trackPoints = tcxReader.read(content(TCX), trackHandler);
+
+		assertEquals(3, trackPoints);
+		assertEquals(Arrays.asList("startTrack null Biking", "startSegment", "trackPoint", "trackPoint", "endSegment",
+				"startSegment", "trackPoint", "endSegment", "endTrack"), trackHandler.getEvents());
+	}
+
+	@Test
+	public void readWhenTrackpointHasExtensionThenAllValuesRead() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		tcxReader.read(content(TCX), trackHandler);
+
+		TrackPoint trackPoint = trackHandler.getTrackPoints().get(0);
+		assertEquals(1451631600000L, trackPoint.getTimeMillis());
+		assertEquals(52.00001, trackPoint.getLatitude(), 0.0);
+		assertEquals(21.00002, trackPoint.getLongitude(), 0.0);
+		assertEquals(101.4, trackPoint.getElevationMeters(), 0.0);
+		assertEquals(3.5, trackPoint.getDistanceMeters(), 0.0);
+		assertEquals(142.0, trackPoint.getHeartRate(), 0.0);
+		assertEquals(88.0, trackPoint.getCadence(), 0.0);
+		assertEquals(8.25, trackPoint.getSpeedMetersPerSecond(), 0.0);
+		assertEquals(250.0, trackPoint.getPowerWatts(), 0.0);
+	}
+
+	@Test
+	public void readWhenLapSummaryGivenThenNotTakenAsTrackpointValues() {
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		tcxReader.read(content(TCX), trackHandler);
+
+		TrackPoint trackPoint = trackHandler.getTrackPoints().get(1);
+		assertEquals(143.0, trackPoint.getHeartRate(), 0.0);
+		assertTrue(Double.isNaN(trackPoint.getCadence()));
+		assertFalse(trackPoint.hasPosition());
+	}
+
+	@Test
+	public void readWhenCourseThenNameGiven() {
+		String course = "<TrainingCenterDatabase><Courses><Course><Name>Loop</Name>" +
+				"<Lap><TotalTimeSeconds>60</TotalTimeSeconds></Lap>" +
+				"<Track><Trackpoint><Time>2016-01-01T07:00:00Z</Time></Trackpoint></Track>" +
+				"</Course></Courses></TrainingCenterDatabase>";
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+
+		tcxReader.read(content(course), trackHandler);
+
+		assertEquals(Arrays.asList("startTrack Loop null", "startSegment", "trackPoint", "endSegment", "endTrack"), trackHandler.getEvents());
+	}
+
+	@Test
+	public void readWhenTimeInvalidThenConnectorException() {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot read TCX track");
+
+		tcxReader.read(content("<TrainingCenterDatabase><Activities><Activity><Lap><Track><Trackpoint><Time>yesterday</Time>"), new RecordingTrackHandler());
+	}
+
+	private static InputStream content(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TcxWriterTest {
+
+	private ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	@Test
+	public void writeWhenSegmentsGivenThenLapsReadBack() {
+		try (TcxWriter tcxWriter = new TcxWriter(output)) {
+			tcxWriter.startTrack("Morning ride", "cycling");
+			tcxWriter.startSegment();
+			tcxWriter.onTrackPoint(GpxWriterTest.trackPoint(0));
+			tcxWriter.endSegment();
+			tcxWriter.startSegment();
+			tcxWriter.onTrackPoint(GpxWriterTest.trackPoint(1));
+			tcxWriter.endSegment();
+			tcxWriter.endTrack();
+		}
+
+		RecordingTrackHandler trackHandler = new RecordingTrackHandler();
+		new TcxReader().read(new ByteArrayInputStream(output.toByteArray()), trackHandler);
+
+		assertEquals(Arrays.asList("startTrack null Biking", "startSegment", "trackPoint", "endSegment",
+				"startSegment", "trackPoint", "endSegment", "endTrack"), trackHandler.getEvents());
+
+		TrackPoint trackPoint = trackHandler.getTrackPoints().get(1);
+		assertEquals(1451631601000L, trackPoint.getTimeMillis());
+		assertEquals(52.0000123, trackPoint.getLatitude(), 0.0);
+		assertEquals(3.5, trackPoint.getDistanceMeters(), 0.0);
+		assertEquals(3.5, trackPoint.getSpeedMetersPerSecond(), 0.0);
+		assertEquals(141.0, trackPoint.getHeartRate(), 0.0);
+		assertEquals(250.0, trackPoint.getPowerWatts(), 0.0);
+	}
+
+	@Test
+	public void writeWhenFirstPointReceivedThenActivityIdAndLapStartTimeTakenFromIt() {
+		try (TcxWriter tcxWriter = new TcxWriter(output)) {
+			tcxWriter.startTrack(null, "running");
+			tcxWriter.onTrackPoint(GpxWriterTest.trackPoint(5));
+		}
+
+		String content = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+		assertTrue(content, content.contains("<Activity Sport=\"Running\"><Id>2016-01-01T07:00:05Z</Id>" +
+				"<Lap StartTime=\"2016-01-01T07:00:05Z\"><Track><Trackpoint>"));
+	}
+
+	@Test
+	public void writeWhenTrackWithoutTimedPointsThenNoActivity() {
+		TrackPoint trackPoint = GpxWriterTest.trackPoint(0);
+		trackPoint.setTimeMillis(TrackPoint.NO_TIME);
+
+		try (TcxWriter tcxWriter = new TcxWriter(output)) {
+			tcxWriter.startTrack(null, null);
+			tcxWriter.onTrackPoint(trackPoint);
+			tcxWriter.endTrack();
+		}
+
+		String content = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+		assertTrue(content, content.endsWith("<Activities></Activities></TrainingCenterDatabase>"));
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.samples.ActivitySamples;
+import pl.raszkowski.sporttrackersconnector.samples.SampleColumn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FitDecoderTest {
+
+	private static final long START_TIME_MILLIS = 1451606400000L;
+	private static final long START_TIMESTAMP = START_TIME_MILLIS / 1000L - FitProfile.TIMESTAMP_EPOCH_OFFSET_SECONDS;
+
+	private static final int[] TIMESTAMP = {FitProfile.TIMESTAMP_FIELD, 4, FitBaseType.UINT32.getId()};
+	private static final int[] HEART_RATE = {FitProfile.RECORD_HEART_RATE_FIELD, 1, FitBaseType.UINT8.getId()};
+	private static final int[] POWER = {FitProfile.RECORD_POWER_FIELD, 2, FitBaseType.UINT16.getId()};
+	private static final int[] TEMPERATURE = {FitProfile.RECORD_TEMPERATURE_FIELD, 1, FitBaseType.SINT8.getId()};
+
+	private FitDecoder fitDecoder = new FitDecoder();
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void decodeSamplesWhenActivityFileThenRecordsConvertedToColumns() {
+		byte[] fitFile = FitFileBuilder.activity(3600, START_TIME_MILLIS);
+		ByteBuffer content = ByteBuffer.allocateDirect(fitFile.length).put(fitFile);
+		content.flip();
+
+		ActivitySamples samples = fitDecoder.decodeSamples(content).build();
+
+		assertEquals(3600, samples.size());
+		assertEquals(START_TIME_MILLIS + 3599000L, samples.getTimestampMillis(3599));
+		assertEquals(52.01, samples.get(SampleColumn.LATITUDE, 1000), 0.00001);
+		assertEquals(21.02, samples.get(SampleColumn.LONGITUDE, 1000), 0.00001);
+		assertEquals(100.0, samples.get(SampleColumn.ELEVATION_METERS, 1000), 0.001);
+		assertEquals(120f, samples.get(SampleColumn.HEART_RATE, 1000), 0f);
+		assertEquals(80f, samples.get(SampleColumn.CADENCE, 1000), 0f);
+		assertEquals(3000.0, samples.get(SampleColumn.DISTANCE_METERS, 1000), 0.001);
+		assertEquals(3.0, samples.get(SampleColumn.SPEED_METERS_PER_SECOND, 1000), 0.001);
+		assertEquals(200f, samples.get(SampleColumn.POWER_WATTS, 1000), 0f);
+		assertEquals(20f, samples.get(SampleColumn.TEMPERATURE_CELSIUS, 1000), 0f);
+		assertEquals(0, content.position());
+	}
+
+	@Test
+	public void decodeWhenBigEndianMessageThenValuesRead() {
+		byte[] fitFile = new FitFileBuilder()
+				.define(2, FitProfile.RECORD_MESSAGE, true, TIMESTAMP, POWER, TEMPERATURE)
+				.message(2, START_TIMESTAMP, 350, -5)
+				.build();
+
+		List<String> fields = new ArrayList<>();
+		fitDecoder.decode(ByteBuffer.wrap(fitFile), new FitListener() {
+			@Override
+			public void onField(int globalMessageNumber, FitField field) {
+				fields.add(globalMessageNumber + ":" + field.getNumber() + "=" + field.getLong());
+			}
+		});
+
+		assertEquals(Arrays.asList("20:253=" + START_TIMESTAMP, "20:7=350", "20:13=-5"), fields);
+	}
+
+	@Test
+	public void decodeWhenCompressedTimestampHeadersThenTimestampsRestored() {
+		long timestamp = START_TIMESTAMP - START_TIMESTAMP % 32 + 30;
+
+		byte[] fitFile = new FitFileBuilder()
+				.define(0, FitProfile.RECORD_MESSAGE, false, TIMESTAMP, HEART_RATE)
+				.message(0, timestamp, 100)
+				.define(1, FitProfile.RECORD_MESSAGE, false, HEART_RATE)
+				.compressedTimestampMessage(1, 31, 101)
+				.compressedTimestampMessage(1, 2, 102)
+				.build();
+
+		ActivitySamples samples = fitDecoder.decodeSamples(ByteBuffer.wrap(fitFile)).build();
+
+		assertEquals(3, samples.size());
+		assertEquals(FitProfile.toEpochMillis(timestamp + 1), samples.getTimestampMillis(1));
+		assertEquals(FitProfile.toEpochMillis(timestamp + 4), samples.getTimestampMillis(2));
+		assertEquals(102f, samples.get(SampleColumn.HEART_RATE, 2), 0f);
+	}
+
+	@Test
+	public void decodeSamplesWhenInvalidValuesThenColumnsNotSet() {
+		byte[] fitFile = new FitFileBuilder()
+				.define(0, FitProfile.RECORD_MESSAGE, false, TIMESTAMP, HEART_RATE)
+				.message(0, START_TIMESTAMP, 0xFF)
+				.message(0, START_TIMESTAMP + 1, 130)
+				.message(0, 0xFFFFFFFFL, 140)
+				.build();
+
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+		fitDecoder.decode(ByteBuffer.wrap(fitFile), samplesCollector);
+		ActivitySamples samples = samplesCollector.getSamplesBuilder().build();
+
+		assertEquals(2, samples.size());
+		assertTrue(Float.isNaN(samples.get(SampleColumn.HEART_RATE, 0)));
+		assertEquals(130f, samples.get(SampleColumn.HEART_RATE, 1), 0f);
+		assertEquals(1, samplesCollector.getSkippedRecords());
+	}
+
+	@Test
+	public void decodeWhenMessageSkippedByListenerThenNoFields() {
+		byte[] fitFile = FitFileBuilder.activity(10, START_TIME_MILLIS);
+
+		int[] counts = new int[2];
+		fitDecoder.decode(ByteBuffer.wrap(fitFile), new FitListener() {
+			@Override
+			public boolean onMessage(int globalMessageNumber) {
+				counts[0]++;
+				return globalMessageNumber == FitProfile.FILE_ID_MESSAGE;
+			}
+
+			@Override
+			public void onField(int globalMessageNumber, FitField field) {
+				counts[1]++;
+			}
+		});
+
+		assertEquals(11, counts[0]);
+		assertEquals(1, counts[1]);
+	}
+
+	@Test
+	public void decodeWhenChainedFilesThenAllDecoded() {
+		byte[] first = FitFileBuilder.activity(10, START_TIME_MILLIS);
+		byte[] second = FitFileBuilder.activity(5, START_TIME_MILLIS + 60000L);
+
+		ByteBuffer content = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+		content.flip();
+
+		assertEquals(15, fitDecoder.decodeSamples(content).size());
+	}
+
+	@Test
+	public void decodeWhenCrcWrongThenConnectorException() {
+		byte[] fitFile = FitFileBuilder.activity(10, START_TIME_MILLIS);
+		fitFile[20] ^= 0x01;
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Wrong FIT file CRC");
+
+		fitDecoder.decode(ByteBuffer.wrap(fitFile), new FitListener() { });
+	}
+
+	@Test
+	public void decodeWhenTruncatedThenConnectorException() {
+		byte[] fitFile = FitFileBuilder.activity(10, START_TIME_MILLIS);
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("FIT file is truncated");
+
+		fitDecoder.decode(ByteBuffer.wrap(fitFile, 0, fitFile.length - 10), new FitListener() { });
+	}
+
+	@Test
+	public void decodeWhenNotFitContentThenConnectorException() {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Content is not a FIT file");
+
+		fitDecoder.decode(ByteBuffer.wrap("<gpx></gpx>, not a FIT file".getBytes()), new FitListener() { });
+	}
+
+	@Test
+	public void decodeZipWhenArchiveHoldsFitFileThenDecoded() throws IOException {
+		Path zip = temporaryFolder.newFile("activity.fit.zip").toPath();
+
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(zip))) {
+			zipOutputStream.putNextEntry(new ZipEntry("1234.fit"));
+			zipOutputStream.write(FitFileBuilder.activity(100, START_TIME_MILLIS));
+			zipOutputStream.closeEntry();
+		}
+
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+		fitDecoder.decodeZip(zip, samplesCollector);
+
+		assertEquals(100, samplesCollector.getSamplesBuilder().size());
+	}
+
+	@Test
+	public void decodeWhenMemoryMappedFileThenDecoded() throws IOException {
+		Path path = temporaryFolder.newFile("activity.fit").toPath();
+		try (OutputStream outputStream = Files.newOutputStream(path)) {
+			outputStream.write(FitFileBuilder.activity(100, START_TIME_MILLIS));
+		}
+
+		FitSamplesCollector samplesCollector = new FitSamplesCollector();
+		fitDecoder.decode(path, samplesCollector);
+
+		assertEquals(100, samplesCollector.getSamplesBuilder().size());
+		assertEquals(0, samplesCollector.getSkippedRecords());
+	}
+}
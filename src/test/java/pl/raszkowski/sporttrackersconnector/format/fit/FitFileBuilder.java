@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.format.fit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <pre>
+ *     Writes FIT files for tests: definition and data messages with given field values, the file header
+ *     and the CRC.
+ * </pre>
+ */
+public class FitFileBuilder {
+
+	private static final int HEADER_SIZE = 14;
+	private static final int PROTOCOL_VERSION = 0x20;
+	private static final int PROFILE_VERSION = 2132;
+
+	/**
+	 * Record fields written by {@link #activity(int, long)}: number, size, base type.
+	 */
+	private static final int[][] RECORD_FIELDS = {
+			{FitProfile.TIMESTAMP_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_POSITION_LAT_FIELD, 4, FitBaseType.SINT32.getId()},
+			{FitProfile.RECORD_POSITION_LONG_FIELD, 4, FitBaseType.SINT32.getId()},
+			{FitProfile.RECORD_ENHANCED_ALTITUDE_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_HEART_RATE_FIELD, 1, FitBaseType.UINT8.getId()},
+			{FitProfile.RECORD_CADENCE_FIELD, 1, FitBaseType.UINT8.getId()},
+			{FitProfile.RECORD_DISTANCE_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_ENHANCED_SPEED_FIELD, 4, FitBaseType.UINT32.getId()},
+			{FitProfile.RECORD_POWER_FIELD, 2, FitBaseType.UINT16.getId()},
+			{FitProfile.RECORD_TEMPERATURE_FIELD, 1, FitBaseType.SINT8.getId()}
+	};
+
+	private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+
+	private final int[][][] definedFields = new int[16][][];
+
+	private final boolean[] bigEndian = new boolean[16];
+
+	/**
+	 * @param fields number, size and base type of every field
+	 */
+	public FitFileBuilder define(int localMessageType, int globalMessageNumber, boolean bigEndian, int[]... fields) {
+		data.write(0x40 | localMessageType);
+		data.write(0);
+		data.write(bigEndian ? 1 : 0);
+		write(globalMessageNumber, 2, bigEndian);
+		data.write(fields.length);
+
+		for (int[] field : fields) {
+			data.write(field[0]);
+			data.write(field[1]);
+			data.write(field[2]);
+		}
+
+		this.definedFields[localMessageType] = fields;
+		this.bigEndian[localMessageType] = bigEndian;
+
+		return this;
+	}
+
+	/**
+	 * @param values raw value of every defined field
+	 */
+	public FitFileBuilder message(int localMessageType, long... values) {
+		data.write(localMessageType);
+		writeValues(localMessageType, values);
+		return this;
+	}
+
+	public FitFileBuilder compressedTimestampMessage(int localMessageType, int timeOffset, long... values) {
+		data.write(0x80 | localMessageType << 5 | timeOffset);
+		writeValues(localMessageType, values);
+		return this;
+	}
+
+	private void writeValues(int localMessageType, long... values) {
+		int[][] fields = definedFields[localMessageType];
+
+		for (int i = 0; i < fields.length; i++) {
+			write(values[i], fields[i][1], bigEndian[localMessageType]);
+		}
+	}
+
+	private void write(long value, int size, boolean bigEndian) {
+		for (int i = 0; i < size; i++) {
+			int shift = bigEndian ? (size - 1 - i) * 8 : i * 8;
+			data.write((int) (value >>> shift) & 0xFF);
+		}
+	}
+
+	public byte[] build() {
+		byte[] records = data.toByteArray();
+
+		ByteBuffer file = ByteBuffer.allocate(HEADER_SIZE + records.length + 2).order(ByteOrder.LITTLE_ENDIAN);
+		file.put((byte) HEADER_SIZE);
+		file.put((byte) PROTOCOL_VERSION);
+		file.putShort((short) PROFILE_VERSION);
+		file.putInt(records.length);
+		file.put(".FIT".getBytes());
+		file.putShort((short) FitCrc.compute(file, 0, 12));
+		file.put(records);
+		file.putShort((short) FitCrc.compute(file, 0, HEADER_SIZE + records.length));
+
+		return file.array();
+	}
+
+	/**
+	 * <pre>
+	 *     Activity file with a file id message and one record per second: position moving north-east,
+	 *     altitude, heart rate, cadence, distance, speed, power and temperature.
+	 * </pre>
+	 *
+	 * @param records number of records
+	 * @param startTimeMillis time of the first record
+	 * @return FIT file content
+	 */
+	public static byte[] activity(int records, long startTimeMillis) {
+		FitFileBuilder fitFileBuilder = new FitFileBuilder()
+				.define(0, FitProfile.FILE_ID_MESSAGE, false, new int[] {0, 1, FitBaseType.ENUM.getId()})
+				.message(0, 4)
+				.define(1, FitProfile.RECORD_MESSAGE, false, RECORD_FIELDS);
+
+		long startTimestamp = startTimeMillis / 1000L - FitProfile.TIMESTAMP_EPOCH_OFFSET_SECONDS;
+
+		for (int i = 0; i < records; i++) {
+			fitFileBuilder.message(1,
+					startTimestamp + i,
+					toSemicircles(52.0 + i * 0.00001),
+					toSemicircles(21.0 + i * 0.00002),
+					(long) ((100.0 + i % 20 + FitProfile.ALTITUDE_OFFSET) * FitProfile.ALTITUDE_SCALE),
+					120 + i % 50,
+					80 + i % 10,
+					i * 300L,
+					3000 + i % 500,
+					200 + i % 100,
+					20);
+		}
+
+		return fitFileBuilder.build();
+	}
+
+	private static long toSemicircles(double degrees) {
+		return Math.round(degrees / FitProfile.SEMICIRCLES_TO_DEGREES);
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import com.google.gson.JsonObject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ActivitiesIteratorTest {
+
+	private static final int PAGE_SIZE = 2;
+
+	private List<ActivitiesSearchFields> requestedPages = new ArrayList<>();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Test
+	public void iterateWhenNoActivities() {
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(fetcherOf(0), new ActivitiesSearchFields(), PAGE_SIZE);
+
+		assertFalse(activitiesIterator.hasNext());
+		assertEquals(1, requestedPages.size());
+	}
+
+	@Test
+	public void iterateWhenLastPageNotFull() {
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(fetcherOf(5), new ActivitiesSearchFields(), PAGE_SIZE);
+
+		List<Integer> ids = collectIds(activitiesIterator);
+
+		assertEquals(5, ids.size());
+		for (int i = 0; i < ids.size(); i++) {
+			assertEquals(i, ids.get(i).intValue());
+		}
+		assertEquals(3, requestedPages.size());
+	}
+
+	@Test
+	public void iterateWhenLastPageFullThenRequestsEmptyPage() {
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(fetcherOf(4), new ActivitiesSearchFields(), PAGE_SIZE);
+
+		List<Integer> ids = collectIds(activitiesIterator);
+
+		assertEquals(4, ids.size());
+		assertEquals(3, requestedPages.size());
+	}
+
+	@Test
+	public void iterateGivenStartThenPagesFromStart() {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setStart(3);
+		activitiesSearchFields.setSortOrder(ActivitiesSearchFields.SortOrder.DESC);
+
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(fetcherOf(6), activitiesSearchFields, PAGE_SIZE);
+
+		List<Integer> ids = collectIds(activitiesIterator);
+
+		assertEquals(3, ids.size());
+		assertEquals(3, ids.get(0).intValue());
+		assertEquals(ActivitiesSearchFields.SortOrder.DESC, requestedPages.get(1).getSortOrder());
+		assertEquals(PAGE_SIZE, requestedPages.get(1).getLimit());
+	}
+
+	@Test
+	public void nextThenNextPagePrefetched() {
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(fetcherOf(10), new ActivitiesSearchFields(), PAGE_SIZE);
+
+		activitiesIterator.next();
+
+		assertEquals(2, requestedPages.size());
+		assertEquals(PAGE_SIZE, requestedPages.get(1).getStart());
+	}
+
+	@Test
+	public void hasNextWhenPageFailedThenConnectorException() {
+		CompletableFuture<List<JsonObject>> failedPage = new CompletableFuture<>();
+		failedPage.completeExceptionally(new ConnectorException("Page failed."));
+
+		ActivitiesIterator<JsonObject> activitiesIterator = new ActivitiesIterator<>(activitiesSearchFields -> failedPage, new ActivitiesSearchFields(), PAGE_SIZE);
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Page failed.");
+
+		activitiesIterator.hasNext();
+	}
+
+	private Function<ActivitiesSearchFields, CompletableFuture<List<JsonObject>>> fetcherOf(int total) {
+		return activitiesSearchFields -> {
+			requestedPages.add(activitiesSearchFields);
+
+			List<JsonObject> page = new ArrayList<>();
+			for (int i = activitiesSearchFields.getStart(); i < Math.min(total, activitiesSearchFields.getStart() + activitiesSearchFields.getLimit()); i++) {
+				JsonObject activity = new JsonObject();
+				activity.addProperty("id", i);
+				page.add(activity);
+			}
+			return CompletableFuture.completedFuture(page);
+		};
+	}
+
+	private List<Integer> collectIds(ActivitiesIterator<JsonObject> activitiesIterator) {
+		List<Integer> ids = new ArrayList<>();
+		while (activitiesIterator.hasNext()) {
+			ids.add(activitiesIterator.next().get("id").getAsInt());
+		}
+		assertFalse(activitiesIterator.hasNext());
+		return ids;
+	}
+}
@@ -22,7 +22,10 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ActivitiesSearchFieldsTest {
@@ -52,4 +55,47 @@ public class ActivitiesSearchFieldsTest {
 
 		assertEquals(2, conditions.size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void copyThenIndependentConditions() {
+		activitiesSearchFields.setStart(10);
+		activitiesSearchFields.setLimit(20);
+		activitiesSearchFields.setSortField("beginTimestamp");
+		activitiesSearchFields.setSortOrder(ActivitiesSearchFields.SortOrder.ASC);
+		activitiesSearchFields.addCondition(
+				new ActivitiesSearchFields.Condition("field", ActivitiesSearchFields.Operator.CONTAINS, "value")
+		);
+
+		ActivitiesSearchFields copy = activitiesSearchFields.copy();
+		copy.addCondition(
+				new ActivitiesSearchFields.Condition("field2", ActivitiesSearchFields.Operator.CONTAINS, "value2")
+		);
+
+		assertEquals(10, copy.getStart());
+		assertEquals(20, copy.getLimit());
+		assertEquals("beginTimestamp", copy.getSortField());
+		assertEquals(ActivitiesSearchFields.SortOrder.ASC, copy.getSortOrder());
+		assertNotSame(activitiesSearchFields.getConditions(), copy.getConditions());
+		assertEquals(1, activitiesSearchFields.getConditions().size());
+		assertEquals(2, copy.getConditions().size());
+	}
+
+	@Test
+	public void ofWhenQueryBoundedThenConditionsNewestFirst() {
+		ActivityQuery activityQuery = new ActivityQuery();
+		activityQuery.setStartTimeFromMillis(1451606400000L);
+		activityQuery.setStartTimeToMillis(1454284800000L);
+		activityQuery.setActivityType("running");
+		activityQuery.setPageSize(50);
+
+		ActivitiesSearchFields searchFields = ActivitiesSearchFields.of(activityQuery);
+
+		assertEquals(50, searchFields.getLimit());
+		assertEquals(ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD, searchFields.getSortField());
+		assertEquals(ActivitiesSearchFields.SortOrder.DESC, searchFields.getSortOrder());
+		assertEquals(3, searchFields.getConditions().size());
+		assertEquals(ActivitiesSearchFields.Operator.GREATER_THAN_OR_EQUAL, searchFields.getConditions().get(0).getOperator());
+		assertEquals(ActivitiesSearchFields.Operator.LESS_THAN, searchFields.getConditions().get(1).getOperator());
+		assertEquals("running", searchFields.getConditions().get(2).getValue());
+	}
+}
@@ -34,6 +34,8 @@ import org.mockito.MockitoAnnotations;
 import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
 import pl.raszkowski.sporttrackersconnector.garminconnect.exception.GarminConnectAuthorizationException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -264,4 +266,34 @@ public class AuthorizerTest {
 
 		assertTrue(authorizer.isAuthorized());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void authorizeWhenProcessSucceedThenTicketAvailable() throws IOException {
+		authorizer.authorize(garminConnectCredentials);
+
+		assertEquals("ABC12345DEF", authorizer.getTicket());
+	}
+
+	@Test
+	public void isSessionValidWhenAccountOfSameUserThenTrue() throws IOException {
+		when(loginPageResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream("{account : {username : \"username_value\"}}", "utf-8"));
+
+		assertTrue(authorizer.isSessionValid(garminConnectCredentials));
+		assertTrue(authorizer.isAuthorized());
+	}
+
+	@Test
+	public void isSessionValidWhenAccountOfOtherUserThenFalse() throws IOException {
+		when(loginPageResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream("{account : {username : \"some_username_value\"}}", "utf-8"));
+
+		assertFalse(authorizer.isSessionValid(garminConnectCredentials));
+		assertFalse(authorizer.isAuthorized());
+	}
+
+	@Test
+	public void isSessionValidWhenResponseNotOkThenFalse() throws IOException {
+		when(loginPageResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_MOVED_TEMPORARILY);
+
+		assertFalse(authorizer.isSessionValid(garminConnectCredentials));
+	}
+}
@@ -15,24 +15,43 @@
  */
 package pl.raszkowski.sporttrackersconnector.garminconnect;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import pl.raszkowski.sporttrackersconnector.JsonTestHelper;
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
 import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
-import pl.raszkowski.sporttrackersconnector.json.ResponseJsonParser;
 import pl.raszkowski.sporttrackersconnector.rest.GetParameters;
 import pl.raszkowski.sporttrackersconnector.rest.RESTExecutor;
+import pl.raszkowski.sporttrackersconnector.rest.ResponseContentReader;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 
@@ -42,19 +61,25 @@ public class GarminAPIHandlerTest {
 
 	private static final String ACTIVITIES_RESOURCE = "activities";
 
-	private static final String RESPONSE = "{ RESPONSE }";
-
 	private RESTExecutor restExecutor;
 
-	@Mock
-	private ConnectorsConfiguration connectorsConfiguration;
+	private String response;
+
+	private final AtomicInteger inFlightPages = new AtomicInteger();
+
+	private final AtomicInteger maxInFlightPages = new AtomicInteger();
+
+	private final AtomicInteger requestedPages = new AtomicInteger();
 
 	@Mock
-	private ResponseJsonParser responseJsonParser;
+	private ConnectorsConfiguration connectorsConfiguration;
 
 	@InjectMocks
 	private GarminAPIHandler garminAPIHandler;
 
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
 	@Before
 	public void setUp() {
 		restExecutor = mock(RESTExecutor.class);
@@ -63,14 +88,31 @@ public class GarminAPIHandlerTest {
 
 		MockitoAnnotations.initMocks(this);
 
-		doReturn(RESPONSE).when(restExecutor).executeGET(eq(ACTIVITY_SEARCH_SERVICE), eq(ACTIVITIES_RESOURCE), any(GetParameters.class));
+		doAnswer(invocation -> readResponse((ResponseContentReader<?>) invocation.getArguments()[3]))
+				.when(restExecutor).executeGET(eq(ACTIVITY_SEARCH_SERVICE), eq(ACTIVITIES_RESOURCE), any(GetParameters.class), any(ResponseContentReader.class));
+		doAnswer(invocation -> CompletableFuture.completedFuture(readResponse((ResponseContentReader<?>) invocation.getArguments()[3])))
+				.when(restExecutor).executeGETAsync(eq(ACTIVITY_SEARCH_SERVICE), eq(ACTIVITIES_RESOURCE), any(GetParameters.class), any(ResponseContentReader.class));
 
 		doReturn(ACTIVITY_SEARCH_SERVICE).when(connectorsConfiguration).getGarminConnectRESTActivitySearchService();
 	}
 
+	private Object readResponse(ResponseContentReader<?> contentReader) throws Exception {
+		return contentReader.read(IOUtils.toInputStream(response, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void getActivitiesWhenEmptyResponse() {
+		response = "";
+
+		JsonArray json = garminAPIHandler.getActivities(0, 20);
+
+		assertNotNull(json);
+		assertEquals(0, json.size());
+	}
+
 	@Test
 	public void getActivitiesWhenEmptyJson() {
-		doReturn(JsonTestHelper.readJsonObject("{}")).when(responseJsonParser).parseAsJsonObject(RESPONSE);
+		response = "{}";
 
 		JsonArray json = garminAPIHandler.getActivities(0, 20);
 
@@ -80,7 +122,7 @@ public class GarminAPIHandlerTest {
 
 	@Test
 	public void getActivitiesWhenNoResultsElement() {
-		doReturn(JsonTestHelper.readJsonObject("{ response : \"content\"}")).when(responseJsonParser).parseAsJsonObject(RESPONSE);
+		response = "{ response : \"content\"}";
 
 		JsonArray json = garminAPIHandler.getActivities(0, 20);
 
@@ -90,7 +132,7 @@ public class GarminAPIHandlerTest {
 
 	@Test
 	public void getActivitiesWhenNoActivitiesElement() {
-		doReturn(JsonTestHelper.readJsonObject("{ results : {}}")).when(responseJsonParser).parseAsJsonObject(RESPONSE);
+		response = "{ results : {}}";
 
 		JsonArray json = garminAPIHandler.getActivities(0, 20);
 
@@ -100,7 +142,7 @@ public class GarminAPIHandlerTest {
 
 	@Test
 	public void getActivitiesWhenEmptyActivities() {
-		doReturn(JsonTestHelper.readJsonObject("{ results : { activities : [] } }")).when(responseJsonParser).parseAsJsonObject(RESPONSE);
+		response = "{ results : { activities : [] } }";
 
 		JsonArray json = garminAPIHandler.getActivities(0, 20);
 
@@ -110,11 +152,263 @@ public class GarminAPIHandlerTest {
 
 	@Test
 	public void getActivitiesWhenNotEmptyActivities() {
-		doReturn(JsonTestHelper.readJsonObject("{ results : { activities : [{}] } }")).when(responseJsonParser).parseAsJsonObject(RESPONSE);
+		response = "{ results : { activities : [{}] } }";
 
 		JsonArray json = garminAPIHandler.getActivities(0, 20);
 
 		assertNotNull(json);
 		assertEquals(1, json.size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void getActivitiesWhenActivitiesAfterOtherElements() {
+		response = "{ query : { start : 0 }, results : { totalFound : 2, activities : [{ id : 1 }, { id : 2 }], currentPage : 1 } }";
+
+		JsonArray json = garminAPIHandler.getActivities(0, 20);
+
+		assertEquals(2, json.size());
+		assertEquals(2, json.get(1).getAsJsonObject().get("id").getAsInt());
+	}
+
+	@Test
+	public void getActivitiesWhenNotJson() {
+		response = "{ results : { activities : [ not json, no";
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot parse given Json!.");
+
+		garminAPIHandler.getActivities(0, 20);
+	}
+
+	@Test
+	public void forEachActivityThenActivitiesInOrder() {
+		response = "{ results : { activities : [{ id : 1 }, { id : 2 }, { id : 3 }] } }";
+
+		List<JsonObject> activities = new ArrayList<>();
+		garminAPIHandler.forEachActivity(new ActivitiesSearchFields(), activities::add);
+
+		assertEquals(3, activities.size());
+		assertEquals(1, activities.get(0).get("id").getAsInt());
+		assertEquals(3, activities.get(2).get("id").getAsInt());
+	}
+
+	@Test
+	public void getActivitiesAsyncWhenNotEmptyActivities() throws ExecutionException, InterruptedException {
+		response = "{ results : { activities : [{}, {}] } }";
+
+		JsonArray json = garminAPIHandler.getActivitiesAsync(0, 20).get();
+
+		assertNotNull(json);
+		assertEquals(2, json.size());
+	}
+
+	@Test
+	public void getTypedActivitiesWhenNotEmptyActivities() {
+		response = "{ results : { activities : [{ activity : { activityId : 1, activityName : \"Morning run\", activityType : { key : \"running\" } } }, "
+				+ "{ activity : { activityId : 2, activitySummary : { SumDistance : { value : 5.5, uom : \"kilometer\" } } } }] } }";
+
+		List<Activity> activities = garminAPIHandler.getTypedActivities(new ActivitiesSearchFields());
+
+		assertEquals(2, activities.size());
+		assertEquals(1, activities.get(0).getId());
+		assertEquals("Morning run", activities.get(0).getName());
+		assertEquals("running", activities.get(0).getType());
+		assertEquals(2, activities.get(1).getId());
+		assertEquals(5500.0, activities.get(1).getDistanceMeters(), 0.001);
+	}
+
+	@Test
+	public void readActivitiesThenEveryActivityPassedToHandler() {
+		response = "{ results : { activities : [{ activity : { activityId : 1 } }, { activity : { activityId : 2 } }] } }";
+
+		List<String> activities = new ArrayList<>();
+
+		int count = garminAPIHandler.readActivities(new ActivitiesSearchFields(), jsonReader -> activities.add(new JsonParser().parse(jsonReader).toString()));
+
+		assertEquals(2, count);
+		assertEquals("{\"activity\":{\"activityId\":1}}", activities.get(0));
+		assertEquals("{\"activity\":{\"activityId\":2}}", activities.get(1));
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void getTypedActivitiesWhenMalformedTimestampThenConnectorException() {
+		response = "{ results : { activities : [{ activity : { activityId : 1, activitySummary : { BeginTimestamp : { value : \"07.04.2016\" } } } }] } }";
+
+		garminAPIHandler.getTypedActivities(new ActivitiesSearchFields());
+	}
+
+	@Test
+	public void getTypedActivitiesWhenEmptyResponse() {
+		response = "";
+
+		List<Activity> activities = garminAPIHandler.getTypedActivities(new ActivitiesSearchFields());
+
+		assertNotNull(activities);
+		assertEquals(0, activities.size());
+	}
+
+	@Test
+	public void streamTypedActivitiesWhenLastPageNotFullThenAllActivities() {
+		response = "{ results : { activities : [{ activity : { activityId : 1 } }, { activity : { activityId : 2 } }] } }";
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(5);
+
+		List<Long> ids = garminAPIHandler.streamTypedActivities(activitiesSearchFields)
+				.map(Activity::getId)
+				.collect(Collectors.toList());
+
+		assertEquals(2, ids.size());
+		assertEquals(Long.valueOf(1), ids.get(0));
+		assertEquals(Long.valueOf(2), ids.get(1));
+	}
+
+	@Test
+	public void forEachNewActivityWhenKnownActivityReachedThenStopsAndWatermarkAdvanced() {
+		doReturn(5).when(connectorsConfiguration).getGarminConnectActivitiesPageSize();
+		response = "{ results : { activities : [{ activity : { activityId : 3, activitySummary : { BeginTimestamp : { millis : 3000 } } } }, "
+				+ "{ activity : { activityId : 2, activitySummary : { BeginTimestamp : { millis : 2000 } } } }, "
+				+ "{ activity : { activityId : 1, activitySummary : { BeginTimestamp : { millis : 1000 } } } }] } }";
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(5);
+
+		List<Long> ids = new ArrayList<>();
+		ActivityWatermark watermark = garminAPIHandler.forEachNewActivity(activitiesSearchFields, new ActivityWatermark(2000, 2), activity -> ids.add(activity.getId()));
+
+		assertEquals(1, ids.size());
+		assertEquals(Long.valueOf(3), ids.get(0));
+		assertEquals(new ActivityWatermark(3000, 3), watermark);
+	}
+
+	@Test
+	public void forEachNewActivityWhenUnknownActivityOfWatermarkStartTimeThenFetched() {
+		doReturn(5).when(connectorsConfiguration).getGarminConnectActivitiesPageSize();
+		response = "{ results : { activities : [{ activity : { activityId : 2, activitySummary : { BeginTimestamp : { millis : 2000 } } } }, "
+				+ "{ activity : { activityId : 4, activitySummary : { BeginTimestamp : { millis : 2000 } } } }, "
+				+ "{ activity : { activityId : 1, activitySummary : { BeginTimestamp : { millis : 1000 } } } }] } }";
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(5);
+
+		List<Long> ids = new ArrayList<>();
+		ActivityWatermark watermark = garminAPIHandler.forEachNewActivity(activitiesSearchFields, new ActivityWatermark(2000, 2), activity -> ids.add(activity.getId()));
+
+		assertEquals(1, ids.size());
+		assertEquals(Long.valueOf(4), ids.get(0));
+		assertEquals(new ActivityWatermark(2000, Arrays.asList(2L, 4L)), watermark);
+	}
+
+	@Test
+	public void forEachNewActivityWhenNoWatermarkThenAllActivities() {
+		doReturn(5).when(connectorsConfiguration).getGarminConnectActivitiesPageSize();
+		response = "{ results : { activities : [{ activity : { activityId : 2, activitySummary : { BeginTimestamp : { millis : 2000 } } } }, "
+				+ "{ activity : { activityId : 1, activitySummary : { BeginTimestamp : { millis : 1000 } } } }] } }";
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(5);
+
+		List<Long> ids = new ArrayList<>();
+		ActivityWatermark watermark = garminAPIHandler.forEachNewActivity(activitiesSearchFields, null, activity -> ids.add(activity.getId()));
+
+		assertEquals(2, ids.size());
+		assertEquals(new ActivityWatermark(2000, 2), watermark);
+	}
+
+	@Test
+	public void forEachNewActivityWhenLimitGivenThenPagedWithConfiguredPageSizeAndAllActivities() {
+		doReturn(2).when(connectorsConfiguration).getGarminConnectActivitiesPageSize();
+		List<Integer> requestedLimits = new ArrayList<>();
+
+		doAnswer(invocation -> {
+			GetParameters getParameters = (GetParameters) invocation.getArguments()[2];
+			ResponseContentReader<?> contentReader = (ResponseContentReader<?>) invocation.getArguments()[3];
+
+			int start = Integer.parseInt(getParameters.getParameters().get("start"));
+			int limit = Integer.parseInt(getParameters.getParameters().get("limit"));
+			requestedLimits.add(limit);
+
+			String page = IntStream.range(start, Math.min(5, start + limit))
+					.mapToObj(i -> "{ activity : { activityId : " + (5 - i) + ", activitySummary : { BeginTimestamp : { millis : " + (5 - i) * 1000 + " } } } }")
+					.collect(Collectors.joining(", ", "{ results : { activities : [", "] } }"));
+
+			return contentReader.read(IOUtils.toInputStream(page, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+		}).when(restExecutor).executeGET(eq(ACTIVITY_SEARCH_SERVICE), eq(ACTIVITIES_RESOURCE), any(GetParameters.class), any(ResponseContentReader.class));
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(1);
+
+		List<Long> ids = new ArrayList<>();
+		ActivityWatermark watermark = garminAPIHandler.forEachNewActivity(activitiesSearchFields, null, activity -> ids.add(activity.getId()));
+
+		assertEquals(Arrays.asList(5L, 4L, 3L, 2L, 1L), ids);
+		assertEquals(Arrays.asList(2, 2, 2), requestedLimits);
+		assertEquals(new ActivityWatermark(5000, 5), watermark);
+	}
+
+	@Test
+	public void getTypedActivitiesParallelThenActivitiesInRangeOrder() {
+		mockActivitiesRange(25);
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setStart(2);
+		activitiesSearchFields.setLimit(20);
+
+		List<Activity> activities = garminAPIHandler.getTypedActivitiesParallel(activitiesSearchFields, 3, 2);
+
+		assertEquals(20, activities.size());
+		for (int i = 0; i < activities.size(); i++) {
+			assertEquals(i + 2, activities.get(i).getId());
+		}
+		assertTrue(maxInFlightPages.get() <= 2);
+	}
+
+	@Test
+	public void getActivitiesParallelWhenRangeExceedsActivitiesThenStopsAtLastPage() {
+		mockActivitiesRange(7);
+
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.setLimit(100);
+
+		JsonArray activities = garminAPIHandler.getActivitiesParallel(activitiesSearchFields, 5, 1);
+
+		assertEquals(7, activities.size());
+		assertEquals(2, requestedPages.get());
+	}
+
+	@Test
+	public void getActivitiesParallelWhenNoLimitThenException() {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Parallel fetching requires positive limit, page size and parallelism, limit = 0, page size = 5, parallelism = 2.");
+
+		garminAPIHandler.getActivitiesParallel(new ActivitiesSearchFields(), 5, 2);
+	}
+
+	private void mockActivitiesRange(int activities) {
+		doAnswer(invocation -> {
+			GetParameters getParameters = (GetParameters) invocation.getArguments()[2];
+			ResponseContentReader<?> contentReader = (ResponseContentReader<?>) invocation.getArguments()[3];
+
+			int start = Integer.parseInt(getParameters.getParameters().get("start"));
+			int limit = Integer.parseInt(getParameters.getParameters().get("limit"));
+
+			requestedPages.incrementAndGet();
+			maxInFlightPages.accumulateAndGet(inFlightPages.incrementAndGet(), Math::max);
+
+			String page = IntStream.range(start, Math.min(activities, start + limit))
+					.mapToObj(id -> "{ activity : { activityId : " + id + " } }")
+					.collect(Collectors.joining(", ", "{ results : { activities : [", "] } }"));
+
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					Thread.sleep(5);
+					return contentReader.read(IOUtils.toInputStream(page, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				} finally {
+					inFlightPages.decrementAndGet();
+				}
+			});
+		}).when(restExecutor).executeGETAsync(eq(ACTIVITY_SEARCH_SERVICE), eq(ACTIVITIES_RESOURCE), any(GetParameters.class), any(ResponseContentReader.class));
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+
+import com.google.gson.JsonParseException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GarminActivityTypeAdapterTest {
+
+	private GarminActivityTypeAdapter garminActivityTypeAdapter = new GarminActivityTypeAdapter();
+
+	@Test
+	public void readWhenFullActivityThenAllFields() throws IOException {
+		String json = "{ \"activity\" : { \"activityId\" : 123, \"activityName\" : { \"value\" : \"Evening ride\" }, "
+				+ "\"activityType\" : { \"key\" : \"cycling\", \"display\" : \"Cycling\" }, \"unknown\" : [1, 2], "
+				+ "\"activitySummary\" : { \"BeginTimestamp\" : { \"millis\" : 1460000000000 }, "
+				+ "\"SumDuration\" : { \"value\" : 3600.5 }, \"SumDistance\" : { \"value\" : 2, \"uom\" : \"mile\" }, "
+				+ "\"SumEnergy\" : { \"value\" : 750 }, \"WeightedMeanHeartRate\" : { \"value\" : 141.6 }, "
+				+ "\"MaxHeartRate\" : { \"value\" : 180 } } } }";
+
+		Activity activity = garminActivityTypeAdapter.fromJson(json);
+
+		assertEquals(123, activity.getId());
+		assertEquals("Evening ride", activity.getName());
+		assertEquals("cycling", activity.getType());
+		assertEquals(1460000000000L, activity.getStartTimeMillis());
+		assertEquals(3600.5, activity.getDurationSeconds(), 0.001);
+		assertEquals(3218.688, activity.getDistanceMeters(), 0.001);
+		assertEquals(750.0, activity.getCalories(), 0.001);
+		assertEquals(142, activity.getAverageHeartRate());
+		assertEquals(180, activity.getMaxHeartRate());
+	}
+
+	@Test
+	public void readWhenTimestampOnlyAsValueThenParsed() throws IOException {
+		String json = "{ \"activity\" : { \"activitySummary\" : { \"BeginTimestamp\" : { \"value\" : \"2016-04-07T03:33:20.000Z\" } } } }";
+
+		Activity activity = garminActivityTypeAdapter.fromJson(json);
+
+		assertEquals(1460000000000L, activity.getStartTimeMillis());
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void readWhenMalformedTimestampThenJsonParseException() throws IOException {
+		garminActivityTypeAdapter.fromJson("{ \"activity\" : { \"activitySummary\" : { \"BeginTimestamp\" : { \"value\" : \"yesterday\" } } } }");
+	}
+
+	@Test(expected = JsonParseException.class)
+	public void readWhenMeasureNotNumberThenJsonParseException() throws IOException {
+		garminActivityTypeAdapter.fromJson("{ \"activity\" : { \"activitySummary\" : { \"SumEnergy\" : { \"value\" : \"a lot\" } } } }");
+	}
+
+	@Test
+	public void readWhenNullNameThenNull() throws IOException {
+		Activity activity = garminActivityTypeAdapter.fromJson("{ \"activity\" : { \"activityName\" : null } }");
+
+		assertNull(activity.getName());
+	}
+
+	@Test
+	public void writeThenReadBack() throws IOException {
+		Activity activity = new Activity();
+		activity.setId(7);
+		activity.setName("Swim");
+		activity.setType("swimming");
+		activity.setStartTimeMillis(1460000000000L);
+		activity.setDurationSeconds(1800);
+		activity.setDistanceMeters(1500);
+		activity.setCalories(400);
+		activity.setAverageHeartRate(130);
+		activity.setMaxHeartRate(160);
+
+		Activity readActivity = garminActivityTypeAdapter.fromJson(garminActivityTypeAdapter.toJson(activity));
+
+		assertEquals(activity.getId(), readActivity.getId());
+		assertEquals(activity.getName(), readActivity.getName());
+		assertEquals(activity.getType(), readActivity.getType());
+		assertEquals(activity.getStartTimeMillis(), readActivity.getStartTimeMillis());
+		assertEquals(activity.getDurationSeconds(), readActivity.getDurationSeconds(), 0.001);
+		assertEquals(activity.getDistanceMeters(), readActivity.getDistanceMeters(), 0.001);
+		assertEquals(activity.getCalories(), readActivity.getCalories(), 0.001);
+		assertEquals(activity.getAverageHeartRate(), readActivity.getAverageHeartRate());
+		assertEquals(activity.getMaxHeartRate(), readActivity.getMaxHeartRate());
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.InMemorySessionStore;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiters;
+import pl.raszkowski.sporttrackersconnector.ratelimit.TokenBucketRateLimiter;
+import pl.raszkowski.sporttrackersconnector.test.FakeGarminConnectServer;
+import pl.raszkowski.sporttrackersconnector.test.LoadDriver;
+
+import com.google.gson.JsonArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GarminConnectConnectorLoadIT {
+
+	private static final Logger LOG = LoggerFactory.getLogger(GarminConnectConnectorLoadIT.class);
+
+	private static final String USERNAME = "load-test-user";
+	private static final String PASSWORD = "load-test-password";
+
+	private static final String ACCOUNT_PERMITS_PROPERTY = "garminconnect.rateLimit.account.permitsPerSecond";
+	private static final String ACCOUNT_BURST_PROPERTY = "garminconnect.rateLimit.account.burst";
+
+	private static final int ACTIVITIES_COUNT = 500;
+	private static final int PAGE_SIZE = 20;
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private FakeGarminConnectServer fakeServer;
+
+	private HttpTransport httpTransport;
+
+	private GarminConnectConnector garminConnectConnector;
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Before
+	public void setUp() throws IOException {
+		fakeServer = new FakeGarminConnectServer();
+		fakeServer.addAccount(USERNAME, PASSWORD);
+		fakeServer.setActivitiesCount(ACTIVITIES_COUNT);
+		fakeServer.setLatencyMillis(2);
+		fakeServer.start();
+		fakeServer.applyToSystemProperties();
+
+		System.setProperty(ACCOUNT_PERMITS_PROPERTY, "100000");
+		System.setProperty(ACCOUNT_BURST_PROPERTY, "100000");
+		RateLimiters.setConnectorRateLimiter(Connectors.GARMIN_CONNECT, new TokenBucketRateLimiter(100000, 100000));
+
+		httpTransport = new HttpTransport(connectorsConfiguration);
+		garminConnectConnector = new GarminConnectConnector(httpTransport, new InMemorySessionStore());
+		garminConnectConnector.authorize(buildCredentials());
+	}
+
+	@After
+	public void tearDown() {
+		httpTransport.close();
+		fakeServer.close();
+
+		FakeGarminConnectServer.clearSystemProperties();
+		System.clearProperty(ACCOUNT_PERMITS_PROPERTY);
+		System.clearProperty(ACCOUNT_BURST_PROPERTY);
+		RateLimiters.setConnectorRateLimiter(Connectors.GARMIN_CONNECT, new TokenBucketRateLimiter(
+				connectorsConfiguration.getGarminConnectRateLimitPermitsPerSecond(), connectorsConfiguration.getGarminConnectRateLimitBurst()));
+	}
+
+	@Test
+	public void getActivitiesWhenConcurrentLoadThenAllSucceeded() throws Exception {
+		GarminAPIHandler apiHandler = garminConnectConnector.getAPIHandler();
+
+		LoadDriver.LoadReport report = new LoadDriver(8, 1000).run(iteration -> {
+			JsonArray activities = apiHandler.getActivities(iteration * PAGE_SIZE % ACTIVITIES_COUNT, PAGE_SIZE);
+
+			if (activities.size() != PAGE_SIZE) {
+				throw new IllegalStateException("Unexpected page size = " + activities.size() + ".");
+			}
+		});
+
+		LOG.info("Load report = {}.", report);
+
+		assertTrue(report.getRequests() > 0);
+		assertEquals(0, report.getErrors());
+		assertEquals(1, fakeServer.getLoginCount());
+	}
+
+	@Test
+	public void getActivitiesWhenSessionExpiredThenReauthorized() {
+		fakeServer.expireSessions();
+
+		JsonArray activities = garminConnectConnector.getAPIHandler().getActivities(0, PAGE_SIZE);
+
+		assertEquals(PAGE_SIZE, activities.size());
+		assertEquals(2, fakeServer.getLoginCount());
+	}
+
+	@Test
+	public void getActivitiesWhenServerFailsThenRetriedAndException() {
+		fakeServer.setErrorRate(1.0);
+
+		expectedException.expect(ConnectorException.class);
+
+		try {
+			garminConnectConnector.getAPIHandler().getActivities(0, PAGE_SIZE);
+		} finally {
+			assertEquals(connectorsConfiguration.getHttpRetryMaxAttempts(), fakeServer.getFailedCount());
+		}
+	}
+
+	@Test
+	public void getActivitiesWhenThrottledThenRetriedAfterRetryAfter() {
+		fakeServer.setMaxRequestsPerSecond(1);
+
+		GarminAPIHandler apiHandler = garminConnectConnector.getAPIHandler();
+		apiHandler.getActivities(0, PAGE_SIZE);
+
+		JsonArray activities = apiHandler.getActivities(PAGE_SIZE, PAGE_SIZE);
+
+		assertEquals(PAGE_SIZE, activities.size());
+		assertEquals(1, fakeServer.getThrottledCount());
+	}
+
+	private GarminConnectCredentials buildCredentials() {
+		GarminConnectCredentials credentials = new GarminConnectCredentials();
+		credentials.setUsername(USERNAME);
+		credentials.setPassword(PASSWORD);
+		return credentials;
+	}
+}
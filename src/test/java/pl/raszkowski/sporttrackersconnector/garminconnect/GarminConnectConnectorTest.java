@@ -0,0 +1,163 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Credentials;
+import pl.raszkowski.sporttrackersconnector.garminconnect.exception.GarminConnectAuthorizationException;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.GarminConnectSession;
+import pl.raszkowski.sporttrackersconnector.garminconnect.session.SessionStore;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GarminConnectConnectorTest {
+
+	private static final String USERNAME_VALUE = "username_value";
+
+	@Mock
+	private Authorizer authorizer;
+
+	@Mock
+	private SessionStore sessionStore;
+
+	@InjectMocks
+	private GarminConnectConnector garminConnectConnector;
+
+	private GarminConnectCredentials credentials;
+
+	@Before
+	public void setUp() {
+		garminConnectConnector = new GarminConnectConnector(mock(HttpTransport.class), mock(SessionStore.class));
+
+		MockitoAnnotations.initMocks(this);
+
+		credentials = new GarminConnectCredentials();
+		credentials.setUsername(USERNAME_VALUE);
+		credentials.setPassword("password_value");
+
+		when(authorizer.isNotAuthorized()).thenReturn(false);
+		when(authorizer.getTicket()).thenReturn("ticket_value");
+	}
+
+	@Test
+	public void authorizeWhenValidStoredSessionThenNoLogin() {
+		when(sessionStore.load(USERNAME_VALUE)).thenReturn(Optional.of(createSession()));
+		when(authorizer.isSessionValid(credentials)).thenReturn(true);
+
+		garminConnectConnector.authorize(credentials);
+
+		verify(authorizer, never()).authorize(any(GarminConnectCredentials.class));
+		verify(sessionStore, never()).save(any(GarminConnectSession.class));
+	}
+
+	@Test
+	public void authorizeWhenStoredSessionRejectedThenLoginAndSave() {
+		when(sessionStore.load(USERNAME_VALUE)).thenReturn(Optional.of(createSession()));
+		when(authorizer.isSessionValid(credentials)).thenReturn(false);
+
+		garminConnectConnector.authorize(credentials);
+
+		verify(sessionStore).remove(USERNAME_VALUE);
+		verify(authorizer).authorize(credentials);
+		verify(sessionStore).save(any(GarminConnectSession.class));
+	}
+
+	@Test
+	public void authorizeWhenStoredSessionOfOtherPasswordThenSessionNotRestored() {
+		when(sessionStore.load(USERNAME_VALUE)).thenReturn(Optional.of(createSession()));
+		when(authorizer.isNotAuthorized()).thenReturn(true);
+
+		GarminConnectCredentials wrongCredentials = new GarminConnectCredentials();
+		wrongCredentials.setUsername(USERNAME_VALUE);
+		wrongCredentials.setPassword("wrong_password_value");
+
+		try {
+			garminConnectConnector.authorize(wrongCredentials);
+		} catch (GarminConnectAuthorizationException e) {
+			verify(authorizer, never()).isSessionValid(any(GarminConnectCredentials.class));
+			verify(authorizer).authorize(wrongCredentials);
+			verify(sessionStore, never()).remove(USERNAME_VALUE);
+			verify(sessionStore, never()).save(any(GarminConnectSession.class));
+			return;
+		}
+
+		throw new AssertionError("Expected GarminConnectAuthorizationException.");
+	}
+
+	@Test
+	public void authorizeWhenNoStoredSessionThenLoginAndSave() {
+		when(sessionStore.load(USERNAME_VALUE)).thenReturn(Optional.empty());
+
+		garminConnectConnector.authorize(credentials);
+
+		ArgumentCaptor<GarminConnectSession> session = ArgumentCaptor.forClass(GarminConnectSession.class);
+
+		verify(authorizer, never()).isSessionValid(any(GarminConnectCredentials.class));
+		verify(authorizer).authorize(credentials);
+		verify(sessionStore).save(session.capture());
+		assertEquals(USERNAME_VALUE, session.getValue().getUsername());
+		assertEquals("ticket_value", session.getValue().getTicket());
+		assertTrue(GarminConnectConnector.isSessionOf(session.getValue(), credentials));
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void authorizeWhenCredentialsOfOtherBackendThenConnectorException() {
+		garminConnectConnector.authorize((Credentials) () -> USERNAME_VALUE);
+	}
+
+	@Test(expected = GarminConnectAuthorizationException.class)
+	public void reauthorizeWhenNeverAuthorizedThenException() {
+		garminConnectConnector.reauthorize();
+	}
+
+	@Test
+	public void reauthorizeWhenAuthorizedThenStoredSessionDroppedAndLoginRepeated() {
+		when(sessionStore.load(USERNAME_VALUE)).thenReturn(Optional.empty());
+		garminConnectConnector.authorize(credentials);
+
+		garminConnectConnector.reauthorize();
+
+		verify(sessionStore).remove(USERNAME_VALUE);
+		verify(authorizer, times(2)).authorize(credentials);
+	}
+
+	private GarminConnectSession createSession() {
+		GarminConnectSession session = new GarminConnectSession();
+		session.setUsername(USERNAME_VALUE);
+		session.setCookies(Collections.singletonList(new BasicClientCookie("SESSIONID", "abc")));
+		GarminConnectConnector.bindSession(session, credentials);
+		return session;
+	}
+}
@@ -59,4 +59,11 @@ public class GarminConnectRESTResolverTest {
 
 		assertEquals(PREFIX + SERVICE + "/json/" + RESOURCE, result);
 	}
+
+	@Test
+	public void getFileService() {
+		String result = garminConnectRESTResolver.getFileService(SERVICE, RESOURCE);
+
+		assertEquals(PREFIX + SERVICE + "/" + RESOURCE, result);
+	}
 }
\ No newline at end of file
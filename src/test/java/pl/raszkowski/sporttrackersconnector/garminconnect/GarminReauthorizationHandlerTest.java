@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GarminReauthorizationHandlerTest {
+
+	@Mock(answer = Answers.RETURNS_DEEP_STUBS)
+	private HttpResponse response;
+
+	@Mock
+	private ConnectorsConfiguration connectorsConfiguration;
+
+	@InjectMocks
+	private GarminReauthorizationHandler garminReauthorizationHandler;
+
+	@Before
+	public void setUp() {
+		garminReauthorizationHandler = new GarminReauthorizationHandler(mock(GarminConnectConnector.class));
+
+		MockitoAnnotations.initMocks(this);
+
+		when(connectorsConfiguration.getGarminConnectSSOLoginURI()).thenReturn("https://sso.garmin.com/sso/login");
+	}
+
+	@Test
+	public void isAuthorizationExpiredWhenUnauthorizedThenTrue() {
+		when(response.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_UNAUTHORIZED);
+
+		assertTrue(garminReauthorizationHandler.isAuthorizationExpired(response));
+	}
+
+	@Test
+	public void isAuthorizationExpiredWhenForbiddenThenTrue() {
+		when(response.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_FORBIDDEN);
+
+		assertTrue(garminReauthorizationHandler.isAuthorizationExpired(response));
+	}
+
+	@Test
+	public void isAuthorizationExpiredWhenRedirectToSSOThenTrue() {
+		when(response.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_MOVED_TEMPORARILY);
+		when(response.getFirstHeader("Location").getValue()).thenReturn("https://sso.garmin.com/sso/login?service=x");
+
+		assertTrue(garminReauthorizationHandler.isAuthorizationExpired(response));
+	}
+
+	@Test
+	public void isAuthorizationExpiredWhenRedirectElsewhereThenFalse() {
+		when(response.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_MOVED_TEMPORARILY);
+		when(response.getFirstHeader("Location").getValue()).thenReturn("https://connect.garmin.com/modern/");
+
+		assertFalse(garminReauthorizationHandler.isAuthorizationExpired(response));
+	}
+
+	@Test
+	public void isAuthorizationExpiredWhenServerErrorThenFalse() {
+		when(response.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_BAD_GATEWAY);
+
+		assertFalse(garminReauthorizationHandler.isAuthorizationExpired(response));
+	}
+}
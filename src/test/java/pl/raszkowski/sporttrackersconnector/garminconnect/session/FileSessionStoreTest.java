@@ -0,0 +1,170 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.garminconnect.session;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.cookie.ClientCookie;
+import org.apache.http.cookie.Cookie;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class FileSessionStoreTest {
+
+	private static final String USERNAME = "username_value";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	private FileSessionStore fileSessionStore;
+
+	@Before
+	public void setUp() {
+		directory = temporaryFolder.getRoot().toPath().resolve("sessions");
+
+		fileSessionStore = new FileSessionStore(directory);
+	}
+
+	@Test
+	public void loadWhenNoFileThenEmpty() {
+		assertFalse(fileSessionStore.load(USERNAME).isPresent());
+	}
+
+	@Test
+	public void saveThenLoadSameSession() {
+		BasicClientCookie sessionCookie = new BasicClientCookie("SESSIONID", "abc");
+		sessionCookie.setDomain("connect.garmin.com");
+		sessionCookie.setPath("/");
+		sessionCookie.setSecure(true);
+		sessionCookie.setAttribute(ClientCookie.DOMAIN_ATTR, ".garmin.com");
+
+		BasicClientCookie persistentCookie = new BasicClientCookie("GARMIN-SSO", "1");
+		persistentCookie.setDomain("garmin.com");
+		persistentCookie.setExpiryDate(new Date(System.currentTimeMillis() + 60000));
+
+		fileSessionStore.save(createSession(sessionCookie, persistentCookie));
+
+		Optional<GarminConnectSession> session = fileSessionStore.load(USERNAME);
+
+		assertTrue(session.isPresent());
+		assertEquals(USERNAME, session.get().getUsername());
+		assertEquals("ticket_value", session.get().getTicket());
+		assertEquals("salt_value", session.get().getCredentialsSalt());
+		assertEquals("hash_value", session.get().getCredentialsHash());
+		assertEquals(2, session.get().getCookies().size());
+
+		ClientCookie cookie = (ClientCookie) session.get().getCookies().get(0);
+		assertEquals("SESSIONID", cookie.getName());
+		assertEquals("abc", cookie.getValue());
+		assertEquals("connect.garmin.com", cookie.getDomain());
+		assertEquals("/", cookie.getPath());
+		assertTrue(cookie.isSecure());
+		assertEquals(".garmin.com", cookie.getAttribute(ClientCookie.DOMAIN_ATTR));
+		assertEquals(persistentCookie.getExpiryDate(), session.get().getCookies().get(1).getExpiryDate());
+	}
+
+	@Test
+	public void saveThenFileNamedWithUsernameHash() {
+		fileSessionStore.save(createSession());
+
+		assertTrue(Files.exists(directory.resolve(DigestUtils.sha256Hex(USERNAME) + ".json")));
+	}
+
+	@Test
+	public void saveThenUsernameNotWrittenToFile() throws IOException {
+		fileSessionStore.save(createSession());
+
+		String content = new String(Files.readAllBytes(directory.resolve(DigestUtils.sha256Hex(USERNAME) + ".json")), StandardCharsets.UTF_8);
+
+		assertFalse(content.contains(USERNAME));
+	}
+
+	@Test
+	public void saveWhenPosixFileSystemThenFileReadableOnlyByOwner() throws IOException {
+		assumeTrue(temporaryFolder.getRoot().toPath().getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+		fileSessionStore.save(createSession());
+
+		Path sessionFile = directory.resolve(DigestUtils.sha256Hex(USERNAME) + ".json");
+		assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(sessionFile)));
+	}
+
+	@Test
+	public void saveWhenSessionSavedTwiceThenNoTemporaryFilesLeft() throws IOException {
+		fileSessionStore.save(createSession());
+		fileSessionStore.save(createSession());
+
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	@Test
+	public void loadWhenCookieExpiredThenCookieDropped() {
+		BasicClientCookie expiredCookie = new BasicClientCookie("EXPIRED", "1");
+		expiredCookie.setExpiryDate(new Date(System.currentTimeMillis() - 60000));
+
+		fileSessionStore.save(createSession(expiredCookie));
+
+		assertEquals(0, fileSessionStore.load(USERNAME).get().getCookies().size());
+	}
+
+	@Test
+	public void loadWhenCorruptedFileThenEmpty() throws IOException {
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(DigestUtils.sha256Hex(USERNAME) + ".json"), "{ cookies : 12".getBytes(StandardCharsets.UTF_8));
+
+		assertFalse(fileSessionStore.load(USERNAME).isPresent());
+	}
+
+	@Test
+	public void removeThenEmpty() {
+		fileSessionStore.save(createSession());
+
+		fileSessionStore.remove(USERNAME);
+
+		assertFalse(fileSessionStore.load(USERNAME).isPresent());
+	}
+
+	private GarminConnectSession createSession(Cookie... cookies) {
+		GarminConnectSession session = new GarminConnectSession();
+		session.setUsername(USERNAME);
+		session.setTicket("ticket_value");
+		session.setCredentialsSalt("salt_value");
+		session.setCredentialsHash("hash_value");
+		session.setCookies(Arrays.asList(cookies));
+		return session;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.http;
+
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HttpTransportTest {
+
+	private static final int MAX_TOTAL = 300;
+	private static final int MAX_PER_ROUTE = 70;
+
+	@Mock
+	private ConnectorsConfiguration connectorsConfiguration;
+
+	private HttpTransport httpTransport;
+
+	@Before
+	public void setUp() {
+		doReturn(MAX_TOTAL).when(connectorsConfiguration).getHttpPoolMaxTotal();
+		doReturn(MAX_PER_ROUTE).when(connectorsConfiguration).getHttpPoolMaxPerRoute();
+		doReturn(1000L).when(connectorsConfiguration).getHttpKeepAliveMillis();
+		doReturn(1000L).when(connectorsConfiguration).getHttpIdleEvictionMillis();
+		doReturn(1000).when(connectorsConfiguration).getHttpConnectTimeoutMillis();
+		doReturn(1000).when(connectorsConfiguration).getHttpSocketTimeoutMillis();
+		doReturn(1000).when(connectorsConfiguration).getHttpConnectionRequestTimeoutMillis();
+
+		httpTransport = new HttpTransport(connectorsConfiguration);
+	}
+
+	@After
+	public void tearDown() {
+		httpTransport.close();
+	}
+
+	@Test
+	public void constructorThenPoolConfigured() {
+		assertEquals(MAX_TOTAL, httpTransport.getConnectionManager().getMaxTotal());
+		assertEquals(MAX_PER_ROUTE, httpTransport.getConnectionManager().getDefaultMaxPerRoute());
+	}
+
+	@Test
+	public void createHttpClientThenNewClientPerCookieStore() {
+		CloseableHttpClient httpClient1 = httpTransport.createHttpClient(new BasicCookieStore());
+		CloseableHttpClient httpClient2 = httpTransport.createHttpClient(new BasicCookieStore());
+
+		assertNotNull(httpClient1);
+		assertNotNull(httpClient2);
+		assertNotSame(httpClient1, httpClient2);
+	}
+
+	@Test
+	public void getDefaultThenSameInstance() {
+		assertEquals(HttpTransport.getDefault(), HttpTransport.getDefault());
+	}
+}
@@ -15,6 +15,11 @@
  */
 package pl.raszkowski.sporttrackersconnector.json;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -25,7 +30,9 @@ import pl.raszkowski.sporttrackersconnector.ConnectorException;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -64,4 +71,79 @@ public class ResponseJsonParserTest {
 
 		assertNotNull(result);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void readArrayElementsGivenRootArray() throws IOException {
+		List<JsonElement> elements = new ArrayList<>();
+
+		responseJsonParser.readArrayElements(new StringReader("[ 100, 500, 300 ]"), elements::add);
+
+		assertEquals(3, elements.size());
+		assertEquals(500, elements.get(1).getAsInt());
+	}
+
+	@Test
+	public void readArrayElementsGivenNestedArray() throws IOException {
+		List<JsonElement> elements = new ArrayList<>();
+
+		responseJsonParser.readArrayElements(new StringReader("{ a : 1, b : { skipped : [1, 2], c : [{ x : 1 }, { x : 2 }] } }"), elements::add, "b", "c");
+
+		assertEquals(2, elements.size());
+		assertEquals(2, elements.get(1).getAsJsonObject().get("x").getAsInt());
+	}
+
+	@Test
+	public void readArrayElementsWhenPathNotFound() throws IOException {
+		List<JsonElement> elements = new ArrayList<>();
+
+		responseJsonParser.readArrayElements(new StringReader("{ a : { b : 1 } }"), elements::add, "a", "c");
+
+		assertEquals(0, elements.size());
+	}
+
+	@Test
+	public void readArrayElementsGivenNotJson() throws IOException {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot parse given Json!.");
+
+		responseJsonParser.readArrayElements(new StringReader("[ 1, {{ "), element -> {});
+	}
+
+	@Test
+	public void readArrayElementsWhenContentEmptyThenNothingRead() throws IOException {
+		List<JsonElement> elements = new ArrayList<>();
+
+		responseJsonParser.readArrayElements(new StringReader(""), elements::add, "results");
+
+		assertEquals(0, elements.size());
+	}
+
+	@Test
+	public void readArrayWhenArrayTruncatedThenConnectorException() throws IOException {
+		List<Integer> elements = new ArrayList<>();
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot parse given Json!.");
+
+		responseJsonParser.readArray(new StringReader("{ results : [ 100, 500, 3"), jsonReader -> elements.add(jsonReader.nextInt()), "results");
+	}
+
+	@Test
+	public void readArrayWhenUnexpectedTokenThenConnectorException() throws IOException {
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Cannot parse given Json!.");
+
+		responseJsonParser.readArray(new StringReader("{ results : [ 100, \"text\" ] }"), JsonReader::beginObject, "results");
+	}
+
+	@Test
+	public void readArrayWhenHandlerThrowsIllegalStateExceptionThenPropagatedUnchanged() throws IOException {
+		expectedException.expect(IllegalStateException.class);
+		expectedException.expectMessage("Consumer failure.");
+
+		responseJsonParser.readArray(new StringReader("{ results : [ 100 ] }"), jsonReader -> {
+			jsonReader.nextInt();
+			throw new IllegalStateException("Consumer failure.");
+		}, "results");
+	}
+}
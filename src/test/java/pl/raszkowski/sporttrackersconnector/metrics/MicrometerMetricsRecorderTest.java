@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.Assert.assertEquals;
+
+public class MicrometerMetricsRecorderTest {
+
+	private static final String CONNECTOR = "garminconnect";
+	private static final String SERVICE = "service";
+	private static final String RESOURCE = "resource";
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private MicrometerMetricsRecorder metricsRecorder;
+
+	@Before
+	public void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		metricsRecorder = new MicrometerMetricsRecorder(meterRegistry, CONNECTOR);
+	}
+
+	@Test
+	public void recordRequestThenTimerTaggedWithStatus() {
+		metricsRecorder.recordRequest(SERVICE, RESOURCE, 200, TimeUnit.MILLISECONDS.toNanos(10));
+		metricsRecorder.recordRequest(SERVICE, RESOURCE, 200, TimeUnit.MILLISECONDS.toNanos(30));
+		metricsRecorder.recordRequest(SERVICE, RESOURCE, 503, TimeUnit.MILLISECONDS.toNanos(5));
+
+		Timer okTimer = meterRegistry.get(MicrometerMetricsRecorder.REQUESTS_METER)
+				.tag("connector", CONNECTOR)
+				.tag("service", SERVICE)
+				.tag("resource", RESOURCE)
+				.tag("status", "200")
+				.timer();
+
+		assertEquals(2, okTimer.count());
+		assertEquals(40, okTimer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+		assertEquals(1, meterRegistry.get(MicrometerMetricsRecorder.REQUESTS_METER).tag("status", "503").timer().count());
+	}
+
+	@Test
+	public void recordRequestWhenNoResponseThenStatusNone() {
+		metricsRecorder.recordRequest(SERVICE, RESOURCE, MetricsRecorder.NO_RESPONSE_STATUS_CODE, 1);
+
+		assertEquals(1, meterRegistry.get(MicrometerMetricsRecorder.REQUESTS_METER).tag("status", "NONE").timer().count());
+	}
+
+	@Test
+	public void recordBytesRetriesAndAuthorizations() {
+		metricsRecorder.recordBytesReceived(SERVICE, RESOURCE, 100);
+		metricsRecorder.recordBytesReceived(SERVICE, RESOURCE, 50);
+		metricsRecorder.recordRetry(SERVICE, RESOURCE);
+		metricsRecorder.recordPoolLeaseWait(1);
+		metricsRecorder.recordAuthorization(false, 1);
+
+		assertEquals(150, meterRegistry.get(MicrometerMetricsRecorder.RESPONSE_BYTES_METER).summary().totalAmount(), 0.001);
+		assertEquals(1, meterRegistry.get(MicrometerMetricsRecorder.RETRIES_METER).counter().count(), 0.001);
+		assertEquals(1, meterRegistry.get(MicrometerMetricsRecorder.POOL_LEASE_WAIT_METER).tag("connector", CONNECTOR).timer().count());
+		assertEquals(1, meterRegistry.get(MicrometerMetricsRecorder.AUTHORIZATIONS_METER).tag("outcome", "FAILURE").timer().count());
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketRateLimiterTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private AtomicLong clock = new AtomicLong(SECOND);
+
+	private TokenBucketRateLimiter rateLimiter;
+
+	@Before
+	public void setUp() {
+		rateLimiter = new TokenBucketRateLimiter(10, 2, clock::get);
+	}
+
+	@Test
+	public void reserveWhenBurstAvailableThenNoWait() {
+		assertEquals(0, rateLimiter.reserve());
+		assertEquals(0, rateLimiter.reserve());
+	}
+
+	@Test
+	public void reserveWhenBurstExhaustedThenWaitForRate() {
+		rateLimiter.reserve();
+		rateLimiter.reserve();
+
+		assertEquals(0, rateLimiter.reserve());
+		assertEquals(SECOND / 10, rateLimiter.reserve());
+		assertEquals(2 * SECOND / 10, rateLimiter.reserve());
+	}
+
+	@Test
+	public void reserveWhenIdleThenBurstRefilled() {
+		for (int i = 0; i < 5; i++) {
+			rateLimiter.reserve();
+		}
+
+		clock.addAndGet(10 * SECOND);
+
+		assertEquals(0, rateLimiter.reserve());
+		assertEquals(0, rateLimiter.reserve());
+		assertEquals(0, rateLimiter.reserve());
+		assertEquals(SECOND / 10, rateLimiter.reserve());
+	}
+
+	@Test
+	public void onThrottledThenPausedAndRateHalved() {
+		rateLimiter.onThrottled(2000);
+
+		assertEquals(5.0, rateLimiter.getPermitsPerSecond(), 0.001);
+		assertEquals(2 * SECOND, rateLimiter.reserve());
+		assertEquals(2 * SECOND + SECOND / 5, rateLimiter.reserve());
+	}
+
+	@Test
+	public void onThrottledManyTimesThenRateNotBelowMinimum() {
+		for (int i = 0; i < 20; i++) {
+			rateLimiter.onThrottled(0);
+		}
+
+		assertEquals(0.5, rateLimiter.getPermitsPerSecond(), 0.001);
+	}
+
+	@Test
+	public void onSuccessThenRateRecoversUpToConfigured() {
+		rateLimiter.onThrottled(0);
+
+		for (int i = 0; i < 10; i++) {
+			rateLimiter.onSuccess();
+		}
+		assertEquals(6.0, rateLimiter.getPermitsPerSecond(), 0.001);
+
+		for (int i = 0; i < 100; i++) {
+			rateLimiter.onSuccess();
+		}
+		assertEquals(10.0, rateLimiter.getPermitsPerSecond(), 0.001);
+	}
+}
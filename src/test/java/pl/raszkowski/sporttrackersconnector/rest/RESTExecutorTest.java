@@ -16,29 +16,64 @@
 package pl.raszkowski.sporttrackersconnector.rest;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.protocol.HttpContext;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiter;
+import pl.raszkowski.sporttrackersconnector.rest.cache.LruResponseCache;
+import pl.raszkowski.sporttrackersconnector.rest.cache.ResponseCachePolicy;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class RESTExecutorTest {
@@ -49,6 +84,10 @@ public class RESTExecutorTest {
 
 	private HttpClient httpClient;
 
+	private HttpAsyncClient httpAsyncClient;
+
+	private RESTExecutor asyncRESTExecutor;
+
 	@Mock(answer = Answers.RETURNS_DEEP_STUBS)
 	private HttpResponse httpResponse;
 
@@ -69,6 +108,21 @@ public class RESTExecutorTest {
 			}
 		};
 
+		httpAsyncClient = mock(HttpAsyncClient.class);
+
+		asyncRESTExecutor = new RESTExecutor(httpClient, httpAsyncClient, new BasicCookieStore()) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return service + "/" + resource;
+			}
+		};
+
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setInitialBackoffMillis(1);
+		retryPolicy.setMaxBackoffMillis(1);
+		restExecutor.setRetryPolicy(retryPolicy);
+		asyncRESTExecutor.setRetryPolicy(retryPolicy);
+
 		MockitoAnnotations.initMocks(this);
 	}
 
@@ -104,4 +158,728 @@ public class RESTExecutorTest {
 
 		assertEquals(RESPONSE_CONTENT, result);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void executeGETGivenContentReader() throws IOException {
+		doReturn(httpResponse).when(httpClient).execute(any(HttpGet.class));
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+		when(httpResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(httpResponse.getEntity().getContentType()).thenReturn(null);
+
+		Integer result = restExecutor.executeGET(SERVICE, RESOURCE, new GetParameters(), (content, charset) -> IOUtils.toString(content, charset).length());
+
+		assertEquals(RESPONSE_CONTENT.length(), result.intValue());
+	}
+
+	@Test
+	public void executeGETGivenContentReaderWhenCannotRead() throws IOException {
+		doReturn(httpResponse).when(httpClient).execute(any(HttpGet.class));
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+		when(httpResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(httpResponse.getEntity().getContentType()).thenReturn(null);
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Unable to read response content for URI = " + SERVICE + "/" + RESOURCE);
+
+		restExecutor.executeGET(SERVICE, RESOURCE, new GetParameters(), (content, charset) -> {
+			throw new IOException();
+		});
+	}
+
+	@Test
+	public void executeGETAsyncWhenAsyncNotConfigured() throws InterruptedException {
+		RESTExecutor syncRESTExecutor = new RESTExecutor(httpClient) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return service + "/" + resource;
+			}
+		};
+
+		CompletableFuture<String> result = syncRESTExecutor.executeGETAsync(SERVICE, RESOURCE);
+
+		assertFailedWith(result, "Asynchronous execution is not configured for this executor!");
+	}
+
+	@Test
+	public void executeGETAsyncWhenCannotExecuteRequest() throws InterruptedException {
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			callback.failed(new IOException());
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+
+		CompletableFuture<String> result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE);
+
+		assertFailedWith(result, "Unable to execute request!");
+	}
+
+	@Test
+	public void executeGETAsyncWhenResponseNotOK() throws InterruptedException {
+		mockAsyncResponse();
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_BAD_GATEWAY);
+
+		CompletableFuture<String> result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE);
+
+		assertFailedWith(result, "Wrong response status code = 502, expected = 200, for URI = " + SERVICE + "/" + RESOURCE + ".");
+	}
+
+	@Test
+	public void executeGETAsyncWhenCorrectRequest() throws IOException, InterruptedException, ExecutionException {
+		mockAsyncResponse();
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+		when(httpResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(httpResponse.getEntity().getContentType()).thenReturn(null);
+
+		String result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get();
+
+		assertEquals(RESPONSE_CONTENT, result);
+	}
+
+	@Test
+	public void executeGETWhenAuthorizationExpiredThenReauthorizedAndReplayed() throws IOException {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		restExecutor.setReauthorizationHandler(reauthorizationHandler);
+		mockSessionDependentResponses(reauthorizationHandler);
+
+		String result = restExecutor.executeGET(SERVICE, RESOURCE);
+
+		assertEquals(RESPONSE_CONTENT, result);
+		assertEquals(1, reauthorizationHandler.reauthorizations.get());
+	}
+
+	@Test
+	public void executeGETWhenAuthorizationStillExpiredAfterReauthorizationThenReplayedOnce() throws IOException {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		reauthorizationHandler.renewsSession = false;
+		restExecutor.setReauthorizationHandler(reauthorizationHandler);
+		mockSessionDependentResponses(reauthorizationHandler);
+
+		try {
+			restExecutor.executeGET(SERVICE, RESOURCE);
+		} catch (ConnectorException e) {
+			assertEquals("Wrong response status code = 401, expected = 200, for URI = " + SERVICE + "/" + RESOURCE + ".", e.getMessage());
+			assertEquals(1, reauthorizationHandler.reauthorizations.get());
+			return;
+		}
+
+		throw new AssertionError("Expected ConnectorException.");
+	}
+
+	@Test
+	public void executeGETWhenReauthorizationFailsThenException() throws IOException {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		reauthorizationHandler.failure = new ConnectorException("Login failed.");
+		restExecutor.setReauthorizationHandler(reauthorizationHandler);
+		mockSessionDependentResponses(reauthorizationHandler);
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Login failed.");
+
+		restExecutor.executeGET(SERVICE, RESOURCE);
+	}
+
+	@Test
+	public void executeGETWhenConcurrentRequestsHitExpiredSessionThenSingleReauthorization() throws Exception {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		reauthorizationHandler.loginLatch = new CountDownLatch(1);
+		restExecutor.setReauthorizationHandler(reauthorizationHandler);
+		mockSessionDependentResponses(reauthorizationHandler);
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executorService.submit(() -> restExecutor.executeGET(SERVICE, RESOURCE)));
+			}
+
+			while (reauthorizationHandler.expiredResponses.get() < 4) {
+				Thread.sleep(5);
+			}
+			reauthorizationHandler.loginLatch.countDown();
+
+			for (Future<String> result : results) {
+				assertEquals(RESPONSE_CONTENT, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		assertEquals(1, reauthorizationHandler.reauthorizations.get());
+	}
+
+	@Test
+	public void executeGETAsyncWhenAuthorizationExpiredThenReauthorizedAndReplayed() throws Exception {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		asyncRESTExecutor.setReauthorizationHandler(reauthorizationHandler);
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			callback.completed(reauthorizationHandler.nextResponse());
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+
+		String result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS);
+
+		assertEquals(RESPONSE_CONTENT, result);
+		assertEquals(1, reauthorizationHandler.reauthorizations.get());
+		assertFalse(reauthorizationHandler.expired.get());
+		assertTrue(reauthorizationHandler.reauthorizationThread.startsWith("rest-executor-reauthorization-"));
+	}
+
+	@Test
+	public void executeGETAsyncWhenReauthorizedOnLaterAttemptThenReplayKeepsRetryBudget() throws Exception {
+		TestReauthorizationHandler reauthorizationHandler = new TestReauthorizationHandler();
+		asyncRESTExecutor.setReauthorizationHandler(reauthorizationHandler);
+		RetryPolicy retryPolicy = new RetryPolicy();
+		retryPolicy.setInitialBackoffMillis(1);
+		retryPolicy.setMaxBackoffMillis(1);
+		retryPolicy.setMaxAttempts(3);
+		asyncRESTExecutor.setRetryPolicy(retryPolicy);
+		AtomicInteger requests = new AtomicInteger();
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			if (requests.incrementAndGet() == 2) {
+				callback.completed(reauthorizationHandler.nextResponse());
+			} else {
+				callback.failed(new SocketTimeoutException());
+			}
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+
+		try {
+			asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			assertEquals(1, reauthorizationHandler.reauthorizations.get());
+			assertEquals(4, requests.get());
+			return;
+		}
+
+		throw new AssertionError("Expected exceptional completion.");
+	}
+
+	@Test
+	public void executeGETWhenTooManyRequestsThenRateLimiterThrottledAndException() throws IOException {
+		RateLimiter rateLimiter = mock(RateLimiter.class);
+		restExecutor.setRateLimiters(Collections.singletonList(rateLimiter));
+		restExecutor.setRetryPolicy(RetryPolicy.noRetries());
+
+		doReturn(httpResponse).when(httpClient).execute(any(HttpGet.class));
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(429);
+		when(httpResponse.getFirstHeader("Retry-After").getValue()).thenReturn("7");
+
+		try {
+			restExecutor.executeGET(SERVICE, RESOURCE);
+		} catch (TooManyRequestsException e) {
+			assertEquals(7000, e.getRetryAfterMillis());
+			assertEquals("Too many requests, retry after = 7000 ms, for URI = " + SERVICE + "/" + RESOURCE + ".", e.getMessage());
+			verify(rateLimiter).reserve();
+			verify(rateLimiter).onThrottled(7000);
+			verify(rateLimiter, never()).onSuccess();
+			return;
+		}
+
+		throw new AssertionError("Expected TooManyRequestsException.");
+	}
+
+	@Test
+	public void executeGETWhenCorrectRequestThenRateLimiterNotified() throws IOException {
+		RateLimiter rateLimiter = mock(RateLimiter.class);
+		restExecutor.setRateLimiters(Collections.singletonList(rateLimiter));
+
+		doReturn(httpResponse).when(httpClient).execute(any(HttpGet.class));
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+		when(httpResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(httpResponse.getEntity().getContentType()).thenReturn(null);
+
+		restExecutor.executeGET(SERVICE, RESOURCE);
+
+		verify(rateLimiter).reserve();
+		verify(rateLimiter).onSuccess();
+	}
+
+	@Test
+	public void executeGETWhenHooksOverriddenThenRequestDecoratedAndThrottledResponseSeen() throws IOException {
+		List<HttpResponse> seenResponses = new ArrayList<>();
+		RESTExecutor hookedRESTExecutor = new RESTExecutor(httpClient) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return service + "/" + resource;
+			}
+
+			@Override
+			protected void beforeRequest(HttpRequest request) {
+				request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+			}
+
+			@Override
+			protected void afterResponse(HttpResponse response) {
+				seenResponses.add(response);
+			}
+		};
+		hookedRESTExecutor.setRetryPolicy(RetryPolicy.noRetries());
+
+		doReturn(httpResponse).when(httpClient).execute(any(HttpGet.class));
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(429);
+
+		try {
+			hookedRESTExecutor.executeGET(SERVICE, RESOURCE);
+		} catch (TooManyRequestsException e) {
+			ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+			verify(httpClient).execute(request.capture());
+			assertEquals("Bearer token", request.getValue().getFirstHeader(HttpHeaders.AUTHORIZATION).getValue());
+			assertEquals(Collections.singletonList(httpResponse), seenResponses);
+			return;
+		}
+
+		throw new AssertionError("Expected TooManyRequestsException.");
+	}
+
+	@Test
+	public void executeGETAsyncWhenAsyncHookFailsThenExceptionAndNoRequest() throws InterruptedException {
+		RESTExecutor hookedRESTExecutor = new RESTExecutor(httpClient, httpAsyncClient, new BasicCookieStore()) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return service + "/" + resource;
+			}
+
+			@Override
+			protected CompletableFuture<Void> beforeRequestAsync(HttpRequest request) {
+				CompletableFuture<Void> preparation = new CompletableFuture<>();
+				preparation.completeExceptionally(new ConnectorException("Cannot prepare request."));
+				return preparation;
+			}
+		};
+
+		CompletableFuture<String> result = hookedRESTExecutor.executeGETAsync(SERVICE, RESOURCE);
+
+		assertFailedWith(result, "Cannot prepare request.");
+		verify(httpAsyncClient, never()).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+	}
+
+	@Test
+	public void executeGETAsyncWhenResponseHookFailsThenExceptionalCompletion() throws Exception {
+		RESTExecutor hookedRESTExecutor = new RESTExecutor(httpClient, httpAsyncClient, new BasicCookieStore()) {
+			@Override
+			public String translateResourceToURI(String service, String resource) {
+				return service + "/" + resource;
+			}
+
+			@Override
+			protected void afterResponse(HttpResponse response) {
+				throw new IllegalStateException("Cannot read response headers.");
+			}
+		};
+		mockAsyncResponse();
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+
+		try {
+			hookedRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+			assertEquals("Cannot read response headers.", e.getCause().getMessage());
+			verify(httpResponse, atLeastOnce()).getEntity();
+			return;
+		}
+
+		throw new AssertionError("Expected exceptional completion.");
+	}
+
+	@Test
+	public void executeGETAsyncWhenRateLimitedThenDelayed() throws Exception {
+		RateLimiter rateLimiter = mock(RateLimiter.class);
+		when(rateLimiter.reserve()).thenReturn(TimeUnit.MILLISECONDS.toNanos(50));
+		asyncRESTExecutor.setRateLimiters(Collections.singletonList(rateLimiter));
+
+		mockAsyncResponse();
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(HttpStatus.SC_OK);
+		when(httpResponse.getEntity().getContent()).thenReturn(IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(httpResponse.getEntity().getContentType()).thenReturn(null);
+
+		long start = System.nanoTime();
+		String result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS);
+
+		assertEquals(RESPONSE_CONTENT, result);
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+	}
+
+	@Test
+	public void executeGETAsyncWhenTooManyRequestsThenException() throws InterruptedException {
+		asyncRESTExecutor.setRetryPolicy(RetryPolicy.noRetries());
+		mockAsyncResponse();
+		when(httpResponse.getStatusLine().getStatusCode()).thenReturn(429);
+		when(httpResponse.getFirstHeader("Retry-After")).thenReturn(null);
+
+		CompletableFuture<String> result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE);
+
+		assertFailedWith(result, "Too many requests, retry after = 1000 ms, for URI = " + SERVICE + "/" + RESOURCE + ".");
+	}
+
+	@Test
+	public void executeGETWhenTransientFailuresThenRetriedAndSucceeds() throws IOException {
+		HttpResponse serverErrorResponse = mockResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+
+		when(httpClient.execute(any(HttpGet.class)))
+				.thenThrow(new SocketTimeoutException())
+				.thenReturn(serverErrorResponse)
+				.thenReturn(okResponse);
+
+		String result = restExecutor.executeGET(SERVICE, RESOURCE);
+
+		assertEquals(RESPONSE_CONTENT, result);
+		assertEquals(2, restExecutor.getRetryCount());
+	}
+
+	@Test
+	public void executeGETWhenMaxAttemptsReachedThenLastFailure() throws IOException {
+		HttpResponse serverErrorResponse = mockResponse(HttpStatus.SC_BAD_GATEWAY);
+		doReturn(serverErrorResponse).when(httpClient).execute(any(HttpGet.class));
+
+		try {
+			restExecutor.executeGET(SERVICE, RESOURCE);
+		} catch (ResponseStatusException e) {
+			assertEquals(HttpStatus.SC_BAD_GATEWAY, e.getStatusCode());
+			assertEquals(2, restExecutor.getRetryCount());
+			verify(httpClient, times(3)).execute(any(HttpGet.class));
+			return;
+		}
+
+		throw new AssertionError("Expected ResponseStatusException.");
+	}
+
+	@Test
+	public void executeGETWhenClientErrorThenNotRetried() throws IOException {
+		HttpResponse notFoundResponse = mockResponse(HttpStatus.SC_NOT_FOUND);
+		doReturn(notFoundResponse).when(httpClient).execute(any(HttpGet.class));
+
+		try {
+			restExecutor.executeGET(SERVICE, RESOURCE);
+		} catch (ResponseStatusException e) {
+			assertEquals(0, restExecutor.getRetryCount());
+			return;
+		}
+
+		throw new AssertionError("Expected ResponseStatusException.");
+	}
+
+	@Test
+	public void executeGETAsyncWhenTransientFailureThenRetriedAndSucceeds() throws Exception {
+		AtomicInteger attempts = new AtomicInteger();
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			if (attempts.incrementAndGet() == 1) {
+				callback.failed(new SocketTimeoutException());
+			} else {
+				callback.completed(okResponse);
+			}
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+
+		String result = asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS);
+
+		assertEquals(RESPONSE_CONTENT, result);
+		assertEquals(1, asyncRESTExecutor.getRetryCount());
+	}
+
+	@Test
+	public void executeGETWhenCachedResponseFreshThenNoRequest() throws IOException {
+		restExecutor.setResponseCache(new LruResponseCache(10), cachePolicy(60000L));
+		doReturn(mockResponse(HttpStatus.SC_OK)).when(httpClient).execute(any(HttpGet.class));
+
+		assertEquals(RESPONSE_CONTENT, restExecutor.executeGET(SERVICE, RESOURCE));
+		assertEquals(RESPONSE_CONTENT, restExecutor.executeGET(SERVICE, RESOURCE, new GetParameters(), (content, charset) -> IOUtils.toString(content, charset)));
+
+		verify(httpClient, times(1)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void executeGETWhenCachedResponseStaleThenConditionalRequestAndNotModified() throws IOException {
+		restExecutor.setResponseCache(new LruResponseCache(10), cachePolicy(0L));
+
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+		when(okResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"v1\""));
+		HttpResponse notModifiedResponse = mockResponse(HttpStatus.SC_NOT_MODIFIED);
+		when(httpClient.execute(any(HttpGet.class))).thenReturn(okResponse, notModifiedResponse);
+
+		assertEquals(RESPONSE_CONTENT, restExecutor.executeGET(SERVICE, RESOURCE));
+		assertEquals(RESPONSE_CONTENT, restExecutor.executeGET(SERVICE, RESOURCE));
+
+		ArgumentCaptor<HttpGet> requests = ArgumentCaptor.forClass(HttpGet.class);
+		verify(httpClient, times(2)).execute(requests.capture());
+		assertNull(requests.getAllValues().get(0).getFirstHeader(HttpHeaders.IF_NONE_MATCH));
+		assertEquals("\"v1\"", requests.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+	}
+
+	@Test
+	public void executeGETWhenServiceNotCachedThenAlwaysRequested() throws IOException {
+		ResponseCachePolicy responseCachePolicy = cachePolicy(60000L);
+		responseCachePolicy.setServices(Collections.singletonList("otherService"));
+		restExecutor.setResponseCache(new LruResponseCache(10), responseCachePolicy);
+		doAnswer(invocation -> mockResponse(HttpStatus.SC_OK)).when(httpClient).execute(any(HttpGet.class));
+
+		restExecutor.executeGET(SERVICE, RESOURCE);
+		restExecutor.executeGET(SERVICE, RESOURCE);
+
+		verify(httpClient, times(2)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void executeGETWhenNoServicesCachedThenAlwaysRequested() throws IOException {
+		ResponseCachePolicy responseCachePolicy = cachePolicy(60000L);
+		responseCachePolicy.setServices(Collections.emptyList());
+		restExecutor.setResponseCache(new LruResponseCache(10), responseCachePolicy);
+		doAnswer(invocation -> mockResponse(HttpStatus.SC_OK)).when(httpClient).execute(any(HttpGet.class));
+
+		restExecutor.executeGET(SERVICE, RESOURCE);
+		restExecutor.executeGET(SERVICE, RESOURCE);
+
+		verify(httpClient, times(2)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void executeGETWhenOtherCacheNamespaceThenRequested() throws IOException {
+		restExecutor.setResponseCache(new LruResponseCache(10), cachePolicy(60000L));
+		doAnswer(invocation -> mockResponse(HttpStatus.SC_OK)).when(httpClient).execute(any(HttpGet.class));
+
+		for (String account : Arrays.asList("account1", "account2", "account1")) {
+			restExecutor.setCacheNamespace(account);
+			restExecutor.executeGET(SERVICE, RESOURCE);
+		}
+
+		verify(httpClient, times(2)).execute(any(HttpGet.class));
+	}
+
+	@Test
+	public void executeGETAsyncWhenCachedResponseFreshThenNoRequest() throws Exception {
+		asyncRESTExecutor.setResponseCache(new LruResponseCache(10), cachePolicy(60000L));
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			callback.completed(okResponse);
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+
+		assertEquals(RESPONSE_CONTENT, asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS));
+		assertEquals(RESPONSE_CONTENT, asyncRESTExecutor.executeGETAsync(SERVICE, RESOURCE).get(5, TimeUnit.SECONDS));
+
+		verify(httpAsyncClient, times(1)).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+	}
+
+	@Test
+	public void executeGETWhenConcurrentIdenticalRequestsAndCoalescingEnabledThenSingleRequest() throws Exception {
+		restExecutor.setRequestCoalescingEnabled(true);
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+
+		doAnswer(invocation -> {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (restExecutor.getCoalescedRequestCount() < 3 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+			return okResponse;
+		}).when(httpClient).execute(any(HttpGet.class));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(executorService.submit(() -> restExecutor.executeGET(SERVICE, RESOURCE)));
+			}
+
+			for (Future<String> result : results) {
+				assertEquals(RESPONSE_CONTENT, result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		verify(httpClient, times(1)).execute(any(HttpGet.class));
+		assertEquals(3, restExecutor.getCoalescedRequestCount());
+	}
+
+	@Test
+	public void executeGETWhenRetriedThenEveryAttemptRecorded() throws IOException {
+		TestMetricsRecorder metricsRecorder = new TestMetricsRecorder();
+		restExecutor.setMetricsRecorder(metricsRecorder);
+		HttpResponse serverErrorResponse = mockResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+
+		when(httpClient.execute(any(HttpGet.class)))
+				.thenThrow(new SocketTimeoutException())
+				.thenReturn(serverErrorResponse)
+				.thenReturn(okResponse);
+
+		restExecutor.executeGET(SERVICE, RESOURCE);
+
+		assertEquals(Arrays.asList(
+				SERVICE + "/" + RESOURCE + " " + MetricsRecorder.NO_RESPONSE_STATUS_CODE,
+				SERVICE + "/" + RESOURCE + " " + HttpStatus.SC_SERVICE_UNAVAILABLE,
+				SERVICE + "/" + RESOURCE + " " + HttpStatus.SC_OK), metricsRecorder.requests);
+		assertEquals(2, metricsRecorder.retries.get());
+		assertEquals(RESPONSE_CONTENT.length(), metricsRecorder.bytesReceived.get());
+	}
+
+	@Test
+	public void executeGETFileWhenMetricsResourceGivenThenRecordedInsteadOfResource() throws IOException {
+		TestMetricsRecorder metricsRecorder = new TestMetricsRecorder();
+		restExecutor.setMetricsRecorder(metricsRecorder);
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+		when(httpClient.execute(any(HttpGet.class))).thenReturn(okResponse);
+
+		restExecutor.executeGETFile(SERVICE, "activity/1234", "activity/{activityId}", new GetParameters(), 0, (content, charset) -> IOUtils.toString(content, charset));
+
+		ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+		verify(httpClient).execute(request.capture());
+		assertEquals(SERVICE + "/activity/1234", request.getValue().getURI().toString());
+		assertEquals(Collections.singletonList(SERVICE + "/activity/{activityId} " + HttpStatus.SC_OK), metricsRecorder.requests);
+	}
+
+	@Test
+	public void executeGETFileWhenOffsetGivenThenRangeRequestedAndPartialContentRead() throws IOException {
+		HttpResponse partialContentResponse = mockResponse(HttpStatus.SC_PARTIAL_CONTENT);
+		when(httpClient.execute(any(HttpGet.class))).thenReturn(partialContentResponse);
+
+		String result = restExecutor.executeGETFile(SERVICE, RESOURCE, new GetParameters(), 5, (content, charset) -> IOUtils.toString(content, charset));
+
+		ArgumentCaptor<HttpGet> request = ArgumentCaptor.forClass(HttpGet.class);
+		verify(httpClient).execute(request.capture());
+		assertEquals("bytes=5-", request.getValue().getFirstHeader(HttpHeaders.RANGE).getValue());
+		assertEquals(RESPONSE_CONTENT, result);
+	}
+
+	@Test
+	public void executeGETFileWhenRangeIgnoredThenBytesBeforeOffsetSkipped() throws IOException {
+		HttpResponse okResponse = mockResponse(HttpStatus.SC_OK);
+		when(httpClient.execute(any(HttpGet.class))).thenReturn(okResponse);
+
+		String result = restExecutor.executeGETFile(SERVICE, RESOURCE, new GetParameters(), 5, (content, charset) -> IOUtils.toString(content, charset));
+
+		assertEquals(RESPONSE_CONTENT.substring(5), result);
+	}
+
+	private static ResponseCachePolicy cachePolicy(long ttlMillis) {
+		ResponseCachePolicy responseCachePolicy = new ResponseCachePolicy();
+		responseCachePolicy.setTtlMillis(ttlMillis);
+		responseCachePolicy.setServices(Collections.singletonList(SERVICE));
+		return responseCachePolicy;
+	}
+
+	private void mockSessionDependentResponses(TestReauthorizationHandler reauthorizationHandler) throws IOException {
+		doAnswer(invocation -> reauthorizationHandler.nextResponse()).when(httpClient).execute(any(HttpGet.class));
+	}
+
+	private static HttpResponse mockResponse(int statusCode) throws IOException {
+		HttpResponse response = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+		when(response.getStatusLine().getStatusCode()).thenReturn(statusCode);
+		when(response.getEntity().getContent()).thenAnswer(invocation -> IOUtils.toInputStream(RESPONSE_CONTENT, "utf-8"));
+		when(response.getEntity().getContentType()).thenReturn(null);
+		return response;
+	}
+
+	private static class TestMetricsRecorder implements MetricsRecorder {
+
+		private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+		private final AtomicInteger retries = new AtomicInteger();
+
+		private final AtomicLong bytesReceived = new AtomicLong();
+
+		@Override
+		public void recordRequest(String service, String resource, int statusCode, long durationNanos) {
+			requests.add(service + "/" + resource + " " + statusCode);
+		}
+
+		@Override
+		public void recordBytesReceived(String service, String resource, long bytes) {
+			bytesReceived.addAndGet(bytes);
+		}
+
+		@Override
+		public void recordRetry(String service, String resource) {
+			retries.incrementAndGet();
+		}
+	}
+
+	private static class TestReauthorizationHandler implements ReauthorizationHandler {
+
+		private final AtomicBoolean expired = new AtomicBoolean(true);
+
+		private final AtomicInteger reauthorizations = new AtomicInteger();
+
+		private final AtomicInteger expiredResponses = new AtomicInteger();
+
+		private boolean renewsSession = true;
+
+		private RuntimeException failure;
+
+		private CountDownLatch loginLatch;
+
+		private volatile String reauthorizationThread;
+
+		private final HttpResponse expiredResponse;
+
+		private final HttpResponse okResponse;
+
+		TestReauthorizationHandler() throws IOException {
+			expiredResponse = mockResponse(HttpStatus.SC_UNAUTHORIZED);
+			okResponse = mockResponse(HttpStatus.SC_OK);
+		}
+
+		HttpResponse nextResponse() {
+			if (expired.get()) {
+				expiredResponses.incrementAndGet();
+				return expiredResponse;
+			}
+
+			return okResponse;
+		}
+
+		@Override
+		public boolean isAuthorizationExpired(HttpResponse response) {
+			return response.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED;
+		}
+
+		@Override
+		public void reauthorize() {
+			reauthorizations.incrementAndGet();
+			reauthorizationThread = Thread.currentThread().getName();
+
+			if (failure != null) {
+				throw failure;
+			}
+
+			if (loginLatch != null) {
+				try {
+					loginLatch.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			if (renewsSession) {
+				expired.set(false);
+			}
+		}
+	}
+
+	private void mockAsyncResponse() {
+		doAnswer(invocation -> {
+			FutureCallback<HttpResponse> callback = (FutureCallback<HttpResponse>) invocation.getArguments()[2];
+			callback.completed(httpResponse);
+			return null;
+		}).when(httpAsyncClient).execute(any(HttpGet.class), any(HttpContext.class), any(FutureCallback.class));
+	}
+
+	private void assertFailedWith(CompletableFuture<String> result, String message) throws InterruptedException {
+		try {
+			result.get();
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ConnectorException);
+			assertEquals(message, e.getCause().getMessage());
+			return;
+		}
+
+		throw new AssertionError("Expected exceptional completion.");
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+	private RetryPolicy retryPolicy;
+
+	@Before
+	public void setUp() {
+		retryPolicy = new RetryPolicy();
+		retryPolicy.setMaxAttempts(4);
+		retryPolicy.setInitialBackoffMillis(100);
+		retryPolicy.setMaxBackoffMillis(300);
+		retryPolicy.setDeadlineMillis(10000);
+	}
+
+	@Test
+	public void isRetryableThenTransientFailuresOnly() {
+		assertTrue(retryPolicy.isRetryable(new SocketException("Connection reset")));
+		assertTrue(retryPolicy.isRetryable(new IOException()));
+		assertTrue(retryPolicy.isRetryable(new ResponseStatusException("", 503)));
+		assertTrue(retryPolicy.isRetryable(new TooManyRequestsException("", 1000)));
+
+		assertFalse(retryPolicy.isRetryable(new UnknownHostException()));
+		assertFalse(retryPolicy.isRetryable(new ResponseStatusException("", 404)));
+		assertFalse(retryPolicy.isRetryable(new ConnectorException("Unable to read response content.")));
+	}
+
+	@Test
+	public void getBackoffMillisThenWithinExponentialCap() {
+		for (int i = 0; i < 100; i++) {
+			assertTrue(retryPolicy.getBackoffMillis(1) <= 100);
+			assertTrue(retryPolicy.getBackoffMillis(2) <= 200);
+			assertTrue(retryPolicy.getBackoffMillis(10) <= 300);
+			assertTrue(retryPolicy.getBackoffMillis(100) >= 0);
+		}
+	}
+
+	@Test
+	public void getRetryDelayMillisWhenMaxAttemptsReachedThenNoRetry() {
+		assertTrue(retryPolicy.getRetryDelayMillis(new IOException(), 3, 0) >= 0);
+		assertTrue(retryPolicy.getRetryDelayMillis(new IOException(), 4, 0) < 0);
+	}
+
+	@Test
+	public void getRetryDelayMillisWhenDeadlineExceededThenNoRetry() {
+		assertTrue(retryPolicy.getRetryDelayMillis(new IOException(), 1, 10001) < 0);
+	}
+
+	@Test
+	public void getRetryDelayMillisWhenTooManyRequestsThenAtLeastRetryAfter() {
+		assertEquals(5000, retryPolicy.getRetryDelayMillis(new TooManyRequestsException("", 5000), 1, 0));
+	}
+
+	@Test
+	public void getRetryDelayMillisWhenRetryAfterBeyondDeadlineThenNoRetry() {
+		assertTrue(retryPolicy.getRetryDelayMillis(new TooManyRequestsException("", 20000), 1, 0) < 0);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SingleFlightTest {
+
+	private static final String KEY = "account|service/resource";
+
+	private SingleFlight<String> singleFlight;
+
+	private ExecutorService executorService;
+
+	private AtomicInteger calls = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		singleFlight = new SingleFlight<>();
+		executorService = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		executorService.shutdownNow();
+	}
+
+	@Test
+	public void callWhenConcurrentCallsWithSameKeyThenSingleCallAndSharedResult() throws Exception {
+		Object sharedResult = new Object();
+
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(executorService.submit(() -> singleFlight.call(KEY, () -> {
+				calls.incrementAndGet();
+				awaitFollowers(3);
+				return sharedResult;
+			})));
+		}
+
+		for (Future<Object> result : results) {
+			assertSame(sharedResult, result.get(5, TimeUnit.SECONDS));
+		}
+
+		assertEquals(1, calls.get());
+		assertEquals(3, singleFlight.getCoalescedCount());
+	}
+
+	@Test
+	public void callWhenLeaderFailsThenFollowersGetSameFailure() throws Exception {
+		IllegalStateException failure = new IllegalStateException("Call failed.");
+
+		List<Future<Object>> results = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			results.add(executorService.submit(() -> singleFlight.call(KEY, () -> {
+				awaitFollowers(1);
+				throw failure;
+			})));
+		}
+
+		for (Future<Object> result : results) {
+			try {
+				result.get(5, TimeUnit.SECONDS);
+				throw new AssertionError("Expected failure.");
+			} catch (ExecutionException e) {
+				assertSame(failure, e.getCause());
+			}
+		}
+	}
+
+	@Test
+	public void callWhenPreviousCallCompletedThenCalledAgain() {
+		singleFlight.call(KEY, calls::incrementAndGet);
+		singleFlight.call(KEY, calls::incrementAndGet);
+
+		assertEquals(2, calls.get());
+		assertEquals(0, singleFlight.getCoalescedCount());
+	}
+
+	@Test
+	public void callAsyncWhenFollowerCancelledThenLeaderNotAffected() throws Exception {
+		CompletableFuture<String> call = new CompletableFuture<>();
+
+		CompletableFuture<String> leader = singleFlight.callAsync(KEY, () -> call);
+		CompletableFuture<String> follower = singleFlight.callAsync(KEY, () -> {
+			throw new AssertionError("Follower must not call.");
+		});
+
+		follower.cancel(false);
+		call.complete("result");
+
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		assertTrue(follower.isCancelled());
+		assertFalse(leader.isCompletedExceptionally());
+	}
+
+	private void awaitFollowers(int followers) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+		while (singleFlight.getCoalescedCount() < followers && System.nanoTime() < deadline) {
+			Thread.yield();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileResponseCacheTest {
+
+	private static final String KEY = "account|https://connect.garmin.com/proxy/user-service-1.0/json/account";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	private FileResponseCache fileResponseCache;
+
+	@Before
+	public void setUp() {
+		directory = temporaryFolder.getRoot().toPath().resolve("responses");
+
+		fileResponseCache = new FileResponseCache(directory);
+	}
+
+	@Test
+	public void getWhenNoFileThenEmpty() {
+		assertFalse(fileResponseCache.get(KEY).isPresent());
+	}
+
+	@Test
+	public void putThenGetSameResponse() {
+		byte[] content = "{ \"username\" : \"user\" }".getBytes(StandardCharsets.UTF_8);
+
+		fileResponseCache.put(KEY, new CachedResponse(content, "UTF-8", "\"v1\"", null, 1000L));
+
+		Optional<CachedResponse> cachedResponse = fileResponseCache.get(KEY);
+
+		assertTrue(cachedResponse.isPresent());
+		assertArrayEquals(content, cachedResponse.get().getContent());
+		assertEquals("UTF-8", cachedResponse.get().getCharset());
+		assertEquals("\"v1\"", cachedResponse.get().getETag());
+		assertNull(cachedResponse.get().getLastModified());
+		assertEquals(1000L, cachedResponse.get().getStoredAtMillis());
+	}
+
+	@Test
+	public void removeThenEmpty() {
+		fileResponseCache.put(KEY, new CachedResponse(new byte[0], "UTF-8", null, null, 1000L));
+
+		fileResponseCache.remove(KEY);
+
+		assertFalse(fileResponseCache.get(KEY).isPresent());
+	}
+
+	@Test
+	public void getWhenTruncatedFileThenEmpty() throws IOException {
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(DigestUtils.sha256Hex(KEY) + ".response"), new byte[] { 0, 0, 0, 1, 0 });
+
+		assertFalse(fileResponseCache.get(KEY).isPresent());
+	}
+}
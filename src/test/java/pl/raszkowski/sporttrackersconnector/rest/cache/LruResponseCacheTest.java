@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.rest.cache;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LruResponseCacheTest {
+
+	@Test
+	public void putWhenMaxEntriesExceededThenLeastRecentlyUsedEvicted() {
+		LruResponseCache lruResponseCache = new LruResponseCache(2);
+
+		lruResponseCache.put("a", response("a"));
+		lruResponseCache.put("b", response("b"));
+		lruResponseCache.get("a");
+		lruResponseCache.put("c", response("c"));
+
+		assertEquals(2, lruResponseCache.size());
+		assertTrue(lruResponseCache.get("a").isPresent());
+		assertFalse(lruResponseCache.get("b").isPresent());
+		assertTrue(lruResponseCache.get("c").isPresent());
+	}
+
+	@Test
+	public void getWhenOnlyInSecondTierThenPromoted() {
+		LruResponseCache secondTier = new LruResponseCache(10);
+		secondTier.put("a", response("a"));
+
+		LruResponseCache lruResponseCache = new LruResponseCache(10, secondTier);
+
+		assertTrue(lruResponseCache.get("a").isPresent());
+		assertEquals(1, lruResponseCache.size());
+	}
+
+	@Test
+	public void isFreshWhenTtlPassedThenFalse() {
+		CachedResponse cachedResponse = new CachedResponse(new byte[0], "UTF-8", null, null, 1000L);
+
+		assertTrue(cachedResponse.isFresh(500L, 1499L));
+		assertFalse(cachedResponse.isFresh(500L, 1500L));
+		assertTrue(cachedResponse.revalidated(null, null, 1500L).isFresh(500L, 1500L));
+	}
+
+	private CachedResponse response(String content) {
+		return new CachedResponse(content.getBytes(StandardCharsets.UTF_8), "UTF-8", "\"" + content + "\"", null, System.currentTimeMillis());
+	}
+}
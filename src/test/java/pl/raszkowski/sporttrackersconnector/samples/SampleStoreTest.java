@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.samples;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SampleStoreTest {
+
+	private static final long ACTIVITY_ID = 1234L;
+	private static final long START_TIME_MILLIS = 1451606400000L;
+
+	private SampleStore sampleStore;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Before
+	public void setUp() throws IOException {
+		sampleStore = new SampleStore(temporaryFolder.newFolder().toPath());
+	}
+
+	private ActivitySamplesBuilder createSamples(int count) {
+		ActivitySamplesBuilder samplesBuilder = new ActivitySamplesBuilder();
+
+		for (int i = 0; i < count; i++) {
+			samplesBuilder.add(START_TIME_MILLIS + i * 1000L)
+					.set(SampleColumn.HEART_RATE, 100 + i % 50)
+					.set(SampleColumn.DISTANCE_METERS, i * 3.5f);
+		}
+
+		return samplesBuilder;
+	}
+
+	@Test
+	public void readWhenWrittenThenSameSamplesReturned() {
+		sampleStore.write(ACTIVITY_ID, createSamples(5000));
+
+		ActivitySamples samples = sampleStore.read(ACTIVITY_ID).get();
+
+		assertEquals(5000, samples.size());
+		assertEquals(EnumSet.of(SampleColumn.HEART_RATE, SampleColumn.DISTANCE_METERS), samples.getColumns());
+		assertEquals(START_TIME_MILLIS + 4999000L, samples.getTimestampMillis(4999));
+		assertEquals(149f, samples.get(SampleColumn.HEART_RATE, 4999), 0f);
+		assertEquals(4999 * 3.5f, samples.column(SampleColumn.DISTANCE_METERS).get(4999), 0f);
+	}
+
+	@Test
+	public void readWhenNotWrittenThenEmpty() {
+		assertEquals(Optional.empty(), sampleStore.read(ACTIVITY_ID));
+		assertFalse(sampleStore.contains(ACTIVITY_ID));
+	}
+
+	@Test
+	public void readWhenDeletedThenEmpty() {
+		sampleStore.write(ACTIVITY_ID, createSamples(10));
+		assertTrue(sampleStore.contains(ACTIVITY_ID));
+
+		sampleStore.delete(ACTIVITY_ID);
+
+		assertFalse(sampleStore.read(ACTIVITY_ID).isPresent());
+	}
+
+	@Test
+	public void readWhenFileIsNotSamplesThenConnectorException() throws IOException {
+		Path directory = temporaryFolder.newFolder().toPath();
+		Files.write(directory.resolve(ACTIVITY_ID + ".samples"), new byte[] {1, 2, 3});
+
+		expectedException.expect(ConnectorException.class);
+
+		new SampleStore(directory).read(ACTIVITY_ID);
+	}
+
+	@Test
+	public void getWhenValueNotSetForSampleThenNaN() {
+		ActivitySamples samples = new ActivitySamplesBuilder()
+				.add(START_TIME_MILLIS)
+				.add(START_TIME_MILLIS + 1000L).set(SampleColumn.POWER_WATTS, 250f)
+				.build();
+
+		assertTrue(Float.isNaN(samples.get(SampleColumn.POWER_WATTS, 0)));
+		assertEquals(250f, samples.get(SampleColumn.POWER_WATTS, 1), 0f);
+		assertFalse(samples.has(SampleColumn.CADENCE));
+	}
+
+	@Test
+	public void addWhenTimestampEarlierThanPreviousThenConnectorException() {
+		expectedException.expect(ConnectorException.class);
+
+		new ActivitySamplesBuilder().add(START_TIME_MILLIS).add(START_TIME_MILLIS - 1);
+	}
+
+	@Test
+	public void sliceWhenRangeGivenThenSamplesInRangeReturned() {
+		sampleStore.write(ACTIVITY_ID, createSamples(100));
+
+		ActivitySamples slice = sampleStore.read(ACTIVITY_ID).get().slice(START_TIME_MILLIS + 10500L, START_TIME_MILLIS + 20000L);
+
+		assertEquals(9, slice.size());
+		assertEquals(START_TIME_MILLIS + 11000L, slice.getTimestampMillis(0));
+		assertEquals(111f, slice.get(SampleColumn.HEART_RATE, 0), 0f);
+		assertEquals(0, slice.indexOf(START_TIME_MILLIS));
+		assertEquals(9, slice.indexOf(START_TIME_MILLIS + 30000L));
+	}
+}
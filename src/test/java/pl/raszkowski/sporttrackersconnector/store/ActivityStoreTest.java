@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.store;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.Condition;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.Operator;
+import pl.raszkowski.sporttrackersconnector.garminconnect.ActivitiesSearchFields.SortOrder;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminAPIHandler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class ActivityStoreTest {
+
+	private static final long DAY_MILLIS = 86400000L;
+	private static final long FIRST_START_TIME_MILLIS = OffsetDateTime.of(2016, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli();
+
+	private ActivityStore activityStore;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException expectedException = ExpectedException.none();
+
+	@Before
+	public void setUp() {
+		activityStore = new ActivityStore();
+
+		for (int i = 1; i <= 10; i++) {
+			activityStore.put(activity(i, i % 2 == 0 ? "running" : "cycling", i * 1000.0));
+		}
+	}
+
+	@Test
+	public void searchGivenTypeAndStartTimeConditionsThenNewestFirstPage() {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.addConditions(
+				new Condition(StoredCondition.ACTIVITY_TYPE_FIELD, Operator.EQUAL, "running"),
+				new Condition(ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD, Operator.GREATER_THAN_OR_EQUAL, OffsetDateTime.of(2016, 1, 4, 0, 0, 0, 0, ZoneOffset.UTC)));
+		activitiesSearchFields.setStart(1);
+		activitiesSearchFields.setLimit(2);
+
+		assertEquals(Arrays.asList(8L, 6L), ids(activityStore.search(activitiesSearchFields)));
+	}
+
+	@Test
+	public void searchGivenStartTimeRangeAscendingThenOrderedByStartTime() {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.addConditions(
+				new Condition(ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD, Operator.GREATER_THAN, OffsetDateTime.of(2016, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC)),
+				new Condition(ActivitiesSearchFields.BEGIN_TIMESTAMP_FIELD, Operator.LESS_THAN_OR_EQUAL, "2016-01-06"));
+		activitiesSearchFields.setSortOrder(SortOrder.ASC);
+
+		assertEquals(Arrays.asList(3L, 4L, 5L), ids(activityStore.search(activitiesSearchFields)));
+	}
+
+	@Test
+	public void searchGivenDistanceConditionAndSortThenOrderedByDistance() {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.addConditions(
+				new Condition(StoredCondition.SUM_DISTANCE_FIELD, Operator.GREATER_THAN, "7000"),
+				new Condition(StoredCondition.ACTIVITY_TYPE_FIELD, Operator.NOT_EQUAL, "running"));
+		activitiesSearchFields.setSortField(StoredCondition.SUM_DISTANCE_FIELD);
+		activitiesSearchFields.setSortOrder(SortOrder.ASC);
+
+		assertEquals(Arrays.asList(9L), ids(activityStore.search(activitiesSearchFields)));
+	}
+
+	@Test
+	public void putWhenActivityAlreadyStoredThenReplacedInIndexes() {
+		activityStore.put(activity(2, "swimming", 500.0));
+
+		ActivitiesSearchFields runningSearchFields = new ActivitiesSearchFields();
+		runningSearchFields.addCondition(new Condition(StoredCondition.ACTIVITY_TYPE_FIELD, Operator.EQUAL, "running"));
+
+		ActivitiesSearchFields swimmingSearchFields = new ActivitiesSearchFields();
+		swimmingSearchFields.addCondition(new Condition(StoredCondition.ACTIVITY_TYPE_FIELD, Operator.CONTAINS, "swimming,hiking"));
+
+		assertEquals(10, activityStore.size());
+		assertEquals(Arrays.asList(10L, 8L, 6L, 4L), ids(activityStore.search(runningSearchFields)));
+		assertEquals(Arrays.asList(2L), ids(activityStore.search(swimmingSearchFields)));
+	}
+
+	@Test
+	public void searchWhenConditionNotSupportedThenException() {
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		activitiesSearchFields.addCondition(new Condition("activitySummaryEventType", Operator.EQUAL, "race"));
+
+		expectedException.expect(ConnectorException.class);
+		expectedException.expectMessage("Condition is not supported by the activity store, field = activitySummaryEventType, operator = EQUAL.");
+
+		activityStore.search(activitiesSearchFields);
+	}
+
+	@Test
+	public void openWhenStoreFileWrittenThenActivitiesRestored() throws IOException {
+		Path path = temporaryFolder.getRoot().toPath().resolve("activities.store");
+
+		try (ActivityStore persistentStore = new ActivityStore(path)) {
+			persistentStore.putAll(Arrays.asList(activity(1, "running", 1000.0), activity(2, null, 2000.0)));
+			persistentStore.put(activity(1, "hiking", 1500.0));
+		}
+
+		Files.write(path, new byte[] {0, 0, 0}, StandardOpenOption.APPEND);
+
+		try (ActivityStore reopenedStore = new ActivityStore(path)) {
+			assertEquals(2, reopenedStore.size());
+			assertEquals("hiking", reopenedStore.get(1).get().getType());
+			assertNull(reopenedStore.get(2).get().getType());
+			assertEquals(new ActivityWatermark(FIRST_START_TIME_MILLIS + 2 * DAY_MILLIS, 2), reopenedStore.getWatermark().get());
+
+			reopenedStore.put(activity(3, "running", 3000.0));
+		}
+
+		try (ActivityStore reopenedStore = new ActivityStore(path)) {
+			assertEquals(3, reopenedStore.size());
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void syncThenOnlyActivitiesNewerThanWatermarkFetched() {
+		GarminAPIHandler apiHandler = mock(GarminAPIHandler.class);
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+
+		doAnswer(invocation -> {
+			Consumer<Activity> activityConsumer = (Consumer<Activity>) invocation.getArguments()[2];
+			activityConsumer.accept(activity(11, "running", 11000.0));
+			activityConsumer.accept(activity(12, "running", 12000.0));
+			return null;
+		}).when(apiHandler).forEachNewActivity(eq(activitiesSearchFields), eq(new ActivityWatermark(FIRST_START_TIME_MILLIS + 10 * DAY_MILLIS, 10)), any(Consumer.class));
+
+		int fetched = activityStore.sync(apiHandler, activitiesSearchFields);
+
+		assertEquals(2, fetched);
+		assertEquals(12, activityStore.size());
+		assertFalse(activityStore.get(13).isPresent());
+		assertEquals(Collections.singleton(12L), activityStore.getWatermark().get().getActivityIds());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void syncWhenFetchingFailsThenNothingStoredAndNextSyncFetchesFromSameWatermark() {
+		GarminAPIHandler apiHandler = mock(GarminAPIHandler.class);
+		ActivitiesSearchFields activitiesSearchFields = new ActivitiesSearchFields();
+		ActivityWatermark watermark = new ActivityWatermark(FIRST_START_TIME_MILLIS + 10 * DAY_MILLIS, 10);
+
+		doAnswer(invocation -> {
+			Consumer<Activity> activityConsumer = (Consumer<Activity>) invocation.getArguments()[2];
+			activityConsumer.accept(activity(13, "running", 13000.0));
+			throw new ConnectorException("Unable to execute request.");
+		}).doAnswer(invocation -> {
+			Consumer<Activity> activityConsumer = (Consumer<Activity>) invocation.getArguments()[2];
+			activityConsumer.accept(activity(13, "running", 13000.0));
+			activityConsumer.accept(activity(12, "running", 12000.0));
+			activityConsumer.accept(activity(11, "running", 11000.0));
+			return null;
+		}).when(apiHandler).forEachNewActivity(eq(activitiesSearchFields), eq(watermark), any(Consumer.class));
+
+		try {
+			activityStore.sync(apiHandler, activitiesSearchFields);
+			throw new AssertionError("Expected ConnectorException.");
+		} catch (ConnectorException e) {
+			assertEquals(10, activityStore.size());
+			assertEquals(watermark, activityStore.getWatermark().get());
+		}
+
+		int fetched = activityStore.sync(apiHandler, activitiesSearchFields);
+
+		assertEquals(3, fetched);
+		assertEquals(13, activityStore.size());
+		assertEquals(Collections.singleton(13L), activityStore.getWatermark().get().getActivityIds());
+	}
+
+	private static Activity activity(long id, String type, double distanceMeters) {
+		Activity activity = new Activity();
+		activity.setId(id);
+		activity.setName("Activity " + id);
+		activity.setType(type);
+		activity.setStartTimeMillis(FIRST_START_TIME_MILLIS + id * DAY_MILLIS);
+		activity.setDistanceMeters(distanceMeters);
+		activity.setDurationSeconds(id * 600);
+		return activity;
+	}
+
+	private static List<Long> ids(List<Activity> activities) {
+		return activities.stream().map(Activity::getId).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.raszkowski.sporttrackersconnector.ConnectorException;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.configuration.ConnectorsConfiguration;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectCredentials;
+import pl.raszkowski.sporttrackersconnector.http.HttpTransport;
+import pl.raszkowski.sporttrackersconnector.metrics.MetricsRecorder;
+import pl.raszkowski.sporttrackersconnector.ratelimit.RateLimiters;
+import pl.raszkowski.sporttrackersconnector.rest.GetParameters;
+import pl.raszkowski.sporttrackersconnector.strava.exception.StravaAuthorizationException;
+import pl.raszkowski.sporttrackersconnector.test.FakeStravaServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class StravaConnectorTest {
+
+	private static final String USERNAME = "strava-user";
+	private static final String REFRESH_TOKEN = "refresh-token";
+
+	private static final String REFRESH_AHEAD_PROPERTY = "strava.oauth.refreshAheadMillis";
+
+	private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private ConnectorsConfiguration connectorsConfiguration = ConnectorsConfiguration.getInstance();
+
+	private FakeStravaServer fakeServer;
+
+	private HttpTransport httpTransport;
+
+	private StravaCredentials credentials;
+
+	@Before
+	public void setUp() throws IOException {
+		fakeServer = new FakeStravaServer();
+		fakeServer.addRefreshToken(REFRESH_TOKEN);
+		fakeServer.setReadRateLimits(1000, DAY_MILLIS, 1000, 100000);
+		fakeServer.start();
+		fakeServer.applyToSystemProperties();
+
+		setQuotaScheduler(new StravaQuotaScheduler(1000, DAY_MILLIS, 1000, 100000, 1));
+
+		credentials = new StravaCredentials();
+		credentials.setUsername(USERNAME);
+		credentials.setClientId(FakeStravaServer.CLIENT_ID);
+		credentials.setClientSecret(FakeStravaServer.CLIENT_SECRET);
+		credentials.setRefreshToken(REFRESH_TOKEN);
+
+		httpTransport = new HttpTransport(connectorsConfiguration);
+	}
+
+	@After
+	public void tearDown() {
+		httpTransport.close();
+		fakeServer.close();
+
+		FakeStravaServer.clearSystemProperties();
+		System.clearProperty(REFRESH_AHEAD_PROPERTY);
+		setQuotaScheduler(new StravaQuotaScheduler(connectorsConfiguration.getStravaRateLimitShortWindowMillis(), connectorsConfiguration.getStravaRateLimitDailyWindowMillis(),
+				connectorsConfiguration.getStravaRateLimitShortLimit(), connectorsConfiguration.getStravaRateLimitDailyLimit(), connectorsConfiguration.getStravaRateLimitReservedRequests()));
+	}
+
+	@Test
+	public void authorizeWhenNoAccessTokenThenRefreshedAndRefreshTokenRotated() {
+		new StravaConnector(httpTransport).authorize(credentials);
+
+		assertEquals(1, fakeServer.getRefreshCount());
+		assertNotNull(credentials.getAccessToken());
+		assertNotEquals(REFRESH_TOKEN, credentials.getRefreshToken());
+		assertTrue(credentials.getAccessTokenExpiresAtMillis() > System.currentTimeMillis());
+	}
+
+	@Test
+	public void authorizeWhenAccessTokenValidThenNotRefreshed() {
+		new StravaConnector(httpTransport).authorize(credentials);
+		String accessToken = credentials.getAccessToken();
+
+		new StravaConnector(httpTransport).authorize(credentials);
+
+		assertEquals(1, fakeServer.getRefreshCount());
+		assertEquals(accessToken, credentials.getAccessToken());
+	}
+
+	@Test(expected = StravaAuthorizationException.class)
+	public void authorizeWhenRefreshTokenUnknownThenStravaAuthorizationException() {
+		credentials.setRefreshToken("unknown-refresh-token");
+
+		new StravaConnector(httpTransport).authorize(credentials);
+	}
+
+	@Test(expected = ConnectorException.class)
+	public void authorizeWhenNotStravaCredentialsThenConnectorException() {
+		new StravaConnector(httpTransport).authorize(new GarminConnectCredentials());
+	}
+
+	@Test
+	public void streamActivitiesWhenAuthorizedThenAllActivitiesNewestFirst() {
+		fakeServer.setActivitiesCount(25);
+
+		List<Activity> activities = streamActivities(new ActivityQuery(), 10);
+
+		assertEquals(25, activities.size());
+		assertEquals(25, activities.get(0).getId());
+		assertEquals(1, activities.get(24).getId());
+		assertEquals(FakeStravaServer.getStartTimeMillis(24), activities.get(0).getStartTimeMillis());
+		assertEquals("TrailRun", activities.get(24).getType());
+		assertEquals(5000.0, activities.get(24).getDistanceMeters(), 0.001);
+		assertEquals(1800.0, activities.get(24).getDurationSeconds(), 0.001);
+		assertEquals(120, activities.get(24).getAverageHeartRate());
+		assertEquals(3, fakeServer.getAPIRequestCount());
+	}
+
+	@Test
+	public void streamActivitiesWhenStartTimeBoundsGivenThenPagingStopsAtOlderActivity() {
+		fakeServer.setActivitiesCount(50);
+
+		ActivityQuery activityQuery = new ActivityQuery();
+		activityQuery.setStartTimeFromMillis(FakeStravaServer.getStartTimeMillis(20));
+		activityQuery.setStartTimeToMillis(FakeStravaServer.getStartTimeMillis(40) + 1);
+
+		List<Activity> activities = streamActivities(activityQuery, 10);
+
+		assertEquals(21, activities.size());
+		assertEquals(41, activities.get(0).getId());
+		assertEquals(21, activities.get(20).getId());
+		assertEquals(3, fakeServer.getAPIRequestCount());
+	}
+
+	@Test
+	public void streamActivitiesWhenLimitGivenThenOnlyNeededPagesRequested() {
+		ActivityQuery activityQuery = new ActivityQuery();
+		activityQuery.setLimit(15);
+
+		List<Activity> activities = streamActivities(activityQuery, 10);
+
+		assertEquals(15, activities.size());
+		assertEquals(2, fakeServer.getAPIRequestCount());
+	}
+
+	@Test
+	public void streamActivitiesWhenAccessTokenRevokedThenRefreshedAndReplayed() {
+		fakeServer.setActivitiesCount(5);
+
+		StravaConnector connector = new StravaConnector(httpTransport);
+		connector.authorize(credentials);
+
+		fakeServer.revokeAccessTokens();
+
+		List<Activity> activities;
+		try (Stream<Activity> stream = connector.streamActivities(new ActivityQuery())) {
+			activities = stream.collect(Collectors.toList());
+		}
+
+		assertEquals(5, activities.size());
+		assertEquals(1, fakeServer.getUnauthorizedCount());
+		assertEquals(2, fakeServer.getRefreshCount());
+	}
+
+	@Test
+	public void streamActivitiesWhenAccessTokenExpiresDuringSyncThenRefreshedBeforeExpiry() {
+		System.setProperty(REFRESH_AHEAD_PROPERTY, "1000");
+		fakeServer.setTokenLifetimeMillis(2000);
+		fakeServer.setActivitiesCount(20);
+
+		StravaConnector connector = new StravaConnector(httpTransport);
+		connector.authorize(credentials);
+
+		ActivityQuery activityQuery = new ActivityQuery();
+		activityQuery.setPageSize(2);
+
+		long count;
+		try (Stream<Activity> stream = connector.streamActivities(activityQuery)) {
+			count = stream.peek(activity -> sleep(150)).count();
+		}
+
+		assertEquals(20, count);
+		assertEquals(0, fakeServer.getUnauthorizedCount());
+		assertTrue(fakeServer.getRefreshCount() >= 2);
+	}
+
+	@Test
+	public void executeGETAsyncWhenAccessTokenExpiresSoonThenRefreshedOnRefreshExecutor() throws Exception {
+		System.setProperty(REFRESH_AHEAD_PROPERTY, "1000");
+		fakeServer.setTokenLifetimeMillis(1200);
+		fakeServer.setActivitiesCount(2);
+
+		List<String> refreshThreads = Collections.synchronizedList(new ArrayList<>());
+
+		StravaConnector connector = new StravaConnector(httpTransport);
+		connector.setMetricsRecorder(new MetricsRecorder() {
+			@Override
+			public void recordAuthorization(boolean successful, long durationNanos) {
+				refreshThreads.add(Thread.currentThread().getName());
+			}
+		});
+		connector.authorize(credentials);
+
+		sleep(300);
+
+		String activities = connector.getRESTExecutor().executeGETAsync("athlete", "activities", new GetParameters(), (content, charset) -> IOUtils.toString(content, charset))
+				.get(10, TimeUnit.SECONDS);
+
+		assertNotNull(activities);
+		assertEquals(0, fakeServer.getUnauthorizedCount());
+		assertEquals(2, refreshThreads.size());
+		assertTrue(refreshThreads.get(1).startsWith("strava-token-refresh-"));
+	}
+
+	@Test
+	public void streamActivitiesWhenQuotaSmallerThanConfiguredThenRequestsSpreadWithoutThrottling() {
+		fakeServer.setReadRateLimits(500, DAY_MILLIS, 6, 100000);
+		fakeServer.setActivitiesCount(40);
+
+		StravaQuotaScheduler quotaScheduler = new StravaQuotaScheduler(500, DAY_MILLIS, 100, 100000, 1);
+		setQuotaScheduler(quotaScheduler);
+
+		long startMillis = System.currentTimeMillis();
+
+		List<Activity> activities = streamActivities(new ActivityQuery(), 2);
+
+		assertEquals(40, activities.size());
+		assertEquals(21, fakeServer.getAPIRequestCount());
+		assertEquals(0, fakeServer.getThrottledCount());
+		assertTrue(fakeServer.getMaxShortUsage() <= 6);
+		assertEquals(6, quotaScheduler.getShortLimit());
+		assertTrue(System.currentTimeMillis() - startMillis >= 3 * 500);
+	}
+
+	private List<Activity> streamActivities(ActivityQuery activityQuery, int pageSize) {
+		StravaConnector connector = new StravaConnector(httpTransport);
+		connector.authorize(credentials);
+
+		activityQuery.setPageSize(pageSize);
+
+		try (Stream<Activity> activities = connector.streamActivities(activityQuery)) {
+			return activities.collect(Collectors.toList());
+		}
+	}
+
+	private static void setQuotaScheduler(StravaQuotaScheduler quotaScheduler) {
+		RateLimiters.setConnectorRateLimiter(Connectors.STRAVA, quotaScheduler);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.strava;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StravaQuotaSchedulerTest {
+
+	private static final long WINDOW = 1000;
+
+	private static final long DAY = 10 * WINDOW;
+
+	private AtomicLong clock = new AtomicLong(DAY);
+
+	private StravaQuotaScheduler quotaScheduler;
+
+	@Before
+	public void setUp() {
+		quotaScheduler = new StravaQuotaScheduler(WINDOW, DAY, 12, 100, 2, clock::get);
+	}
+
+	@Test
+	public void reserveWhenWindowStartsThenRequestsSpreadEvenlyOverWindow() {
+		assertEquals(0, quotaScheduler.reserve());
+		assertEquals(millis(100), quotaScheduler.reserve());
+		assertEquals(millis(200), quotaScheduler.reserve());
+	}
+
+	@Test
+	public void reserveWhenMiddleOfWindowThenRemainingBudgetSpreadOverRestOfWindow() {
+		clock.addAndGet(500);
+
+		assertEquals(0, quotaScheduler.reserve());
+		assertEquals(millis(50), quotaScheduler.reserve());
+	}
+
+	@Test
+	public void reserveWhenShortBudgetUsedThenWaitForNextWindow() {
+		for (int i = 0; i < 10; i++) {
+			clock.addAndGet(quotaScheduler.reserve() / TimeUnit.MILLISECONDS.toNanos(1));
+		}
+
+		assertEquals(DAY + 900, clock.get());
+		assertEquals(millis(100), quotaScheduler.reserve());
+		assertEquals(1, quotaScheduler.getShortUsage());
+	}
+
+	@Test
+	public void reserveWhenDailyBudgetUsedThenWaitForNextDay() {
+		quotaScheduler.update("12,4", "0,1");
+
+		assertEquals(0, quotaScheduler.reserve());
+		assertEquals(millis(DAY), quotaScheduler.reserve());
+	}
+
+	@Test
+	public void updateWhenLimitsAndUsageReportedThenTheyAreUsed() {
+		quotaScheduler.update("6,50", "3,20");
+
+		assertEquals(6, quotaScheduler.getShortLimit());
+		assertEquals(50, quotaScheduler.getDailyLimit());
+		assertEquals(3, quotaScheduler.getShortUsage());
+		assertEquals(20, quotaScheduler.getDailyUsage());
+		assertEquals(0, quotaScheduler.reserve());
+		assertEquals(millis(WINDOW), quotaScheduler.reserve());
+	}
+
+	@Test
+	public void updateWhenReportedUsageLowerThanLocalThenLocalKept() {
+		quotaScheduler.reserve();
+		quotaScheduler.reserve();
+
+		quotaScheduler.update("12,100", "1,1");
+
+		assertEquals(2, quotaScheduler.getShortUsage());
+		assertEquals(2, quotaScheduler.getDailyUsage());
+	}
+
+	@Test
+	public void updateWhenHeadersMalformedThenIgnored() {
+		quotaScheduler.update("12", "x,1");
+		quotaScheduler.update(null, null);
+
+		assertEquals(12, quotaScheduler.getShortLimit());
+		assertEquals(100, quotaScheduler.getDailyLimit());
+		assertEquals(0, quotaScheduler.getShortUsage());
+	}
+
+	@Test
+	public void onThrottledThenWaitForNextWindow() {
+		clock.addAndGet(300);
+
+		quotaScheduler.onThrottled(100);
+
+		assertEquals(millis(700), quotaScheduler.reserve());
+	}
+
+	@Test
+	public void reserveWhenLimitNotAboveReservedRequestsThenOneRequestPerWindow() {
+		quotaScheduler.update("1,100", "0,0");
+
+		assertEquals(0, quotaScheduler.reserve());
+		assertEquals(millis(WINDOW), quotaScheduler.reserve());
+	}
+
+	private static long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileCheckpointStoreTest {
+
+	private static final String BACKEND = "backend_value";
+
+	private static final String USERNAME = "username_value";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path directory;
+
+	private FileCheckpointStore fileCheckpointStore;
+
+	@Before
+	public void setUp() {
+		directory = temporaryFolder.getRoot().toPath().resolve("checkpoints");
+
+		fileCheckpointStore = new FileCheckpointStore(directory);
+	}
+
+	@Test
+	public void loadWhenNoFileThenEmpty() {
+		assertFalse(fileCheckpointStore.load(BACKEND, USERNAME).isPresent());
+	}
+
+	@Test
+	public void saveThenLoadSameWatermark() {
+		fileCheckpointStore.save(BACKEND, USERNAME, new ActivityWatermark(1475000000000L, 42));
+
+		Optional<ActivityWatermark> watermark = fileCheckpointStore.load(BACKEND, USERNAME);
+
+		assertTrue(watermark.isPresent());
+		assertEquals(new ActivityWatermark(1475000000000L, 42), watermark.get());
+	}
+
+	@Test
+	public void saveWhenManyActivitiesOfWatermarkStartTimeThenAllLoaded() {
+		fileCheckpointStore.save(BACKEND, USERNAME, new ActivityWatermark(1000, Arrays.asList(3L, 7L)));
+
+		assertEquals(new ActivityWatermark(1000, Arrays.asList(3L, 7L)), fileCheckpointStore.load(BACKEND, USERNAME).get());
+	}
+
+	@Test
+	public void loadWhenSingleActivityIdCheckpointThenLoaded() throws IOException {
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(DigestUtils.sha256Hex(BACKEND + "/" + USERNAME) + ".checkpoint.json"), "{ startTimeMillis : 1000, activityId : 1 }".getBytes(StandardCharsets.UTF_8));
+
+		assertEquals(new ActivityWatermark(1000, 1), fileCheckpointStore.load(BACKEND, USERNAME).get());
+	}
+
+	@Test
+	public void saveWhenWatermarkExistsThenReplaced() {
+		fileCheckpointStore.save(BACKEND, USERNAME, new ActivityWatermark(1000, 1));
+		fileCheckpointStore.save(BACKEND, USERNAME, new ActivityWatermark(2000, 2));
+
+		assertEquals(new ActivityWatermark(2000, 2), fileCheckpointStore.load(BACKEND, USERNAME).get());
+	}
+
+	@Test
+	public void loadWhenSameUsernameSavedForOtherBackendThenEmpty() {
+		fileCheckpointStore.save("other", USERNAME, new ActivityWatermark(1000, 1));
+
+		assertFalse(fileCheckpointStore.load(BACKEND, USERNAME).isPresent());
+	}
+
+	@Test
+	public void loadWhenCorruptedFileThenEmpty() throws IOException {
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(DigestUtils.sha256Hex(BACKEND + "/" + USERNAME) + ".checkpoint.json"), "{ startTimeMillis : ".getBytes(StandardCharsets.UTF_8));
+
+		assertFalse(fileCheckpointStore.load(BACKEND, USERNAME).isPresent());
+	}
+}
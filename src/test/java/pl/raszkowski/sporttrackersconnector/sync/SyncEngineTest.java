@@ -0,0 +1,378 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.sync;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import pl.raszkowski.sporttrackersconnector.Connector;
+import pl.raszkowski.sporttrackersconnector.Connectors;
+import pl.raszkowski.sporttrackersconnector.Credentials;
+import pl.raszkowski.sporttrackersconnector.activity.Activity;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityQuery;
+import pl.raszkowski.sporttrackersconnector.activity.ActivityWatermark;
+import pl.raszkowski.sporttrackersconnector.activity.PageRequestLimiter;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectConnector;
+import pl.raszkowski.sporttrackersconnector.garminconnect.GarminConnectCredentials;
+import pl.raszkowski.sporttrackersconnector.garminconnect.exception.GarminConnectAuthorizationException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SyncEngineTest {
+
+	private static final int PAGE_SIZE = 2;
+
+	private static final String API_PREFIX_URI = "https://connect.garmin.com/proxy/";
+
+	private SyncEngine syncEngine;
+
+	private ActivityQuery activityQuery;
+
+	private AtomicInteger concurrentAccounts = new AtomicInteger();
+
+	private AtomicInteger maxConcurrentAccounts = new AtomicInteger();
+
+	private AtomicInteger concurrentPageRequests = new AtomicInteger();
+
+	private AtomicInteger maxConcurrentPageRequests = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		syncEngine = new SyncEngine();
+		syncEngine.setVirtualThreadsEnabled(false);
+		syncEngine.setParallelism(2);
+
+		activityQuery = new ActivityQuery();
+		activityQuery.setPageSize(PAGE_SIZE);
+	}
+
+	@Test
+	public void syncWhenAllAccountsSucceedThenAllActivitiesPagedToSink() throws InterruptedException {
+		syncEngine.setConnectorSupplier(connectors(createConnector(3, null), createConnector(3, null)));
+
+		BlockingQueue<BlockingQueueActivitySink.SyncedActivity> queue = new ArrayBlockingQueue<>(100);
+
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), credentials("user2")), activityQuery, new BlockingQueueActivitySink(queue));
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(6, syncReport.getActivitiesSynced());
+		assertEquals(6, queue.size());
+		assertEquals("user1", syncReport.getResults().get(0).getUsername());
+		assertEquals(3, syncReport.getResults().get(0).getActivitiesSynced());
+	}
+
+	@Test
+	public void syncWhenAccountsOfManyBackendsThenEachSyncedByConnectorOfItsCredentials() throws InterruptedException {
+		Connector otherConnector = createConnector(4, null);
+		when(otherConnector.getName()).thenReturn("other");
+		Connector garminConnector = createConnector(2, null);
+
+		syncEngine.setConnectorFactory(credentials -> credentials instanceof GarminConnectCredentials ? garminConnector : otherConnector);
+
+		Credentials otherCredentials = () -> "other-user";
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), otherCredentials), activityQuery, (username, activity) -> {
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(2, syncReport.getResults().get(0).getActivitiesSynced());
+		assertEquals("other-user", syncReport.getResults().get(1).getUsername());
+		assertEquals(4, syncReport.getResults().get(1).getActivitiesSynced());
+		verify(otherConnector).authorize(otherCredentials);
+	}
+
+	@Test
+	public void syncWhenLastPageNotFullThenItIsReportedAsSynced() throws InterruptedException {
+		List<Integer> pagesSynced = Collections.synchronizedList(new ArrayList<>());
+		syncEngine.setSyncListener(new SyncListener() {
+			@Override
+			public void onPageSynced(String username, int activitiesSynced) {
+				pagesSynced.add(activitiesSynced);
+			}
+		});
+
+		syncEngine.setConnectorSupplier(connectors(createConnector(5, null)));
+
+		SyncReport syncReport = syncEngine.sync(Collections.singletonList(credentials("user1")), activityQuery, (username, activity) -> {
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(Arrays.asList(2, 4, 5), pagesSynced);
+	}
+
+	@Test
+	public void syncWhenAuthorizationFailsThenOnlyThatAccountFailed() throws InterruptedException {
+		List<String> failedAccounts = Collections.synchronizedList(new ArrayList<>());
+		syncEngine.setSyncListener(new SyncListener() {
+			@Override
+			public void onAccountFailed(String username, Exception exception) {
+				failedAccounts.add(username);
+			}
+		});
+
+		syncEngine.setConnectorSupplier(connectors(createConnector(1, new GarminConnectAuthorizationException("Wrong password.")), createConnector(1, null)));
+		syncEngine.setParallelism(1);
+
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), credentials("user2")), activityQuery, (username, activity) -> {
+		});
+
+		assertFalse(syncReport.isCompleted());
+		assertEquals(1, syncReport.getFailures().size());
+		assertEquals(AccountSyncResult.Status.FAILED, syncReport.getResults().get(0).getStatus());
+		assertEquals("Wrong password.", syncReport.getResults().get(0).getFailure().getMessage());
+		assertEquals(AccountSyncResult.Status.COMPLETED, syncReport.getResults().get(1).getStatus());
+		assertEquals(Collections.singletonList("user1"), failedAccounts);
+	}
+
+	@Test
+	public void syncWhenManyAccountsThenParallelismNotExceeded() throws InterruptedException {
+		syncEngine.setConnectorSupplier(connectors(IntStream.range(0, 10)
+				.mapToObj(i -> createConnector(1, null))
+				.toArray(GarminConnectConnector[]::new)));
+
+		List<GarminConnectCredentials> accounts = IntStream.range(0, 10)
+				.mapToObj(i -> credentials("user" + i))
+				.collect(Collectors.toList());
+
+		SyncReport syncReport = syncEngine.sync(accounts, activityQuery, (username, activity) -> {
+			int current = concurrentAccounts.incrementAndGet();
+			maxConcurrentAccounts.accumulateAndGet(current, Math::max);
+			Thread.sleep(10);
+			concurrentAccounts.decrementAndGet();
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(10, syncReport.getActivitiesSynced());
+		assertTrue(maxConcurrentAccounts.get() <= 2);
+	}
+
+	@Test
+	public void syncWhenNextPagePrefetchedThenPerHostConcurrencyNotExceeded() throws InterruptedException {
+		syncEngine.setPerHostConcurrency(1);
+		syncEngine.setConnectorSupplier(connectors(createPrefetchingConnector(6), createPrefetchingConnector(6)));
+
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), credentials("user2")), activityQuery, (username, activity) -> {
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(12, syncReport.getActivitiesSynced());
+		assertEquals(1, maxConcurrentPageRequests.get());
+	}
+
+	@Test
+	public void syncWhenBackendsOnSameHostThenPerHostConcurrencySharedByThem() throws InterruptedException {
+		syncEngine.setPerHostConcurrency(1);
+		GarminConnectConnector otherConnector = createPrefetchingConnector(6);
+		when(otherConnector.getName()).thenReturn("other");
+		when(otherConnector.getAPIPrefixURI()).thenReturn("https://CONNECT.garmin.com:443/other-api/");
+		syncEngine.setConnectorSupplier(connectors(createPrefetchingConnector(6), otherConnector));
+
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), credentials("user2")), activityQuery, (username, activity) -> {
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(12, syncReport.getActivitiesSynced());
+		assertEquals(1, maxConcurrentPageRequests.get());
+	}
+
+	@Test
+	public void syncWhenCheckpointStoredThenOnlyNewActivitiesSyncedAndWatermarkAdvanced() throws InterruptedException {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		checkpointStore.save(Connectors.GARMIN_CONNECT.getName(), "user1", new ActivityWatermark(3000, 3));
+		syncEngine.setCheckpointStore(checkpointStore);
+
+		syncEngine.setConnectorSupplier(connectors(createConnector(6, null)));
+
+		List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+
+		SyncReport syncReport = syncEngine.sync(Collections.singletonList(credentials("user1")), activityQuery, (username, activity) -> ids.add(activity.getId()));
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(Arrays.asList(5L, 4L), ids);
+		assertEquals(new ActivityWatermark(5000, 5), checkpointStore.load(Connectors.GARMIN_CONNECT.getName(), "user1").get());
+	}
+
+	@Test
+	public void syncWhenUnknownActivityOfWatermarkStartTimeThenSyncedAndAddedToWatermark() throws InterruptedException {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		checkpointStore.save(Connectors.GARMIN_CONNECT.getName(), "user1", new ActivityWatermark(3000, 3));
+		syncEngine.setCheckpointStore(checkpointStore);
+
+		Activity otherActivity = activity(5);
+		otherActivity.setStartTimeMillis(3000);
+
+		GarminConnectConnector connector = mock(GarminConnectConnector.class);
+		when(connector.getName()).thenReturn(Connectors.GARMIN_CONNECT.getName());
+		when(connector.getAPIPrefixURI()).thenReturn(API_PREFIX_URI);
+		doAnswer(invocation -> Stream.of(activity(3), otherActivity, activity(2))).when(connector).streamActivities(any(ActivityQuery.class), any(PageRequestLimiter.class));
+		syncEngine.setConnectorSupplier(connectors(connector));
+
+		List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+
+		SyncReport syncReport = syncEngine.sync(Collections.singletonList(credentials("user1")), activityQuery, (username, activity) -> ids.add(activity.getId()));
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(Collections.singletonList(5L), ids);
+		assertEquals(new ActivityWatermark(3000, Arrays.asList(3L, 5L)), checkpointStore.load(Connectors.GARMIN_CONNECT.getName(), "user1").get());
+	}
+
+	@Test
+	public void syncWhenSameUsernameInManyBackendsThenCheckpointsKeptSeparately() throws InterruptedException {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		checkpointStore.save(Connectors.GARMIN_CONNECT.getName(), "user1", new ActivityWatermark(3000, 3));
+		syncEngine.setCheckpointStore(checkpointStore);
+
+		Connector otherConnector = createConnector(6, null);
+		when(otherConnector.getName()).thenReturn("other");
+		syncEngine.setConnectorFactory(credentials -> credentials instanceof GarminConnectCredentials ? createConnector(6, null) : otherConnector);
+
+		Credentials otherCredentials = () -> "user1";
+		SyncReport syncReport = syncEngine.sync(Arrays.asList(credentials("user1"), otherCredentials), activityQuery, (username, activity) -> {
+		});
+
+		assertTrue(syncReport.isCompleted());
+		assertEquals(2, syncReport.getResults().get(0).getActivitiesSynced());
+		assertEquals(6, syncReport.getResults().get(1).getActivitiesSynced());
+		assertEquals(new ActivityWatermark(5000, 5), checkpointStore.load(Connectors.GARMIN_CONNECT.getName(), "user1").get());
+		assertEquals(new ActivityWatermark(5000, 5), checkpointStore.load("other", "user1").get());
+	}
+
+	@Test
+	public void syncWhenAccountFailsThenCheckpointNotAdvanced() throws InterruptedException {
+		CheckpointStore checkpointStore = new InMemoryCheckpointStore();
+		checkpointStore.save(Connectors.GARMIN_CONNECT.getName(), "user1", new ActivityWatermark(1000, 1));
+		syncEngine.setCheckpointStore(checkpointStore);
+
+		syncEngine.setConnectorSupplier(connectors(createConnector(6, null)));
+
+		SyncReport syncReport = syncEngine.sync(Collections.singletonList(credentials("user1")), activityQuery, (username, activity) -> {
+			if (activity.getId() == 3) {
+				throw new IllegalStateException("Sink failure.");
+			}
+		});
+
+		assertFalse(syncReport.isCompleted());
+		assertEquals(new ActivityWatermark(1000, 1), checkpointStore.load(Connectors.GARMIN_CONNECT.getName(), "user1").get());
+	}
+
+	private Supplier<GarminConnectConnector> connectors(GarminConnectConnector... connectors) {
+		Queue<GarminConnectConnector> queue = new ConcurrentLinkedQueue<>(Arrays.asList(connectors));
+
+		return queue::poll;
+	}
+
+	private GarminConnectConnector createConnector(int activities, RuntimeException authorizationFailure) {
+		GarminConnectConnector connector = mock(GarminConnectConnector.class);
+
+		if (authorizationFailure != null) {
+			doThrow(authorizationFailure).when(connector).authorize(any(Credentials.class));
+		}
+
+		when(connector.getName()).thenReturn(Connectors.GARMIN_CONNECT.getName());
+		when(connector.getAPIPrefixURI()).thenReturn(API_PREFIX_URI);
+
+		doAnswer(invocation -> {
+			ActivityQuery query = (ActivityQuery) invocation.getArguments()[0];
+
+			return IntStream.range(0, activities)
+					.map(i -> activities - 1 - i)
+					.mapToObj(this::activity)
+					.filter(activity -> activity.getStartTimeMillis() >= query.getStartTimeFromMillis());
+		}).when(connector).streamActivities(any(ActivityQuery.class), any(PageRequestLimiter.class));
+
+		return connector;
+	}
+
+	private GarminConnectConnector createPrefetchingConnector(int activities) {
+		GarminConnectConnector connector = mock(GarminConnectConnector.class);
+
+		when(connector.getName()).thenReturn(Connectors.GARMIN_CONNECT.getName());
+		when(connector.getAPIPrefixURI()).thenReturn(API_PREFIX_URI);
+
+		doAnswer(invocation -> {
+			PageRequestLimiter pageRequestLimiter = (PageRequestLimiter) invocation.getArguments()[1];
+
+			List<CompletableFuture<List<Activity>>> pages = new ArrayList<>();
+			pages.add(requestPage(pageRequestLimiter, 0, activities));
+
+			return IntStream.range(0, activities / PAGE_SIZE)
+					.mapToObj(page -> {
+						List<Activity> currentPage = pages.get(page).join();
+
+						if ((page + 1) * PAGE_SIZE < activities) {
+							pages.add(requestPage(pageRequestLimiter, (page + 1) * PAGE_SIZE, activities));
+						}
+
+						return currentPage;
+					})
+					.flatMap(List::stream);
+		}).when(connector).streamActivities(any(ActivityQuery.class), any(PageRequestLimiter.class));
+
+		return connector;
+	}
+
+	private CompletableFuture<List<Activity>> requestPage(PageRequestLimiter pageRequestLimiter, int start, int activities) {
+		return pageRequestLimiter.submit(() -> CompletableFuture.supplyAsync(() -> {
+			int current = concurrentPageRequests.incrementAndGet();
+			maxConcurrentPageRequests.accumulateAndGet(current, Math::max);
+			LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+			concurrentPageRequests.decrementAndGet();
+
+			return IntStream.range(start, start + PAGE_SIZE)
+					.map(i -> activities - 1 - i)
+					.mapToObj(this::activity)
+					.collect(Collectors.toList());
+		}));
+	}
+
+	private Activity activity(int id) {
+		Activity activity = new Activity();
+		activity.setId(id);
+		activity.setStartTimeMillis(id * 1000L);
+		return activity;
+	}
+
+	private GarminConnectCredentials credentials(String username) {
+		GarminConnectCredentials credentials = new GarminConnectCredentials();
+		credentials.setUsername(username);
+		credentials.setPassword("password");
+		return credentials;
+	}
+}
@@ -0,0 +1,614 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import pl.raszkowski.sporttrackersconnector.format.fit.FitFileBuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <pre>
+ *     Embeddable stand-in of Garmin Connect, listening on a random local port. Serves the SSO login page with
+ *     an "lt" token, the login form, the ticket redirect chain setting the session cookie, user-service account,
+ *     activity-search-service activities, activity details, GPX and TCX tracks and zipped FIT files.
+ *
+ *     REST requests can be slowed down, failed with 503 and throttled with 429, search filters other than
+ *     start, limit and sortOrder are ignored. Files honour "Range" requests, swimming activities have no GPX
+ *     and TCX tracks (404), and file transfers can be cut off to simulate interrupted downloads. Call {@link #applyToSystemProperties()} before creating connectors.
+ * </pre>
+ */
+public class FakeGarminConnectServer implements Closeable {
+
+	private static final String SSO_LOGIN_PATH = "/sso/login";
+	private static final String LOGIN_SERVICE_PATH = "/post-auth/login";
+	private static final String MODERN_PATH = "/modern/";
+	private static final String REST_PREFIX_PATH = "/proxy/";
+
+	private static final String USER_SERVICE = "user-service-1.0";
+	private static final String ACTIVITY_SEARCH_SERVICE = "activity-search-service-1.2";
+	private static final String ACTIVITY_SERVICE = "activity-service-1.3";
+	private static final String DOWNLOAD_SERVICE = "download-service";
+
+	private static final String DETAILS_PATH = REST_PREFIX_PATH + ACTIVITY_SERVICE + "/json/activity/";
+	private static final String GPX_PATH = REST_PREFIX_PATH + ACTIVITY_SERVICE + "/gpx/activity/";
+	private static final String TCX_PATH = REST_PREFIX_PATH + ACTIVITY_SERVICE + "/tcx/activity/";
+	private static final String FIT_PATH = REST_PREFIX_PATH + DOWNLOAD_SERVICE + "/files/activity/";
+
+	private static final String RANGE_PREFIX = "bytes=";
+
+	private static final String SESSION_COOKIE_NAME = "SESSIONID";
+
+	/**
+	 * Without TCP_NODELAY small responses wait for delayed ACKs, adding about 40 ms to every request.
+	 */
+	private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	private static final String SSO_LOGIN_PROPERTY = "garminconnect.uri.ssologin";
+	private static final String LOGIN_SERVICE_PROPERTY = "garminconnect.uri.loginService";
+	private static final String REST_PREFIX_PROPERTY = "garminconnect.uri.restPrefix";
+	private static final String USER_SERVICE_PROPERTY = "garminconnect.rest.userService";
+	private static final String ACTIVITY_SEARCH_SERVICE_PROPERTY = "garminconnect.rest.activitySearchService";
+
+	private static final long FIRST_START_TIME_MILLIS = 1451606400000L;
+	private static final long ACTIVITY_INTERVAL_MILLIS = 3600000L;
+	private static final int DEFAULT_LIMIT = 20;
+
+	private static final String[] ACTIVITY_TYPES = {"running", "cycling", "swimming", "hiking"};
+	private static final String SWIMMING = "swimming";
+
+	private static final long SAMPLE_INTERVAL_MILLIS = 1000L;
+
+	private final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+	private final Map<String, Boolean> loginTokens = new ConcurrentHashMap<>();
+
+	private final Map<String, String> tickets = new ConcurrentHashMap<>();
+
+	private final Map<String, String> sessions = new ConcurrentHashMap<>();
+
+	private final AtomicInteger loginCount = new AtomicInteger();
+
+	private final AtomicInteger restRequestCount = new AtomicInteger();
+
+	private final AtomicInteger failedCount = new AtomicInteger();
+
+	private final AtomicInteger throttledCount = new AtomicInteger();
+
+	private final AtomicInteger fileRequestCount = new AtomicInteger();
+
+	private final AtomicInteger rangeRequestCount = new AtomicInteger();
+
+	private volatile long latencyMillis;
+
+	private volatile int activitiesCount = 100;
+
+	private volatile int activityPaddingBytes;
+
+	private volatile double errorRate;
+
+	private volatile int maxRequestsPerSecond;
+
+	private volatile int trackPointsCount = 600;
+
+	private volatile boolean rangeSupported = true;
+
+	private volatile int fileTransferLimitBytes;
+
+	private long throttlingWindowStartMillis;
+
+	private int throttlingWindowRequests;
+
+	private HttpServer httpServer;
+
+	private ExecutorService executorService;
+
+	public void start() throws IOException {
+		System.setProperty(NO_DELAY_PROPERTY, Boolean.TRUE.toString());
+
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext(SSO_LOGIN_PATH, this::handleSSOLogin);
+		httpServer.createContext(LOGIN_SERVICE_PATH, this::handleLoginService);
+		httpServer.createContext(MODERN_PATH, exchange -> send(exchange, 200, "text/html", "<html><body>Garmin Connect</body></html>"));
+		httpServer.createContext(REST_PREFIX_PATH, this::handleREST);
+
+		executorService = Executors.newCachedThreadPool();
+		httpServer.setExecutor(executorService);
+		httpServer.start();
+	}
+
+	@Override
+	public void close() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+			executorService.shutdownNow();
+		}
+	}
+
+	public void addAccount(String username, String password) {
+		passwords.put(username, password);
+	}
+
+	/**
+	 * Drops all sessions, the next REST requests are redirected to the SSO login page.
+	 */
+	public void expireSessions() {
+		sessions.clear();
+	}
+
+	public void applyToSystemProperties() {
+		System.setProperty(SSO_LOGIN_PROPERTY, getBaseURI() + SSO_LOGIN_PATH.substring(1));
+		System.setProperty(LOGIN_SERVICE_PROPERTY, getBaseURI() + LOGIN_SERVICE_PATH.substring(1));
+		System.setProperty(REST_PREFIX_PROPERTY, getBaseURI() + REST_PREFIX_PATH.substring(1));
+		System.setProperty(USER_SERVICE_PROPERTY, USER_SERVICE);
+		System.setProperty(ACTIVITY_SEARCH_SERVICE_PROPERTY, ACTIVITY_SEARCH_SERVICE);
+	}
+
+	public static void clearSystemProperties() {
+		System.clearProperty(SSO_LOGIN_PROPERTY);
+		System.clearProperty(LOGIN_SERVICE_PROPERTY);
+		System.clearProperty(REST_PREFIX_PROPERTY);
+		System.clearProperty(USER_SERVICE_PROPERTY);
+		System.clearProperty(ACTIVITY_SEARCH_SERVICE_PROPERTY);
+	}
+
+	public String getBaseURI() {
+		return "http://127.0.0.1:" + httpServer.getAddress().getPort() + "/";
+	}
+
+	private void handleSSOLogin(HttpExchange exchange) throws IOException {
+		Map<String, String> query = parseParameters(exchange.getRequestURI().getRawQuery());
+
+		if ("GET".equals(exchange.getRequestMethod())) {
+			String loginToken = "LT-" + UUID.randomUUID();
+			loginTokens.put(loginToken, Boolean.TRUE);
+
+			send(exchange, 200, "text/html", "<html><body><form method=\"post\">\n"
+					+ "<input type=\"hidden\" name=\"lt\"       value=\"" + loginToken + "\" />\n"
+					+ "</form></body></html>");
+			return;
+		}
+
+		if (query.containsKey("ticket")) {
+			exchange.getResponseHeaders().add("Location", query.get("service") + "?ticket=" + query.get("ticket"));
+			send(exchange, 302, "text/html", "");
+			return;
+		}
+
+		Map<String, String> form = parseParameters(IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8));
+		String username = form.get("username");
+
+		if (loginTokens.remove(StringUtils.defaultString(form.get("lt"))) == null || username == null
+				|| !StringUtils.equals(passwords.get(username), form.get("password"))) {
+			send(exchange, 200, "text/html", "<html><body>Invalid sign in. (Passwords are case sensitive.)</body></html>");
+			return;
+		}
+
+		String ticket = "ST-" + UUID.randomUUID();
+		tickets.put(ticket, username);
+		loginCount.incrementAndGet();
+
+		send(exchange, 200, "text/html", "<html><script>var response_url =\n'" + query.get("service") + "?ticket=" + ticket + "';</script></html>");
+	}
+
+	private void handleLoginService(HttpExchange exchange) throws IOException {
+		String username = tickets.remove(StringUtils.defaultString(parseParameters(exchange.getRequestURI().getRawQuery()).get("ticket")));
+
+		if (username == null) {
+			send(exchange, 403, "text/html", "");
+			return;
+		}
+
+		String sessionId = UUID.randomUUID().toString();
+		sessions.put(sessionId, username);
+
+		exchange.getResponseHeaders().add("Set-Cookie", SESSION_COOKIE_NAME + "=" + sessionId + "; Path=/");
+		exchange.getResponseHeaders().add("Location", getBaseURI() + MODERN_PATH.substring(1));
+		send(exchange, 302, "text/html", "");
+	}
+
+	private void handleREST(HttpExchange exchange) throws IOException {
+		restRequestCount.incrementAndGet();
+
+		String username = getSessionUsername(exchange);
+
+		if (username == null) {
+			exchange.getResponseHeaders().add("Location", getBaseURI() + SSO_LOGIN_PATH.substring(1));
+			send(exchange, 302, "text/html", "");
+			return;
+		}
+
+		if (isThrottled()) {
+			throttledCount.incrementAndGet();
+			exchange.getResponseHeaders().add("Retry-After", "1");
+			send(exchange, 429, "text/html", "");
+			return;
+		}
+
+		sleep(latencyMillis);
+
+		if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+			failedCount.incrementAndGet();
+			send(exchange, 503, "text/html", "");
+			return;
+		}
+
+		String path = exchange.getRequestURI().getPath();
+
+		if (path.equals(REST_PREFIX_PATH + USER_SERVICE + "/json/account")) {
+			send(exchange, 200, "application/json", "{\"account\":{\"username\":\"" + username + "\",\"displayName\":\"" + username + "\"}}");
+		} else if (path.equals(REST_PREFIX_PATH + ACTIVITY_SEARCH_SERVICE + "/json/activities")) {
+			send(exchange, 200, "application/json", activitiesPage(parseParameters(exchange.getRequestURI().getRawQuery())));
+		} else if (path.startsWith(DETAILS_PATH)) {
+			handleFile(exchange, "application/json", getActivityFile(Long.parseLong(path.substring(DETAILS_PATH.length())), "DETAILS"));
+		} else if (path.startsWith(GPX_PATH)) {
+			handleFile(exchange, "application/gpx+xml", getActivityFile(Long.parseLong(path.substring(GPX_PATH.length())), "GPX"));
+		} else if (path.startsWith(TCX_PATH)) {
+			handleFile(exchange, "application/vnd.garmin.tcx+xml", getActivityFile(Long.parseLong(path.substring(TCX_PATH.length())), "TCX"));
+		} else if (path.startsWith(FIT_PATH)) {
+			handleFile(exchange, "application/zip", getActivityFile(Long.parseLong(path.substring(FIT_PATH.length())), "FIT"));
+		} else {
+			send(exchange, 404, "text/html", "");
+		}
+	}
+
+	private void handleFile(HttpExchange exchange, String contentType, byte[] content) throws IOException {
+		fileRequestCount.incrementAndGet();
+
+		if (content == null) {
+			send(exchange, 404, "text/html", "");
+			return;
+		}
+
+		String range = exchange.getRequestHeaders().getFirst("Range");
+		int offset = 0;
+
+		if (range != null && rangeSupported && range.startsWith(RANGE_PREFIX) && range.endsWith("-")) {
+			rangeRequestCount.incrementAndGet();
+			offset = Integer.parseInt(range.substring(RANGE_PREFIX.length(), range.length() - 1));
+
+			if (offset >= content.length) {
+				exchange.getResponseHeaders().add("Content-Range", "bytes */" + content.length);
+				send(exchange, 416, "text/html", "");
+				return;
+			}
+
+			exchange.getResponseHeaders().add("Content-Range", "bytes " + offset + "-" + (content.length - 1) + "/" + content.length);
+		}
+
+		int length = content.length - offset;
+		int transferred = fileTransferLimitBytes > 0 ? Math.min(length, fileTransferLimitBytes) : length;
+
+		exchange.getResponseHeaders().add("Content-Type", contentType);
+		exchange.sendResponseHeaders(offset > 0 ? 206 : 200, length);
+
+		OutputStream responseBody = exchange.getResponseBody();
+		responseBody.write(content, offset, transferred);
+		responseBody.flush();
+
+		if (transferred < length) {
+			exchange.close();
+			return;
+		}
+
+		responseBody.close();
+	}
+
+	/**
+	 * <pre>
+	 *     Content served for an activity: DETAILS json, GPX or TCX track of {@link #setTrackPointsCount(int) track points}
+	 *     sampled every second, or FIT - a zip archive holding "&lt;activityId&gt;.fit".
+	 * </pre>
+	 *
+	 * @param activityId activity id
+	 * @param format DETAILS, GPX, TCX or FIT
+	 * @return content, null when the activity has no such file
+	 */
+	public byte[] getActivityFile(long activityId, String format) {
+		if (activityId < 1 || activityId > activitiesCount) {
+			return null;
+		}
+
+		int number = (int) activityId - 1;
+		boolean swimming = SWIMMING.equals(ACTIVITY_TYPES[number % ACTIVITY_TYPES.length]);
+
+		switch (format) {
+			case "DETAILS":
+				StringBuilder details = new StringBuilder();
+				appendActivity(details, number);
+				return details.toString().getBytes(StandardCharsets.UTF_8);
+			case "GPX":
+				return swimming ? null : gpxTrack(number).getBytes(StandardCharsets.UTF_8);
+			case "TCX":
+				return swimming ? null : tcxTrack(number).getBytes(StandardCharsets.UTF_8);
+			case "FIT":
+				return zip(activityId + ".fit", fitContent(number));
+			default:
+				return null;
+		}
+	}
+
+	private String gpxTrack(int number) {
+		StringBuilder content = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<gpx version=\"1.1\" creator=\"FakeGarminConnectServer\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n")
+				.append("<trk><name>Activity ").append(number + 1).append("</name><trkseg>\n");
+
+		for (int i = 0; i < trackPointsCount; i++) {
+			content.append("<trkpt lat=\"").append(latitude(i)).append("\" lon=\"").append(longitude(i)).append("\">")
+					.append("<ele>").append(elevation(i)).append("</ele>")
+					.append("<time>").append(sampleTime(number, i)).append("</time>")
+					.append("</trkpt>\n");
+		}
+
+		return content.append("</trkseg></trk></gpx>\n").toString();
+	}
+
+	private String tcxTrack(int number) {
+		StringBuilder content = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+				.append("<TrainingCenterDatabase xmlns=\"http://www.garmin.com/xmlschemas/TrainingCenterDatabase/v2\">\n")
+				.append("<Activities><Activity Sport=\"Other\"><Id>").append(sampleTime(number, 0)).append("</Id>\n")
+				.append("<Lap StartTime=\"").append(sampleTime(number, 0)).append("\"><Track>\n");
+
+		for (int i = 0; i < trackPointsCount; i++) {
+			content.append("<Trackpoint><Time>").append(sampleTime(number, i)).append("</Time>")
+					.append("<Position><LatitudeDegrees>").append(latitude(i)).append("</LatitudeDegrees>")
+					.append("<LongitudeDegrees>").append(longitude(i)).append("</LongitudeDegrees></Position>")
+					.append("<AltitudeMeters>").append(elevation(i)).append("</AltitudeMeters>")
+					.append("<DistanceMeters>").append(i * 3).append(".0</DistanceMeters>")
+					.append("<HeartRateBpm><Value>").append(120 + i % 50).append("</Value></HeartRateBpm>")
+					.append("</Trackpoint>\n");
+		}
+
+		return content.append("</Track></Lap></Activity></Activities></TrainingCenterDatabase>\n").toString();
+	}
+
+	private byte[] fitContent(int number) {
+		return FitFileBuilder.activity(trackPointsCount, FIRST_START_TIME_MILLIS + number * ACTIVITY_INTERVAL_MILLIS);
+	}
+
+	private static String latitude(int sample) {
+		return String.format(Locale.ROOT, "%.6f", 52.0 + sample * 0.00001);
+	}
+
+	private static String longitude(int sample) {
+		return String.format(Locale.ROOT, "%.6f", 21.0 + sample * 0.00002);
+	}
+
+	private static String elevation(int sample) {
+		return String.format(Locale.ROOT, "%.1f", 100.0 + sample % 20);
+	}
+
+	private static String sampleTime(int number, int sample) {
+		return Instant.ofEpochMilli(FIRST_START_TIME_MILLIS + number * ACTIVITY_INTERVAL_MILLIS + sample * SAMPLE_INTERVAL_MILLIS).toString();
+	}
+
+	private static byte[] zip(String name, byte[] content) {
+		ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+
+		try (ZipOutputStream zipOutputStream = new ZipOutputStream(zipped)) {
+			ZipEntry zipEntry = new ZipEntry(name);
+			zipEntry.setTime(FIRST_START_TIME_MILLIS);
+			zipOutputStream.putNextEntry(zipEntry);
+			zipOutputStream.write(content);
+			zipOutputStream.closeEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+
+		return zipped.toByteArray();
+	}
+
+	private String getSessionUsername(HttpExchange exchange) {
+		List<String> cookieHeaders = exchange.getRequestHeaders().get("Cookie");
+
+		if (cookieHeaders == null) {
+			return null;
+		}
+
+		for (String cookieHeader : cookieHeaders) {
+			for (String cookie : cookieHeader.split(";")) {
+				String[] nameValue = cookie.trim().split("=", 2);
+				if (nameValue.length == 2 && SESSION_COOKIE_NAME.equals(nameValue[0])) {
+					return sessions.get(nameValue[1]);
+				}
+			}
+		}
+
+		return null;
+	}
+
+	private synchronized boolean isThrottled() {
+		if (maxRequestsPerSecond <= 0) {
+			return false;
+		}
+
+		long nowMillis = System.currentTimeMillis();
+
+		if (nowMillis - throttlingWindowStartMillis >= TimeUnit.SECONDS.toMillis(1)) {
+			throttlingWindowStartMillis = nowMillis;
+			throttlingWindowRequests = 0;
+		}
+
+		return ++throttlingWindowRequests > maxRequestsPerSecond;
+	}
+
+	private String activitiesPage(Map<String, String> query) {
+		int start = Integer.parseInt(query.getOrDefault("start", "0"));
+		int limit = Integer.parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_LIMIT)));
+		boolean ascending = "ASC".equalsIgnoreCase(query.get("sortOrder"));
+		int end = Math.min(activitiesCount, start + limit);
+
+		StringBuilder content = new StringBuilder("{\"results\":{\"activities\":[");
+		for (int i = start; i < end; i++) {
+			if (i > start) {
+				content.append(',');
+			}
+			appendActivity(content, ascending ? i : activitiesCount - 1 - i);
+		}
+		content.append("],\"totalFound\":").append(activitiesCount).append("}}");
+
+		return content.toString();
+	}
+
+	private void appendActivity(StringBuilder content, int number) {
+		long startTimeMillis = FIRST_START_TIME_MILLIS + number * ACTIVITY_INTERVAL_MILLIS;
+
+		content.append("{\"activity\":{\"activityId\":").append(number + 1)
+				.append(",\"activityName\":{\"value\":\"Activity ").append(number + 1).append("\"}")
+				.append(",\"activityDescription\":{\"value\":\"").append(StringUtils.repeat('x', activityPaddingBytes)).append("\"}")
+				.append(",\"activityType\":{\"key\":\"").append(ACTIVITY_TYPES[number % ACTIVITY_TYPES.length]).append("\"}")
+				.append(",\"activitySummary\":{")
+				.append("\"BeginTimestamp\":{\"millis\":").append(startTimeMillis).append('}')
+				.append(",\"SumDuration\":{\"value\":\"").append(1800 + number % 3600).append("\",\"uom\":\"second\"}")
+				.append(",\"SumDistance\":{\"value\":\"").append(5 + number % 40).append("\",\"uom\":\"kilometer\"}")
+				.append(",\"WeightedMeanHeartRate\":{\"value\":\"").append(120 + number % 50).append("\",\"uom\":\"bpm\"}")
+				.append("}}}");
+	}
+
+	private static Map<String, String> parseParameters(String content) {
+		Map<String, String> parameters = new HashMap<>();
+
+		if (StringUtils.isEmpty(content)) {
+			return parameters;
+		}
+
+		for (String parameter : content.split("&")) {
+			String[] nameValue = parameter.split("=", 2);
+			if (nameValue.length == 2) {
+				parameters.put(decode(nameValue[0]), decode(nameValue[1]));
+			}
+		}
+
+		return parameters;
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void sleep(long millis) {
+		if (millis <= 0) {
+			return;
+		}
+
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void send(HttpExchange exchange, int statusCode, String contentType, String content) throws IOException {
+		byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().add("Content-Type", contentType + ";charset=UTF-8");
+		exchange.sendResponseHeaders(statusCode, contentBytes.length == 0 ? -1 : contentBytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(contentBytes);
+		}
+	}
+
+	public int getLoginCount() {
+		return loginCount.get();
+	}
+
+	public int getRESTRequestCount() {
+		return restRequestCount.get();
+	}
+
+	public int getFailedCount() {
+		return failedCount.get();
+	}
+
+	public int getThrottledCount() {
+		return throttledCount.get();
+	}
+
+	public int getFileRequestCount() {
+		return fileRequestCount.get();
+	}
+
+	public int getRangeRequestCount() {
+		return rangeRequestCount.get();
+	}
+
+	public void setLatencyMillis(long latencyMillis) {
+		this.latencyMillis = latencyMillis;
+	}
+
+	public void setActivitiesCount(int activitiesCount) {
+		this.activitiesCount = activitiesCount;
+	}
+
+	public void setActivityPaddingBytes(int activityPaddingBytes) {
+		this.activityPaddingBytes = activityPaddingBytes;
+	}
+
+	public void setErrorRate(double errorRate) {
+		this.errorRate = errorRate;
+	}
+
+	public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+		this.maxRequestsPerSecond = maxRequestsPerSecond;
+	}
+
+	public void setTrackPointsCount(int trackPointsCount) {
+		this.trackPointsCount = trackPointsCount;
+	}
+
+	/**
+	 * @param rangeSupported false to answer "Range" requests with the whole file
+	 */
+	public void setRangeSupported(boolean rangeSupported) {
+		this.rangeSupported = rangeSupported;
+	}
+
+	/**
+	 * @param fileTransferLimitBytes number of bytes after which file transfers are cut off, 0 for no limit
+	 */
+	public void setFileTransferLimitBytes(int fileTransferLimitBytes) {
+		this.fileTransferLimitBytes = fileTransferLimitBytes;
+	}
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * <pre>
+ *     Embeddable stand-in of Strava API v3, listening on a random local port. Serves the OAuth2 token endpoint
+ *     (refresh token grant only, refresh tokens are rotated) and "athlete/activities" paged with "before",
+ *     "page" and "per_page", newest first.
+ *
+ *     API requests are counted in epoch-aligned short and daily windows, as Strava does. Every response carries
+ *     "X-RateLimit-*" (overall) and "X-ReadRateLimit-*" (read) limit and usage headers; requests over the read limits
+ *     are rejected with 429. Requests without a valid, unexpired bearer token are rejected with 401.
+ *     Call {@link #applyToSystemProperties()} before creating connectors.
+ * </pre>
+ */
+public class FakeStravaServer implements Closeable {
+
+	public static final String CLIENT_ID = "12345";
+	public static final String CLIENT_SECRET = "client-secret";
+
+	private static final String TOKEN_PATH = "/oauth/token";
+	private static final String API_PREFIX_PATH = "/api/v3/";
+	private static final String ACTIVITIES_PATH = API_PREFIX_PATH + "athlete/activities";
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	/**
+	 * Without TCP_NODELAY small responses wait for delayed ACKs, adding about 40 ms to every request.
+	 */
+	private static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+	private static final String API_PREFIX_PROPERTY = "strava.uri.apiPrefix";
+	private static final String TOKEN_PROPERTY = "strava.uri.token";
+
+	private static final long FIRST_START_TIME_MILLIS = 1451606400000L;
+	private static final long ACTIVITY_INTERVAL_MILLIS = 3600000L;
+	private static final int DEFAULT_PER_PAGE = 30;
+
+	private static final String[] ACTIVITY_TYPES = {"Run", "Ride", "Swim", "Hike"};
+	private static final String[] SPORT_TYPES = {"TrailRun", "GravelRide", "Swim", "Hike"};
+
+	/**
+	 * Overall limits are twice the read limits, as in Strava.
+	 */
+	private static final int OVERALL_LIMIT_MULTIPLIER = 2;
+
+	private final Map<String, Boolean> refreshTokens = new ConcurrentHashMap<>();
+
+	private final Map<String, Long> accessTokens = new ConcurrentHashMap<>();
+
+	private final AtomicInteger refreshCount = new AtomicInteger();
+
+	private final AtomicInteger apiRequestCount = new AtomicInteger();
+
+	private final AtomicInteger unauthorizedCount = new AtomicInteger();
+
+	private final AtomicInteger throttledCount = new AtomicInteger();
+
+	private volatile long tokenLifetimeMillis = TimeUnit.HOURS.toMillis(6);
+
+	private volatile int activitiesCount = 100;
+
+	private volatile long shortWindowMillis = TimeUnit.MINUTES.toMillis(15);
+
+	private volatile long dailyWindowMillis = TimeUnit.DAYS.toMillis(1);
+
+	private volatile int shortReadLimit = 100;
+
+	private volatile int dailyReadLimit = 1000;
+
+	private long shortWindowStartMillis = Long.MIN_VALUE;
+
+	private long dailyWindowStartMillis = Long.MIN_VALUE;
+
+	private int shortUsage;
+
+	private int dailyUsage;
+
+	private int maxShortUsage;
+
+	private HttpServer httpServer;
+
+	private ExecutorService executorService;
+
+	public void start() throws IOException {
+		System.setProperty(NO_DELAY_PROPERTY, Boolean.TRUE.toString());
+
+		httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		httpServer.createContext(TOKEN_PATH, this::handleToken);
+		httpServer.createContext(API_PREFIX_PATH, this::handleAPI);
+
+		executorService = Executors.newCachedThreadPool();
+		httpServer.setExecutor(executorService);
+		httpServer.start();
+	}
+
+	@Override
+	public void close() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Registers refresh token of an athlete which has authorized the application.
+	 */
+	public void addRefreshToken(String refreshToken) {
+		refreshTokens.put(refreshToken, Boolean.TRUE);
+	}
+
+	/**
+	 * Revokes all access tokens, the next API requests are rejected with 401.
+	 */
+	public void revokeAccessTokens() {
+		accessTokens.clear();
+	}
+
+	public void applyToSystemProperties() {
+		System.setProperty(API_PREFIX_PROPERTY, getBaseURI() + API_PREFIX_PATH.substring(1));
+		System.setProperty(TOKEN_PROPERTY, getBaseURI() + TOKEN_PATH.substring(1));
+	}
+
+	public static void clearSystemProperties() {
+		System.clearProperty(API_PREFIX_PROPERTY);
+		System.clearProperty(TOKEN_PROPERTY);
+	}
+
+	public String getBaseURI() {
+		return "http://127.0.0.1:" + httpServer.getAddress().getPort() + "/";
+	}
+
+	private void handleToken(HttpExchange exchange) throws IOException {
+		Map<String, String> form = parseParameters(readContent(exchange.getRequestBody()));
+
+		if (!"POST".equals(exchange.getRequestMethod()) || !"refresh_token".equals(form.get("grant_type"))
+				|| !CLIENT_ID.equals(form.get("client_id")) || !CLIENT_SECRET.equals(form.get("client_secret"))
+				|| refreshTokens.remove(StringUtils.defaultString(form.get("refresh_token"))) == null) {
+			send(exchange, 400, "{\"message\":\"Bad Request\",\"errors\":[{\"resource\":\"RefreshToken\",\"code\":\"invalid\"}]}");
+			return;
+		}
+
+		refreshCount.incrementAndGet();
+
+		String refreshToken = "refresh-" + UUID.randomUUID();
+		String accessToken = "access-" + UUID.randomUUID();
+		long expiresAtSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + tokenLifetimeMillis);
+
+		refreshTokens.put(refreshToken, Boolean.TRUE);
+		accessTokens.put(accessToken, TimeUnit.SECONDS.toMillis(expiresAtSeconds));
+
+		send(exchange, 200, "{\"token_type\":\"Bearer\",\"access_token\":\"" + accessToken + "\",\"expires_at\":" + expiresAtSeconds
+				+ ",\"expires_in\":" + TimeUnit.MILLISECONDS.toSeconds(tokenLifetimeMillis) + ",\"refresh_token\":\"" + refreshToken + "\"}");
+	}
+
+	private void handleAPI(HttpExchange exchange) throws IOException {
+		apiRequestCount.incrementAndGet();
+
+		int[] usage = countRequest();
+		addRateLimitHeaders(exchange, usage);
+
+		if (usage[0] > shortReadLimit || usage[1] > dailyReadLimit) {
+			throttledCount.incrementAndGet();
+			send(exchange, 429, "{\"message\":\"Rate Limit Exceeded\"}");
+			return;
+		}
+
+		if (!isAuthorized(exchange)) {
+			unauthorizedCount.incrementAndGet();
+			send(exchange, 401, "{\"message\":\"Authorization Error\",\"errors\":[{\"resource\":\"AccessToken\",\"field\":\"access_token\",\"code\":\"invalid\"}]}");
+			return;
+		}
+
+		if (exchange.getRequestURI().getPath().equals(ACTIVITIES_PATH)) {
+			send(exchange, 200, activitiesPage(parseParameters(exchange.getRequestURI().getRawQuery())));
+		} else {
+			send(exchange, 404, "{\"message\":\"Record Not Found\"}");
+		}
+	}
+
+	private boolean isAuthorized(HttpExchange exchange) {
+		String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+		if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+			return false;
+		}
+
+		Long expiresAtMillis = accessTokens.get(authorization.substring(BEARER_PREFIX.length()));
+
+		return expiresAtMillis != null && System.currentTimeMillis() < expiresAtMillis;
+	}
+
+	/**
+	 * @return usage of short and daily window, including this request
+	 */
+	private synchronized int[] countRequest() {
+		long nowMillis = System.currentTimeMillis();
+
+		long shortWindowStart = nowMillis - Math.floorMod(nowMillis, shortWindowMillis);
+		if (shortWindowStart != shortWindowStartMillis) {
+			shortWindowStartMillis = shortWindowStart;
+			shortUsage = 0;
+		}
+
+		long dailyWindowStart = nowMillis - Math.floorMod(nowMillis, dailyWindowMillis);
+		if (dailyWindowStart != dailyWindowStartMillis) {
+			dailyWindowStartMillis = dailyWindowStart;
+			dailyUsage = 0;
+		}
+
+		shortUsage++;
+		dailyUsage++;
+		maxShortUsage = Math.max(maxShortUsage, shortUsage);
+
+		return new int[] {shortUsage, dailyUsage};
+	}
+
+	private void addRateLimitHeaders(HttpExchange exchange, int[] usage) {
+		exchange.getResponseHeaders().add("X-RateLimit-Limit", OVERALL_LIMIT_MULTIPLIER * shortReadLimit + "," + OVERALL_LIMIT_MULTIPLIER * dailyReadLimit);
+		exchange.getResponseHeaders().add("X-RateLimit-Usage", usage[0] + "," + usage[1]);
+		exchange.getResponseHeaders().add("X-ReadRateLimit-Limit", shortReadLimit + "," + dailyReadLimit);
+		exchange.getResponseHeaders().add("X-ReadRateLimit-Usage", usage[0] + "," + usage[1]);
+	}
+
+	private String activitiesPage(Map<String, String> query) {
+		int page = Integer.parseInt(query.getOrDefault("page", "1"));
+		int perPage = Integer.parseInt(query.getOrDefault("per_page", String.valueOf(DEFAULT_PER_PAGE)));
+		long beforeMillis = query.containsKey("before") ? TimeUnit.SECONDS.toMillis(Long.parseLong(query.get("before"))) : Long.MAX_VALUE;
+
+		int newest = activitiesCount - 1;
+		while (newest >= 0 && getStartTimeMillis(newest) >= beforeMillis) {
+			newest--;
+		}
+
+		StringBuilder content = new StringBuilder("[");
+		for (int i = newest - (page - 1) * perPage; i >= 0 && i > newest - page * perPage; i--) {
+			if (content.length() > 1) {
+				content.append(',');
+			}
+			appendActivity(content, i);
+		}
+		content.append(']');
+
+		return content.toString();
+	}
+
+	private void appendActivity(StringBuilder content, int number) {
+		content.append("{\"resource_state\":2,\"athlete\":{\"id\":1,\"resource_state\":1}")
+				.append(",\"name\":\"Activity ").append(number + 1).append('"')
+				.append(",\"distance\":").append(5000.0 + number % 40 * 1000)
+				.append(",\"moving_time\":").append(1700 + number % 3600)
+				.append(",\"elapsed_time\":").append(1800 + number % 3600)
+				.append(",\"type\":\"").append(ACTIVITY_TYPES[number % ACTIVITY_TYPES.length]).append('"')
+				.append(",\"sport_type\":\"").append(SPORT_TYPES[number % SPORT_TYPES.length]).append('"')
+				.append(",\"id\":").append(number + 1)
+				.append(",\"start_date\":\"").append(Instant.ofEpochMilli(getStartTimeMillis(number))).append('"')
+				.append(",\"average_heartrate\":").append(120.4 + number % 50)
+				.append(",\"max_heartrate\":null")
+				.append('}');
+	}
+
+	public static long getStartTimeMillis(int number) {
+		return FIRST_START_TIME_MILLIS + number * ACTIVITY_INTERVAL_MILLIS;
+	}
+
+	private static String readContent(InputStream content) throws IOException {
+		return IOUtils.toString(content, StandardCharsets.UTF_8);
+	}
+
+	private static Map<String, String> parseParameters(String content) {
+		Map<String, String> parameters = new HashMap<>();
+
+		if (StringUtils.isEmpty(content)) {
+			return parameters;
+		}
+
+		for (String parameter : content.split("&")) {
+			String[] nameValue = parameter.split("=", 2);
+			if (nameValue.length == 2) {
+				parameters.put(decode(nameValue[0]), decode(nameValue[1]));
+			}
+		}
+
+		return parameters;
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void send(HttpExchange exchange, int statusCode, String content) throws IOException {
+		byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+		exchange.sendResponseHeaders(statusCode, contentBytes.length == 0 ? -1 : contentBytes.length);
+		try (OutputStream responseBody = exchange.getResponseBody()) {
+			responseBody.write(contentBytes);
+		}
+	}
+
+	public int getRefreshCount() {
+		return refreshCount.get();
+	}
+
+	public int getAPIRequestCount() {
+		return apiRequestCount.get();
+	}
+
+	public int getUnauthorizedCount() {
+		return unauthorizedCount.get();
+	}
+
+	public int getThrottledCount() {
+		return throttledCount.get();
+	}
+
+	/**
+	 * @return the highest number of requests counted in one short window
+	 */
+	public synchronized int getMaxShortUsage() {
+		return maxShortUsage;
+	}
+
+	public void setTokenLifetimeMillis(long tokenLifetimeMillis) {
+		this.tokenLifetimeMillis = tokenLifetimeMillis;
+	}
+
+	public void setActivitiesCount(int activitiesCount) {
+		this.activitiesCount = activitiesCount;
+	}
+
+	/**
+	 * @param shortWindowMillis length of the short window
+	 * @param dailyWindowMillis length of the daily window
+	 * @param shortReadLimit read requests allowed in the short window
+	 * @param dailyReadLimit read requests allowed in the daily window
+	 */
+	public void setReadRateLimits(long shortWindowMillis, long dailyWindowMillis, int shortReadLimit, int dailyReadLimit) {
+		this.shortWindowMillis = shortWindowMillis;
+		this.dailyWindowMillis = dailyWindowMillis;
+		this.shortReadLimit = shortReadLimit;
+		this.dailyReadLimit = dailyReadLimit;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 Piotr Raszkowski
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package pl.raszkowski.sporttrackersconnector.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <pre>
+ *     Calls given task from a number of threads for a fixed time and reports throughput, latency percentiles
+ *     and errors. Duration can be raised for soak runs with "loadTest.durationMillis" system property.
+ * </pre>
+ */
+public class LoadDriver {
+
+	private static final String DURATION_PROPERTY = "loadTest.durationMillis";
+	private static final String THREADS_PROPERTY = "loadTest.threads";
+
+	@FunctionalInterface
+	public interface LoadTask {
+		void execute(int iteration) throws Exception;
+	}
+
+	public static class LoadReport {
+
+		private final long requests;
+
+		private final long errors;
+
+		private final long elapsedMillis;
+
+		private final long[] latenciesNanos;
+
+		LoadReport(long requests, long errors, long elapsedMillis, long[] latenciesNanos) {
+			this.requests = requests;
+			this.errors = errors;
+			this.elapsedMillis = elapsedMillis;
+			this.latenciesNanos = latenciesNanos;
+		}
+
+		public long getRequests() {
+			return requests;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getThroughputPerSecond() {
+			return elapsedMillis == 0 ? 0 : requests * 1000.0 / elapsedMillis;
+		}
+
+		public double getLatencyPercentileMillis(double percentile) {
+			if (latenciesNanos.length == 0) {
+				return 0;
+			}
+
+			int index = (int) Math.ceil(percentile / 100.0 * latenciesNanos.length) - 1;
+
+			return latenciesNanos[Math.max(0, index)] / 1000000.0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("LoadReport{requests=%d, errors=%d, throughput=%.1f/s, p50=%.2f ms, p99=%.2f ms, max=%.2f ms}",
+					requests, errors, getThroughputPerSecond(), getLatencyPercentileMillis(50), getLatencyPercentileMillis(99), getLatencyPercentileMillis(100));
+		}
+	}
+
+	private final int threads;
+
+	private final long durationMillis;
+
+	public LoadDriver(int threads, long durationMillis) {
+		this.threads = Integer.getInteger(THREADS_PROPERTY, threads);
+		this.durationMillis = Long.getLong(DURATION_PROPERTY, durationMillis);
+	}
+
+	public LoadReport run(LoadTask loadTask) throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(threads);
+		AtomicInteger iterations = new AtomicInteger();
+		AtomicLong errors = new AtomicLong();
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+		long startMillis = System.currentTimeMillis();
+
+		try {
+			List<Future<List<Long>>> workers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				workers.add(executorService.submit(() -> {
+					List<Long> latencies = new ArrayList<>();
+
+					while (System.nanoTime() < deadlineNanos) {
+						long requestStartNanos = System.nanoTime();
+						try {
+							loadTask.execute(iterations.getAndIncrement());
+						} catch (Exception e) {
+							errors.incrementAndGet();
+						}
+						latencies.add(System.nanoTime() - requestStartNanos);
+					}
+
+					return latencies;
+				}));
+			}
+
+			List<Long> latencies = new ArrayList<>();
+			for (Future<List<Long>> worker : workers) {
+				latencies.addAll(worker.get());
+			}
+
+			long[] latenciesNanos = latencies.stream().mapToLong(Long::longValue).toArray();
+			Arrays.sort(latenciesNanos);
+
+			return new LoadReport(latenciesNanos.length, errors.get(), System.currentTimeMillis() - startMillis, latenciesNanos);
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+}